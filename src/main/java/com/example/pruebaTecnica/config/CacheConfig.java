@@ -0,0 +1,13 @@
+package com.example.pruebaTecnica.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Habilita Spring Cache. El proveedor (Caffeine), los nombres de caché y su
+ * tamaño máximo se definen en application.properties (spring.cache.*)
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
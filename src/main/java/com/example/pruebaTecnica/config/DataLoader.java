@@ -4,6 +4,7 @@ import com.example.pruebaTecnica.entity.Grade;
 import com.example.pruebaTecnica.entity.User;
 import com.example.pruebaTecnica.repository.GradeRepository;
 import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.CourseDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,9 +16,10 @@ import org.springframework.stereotype.Component;
 /**
  * Carga datos de prueba en la base de datos al iniciar la aplicación
  * Aplica patrón Command para ejecutar la inicialización de datos
+ * No se ejecuta en producción: allí los datos persisten y no debe haber usuarios de demostración
  */
 @Component
-@Profile("!test")
+@Profile("!test & !prod")
 public class DataLoader implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DataLoader.class);
@@ -28,6 +30,9 @@ public class DataLoader implements CommandLineRunner {
     @Autowired
     private GradeRepository gradeRepository;
 
+    @Autowired
+    private CourseDictionary courseDictionary;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -49,8 +54,8 @@ public class DataLoader implements CommandLineRunner {
         userRepository.save(student);
 
         // Crear calificaciones de prueba para el estudiante
-        Grade grade1 = new Grade("Matemáticas", "Examen Parcial", 14.0, student);
-        Grade grade2 = new Grade("Programación", "Proyecto Final", 15.5, student);
+        Grade grade1 = new Grade(courseDictionary.reference("Matemáticas"), "Examen Parcial", Grade.toTenths(14.0), student);
+        Grade grade2 = new Grade(courseDictionary.reference("Programación"), "Proyecto Final", Grade.toTenths(15.5), student);
 
         gradeRepository.save(grade1);
         gradeRepository.save(grade2);
@@ -0,0 +1,98 @@
+package com.example.pruebaTecnica.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Retraso de las réplicas medido con un latido (heartbeat)
+ * En cada comprobación escribe la hora actual en replication_heartbeat del primario y lee la
+ * que tiene cada réplica: la diferencia es cuánto va por detrás, más como mucho un intervalo
+ * entre latidos. Una réplica que supera el retraso máximo, o que no responde, deja de recibir
+ * lecturas hasta que se pone al día.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String CREATE_TABLE =
+            "CREATE TABLE IF NOT EXISTS replication_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final ReplicaRoutingDataSource routing;
+    private final List<JdbcTemplate> replicas;
+    private final long maxLagMillis;
+    // Último retraso medido por réplica (-1 si no se pudo leer)
+    private final AtomicLongArray lagMillis;
+
+    public ReplicaLagMonitor(DataSource primary, ReplicaRoutingDataSource routing, Duration maxLag,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.routing = routing;
+        this.replicas = routing.getReplicas().stream().map(JdbcTemplate::new).toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagMillis = new AtomicLongArray(replicas.size());
+
+        List<HikariDataSource> pools = routing.getReplicas();
+        for (int i = 0; i < pools.size(); i++) {
+            int replica = i;
+            Gauge.builder("grades.datasource.replica.lag", this, monitor -> monitor.lagSeconds(replica))
+                    .description("Retraso de la réplica respecto al primario en el último latido (-1 si no responde)")
+                    .baseUnit("seconds")
+                    .tag("replica", pools.get(i).getPoolName())
+                    .register(meterRegistry);
+        }
+    }
+
+    private double lagSeconds(int replica) {
+        long lag = lagMillis.get(replica);
+        return lag < 0 ? -1 : lag / 1000.0;
+    }
+
+    /**
+     * Escribe el latido en el primario y actualiza qué réplicas pueden recibir lecturas
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${grades.replicas.heartbeat-interval:1s}")
+    public void checkReplicas() {
+        long now = System.currentTimeMillis();
+        try {
+            primary.execute(CREATE_TABLE);
+            primary.update("MERGE INTO replication_heartbeat (id, beat_millis) KEY (id) VALUES (1, ?)", now);
+        } catch (DataAccessException ex) {
+            logger.warn("No se pudo escribir el latido de replicación en el primario: {}", ex.getMessage());
+            return;
+        }
+
+        for (int replica = 0; replica < replicas.size(); replica++) {
+            long lag = measureLag(replica, now);
+            lagMillis.set(replica, lag);
+            boolean upToDate = lag >= 0 && lag <= maxLagMillis;
+            if (upToDate != routing.isAvailable(replica)) {
+                logger.info("Réplica {} {} (retraso: {} ms)", replica,
+                        upToDate ? "al día, vuelve a recibir lecturas" : "retrasada, las lecturas van al primario", lag);
+            }
+            routing.setAvailable(replica, upToDate);
+        }
+    }
+
+    private long measureLag(int replica, long now) {
+        try {
+            List<Long> beats = replicas.get(replica)
+                    .queryForList("SELECT beat_millis FROM replication_heartbeat WHERE id = 1", Long.class);
+            return beats.isEmpty() ? -1 : Math.max(0, now - beats.get(0));
+        } catch (DataAccessException ex) {
+            logger.debug("No se pudo leer el latido de la réplica {}: {}", replica, ex.getMessage());
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.pruebaTecnica.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Origen de las conexiones de las transacciones de solo lectura (grades.replicas.enabled=true)
+ * Reparte las lecturas entre las réplicas al día en turno rotatorio. Vuelve al primario si el
+ * usuario actual escribió hace poco (lee lo que acaba de escribir) o si ninguna réplica está
+ * dentro del retraso máximo que comprueba ReplicaLagMonitor.
+ * Cierra los pools de las réplicas al cerrarse el contexto; el del primario es un bean aparte.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    // 1 = réplica al día; empiezan fuera de servicio hasta la primera comprobación de retraso
+    private final AtomicIntegerArray available;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final Counter toReplica;
+    private final Counter stickyToPrimary;
+    private final Counter lagToPrimary;
+
+    public ReplicaRoutingDataSource(DataSource primary,
+                                    List<HikariDataSource> replicas,
+                                    ReadYourWritesTracker readYourWrites,
+                                    MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.readYourWrites = readYourWrites;
+        this.available = new AtomicIntegerArray(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+
+        this.toReplica = routeCounter(meterRegistry, "replica");
+        this.stickyToPrimary = routeCounter(meterRegistry, "primary-read-your-writes");
+        this.lagToPrimary = routeCounter(meterRegistry, "primary-replica-lag");
+    }
+
+    private static Counter routeCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("grades.datasource.read-only.connections")
+                .description("Conexiones de transacciones de solo lectura según su destino")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+
+    List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Marca una réplica como utilizable o no (la llama ReplicaLagMonitor en cada comprobación)
+     */
+    void setAvailable(int replica, boolean upToDate) {
+        available.set(replica, upToDate ? 1 : 0);
+    }
+
+    boolean isAvailable(int replica) {
+        return available.get(replica) == 1;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readYourWrites.currentUserWroteRecently()) {
+            stickyToPrimary.increment();
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int offset = 0; offset < size; offset++) {
+            int replica = (start + offset) % size;
+            if (isAvailable(replica)) {
+                toReplica.increment();
+                return replica;
+            }
+        }
+        lagToPrimary.increment();
+        return PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+    }
+}
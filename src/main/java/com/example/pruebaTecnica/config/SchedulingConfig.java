@@ -0,0 +1,12 @@
+package com.example.pruebaTecnica.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (reconstrucción y reconciliación de vistas en memoria)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,70 @@
+package com.example.pruebaTecnica.config;
+
+import com.example.pruebaTecnica.repository.GradeByStudentRepository;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * Caché de segundo nivel de Hibernate sobre JCache, con Caffeine como proveedor
+ * Las regiones y sus tamaños se definen en hibernate-cache.conf; el resto de opciones
+ * (región por defecto de consultas, estadísticas) en application.properties.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    static final String REGIONS_CONFIG = "hibernate-cache.conf";
+
+    /**
+     * Entrega a Hibernate un CacheManager propio de este contexto (Hibernate lo cierra al
+     * cerrarse la factoría de sesiones). El proveedor comparte un CacheManager por URI, así que
+     * el contexto va en el fragmento: dos contextos en la misma JVM, como los de las pruebas, no
+     * se mezclan entradas con ids de bases de datos distintas. El id del contexto no basta, porque
+     * Spring Boot le da a todos el nombre de la aplicación; se le añade su identidad.
+     * Con multi-tenancy crea además la región de consultas de cada tenant.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager(ApplicationContext context, Tenants tenants) {
+        return properties -> {
+            CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+            CacheManager cacheManager = provider.getCacheManager(regionsConfig(context), provider.getDefaultClassLoader());
+            createTenantRegions(cacheManager, tenants);
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+        };
+    }
+
+    /**
+     * Una copia de grades-by-student (tamaño y expiración) por tenant, con su nombre en regionOf
+     */
+    @SuppressWarnings("unchecked")
+    private static void createTenantRegions(CacheManager cacheManager, Tenants tenants) {
+        CaffeineConfiguration<Object, Object> template = cacheManager
+                .getCache(GradeByStudentRepository.GRADES_BY_STUDENT_REGION)
+                .getConfiguration(CaffeineConfiguration.class);
+        for (String tenant : tenants.ids()) {
+            String region = GradeByStudentRepository.regionOf(tenant);
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, new CaffeineConfiguration<>(template));
+            }
+        }
+    }
+
+    private static URI regionsConfig(ApplicationContext context) {
+        try {
+            return new URI("classpath", REGIONS_CONFIG, context.getId() + "-" + Integer.toHexString(System.identityHashCode(context)));
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException("URI de configuración de la caché no válida", ex);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.pruebaTecnica.config;
 import com.example.pruebaTecnica.repository.UserRepository;
 import com.example.pruebaTecnica.util.JwtUtils;
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -75,9 +76,15 @@ public class SecurityConfig {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
+                        // El re-despacho asíncrono de SSE ya fue autorizado en la petición original
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("TEACHER")
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/api/grades/**").hasAnyRole("TEACHER", "STUDENT")
+                        .requestMatchers("/api/analytics/**").hasRole("TEACHER")
+                        .requestMatchers("/api/transcript", "/api/finals", "/api/terms/**", "/api/courses/**").hasAnyRole("TEACHER", "STUDENT")
                         .anyRequest().authenticated())
                 .exceptionHandling(ex -> ex
                         .authenticationEntryPoint((request, response, authException) -> response
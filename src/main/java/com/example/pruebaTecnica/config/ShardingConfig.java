@@ -0,0 +1,181 @@
+package com.example.pruebaTecnica.config;
+
+import com.example.pruebaTecnica.repository.FinalGradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.TermRepository;
+import com.example.pruebaTecnica.repository.TranscriptRepository;
+import com.example.pruebaTecnica.sharding.ReferenceDataReplicator;
+import com.example.pruebaTecnica.sharding.ShardLayout;
+import com.example.pruebaTecnica.sharding.ShardMap;
+import com.example.pruebaTecnica.sharding.ShardedDataSource;
+import com.example.pruebaTecnica.sharding.ShardedGradeRepository;
+import com.example.pruebaTecnica.sharding.ShardedStudentDataRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.flywaydb.core.Flyway;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sharding horizontal de las calificaciones por estudiante (opcional, grades.sharding.enabled=true)
+ * Cada URL de grades.sharding.urls es un shard con el esquema completo (migraciones Flyway):
+ * el primero es además el directorio donde se escriben usuarios y cursos, que se copian a los
+ * demás. Las calificaciones de un estudiante viven solo en su shard (ver ShardMap) y cada shard
+ * genera ids de calificación congruentes con su número. El expediente y las notas finales viven
+ * en el shard del estudiante, junto a sus calificaciones, y los periodos en todos los shards.
+ * No se combina con las réplicas de lectura.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "grades.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardedDataSource dataSource(DataSourceProperties properties,
+                                        @Value("${grades.sharding.urls}") List<String> urls,
+                                        @Value("${grades.replicas.enabled:false}") boolean replicasEnabled,
+                                        @Value("${spring.flyway.enabled:true}") boolean flywayEnabled,
+                                        MeterRegistry meterRegistry) {
+        if (urls.isEmpty()) {
+            throw new IllegalStateException("grades.sharding.enabled=true requiere al menos una URL en grades.sharding.urls");
+        }
+        if (replicasEnabled) {
+            throw new IllegalStateException("grades.sharding.enabled y grades.replicas.enabled no se pueden activar a la vez");
+        }
+        if (!flywayEnabled) {
+            throw new IllegalStateException("grades.sharding.enabled=true requiere spring.flyway.enabled=true: "
+                    + "el esquema de cada shard lo crean las migraciones");
+        }
+        List<HikariDataSource> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i))
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            shard.setPoolName("shard-" + i);
+            shards.add(shard);
+        }
+        return new ShardedDataSource(shards, meterRegistry);
+    }
+
+    @Bean
+    public ShardMap shardMap(@Value("${grades.sharding.urls}") List<String> urls,
+                             @Value("${grades.sharding.buckets:64}") int buckets,
+                             @Value("${grades.sharding.bucket-map:}") String bucketMap) {
+        return ShardMap.of(urls.size(), buckets, bucketMap);
+    }
+
+    /**
+     * Migra cada shard con la configuración de spring.flyway.*, comprueba que sus datos se
+     * escribieron con el mismo reparto (ShardLayout) y deja la identidad de grades generando solo
+     * ids del shard: a partir del siguiente id libre del shard, de N en N
+     */
+    @Bean
+    public FlywayMigrationStrategy shardedMigrationStrategy(ShardedDataSource dataSource, ShardMap shardMap) {
+        return flyway -> {
+            for (int shard = 0; shard < dataSource.shardCount(); shard++) {
+                Flyway.configure(flyway.getConfiguration().getClassLoader())
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource.shard(shard))
+                        .load()
+                        .migrate();
+
+                JdbcTemplate jdbc = new JdbcTemplate(dataSource.shard(shard));
+                ShardLayout.verify(jdbc, shard, shardMap);
+                Long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM grades", Long.class);
+                jdbc.execute("ALTER TABLE grades ALTER COLUMN id RESTART WITH " + shardMap.nextGradeId(shard, maxId));
+                if (shardMap.shardCount() > 1) {
+                    jdbc.execute("ALTER TABLE grades ALTER COLUMN id SET INCREMENT BY " + shardMap.shardCount());
+                }
+            }
+        };
+    }
+
+    @Bean
+    public ShardedGradeRepository shardedGradeRepository(ShardMap shardMap, EntityManagerFactory entityManagerFactory,
+                                                         PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return new ShardedGradeRepository(shardMap,
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory), readOnlyTransaction);
+    }
+
+    @Bean
+    public ShardedStudentDataRepository shardedStudentDataRepository(ShardMap shardMap, ShardedDataSource dataSource) {
+        return new ShardedStudentDataRepository(shardMap, new JdbcTemplate(dataSource));
+    }
+
+    @Bean
+    public ReferenceDataReplicator referenceDataReplicator(ShardedDataSource dataSource,
+                                                           EntityManagerFactory entityManagerFactory) {
+        ReferenceDataReplicator replicator = new ReferenceDataReplicator(dataSource, entityManagerFactory);
+        replicator.synchronizeAll();
+        return replicator;
+    }
+
+    /**
+     * Pone ShardedGradeRepository delante del repositorio de Spring Data (y de su transacción),
+     * de modo que el shard ya está fijado cuando el repositorio pide la conexión
+     */
+    @Bean
+    public static BeanPostProcessor shardedGradeRepositoryPostProcessor(ObjectProvider<ShardedGradeRepository> interceptor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof GradeRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxy = new ProxyFactory();
+                proxy.setTarget(bean);
+                proxy.addInterface(GradeRepository.class);
+                proxy.addAdvice(interceptor.getObject());
+                return proxy.getProxy();
+            }
+        };
+    }
+
+    /**
+     * Igual que el anterior para los repositorios del expediente, las notas finales y los periodos
+     */
+    @Bean
+    public static BeanPostProcessor shardedStudentDataRepositoryPostProcessor(
+            ObjectProvider<ShardedStudentDataRepository> interceptor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                Class<?> repository = bean instanceof TranscriptRepository ? TranscriptRepository.class
+                        : bean instanceof FinalGradeRepository ? FinalGradeRepository.class
+                        : bean instanceof TermRepository ? TermRepository.class
+                        : null;
+                if (repository == null) {
+                    return bean;
+                }
+                ProxyFactory proxy = new ProxyFactory();
+                proxy.setTarget(bean);
+                proxy.addInterface(repository);
+                proxy.addAdvice(interceptor.getObject());
+                return proxy.getProxy();
+            }
+        };
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.pruebaTecnica.config;
+
+import com.example.pruebaTecnica.service.GradeCache;
+import com.example.pruebaTecnica.tenancy.TenantConnectionProvider;
+import com.example.pruebaTecnica.tenancy.TenantFilter;
+import com.example.pruebaTecnica.tenancy.TenantIdentifierResolver;
+import com.example.pruebaTecnica.tenancy.TenantRoutingDataSource;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import com.example.pruebaTecnica.util.JwtUtils;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-tenancy con un esquema por tenant (opcional, grades.tenancy.enabled=true)
+ * Cada tenant de grades.tenancy.tenants tiene su esquema en la base de spring.datasource (con
+ * el esquema completo de las migraciones Flyway) y su propio pool de conexiones, con límite
+ * grades.tenancy.pool-size.<tenant> o, si no se indica, grades.tenancy.max-pool-size. El tenant
+ * de cada petición lo resuelve TenantFilter a partir del token. No se combina con las réplicas
+ * de lectura ni con el sharding.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "grades.tenancy", name = "enabled", havingValue = "true")
+public class TenancyConfig {
+
+    @Bean
+    @Primary
+    public TenantRoutingDataSource dataSource(DataSourceProperties properties,
+                                              Tenants tenants,
+                                              Environment environment,
+                                              @Value("${grades.tenancy.max-pool-size:5}") int maxPoolSize,
+                                              @Value("${grades.tenancy.connection-timeout:30s}") Duration connectionTimeout,
+                                              @Value("${grades.replicas.enabled:false}") boolean replicasEnabled,
+                                              @Value("${grades.sharding.enabled:false}") boolean shardingEnabled,
+                                              @Value("${spring.flyway.enabled:true}") boolean flywayEnabled,
+                                              MeterRegistry meterRegistry) {
+        if (replicasEnabled || shardingEnabled) {
+            throw new IllegalStateException("grades.tenancy.enabled no se puede activar junto con "
+                    + "grades.replicas.enabled ni grades.sharding.enabled");
+        }
+        if (!flywayEnabled) {
+            throw new IllegalStateException("grades.tenancy.enabled=true requiere spring.flyway.enabled=true: "
+                    + "el esquema de cada tenant lo crean las migraciones");
+        }
+        // El pool fija el esquema en cada conexión nueva, así que tiene que existir antes de abrirlo
+        JdbcTemplate bootstrap = new JdbcTemplate(DataSourceBuilder.create()
+                .type(SimpleDriverDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(properties.determineUrl())
+                .username(properties.determineUsername())
+                .password(properties.determinePassword())
+                .build());
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (String tenant : tenants.ids()) {
+            bootstrap.execute("CREATE SCHEMA IF NOT EXISTS " + tenants.schemaOf(tenant));
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(properties.determineUrl())
+                    .username(properties.determineUsername())
+                    .password(properties.determinePassword())
+                    .build();
+            pool.setPoolName("tenant-" + tenant);
+            pool.setSchema(tenants.schemaOf(tenant));
+            pool.setMaximumPoolSize(environment.getProperty("grades.tenancy.pool-size." + tenant, Integer.class, maxPoolSize));
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            // hikaricp.connections.* con la etiqueta pool=tenant-<id>
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.put(tenant, pool);
+        }
+        return new TenantRoutingDataSource(tenants, pools);
+    }
+
+    /**
+     * Multi-tenancy de Hibernate: conexiones del pool del tenant de cada sesión
+     */
+    @Bean
+    public HibernatePropertiesCustomizer tenantHibernateProperties(TenantRoutingDataSource dataSource, Tenants tenants) {
+        return properties -> {
+            properties.put(AvailableSettings.MULTI_TENANT_CONNECTION_PROVIDER, new TenantConnectionProvider(dataSource, tenants));
+            properties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, new TenantIdentifierResolver(tenants));
+        };
+    }
+
+    /**
+     * Migra el esquema de cada tenant con la configuración de spring.flyway.*
+     * Flyway abre sus propias conexiones (necesita más de una): las migraciones no cuentan para el pool del tenant
+     */
+    @Bean
+    public FlywayMigrationStrategy tenantMigrationStrategy(DataSourceProperties properties, Tenants tenants) {
+        return flyway -> {
+            for (String tenant : tenants.ids()) {
+                Flyway.configure(flyway.getConfiguration().getClassLoader())
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(properties.determineUrl(), properties.determineUsername(), properties.determinePassword())
+                        .defaultSchema(tenants.schemaOf(tenant))
+                        .schemas(tenants.schemaOf(tenant))
+                        .load()
+                        .migrate();
+            }
+        };
+    }
+
+    /**
+     * Antes de la cadena de seguridad: JwtAuthFilter ya carga el usuario del esquema del tenant
+     */
+    @Bean
+    public FilterRegistrationBean<TenantFilter> tenantFilter(Tenants tenants, JwtUtils jwtUtils, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<TenantFilter> registration =
+                new FilterRegistrationBean<>(new TenantFilter(tenants, jwtUtils, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    /**
+     * Una caché de Spring por tenant para cada caché de GradeCache, con el tamaño de spring.cache.caffeine.spec
+     * cada una: un tenant no desaloja las entradas de otro y las métricas cache.* salen por tenant
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> tenantCaches(Tenants tenants) {
+        return cacheManager -> {
+            List<String> names = new ArrayList<>(cacheManager.getCacheNames());
+            for (String tenant : tenants.ids()) {
+                for (String cache : GradeCache.CACHE_NAMES) {
+                    names.add(GradeCache.cacheName(cache, tenant));
+                }
+            }
+            cacheManager.setCacheNames(names);
+        };
+    }
+}
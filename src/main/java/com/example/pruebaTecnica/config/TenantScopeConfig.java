@@ -0,0 +1,48 @@
+package com.example.pruebaTecnica.config;
+
+import com.example.pruebaTecnica.tenancy.TenantBindingPostProcessor;
+import com.example.pruebaTecnica.tenancy.TenantScope;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.CustomScopeConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Ámbito "tenant" de los componentes @TenantScoped
+ * Está siempre registrado: sin grades.tenancy.enabled hay un único tenant y esos componentes
+ * tienen una sola instancia, creada al arrancar igual que un singleton.
+ */
+@Configuration
+public class TenantScopeConfig {
+
+    @Bean
+    public static Tenants tenants(Environment environment) {
+        return Tenants.of(environment);
+    }
+
+    @Bean
+    public static TenantScope tenantScope(Tenants tenants) {
+        return new TenantScope(tenants);
+    }
+
+    @Bean
+    public static CustomScopeConfigurer tenantScopeConfigurer(TenantScope tenantScope) {
+        CustomScopeConfigurer configurer = new CustomScopeConfigurer();
+        configurer.addScope(TenantScope.NAME, tenantScope);
+        return configurer;
+    }
+
+    @Bean
+    public static TenantBindingPostProcessor tenantBindingPostProcessor(Tenants tenants) {
+        return new TenantBindingPostProcessor(tenants);
+    }
+
+    @Bean
+    public SmartInitializingSingleton tenantScopedInstances(ConfigurableListableBeanFactory beanFactory,
+                                                            TenantScope tenantScope) {
+        return () -> tenantScope.instantiateAll(beanFactory);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.pruebaTecnica.controller;
+
+import com.example.pruebaTecnica.dto.AnalyticsResultDto;
+import com.example.pruebaTecnica.dto.AnalyticsStatsDto;
+import com.example.pruebaTecnica.service.GradeAnalyticsStore;
+import com.example.pruebaTecnica.service.GradeAnalyticsStore.Filter;
+import com.example.pruebaTecnica.service.GradeAnalyticsStore.GroupBy;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controlador de agregaciones analíticas sobre todas las calificaciones
+ * Solo existe con el almacén analítico habilitado (grades.analytics.enabled=true)
+ */
+@RestController
+@RequestMapping("/api/analytics")
+@ConditionalOnProperty(prefix = "grades.analytics", name = "enabled", havingValue = "true")
+@Tag(name = "Analítica", description = "Agregaciones sobre todas las calificaciones para análisis institucional")
+@SecurityRequirement(name = "bearerAuth")
+public class AnalyticsController {
+
+    @Autowired
+    private GradeAnalyticsStore analyticsStore;
+
+    @GetMapping("/grades")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Agregar calificaciones", description = "Cantidad, promedio, mínima y máxima agrupadas por curso, estudiante o mes, "
+            + "con filtros opcionales de cursos, rango de fechas y rango de notas (solo profesores)")
+    public ResponseEntity<AnalyticsResultDto> aggregate(
+            @RequestParam(defaultValue = "COURSE") GroupBy groupBy,
+            @RequestParam(required = false) List<String> course,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) Double minScore,
+            @RequestParam(required = false) Double maxScore) {
+        AnalyticsResultDto result = analyticsStore.aggregate(groupBy, new Filter(course, from, to, minScore, maxScore));
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Ocupación del almacén analítico", description = "Filas, memoria fuera del heap y bytes por millón de calificaciones (solo profesores)")
+    public ResponseEntity<AnalyticsStatsDto> stats() {
+        return ResponseEntity.ok(analyticsStore.stats());
+    }
+}
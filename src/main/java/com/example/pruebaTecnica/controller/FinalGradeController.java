@@ -0,0 +1,81 @@
+package com.example.pruebaTecnica.controller;
+
+import com.example.pruebaTecnica.dto.ComponentDto;
+import com.example.pruebaTecnica.dto.FinalGradeDto;
+import com.example.pruebaTecnica.dto.RecomputationDto;
+import com.example.pruebaTecnica.service.FinalGradeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador de componentes de evaluación y notas finales ponderadas
+ */
+@RestController
+@RequestMapping("/api")
+@Tag(name = "Notas finales", description = "Componentes de evaluación por curso con su peso y notas finales ponderadas")
+@SecurityRequirement(name = "bearerAuth")
+public class FinalGradeController {
+
+    @Autowired
+    private FinalGradeService finalGradeService;
+
+    /**
+     * Notas finales del estudiante autenticado
+     */
+    @GetMapping("/finals")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Notas finales", description = "Nota final de cada curso con el promedio de cada componente (solo estudiantes)")
+    public ResponseEntity<List<FinalGradeDto>> getFinals() {
+        return ResponseEntity.ok(finalGradeService.getFinals());
+    }
+
+    /**
+     * Listar los componentes de un curso
+     */
+    @GetMapping("/courses/{course}/components")
+    @PreAuthorize("hasAnyRole('STUDENT','TEACHER')")
+    @Operation(summary = "Componentes de un curso", description = "Componentes de evaluación del curso con su peso")
+    public ResponseEntity<List<ComponentDto>> listComponents(@PathVariable String course) {
+        return ResponseEntity.ok(finalGradeService.listComponents(course));
+    }
+
+    /**
+     * Crear un componente o cambiar su peso
+     */
+    @PutMapping("/courses/{course}/components/{component}")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Definir componente", description = "Crea el componente o cambia su peso (solo profesores). Un cambio de peso "
+            + "recalcula en segundo plano las notas finales del curso; la respuesta incluye el recálculo lanzado")
+    public ResponseEntity<ComponentDto> defineComponent(@PathVariable String course, @PathVariable String component,
+                                                        @Valid @RequestBody ComponentDto componentDto) {
+        return ResponseEntity.ok(finalGradeService.defineComponent(course, component, componentDto.getWeight()));
+    }
+
+    /**
+     * Progreso de un recálculo de notas finales
+     */
+    @GetMapping("/courses/{course}/recomputations/{id}")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Progreso del recálculo", description = "Estudiantes y lotes procesados del recálculo de notas finales (solo profesores)")
+    public ResponseEntity<RecomputationDto> getRecomputation(@PathVariable String course, @PathVariable long id) {
+        return ResponseEntity.ok(finalGradeService.getRecomputation(course, id));
+    }
+
+    /**
+     * Notas finales de un curso
+     */
+    @GetMapping("/courses/{course}/finals")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Notas finales de un curso", description = "Nota final de cada estudiante del curso por username (solo profesores)")
+    public ResponseEntity<List<FinalGradeDto>> getCourseFinals(@PathVariable String course) {
+        return ResponseEntity.ok(finalGradeService.getCourseFinals(course));
+    }
+}
@@ -1,17 +1,38 @@
 package com.example.pruebaTecnica.controller;
 
+import com.example.pruebaTecnica.dto.CourseStatisticsDto;
+import com.example.pruebaTecnica.dto.GradeBatchDto;
+import com.example.pruebaTecnica.dto.GradeChangesDto;
 import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeRankDto;
+import com.example.pruebaTecnica.dto.GradeSummaryDto;
+import com.example.pruebaTecnica.dto.GradebookDto;
+import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.service.CourseStatistics;
 import com.example.pruebaTecnica.service.GradeService;
+import com.example.pruebaTecnica.service.GradeEventStream;
+import com.example.pruebaTecnica.service.GradeResponseCache;
+import com.example.pruebaTecnica.service.GradeResponseCache.CachedBody;
+import com.example.pruebaTecnica.service.IdempotencyService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.security.Principal;
 import java.util.List;
 
 /**
@@ -28,31 +49,195 @@ public class GradeController {
     @Autowired
     private GradeService gradeService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private GradeResponseCache gradeResponseCache;
+
+    @Autowired
+    private GradeEventStream gradeEventStream;
+
+    @Autowired
+    private CourseStatistics courseStatistics;
+
     /**
      * Registrar una nueva calificación
      */
     @PostMapping
     @PreAuthorize("hasRole('TEACHER')")
-    @Operation(summary = "Registrar calificación", description = "Registra una nueva calificación para un estudiante (solo profesores)")
-    public ResponseEntity<GradeDto> createGrade(@Valid @RequestBody GradeDto gradeDto) {
-        GradeDto createdGrade = gradeService.createGrade(gradeDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdGrade);
+    @Operation(summary = "Registrar calificación", description = "Registra una nueva calificación para un estudiante (solo profesores). "
+            + "Con el header Idempotency-Key los reintentos devuelven la respuesta original sin crear duplicados")
+    public ResponseEntity<GradeDto> createGrade(@Valid @RequestBody GradeDto gradeDto,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                Principal principal) {
+        return idempotencyService.execute(principal.getName(), idempotencyKey, gradeDto, () -> {
+            GradeDto createdGrade = gradeService.createGrade(gradeDto);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdGrade);
+        });
     }
 
-    @GetMapping
-    @PreAuthorize("hasRole('STUDENT')")
-    @Operation(summary = "Listar calificaciones", description = "Obtiene todas las calificaciones del estudiante autenticado (solo estudiantes)")
-    public ResponseEntity<List<GradeDto>> getAllGrades() {
-        List<GradeDto> grades = gradeService.getUserGrades();
+    /**
+     * Insertar o actualizar una calificación por su clave natural (estudiante, curso, evaluación)
+     */
+    @PutMapping
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Upsert de calificación", description = "Crea o actualiza la calificación identificada por estudiante, curso y evaluación (solo profesores)")
+    public ResponseEntity<GradeDto> upsertGrade(@Validated(GradeDto.Upsert.class) @RequestBody GradeDto gradeDto) {
+        GradeDto grade = gradeService.upsertGrade(gradeDto);
+        return ResponseEntity.ok(grade);
+    }
+
+    /**
+     * Upsert masivo, pensado para re-importaciones idempotentes desde el LMS
+     */
+    @PutMapping("/batch")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Upsert masivo de calificaciones", description = "Crea o actualiza un lote de calificaciones por clave natural (solo profesores)")
+    public ResponseEntity<List<GradeDto>> upsertGrades(@Validated(GradeDto.Upsert.class) @RequestBody GradeBatchDto batchDto) {
+        List<GradeDto> grades = gradeService.upsertGrades(batchDto.getGrades());
         return ResponseEntity.ok(grades);
     }
 
+    /**
+     * Listar calificaciones del estudiante autenticado
+     * Un If-None-Match vigente se responde con 304 leyendo solo el contador de versión;
+     * en otro caso se escribe el JSON ya serializado en caché directamente como bytes.
+     * Con includeArchived=true se añaden las notas archivadas (lectura histórica, sin caché de cuerpos)
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Listar calificaciones", description = "Obtiene todas las calificaciones del estudiante autenticado (solo estudiantes). "
+            + "Con includeArchived=true incluye también las archivadas")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = GradeDto.class))))
+    public ResponseEntity<byte[]> getAllGrades(@RequestParam(defaultValue = "false") boolean includeArchived,
+                                               Principal principal, WebRequest request) {
+        if (request.checkNotModified(gradeResponseCache.etag(principal.getName(), includeArchived))) {
+            return null; // 304 Not Modified
+        }
+        CachedBody body = includeArchived
+                ? gradeResponseCache.withArchived(principal.getName(), gradeService::getUserGradesIncludingArchived)
+                : gradeResponseCache.userGrades(principal.getName(), gradeService::getUserGrades);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(body.etag())
+                .body(body.bytes());
+    }
+
+    /**
+     * Suscripción a los cambios de calificaciones del estudiante (Server-Sent Events)
+     * Reemplaza el sondeo periódico de GET /api/grades
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Stream de calificaciones", description = "Envía por SSE los cambios en las calificaciones del estudiante autenticado. "
+            + "Con el header Last-Event-ID se reenvían los eventos perdidos desde ese id")
+    public SseEmitter streamGrades(Principal principal,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return gradeEventStream.subscribe(principal.getName(), lastEventId);
+    }
+
+    /**
+     * Sincronización incremental: solo lo creado, modificado o eliminado desde el cursor
+     */
+    @GetMapping("/changes")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Cambios de calificaciones", description = "Devuelve las calificaciones creadas o modificadas y los ids eliminados "
+            + "desde el cursor indicado (0 para la carga inicial), junto con el nuevo cursor (solo estudiantes)")
+    public ResponseEntity<GradeChangesDto> getGradeChanges(@RequestParam(defaultValue = "0") long since,
+                                                           @RequestParam(defaultValue = "500") int limit) {
+        GradeChangesDto changes = gradeService.getGradeChanges(since, limit);
+        return ResponseEntity.ok(changes);
+    }
+
+    /**
+     * Resumen estadístico del estudiante, para no descargar todas sus notas y calcularlo en el cliente
+     */
+    @GetMapping("/summary")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Resumen de calificaciones", description = "Cantidad, promedio, mínima, máxima, desviación estándar, última nota "
+            + "y nivel de logro por curso y en total del estudiante autenticado (solo estudiantes)")
+    public ResponseEntity<GradeSummaryDto> getGradeSummary() {
+        GradeSummaryDto summary = gradeService.getGradeSummary();
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * Libro de calificaciones: matriz estudiantes × cursos en una sola llamada
+     */
+    @GetMapping("/gradebook")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Libro de calificaciones", description = "Matriz estudiantes × cursos con el promedio (AVERAGE) o la última nota (LATEST) "
+            + "de cada celda, paginada por estudiante y filtrable por cursos. scores[c][s] es la nota del estudiante s en el curso c (solo profesores)")
+    public ResponseEntity<GradebookDto> getGradebook(@RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "100") int size,
+                                                     @RequestParam(required = false) List<String> course,
+                                                     @RequestParam(defaultValue = "AVERAGE") GradebookDto.CellValue value) {
+        GradebookDto gradebook = gradeService.getGradebook(page, size, course, value);
+        return ResponseEntity.ok(gradebook);
+    }
+
+    /**
+     * Estadísticas en vivo de todos los cursos, servidas desde los histogramas en memoria
+     */
+    @GetMapping("/statistics")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Estadísticas de cursos", description = "Promedio, mediana, percentiles y tasa de aprobación de cada curso (solo profesores). "
+            + "Con percentiles=... se eligen los percentiles a calcular (por defecto 25, 50, 75 y 90)")
+    public ResponseEntity<List<CourseStatisticsDto>> getAllCourseStatistics(
+            @RequestParam(required = false) List<Double> percentiles) {
+        List<CourseStatisticsDto> statistics = courseStatistics.allStatistics(
+                percentiles == null ? CourseStatistics.DEFAULT_PERCENTILES : percentiles);
+        return ResponseEntity.ok(statistics);
+    }
+
+    @GetMapping("/statistics/{course}")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Estadísticas de un curso", description = "Promedio, mediana, percentiles y tasa de aprobación del curso (solo profesores)")
+    public ResponseEntity<CourseStatisticsDto> getCourseStatistics(@PathVariable String course,
+                                                                   @RequestParam(required = false) List<Double> percentiles) {
+        CourseStatisticsDto statistics = courseStatistics.statistics(course,
+                        percentiles == null ? CourseStatistics.DEFAULT_PERCENTILES : percentiles)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso sin calificaciones: " + course));
+        return ResponseEntity.ok(statistics);
+    }
+
+    /**
+     * Ranking del curso: sus k mejores notas
+     */
+    @GetMapping("/statistics/{course}/top")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Mejores notas del curso", description = "Devuelve las k mejores notas del curso, de mayor a menor (solo profesores)")
+    public ResponseEntity<List<GradeDto>> getCourseTop(@PathVariable String course,
+                                                       @RequestParam(defaultValue = "10") int k) {
+        List<GradeDto> top = courseStatistics.top(course, k)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso sin calificaciones: " + course));
+        return ResponseEntity.ok(top);
+    }
+
+    /**
+     * Puesto de la calificación dentro de su curso (estudiantes solo las suyas)
+     */
+    @GetMapping("/{id}/rank")
+    @PreAuthorize("hasAnyRole('STUDENT','TEACHER')")
+    @Operation(summary = "Puesto en el curso", description = "Devuelve el puesto y el percentil de la calificación dentro de su curso")
+    public ResponseEntity<GradeRankDto> getGradeRank(@PathVariable Long id) {
+        GradeDto grade = gradeService.getGradeById(id);
+        GradeRankDto rank = courseStatistics.rank(grade)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso sin calificaciones: " + grade.getCourse()));
+        return ResponseEntity.ok(rank);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('STUDENT','TEACHER')")
     @Operation(summary = "Obtener calificación", description = "Obtiene una calificación específica por su ID (estudiantes solo las suyas)")
     public ResponseEntity<GradeDto> getGradeById(@PathVariable Long id) {
         GradeDto grade = gradeService.getGradeById(id);
-        return ResponseEntity.ok(grade);
+        // Con un If-None-Match vigente Spring responde 304 sin serializar el cuerpo
+        return ResponseEntity.ok()
+                .eTag(grade.getId() + "-" + grade.getUpdatedAt())
+                .body(grade);
     }
 
     @PutMapping("/{id}")
@@ -0,0 +1,72 @@
+package com.example.pruebaTecnica.controller;
+
+import com.example.pruebaTecnica.dto.CourseDto;
+import com.example.pruebaTecnica.dto.TermDto;
+import com.example.pruebaTecnica.dto.TranscriptDto;
+import com.example.pruebaTecnica.service.TranscriptService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador del expediente académico: periodos, créditos de los cursos y expediente del estudiante
+ */
+@RestController
+@RequestMapping("/api")
+@Tag(name = "Expediente", description = "Periodos académicos, créditos por curso y expediente con promedios")
+@SecurityRequirement(name = "bearerAuth")
+public class TranscriptController {
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    /**
+     * Expediente del estudiante autenticado
+     */
+    @GetMapping("/transcript")
+    @PreAuthorize("hasRole('STUDENT')")
+    @Operation(summary = "Expediente", description = "Promedio por curso y periodo, promedio de cada periodo y promedio acumulado "
+            + "ponderados por créditos (solo estudiantes)")
+    public ResponseEntity<TranscriptDto> getTranscript() {
+        return ResponseEntity.ok(transcriptService.getTranscript());
+    }
+
+    /**
+     * Listar periodos académicos
+     */
+    @GetMapping("/terms")
+    @PreAuthorize("hasAnyRole('STUDENT','TEACHER')")
+    @Operation(summary = "Listar periodos", description = "Periodos académicos en orden cronológico")
+    public ResponseEntity<List<TermDto>> listTerms() {
+        return ResponseEntity.ok(transcriptService.listTerms());
+    }
+
+    /**
+     * Crear un periodo académico
+     */
+    @PostMapping("/terms")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Crear periodo", description = "Crea un periodo que no se solape con los existentes y carga en el expediente "
+            + "las notas creadas entre sus fechas (solo profesores)")
+    public ResponseEntity<TermDto> createTerm(@Valid @RequestBody TermDto termDto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(transcriptService.createTerm(termDto));
+    }
+
+    /**
+     * Cambiar los créditos de un curso
+     */
+    @PutMapping("/courses/{course}/credits")
+    @PreAuthorize("hasRole('TEACHER')")
+    @Operation(summary = "Créditos de un curso", description = "Cambia el peso del curso en los promedios del expediente (solo profesores)")
+    public ResponseEntity<CourseDto> setCredits(@PathVariable String course, @Valid @RequestBody CourseDto courseDto) {
+        return ResponseEntity.ok(transcriptService.setCredits(course, courseDto.getCredits()));
+    }
+}
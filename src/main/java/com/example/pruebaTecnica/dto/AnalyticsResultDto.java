@@ -0,0 +1,129 @@
+package com.example.pruebaTecnica.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el resultado de una agregación del almacén analítico y las métricas del recorrido
+ */
+public class AnalyticsResultDto {
+
+    private String groupBy;
+    private List<Group> groups = new ArrayList<>();
+    private long scannedRows;
+    private long matchedRows;
+    private double elapsedMillis;
+    private double rowsPerSecond;
+
+    public AnalyticsResultDto() {}
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public void setScannedRows(long scannedRows) {
+        this.scannedRows = scannedRows;
+    }
+
+    public long getMatchedRows() {
+        return matchedRows;
+    }
+
+    public void setMatchedRows(long matchedRows) {
+        this.matchedRows = matchedRows;
+    }
+
+    public double getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(double elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Agregados de un grupo (curso, id de estudiante o mes "AAAA-MM")
+     */
+    public static class Group {
+
+        private String key;
+        private long count;
+        private double mean;
+        private double min;
+        private double max;
+
+        public Group() {}
+
+        public Group(String key, long count, double mean, double min, double max) {
+            this.key = key;
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public void setMean(double mean) {
+            this.mean = mean;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public void setMin(double min) {
+            this.min = min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public void setMax(double max) {
+            this.max = max;
+        }
+    }
+}
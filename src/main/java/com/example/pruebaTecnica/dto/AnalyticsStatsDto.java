@@ -0,0 +1,73 @@
+package com.example.pruebaTecnica.dto;
+
+/**
+ * DTO con la ocupación del almacén analítico
+ */
+public class AnalyticsStatsDto {
+
+    private long rows;
+    private long liveRows;
+    private long capacity;
+    private int courses;
+    private long offHeapBytes;
+    private int bytesPerRow;
+    private long bytesPerMillionGrades;
+
+    public AnalyticsStatsDto() {}
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getLiveRows() {
+        return liveRows;
+    }
+
+    public void setLiveRows(long liveRows) {
+        this.liveRows = liveRows;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getCourses() {
+        return courses;
+    }
+
+    public void setCourses(int courses) {
+        this.courses = courses;
+    }
+
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    public void setOffHeapBytes(long offHeapBytes) {
+        this.offHeapBytes = offHeapBytes;
+    }
+
+    public int getBytesPerRow() {
+        return bytesPerRow;
+    }
+
+    public void setBytesPerRow(int bytesPerRow) {
+        this.bytesPerRow = bytesPerRow;
+    }
+
+    public long getBytesPerMillionGrades() {
+        return bytesPerMillionGrades;
+    }
+
+    public void setBytesPerMillionGrades(long bytesPerMillionGrades) {
+        this.bytesPerMillionGrades = bytesPerMillionGrades;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.pruebaTecnica.dto;
+
+import com.example.pruebaTecnica.entity.CourseComponent;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO de un componente de evaluación de un curso con su peso
+ * Si el cambio de peso obliga a recalcular las notas finales del curso, incluye el recálculo lanzado.
+ */
+public class ComponentDto {
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String course;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String component;
+
+    @NotNull(message = "El peso es obligatorio")
+    @Min(value = 1, message = "El peso debe ser al menos 1")
+    @Max(value = CourseComponent.MAX_WEIGHT, message = "El peso no puede ser mayor que 100")
+    private Short weight;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private RecomputationDto recomputation;
+
+    public ComponentDto() {}
+
+    public ComponentDto(String course, String component, Short weight, RecomputationDto recomputation) {
+        this.course = course;
+        this.component = component;
+        this.weight = weight;
+        this.recomputation = recomputation;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
+    public Short getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Short weight) {
+        this.weight = weight;
+    }
+
+    public RecomputationDto getRecomputation() {
+        return recomputation;
+    }
+
+    public void setRecomputation(RecomputationDto recomputation) {
+        this.recomputation = recomputation;
+    }
+}
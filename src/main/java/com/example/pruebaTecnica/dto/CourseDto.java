@@ -0,0 +1,42 @@
+package com.example.pruebaTecnica.dto;
+
+import com.example.pruebaTecnica.entity.Course;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * DTO de un curso con sus créditos (peso en los promedios del expediente)
+ */
+public class CourseDto {
+
+    private String course;
+
+    @NotNull(message = "Los créditos son obligatorios")
+    @Min(value = 1, message = "Un curso tiene al menos 1 crédito")
+    @Max(value = Course.MAX_CREDITS, message = "Un curso no puede tener más de 30 créditos")
+    private Short credits;
+
+    public CourseDto() {}
+
+    public CourseDto(String course, Short credits) {
+        this.course = course;
+        this.credits = credits;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public Short getCredits() {
+        return credits;
+    }
+
+    public void setCredits(Short credits) {
+        this.credits = credits;
+    }
+}
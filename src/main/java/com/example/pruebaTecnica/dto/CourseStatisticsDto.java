@@ -0,0 +1,86 @@
+package com.example.pruebaTecnica.dto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DTO con las estadísticas de un curso calculadas sobre su histograma de notas
+ * Los percentiles se indexan por su valor ("p50" es la mediana)
+ */
+public class CourseStatisticsDto {
+
+    private String course;
+    private long count;
+    private Double mean;
+    private Double min;
+    private Double max;
+    private Double median;
+    private Map<String, Double> percentiles = new LinkedHashMap<>();
+    private Double passRate;
+
+    public CourseStatisticsDto() {}
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Double getMean() {
+        return mean;
+    }
+
+    public void setMean(Double mean) {
+        this.mean = mean;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Double getMedian() {
+        return median;
+    }
+
+    public void setMedian(Double median) {
+        this.median = median;
+    }
+
+    public Map<String, Double> getPercentiles() {
+        return percentiles;
+    }
+
+    public void setPercentiles(Map<String, Double> percentiles) {
+        this.percentiles = percentiles;
+    }
+
+    public Double getPassRate() {
+        return passRate;
+    }
+
+    public void setPassRate(Double passRate) {
+        this.passRate = passRate;
+    }
+}
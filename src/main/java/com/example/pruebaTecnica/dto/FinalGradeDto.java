@@ -0,0 +1,131 @@
+package com.example.pruebaTecnica.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con la nota final de un estudiante en un curso: promedio de los componentes con nota
+ * ponderado por su peso, en la escala de las notas. gradedWeight es la suma de los pesos que ya
+ * tienen nota y totalWeight la de todos los componentes del curso.
+ */
+public class FinalGradeDto {
+
+    private String student;
+    private String course;
+    private Double score;
+    private int gradedWeight;
+    private int totalWeight;
+    private List<ComponentResult> components = new ArrayList<>();
+
+    public FinalGradeDto() {}
+
+    public FinalGradeDto(String student, String course, Double score, int gradedWeight, int totalWeight,
+                         List<ComponentResult> components) {
+        this.student = student;
+        this.course = course;
+        this.score = score;
+        this.gradedWeight = gradedWeight;
+        this.totalWeight = totalWeight;
+        this.components = components;
+    }
+
+    public String getStudent() {
+        return student;
+    }
+
+    public void setStudent(String student) {
+        this.student = student;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public int getGradedWeight() {
+        return gradedWeight;
+    }
+
+    public void setGradedWeight(int gradedWeight) {
+        this.gradedWeight = gradedWeight;
+    }
+
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    public void setTotalWeight(int totalWeight) {
+        this.totalWeight = totalWeight;
+    }
+
+    public List<ComponentResult> getComponents() {
+        return components;
+    }
+
+    public void setComponents(List<ComponentResult> components) {
+        this.components = components;
+    }
+
+    /**
+     * Promedio simple de las notas de un componente
+     */
+    public static class ComponentResult {
+
+        private String component;
+        private short weight;
+        private long grades;
+        private Double average;
+
+        public ComponentResult() {}
+
+        public ComponentResult(String component, short weight, long grades, Double average) {
+            this.component = component;
+            this.weight = weight;
+            this.grades = grades;
+            this.average = average;
+        }
+
+        public String getComponent() {
+            return component;
+        }
+
+        public void setComponent(String component) {
+            this.component = component;
+        }
+
+        public short getWeight() {
+            return weight;
+        }
+
+        public void setWeight(short weight) {
+            this.weight = weight;
+        }
+
+        public long getGrades() {
+            return grades;
+        }
+
+        public void setGrades(long grades) {
+            this.grades = grades;
+        }
+
+        public Double getAverage() {
+            return average;
+        }
+
+        public void setAverage(Double average) {
+            this.average = average;
+        }
+    }
+}
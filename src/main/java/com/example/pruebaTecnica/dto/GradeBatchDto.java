@@ -0,0 +1,33 @@
+package com.example.pruebaTecnica.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para la carga masiva de notas (re-importaciones desde el LMS)
+ * Cada elemento se valida con las mismas reglas que el upsert individual
+ */
+public class GradeBatchDto {
+
+    @NotEmpty(message = "El lote debe contener al menos una nota")
+    @Size(max = 1000, message = "El lote no puede tener más de 1000 notas")
+    private List<@Valid GradeDto> grades = new ArrayList<>();
+
+    public GradeBatchDto() {}
+
+    public GradeBatchDto(List<GradeDto> grades) {
+        this.grades = grades;
+    }
+
+    public List<GradeDto> getGrades() {
+        return grades;
+    }
+
+    public void setGrades(List<GradeDto> grades) {
+        this.grades = grades;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.pruebaTecnica.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO de la sincronización incremental de calificaciones
+ * Contiene las notas creadas o modificadas y los ids eliminados desde el cursor recibido,
+ * junto con el cursor a enviar en la siguiente petición
+ */
+public class GradeChangesDto {
+
+    private List<GradeDto> changed = new ArrayList<>();
+    private List<Long> deleted = new ArrayList<>();
+    private long cursor;
+    private boolean hasMore;
+
+    public GradeChangesDto() {}
+
+    public GradeChangesDto(List<GradeDto> changed, List<Long> deleted, long cursor, boolean hasMore) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<GradeDto> getChanged() {
+        return changed;
+    }
+
+    public void setChanged(List<GradeDto> changed) {
+        this.changed = changed;
+    }
+
+    public List<Long> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<Long> deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(long cursor) {
+        this.cursor = cursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
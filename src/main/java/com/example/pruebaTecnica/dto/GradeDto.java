@@ -1,27 +1,54 @@
 package com.example.pruebaTecnica.dto;
 
+import com.example.pruebaTecnica.entity.Grade;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import jakarta.validation.groups.Default;
 
 import java.time.LocalDateTime;
 
 /**
  * DTO para las notas académicas (grades)
  * Encapsula los datos de la nota sin exponer detalles de implementación
+ * La nota se guarda en décimas como en Grade; en JSON se sigue leyendo y escribiendo "score" en puntos.
  */
 public class GradeDto {
 
+    /**
+     * Grupo de validación para el upsert por clave natural (estudiante, curso, evaluación)
+     */
+    public interface Upsert extends Default {}
+
     private Long id;
 
     @NotBlank(message = "El curso es obligatorio")
     @Size(max = 100)
     private String course;
 
-    @Min(0)
-    @Max(20)
-    private Double score;
+    @NotBlank(groups = Upsert.class, message = "La evaluación es obligatoria para el upsert")
+    @Size(max = 100)
+    private String assessment;
+
+    // Componente de evaluación del curso al que cuenta la nota (opcional). Solo se recibe: la nota
+    // final por componente se consulta en GET /api/finals
+    @Size(max = 50)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String component;
+
+    @NotNull(message = "La nota es obligatoria")
+    @Min(value = Grade.MIN_TENTHS, message = "La nota no puede ser menor que 0")
+    @Max(value = Grade.MAX_TENTHS, message = "La nota no puede ser mayor que 20")
+    private Short scoreTenths;
+
+    // false si la nota recibida tiene más de un decimal (no se redondea en silencio)
+    @AssertTrue(message = "La nota admite como máximo un decimal")
+    private boolean scoreInTenths = true;
 
     @Size(max = 500)
     private String comments;
@@ -36,11 +63,11 @@ public class GradeDto {
     public GradeDto() {}
 
     // Constructor completo
-    public GradeDto(Long id, String course, Double score, String comments, String studentUsername,
+    public GradeDto(Long id, String course, Short scoreTenths, String comments, String studentUsername,
                     LocalDateTime createdAt, LocalDateTime updatedAt) {
         this.id = id;
         this.course = course;
-        this.score = score;
+        this.scoreTenths = scoreTenths;
         this.comments = comments;
         this.studentUsername = studentUsername;
         this.createdAt = createdAt;
@@ -64,12 +91,40 @@ public class GradeDto {
         this.course = course;
     }
 
+    public String getAssessment() {
+        return assessment;
+    }
+
+    public void setAssessment(String assessment) {
+        this.assessment = assessment;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public void setComponent(String component) {
+        this.component = component;
+    }
+
     public Double getScore() {
-        return score;
+        return scoreTenths == null ? null : Grade.toPoints(scoreTenths);
     }
 
     public void setScore(Double score) {
-        this.score = score;
+        this.scoreTenths = score == null ? null : Grade.toTenths(score);
+        this.scoreInTenths = score == null || Math.abs(score * Grade.SCALE - Math.rint(score * Grade.SCALE)) < 1e-6;
+    }
+
+    @JsonIgnore
+    public Short getScoreTenths() {
+        return scoreTenths;
+    }
+
+    @JsonIgnore
+    public void setScoreTenths(Short scoreTenths) {
+        this.scoreTenths = scoreTenths;
+        this.scoreInTenths = true;
     }
 
     public String getComments() {
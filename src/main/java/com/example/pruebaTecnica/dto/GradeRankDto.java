@@ -0,0 +1,75 @@
+package com.example.pruebaTecnica.dto;
+
+/**
+ * DTO con la posición de una calificación dentro de su curso
+ * Las notas empatadas comparten puesto; el percentil es el porcentaje de notas del curso
+ * menores o iguales a esta
+ */
+public class GradeRankDto {
+
+    private Long gradeId;
+    private String course;
+    private Double score;
+    private long rank;
+    private long total;
+    private double percentile;
+
+    public GradeRankDto() {}
+
+    public GradeRankDto(Long gradeId, String course, Double score, long rank, long total, double percentile) {
+        this.gradeId = gradeId;
+        this.course = course;
+        this.score = score;
+        this.rank = rank;
+        this.total = total;
+        this.percentile = percentile;
+    }
+
+    public Long getGradeId() {
+        return gradeId;
+    }
+
+    public void setGradeId(Long gradeId) {
+        this.gradeId = gradeId;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public Double getScore() {
+        return score;
+    }
+
+    public void setScore(Double score) {
+        this.score = score;
+    }
+
+    public long getRank() {
+        return rank;
+    }
+
+    public void setRank(long rank) {
+        this.rank = rank;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+}
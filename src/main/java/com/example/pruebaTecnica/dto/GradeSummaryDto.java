@@ -0,0 +1,156 @@
+package com.example.pruebaTecnica.dto;
+
+import com.example.pruebaTecnica.entity.ScoreBand;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el resumen estadístico de las calificaciones del estudiante,
+ * por curso y en total
+ */
+public class GradeSummaryDto {
+
+    private Stats overall;
+    private List<Stats> courses = new ArrayList<>();
+
+    public GradeSummaryDto() {}
+
+    public GradeSummaryDto(Stats overall, List<Stats> courses) {
+        this.overall = overall;
+        this.courses = courses;
+    }
+
+    public Stats getOverall() {
+        return overall;
+    }
+
+    public void setOverall(Stats overall) {
+        this.overall = overall;
+    }
+
+    public List<Stats> getCourses() {
+        return courses;
+    }
+
+    public void setCourses(List<Stats> courses) {
+        this.courses = courses;
+    }
+
+    /**
+     * Estadísticas de un grupo de notas (un curso o el total, en cuyo caso course es null).
+     * El nivel y la aprobación se calculan sobre el promedio.
+     */
+    public static class Stats {
+
+        private String course;
+        private long count;
+        private Double mean;
+        private Double min;
+        private Double max;
+        private Double stdDev;
+        private Double latestScore;
+        private LocalDateTime latestAt;
+        private ScoreBand band;
+        private boolean passing;
+
+        public Stats() {}
+
+        public Stats(String course, long count, Double mean, Double min, Double max, Double stdDev,
+                     Double latestScore, LocalDateTime latestAt) {
+            this.course = course;
+            this.count = count;
+            this.mean = mean;
+            this.min = min;
+            this.max = max;
+            this.stdDev = stdDev;
+            this.latestScore = latestScore;
+            this.latestAt = latestAt;
+            if (mean != null) {
+                this.band = ScoreBand.of(mean);
+                this.passing = band.isPassing();
+            }
+        }
+
+        public String getCourse() {
+            return course;
+        }
+
+        public void setCourse(String course) {
+            this.course = course;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public Double getMean() {
+            return mean;
+        }
+
+        public void setMean(Double mean) {
+            this.mean = mean;
+        }
+
+        public Double getMin() {
+            return min;
+        }
+
+        public void setMin(Double min) {
+            this.min = min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public void setMax(Double max) {
+            this.max = max;
+        }
+
+        public Double getStdDev() {
+            return stdDev;
+        }
+
+        public void setStdDev(Double stdDev) {
+            this.stdDev = stdDev;
+        }
+
+        public Double getLatestScore() {
+            return latestScore;
+        }
+
+        public void setLatestScore(Double latestScore) {
+            this.latestScore = latestScore;
+        }
+
+        public LocalDateTime getLatestAt() {
+            return latestAt;
+        }
+
+        public void setLatestAt(LocalDateTime latestAt) {
+            this.latestAt = latestAt;
+        }
+
+        public ScoreBand getBand() {
+            return band;
+        }
+
+        public void setBand(ScoreBand band) {
+            this.band = band;
+        }
+
+        public boolean isPassing() {
+            return passing;
+        }
+
+        public void setPassing(boolean passing) {
+            this.passing = passing;
+        }
+    }
+}
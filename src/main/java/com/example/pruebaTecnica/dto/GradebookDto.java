@@ -0,0 +1,82 @@
+package com.example.pruebaTecnica.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO del libro de calificaciones en forma columnar compacta
+ * scores.get(c)[s] es la nota del estudiante students.get(s) en el curso courses.get(c)
+ * (null si no tiene notas en ese curso); value indica si es el promedio o la última nota
+ */
+public class GradebookDto {
+
+    public enum CellValue {
+        AVERAGE, LATEST
+    }
+
+    private CellValue value;
+    private int page;
+    private int size;
+    private boolean hasMore;
+    private List<String> students = new ArrayList<>();
+    private List<String> courses = new ArrayList<>();
+    private List<Double[]> scores = new ArrayList<>();
+
+    public GradebookDto() {}
+
+    public CellValue getValue() {
+        return value;
+    }
+
+    public void setValue(CellValue value) {
+        this.value = value;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public List<String> getStudents() {
+        return students;
+    }
+
+    public void setStudents(List<String> students) {
+        this.students = students;
+    }
+
+    public List<String> getCourses() {
+        return courses;
+    }
+
+    public void setCourses(List<String> courses) {
+        this.courses = courses;
+    }
+
+    public List<Double[]> getScores() {
+        return scores;
+    }
+
+    public void setScores(List<Double[]> scores) {
+        this.scores = scores;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.pruebaTecnica.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO con el progreso de un recálculo de las notas finales de un curso
+ * Los estudiantes se reparten en lotes que se recalculan en paralelo, cada uno en su transacción.
+ */
+public class RecomputationDto {
+
+    /**
+     * Estado del recálculo: PENDING hasta que se confirma el cambio de pesos que lo lanzó
+     */
+    public enum Status { PENDING, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private long id;
+    private String course;
+    private Status status;
+    private int students;
+    private int processed;
+    private int chunks;
+    private int completedChunks;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+
+    public RecomputationDto() {}
+
+    public RecomputationDto(long id, String course, Status status, int students, int processed, int chunks,
+                            int completedChunks, LocalDateTime startedAt, LocalDateTime finishedAt, String error) {
+        this.id = id;
+        this.course = course;
+        this.status = status;
+        this.students = students;
+        this.processed = processed;
+        this.chunks = chunks;
+        this.completedChunks = completedChunks;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.error = error;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCourse() {
+        return course;
+    }
+
+    public void setCourse(String course) {
+        this.course = course;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getStudents() {
+        return students;
+    }
+
+    public void setStudents(int students) {
+        this.students = students;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public int getCompletedChunks() {
+        return completedChunks;
+    }
+
+    public void setCompletedChunks(int completedChunks) {
+        this.completedChunks = completedChunks;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.pruebaTecnica.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+
+/**
+ * DTO de un periodo académico: código y fechas de inicio y fin (ambas incluidas)
+ */
+public class TermDto {
+
+    @NotBlank(message = "El código del periodo es obligatorio")
+    @Size(max = 50, message = "El código del periodo no puede tener más de 50 caracteres")
+    private String code;
+
+    @NotNull(message = "La fecha de inicio es obligatoria")
+    private LocalDate startsOn;
+
+    @NotNull(message = "La fecha de fin es obligatoria")
+    private LocalDate endsOn;
+
+    public TermDto() {}
+
+    public TermDto(String code, LocalDate startsOn, LocalDate endsOn) {
+        this.code = code;
+        this.startsOn = startsOn;
+        this.endsOn = endsOn;
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "La fecha de fin no puede ser anterior a la de inicio")
+    public boolean isOrdered() {
+        return startsOn == null || endsOn == null || !endsOn.isBefore(startsOn);
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public LocalDate getStartsOn() {
+        return startsOn;
+    }
+
+    public void setStartsOn(LocalDate startsOn) {
+        this.startsOn = startsOn;
+    }
+
+    public LocalDate getEndsOn() {
+        return endsOn;
+    }
+
+    public void setEndsOn(LocalDate endsOn) {
+        this.endsOn = endsOn;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.pruebaTecnica.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO con el expediente del estudiante: promedio de cada curso y de cada periodo y promedio
+ * acumulado (GPA), todos en la escala de las notas. Los promedios de periodo y el acumulado
+ * ponderan cada curso por sus créditos.
+ */
+public class TranscriptDto {
+
+    private String student;
+    private long credits;
+    private Double gpa;
+    private List<TermResult> terms = new ArrayList<>();
+
+    public TranscriptDto() {}
+
+    public TranscriptDto(String student, long credits, Double gpa, List<TermResult> terms) {
+        this.student = student;
+        this.credits = credits;
+        this.gpa = gpa;
+        this.terms = terms;
+    }
+
+    public String getStudent() {
+        return student;
+    }
+
+    public void setStudent(String student) {
+        this.student = student;
+    }
+
+    public long getCredits() {
+        return credits;
+    }
+
+    public void setCredits(long credits) {
+        this.credits = credits;
+    }
+
+    public Double getGpa() {
+        return gpa;
+    }
+
+    public void setGpa(Double gpa) {
+        this.gpa = gpa;
+    }
+
+    public List<TermResult> getTerms() {
+        return terms;
+    }
+
+    public void setTerms(List<TermResult> terms) {
+        this.terms = terms;
+    }
+
+    /**
+     * Resultado de un periodo: sus cursos y el promedio ponderado por créditos
+     */
+    public static class TermResult {
+
+        private String term;
+        private LocalDate startsOn;
+        private LocalDate endsOn;
+        private long credits;
+        private Double average;
+        private List<CourseResult> courses = new ArrayList<>();
+
+        public TermResult() {}
+
+        public TermResult(String term, LocalDate startsOn, LocalDate endsOn, long credits, Double average,
+                          List<CourseResult> courses) {
+            this.term = term;
+            this.startsOn = startsOn;
+            this.endsOn = endsOn;
+            this.credits = credits;
+            this.average = average;
+            this.courses = courses;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public void setTerm(String term) {
+            this.term = term;
+        }
+
+        public LocalDate getStartsOn() {
+            return startsOn;
+        }
+
+        public void setStartsOn(LocalDate startsOn) {
+            this.startsOn = startsOn;
+        }
+
+        public LocalDate getEndsOn() {
+            return endsOn;
+        }
+
+        public void setEndsOn(LocalDate endsOn) {
+            this.endsOn = endsOn;
+        }
+
+        public long getCredits() {
+            return credits;
+        }
+
+        public void setCredits(long credits) {
+            this.credits = credits;
+        }
+
+        public Double getAverage() {
+            return average;
+        }
+
+        public void setAverage(Double average) {
+            this.average = average;
+        }
+
+        public List<CourseResult> getCourses() {
+            return courses;
+        }
+
+        public void setCourses(List<CourseResult> courses) {
+            this.courses = courses;
+        }
+    }
+
+    /**
+     * Resultado de un curso en un periodo: promedio simple de sus notas
+     */
+    public static class CourseResult {
+
+        private String course;
+        private short credits;
+        private long grades;
+        private Double average;
+
+        public CourseResult() {}
+
+        public CourseResult(String course, short credits, long grades, Double average) {
+            this.course = course;
+            this.credits = credits;
+            this.grades = grades;
+            this.average = average;
+        }
+
+        public String getCourse() {
+            return course;
+        }
+
+        public void setCourse(String course) {
+            this.course = course;
+        }
+
+        public short getCredits() {
+            return credits;
+        }
+
+        public void setCredits(short credits) {
+            this.credits = credits;
+        }
+
+        public long getGrades() {
+            return grades;
+        }
+
+        public void setGrades(long grades) {
+            this.grades = grades;
+        }
+
+        public Double getAverage() {
+            return average;
+        }
+
+        public void setAverage(Double average) {
+            this.average = average;
+        }
+    }
+}
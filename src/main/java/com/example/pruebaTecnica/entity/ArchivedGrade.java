@@ -0,0 +1,88 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Calificación archivada (tabla grades_archive, ver GradeArchiver)
+ * Copia de una fila de grades creada antes del corte de archivado, con el mismo id. Solo se
+ * escribe con SQL nativo al archivar y no cambia después: las lecturas históricas la cargan
+ * como entidad inmutable. Guarda los ids del estudiante y del curso sin relaciones JPA y sin
+ * la clave natural, que vuelve a quedar libre en grades.
+ */
+@Entity
+@Immutable
+@Table(name = "grades_archive", indexes = {
+        // Notas archivadas de un estudiante de la más reciente a la más antigua (includeArchived)
+        @Index(name = "idx_grades_archive_user_created", columnList = "user_id, created_at DESC, id DESC")
+})
+public class ArchivedGrade {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "course_id", nullable = false)
+    private Integer courseId;
+
+    @Column(length = 100)
+    private String assessment;
+
+    @Column(name = "score_tenths", nullable = false)
+    private short scoreTenths;
+
+    private String comments;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    // Constructor vacío requerido por JPA
+    public ArchivedGrade() {}
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public String getAssessment() {
+        return assessment;
+    }
+
+    public short getScoreTenths() {
+        return scoreTenths;
+    }
+
+    public String getComments() {
+        return comments;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
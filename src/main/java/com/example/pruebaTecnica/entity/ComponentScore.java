@@ -0,0 +1,93 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Acumulado de las notas de un estudiante en un componente de evaluación: cantidad y suma en
+ * décimas (tabla component_scores)
+ * La escriben las sentencias nativas de FinalGradeRepository, que suman a la fila el cambio de
+ * cada escritura de calificaciones; la nota final de un curso se recalcula con las filas del
+ * prefijo (estudiante, curso) de la clave primaria.
+ */
+@Entity
+@Table(name = "component_scores", indexes = {
+        // Estudiantes de un curso (recálculo tras un cambio de pesos)
+        @Index(name = "idx_component_scores_course_user", columnList = "course_id, user_id")
+})
+public class ComponentScore {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "grade_count", nullable = false)
+    private int gradeCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    // Constructor vacío requerido por JPA
+    public ComponentScore() {}
+
+    // Getters
+    public Key getId() {
+        return id;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    /**
+     * Clave primaria (estudiante, curso, componente)
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "course_id", nullable = false)
+        private Integer courseId;
+
+        @Column(name = "component_id", nullable = false)
+        private Integer componentId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer courseId, Integer componentId) {
+            this.userId = userId;
+            this.courseId = courseId;
+            this.componentId = componentId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Integer getCourseId() {
+            return courseId;
+        }
+
+        public Integer getComponentId() {
+            return componentId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(userId, key.userId)
+                    && Objects.equals(courseId, key.courseId) && Objects.equals(componentId, key.componentId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, courseId, componentId);
+        }
+    }
+}
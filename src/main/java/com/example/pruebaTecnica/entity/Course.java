@@ -0,0 +1,80 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un curso
+ * Las calificaciones lo referencian por su id entero en lugar de repetir el nombre en cada fila;
+ * el código es el nombre que usa la API (p. ej. "Matemáticas") y es único.
+ * Los créditos ponderan el curso en los promedios del expediente (ver TranscriptService).
+ */
+@Entity
+@Table(name = "courses", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_courses_code", columnNames = "code")
+})
+public class Course {
+
+    // Créditos de un curso nuevo (los que tenían los cursos existentes al introducirlos)
+    public static final short DEFAULT_CREDITS = 1;
+    public static final short MAX_CREDITS = 30;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @NotBlank(message = "El nombre del curso es obligatorio")
+    @Size(max = 100, message = "El nombre del curso no puede tener más de 100 caracteres")
+    @Column(nullable = false, length = 100)
+    private String code;
+
+    @Column(nullable = false)
+    private short credits = DEFAULT_CREDITS;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructor vacío requerido por JPA
+    public Course() {}
+
+    public Course(String code) {
+        this.code = code;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public short getCredits() {
+        return credits;
+    }
+
+    public void setCredits(short credits) {
+        this.credits = credits;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un componente de evaluación de un curso (p. ej. "Exámenes", "Laboratorios")
+ * Las calificaciones se etiquetan con un componente de su curso; la nota final del estudiante es el
+ * promedio de cada componente ponderado por su peso, que es relativo a los demás componentes del
+ * curso (no tienen que sumar 100). Como los cursos, se replica en todos los shards.
+ */
+@Entity
+@Table(name = "course_components", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_course_components_course_code", columnNames = {"course_id", "code"})
+})
+public class CourseComponent {
+
+    public static final short MAX_WEIGHT = 100;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(name = "course_id", nullable = false)
+    private Integer courseId;
+
+    @NotBlank(message = "El código del componente es obligatorio")
+    @Size(max = 50, message = "El código del componente no puede tener más de 50 caracteres")
+    @Column(nullable = false, length = 50)
+    private String code;
+
+    @Column(nullable = false)
+    private short weight;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructor vacío requerido por JPA
+    public CourseComponent() {}
+
+    public CourseComponent(Integer courseId, String code, short weight) {
+        this.courseId = courseId;
+        this.code = code;
+        this.weight = weight;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public Integer getCourseId() {
+        return courseId;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public short getWeight() {
+        return weight;
+    }
+
+    public void setWeight(short weight) {
+        this.weight = weight;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
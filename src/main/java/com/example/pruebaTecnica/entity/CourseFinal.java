@@ -0,0 +1,90 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Nota final de un estudiante en un curso (tabla course_finals): promedio de los componentes con
+ * nota ponderado por su peso, en décimas, y la suma de los pesos que ya tienen nota
+ * La escribe FinalGradeService al cambiar una nota del estudiante en el curso o los pesos del curso.
+ */
+@Entity
+@Table(name = "course_finals", indexes = {
+        // Notas finales de un curso (vista del profesor)
+        @Index(name = "idx_course_finals_course_user", columnList = "course_id, user_id")
+})
+public class CourseFinal {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "final_tenths", nullable = false)
+    private double finalTenths;
+
+    @Column(name = "graded_weight", nullable = false)
+    private int gradedWeight;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Constructor vacío requerido por JPA
+    public CourseFinal() {}
+
+    // Getters
+    public Key getId() {
+        return id;
+    }
+
+    public double getFinalTenths() {
+        return finalTenths;
+    }
+
+    public int getGradedWeight() {
+        return gradedWeight;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Clave primaria (estudiante, curso)
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "course_id", nullable = false)
+        private Integer courseId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer courseId) {
+            this.userId = userId;
+            this.courseId = courseId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Integer getCourseId() {
+            return courseId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(userId, key.userId) && Objects.equals(courseId, key.courseId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, courseId);
+        }
+    }
+}
@@ -3,34 +3,73 @@ package com.example.pruebaTecnica.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 
 /**
  * Entidad que representa una nota académica (grade) en el sistema
  * Relación N:1 con User - Cada nota pertenece a un usuario específico
+ * Relación N:1 con Course - El curso se guarda como id entero (ver CourseDictionary)
+ * Relación N:1 opcional con CourseComponent - componente del curso al que cuenta para la nota final
+ * Al eliminarla se marca como borrada (tombstone) para que la sincronización incremental
+ * pueda informar la baja; las consultas JPA solo ven las notas vigentes.
+ * Se guarda en la caché de segundo nivel; las escrituras con SQL nativo la invalidan
+ * explícitamente (ver GradeEntityCache).
  */
 @Entity
-@Table(name = "grades")
+@Table(name = "grades", uniqueConstraints = {
+        // Clave natural: un estudiante tiene una sola nota por evaluación de un curso
+        @UniqueConstraint(name = "uk_grades_user_course_assessment",
+                columnNames = {"user_id", "course_id", "assessment"})
+}, indexes = {
+        // Cambios de un estudiante posteriores a un cursor (GET /api/grades/changes)
+        @Index(name = "idx_grades_user_change_seq", columnList = "user_id, change_seq"),
+        // Mejores notas de un curso (ranking) e histogramas por curso
+        @Index(name = "idx_grades_course_score", columnList = "course_id, score_tenths DESC, id")
+})
+@SQLDelete(sql = "UPDATE grades SET deleted = TRUE, updated_at = LOCALTIMESTAMP WHERE id = ?")
+@SQLRestriction("deleted = FALSE")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "grades")
 public class Grade {
 
+    // Escala vigesimal de las notas; ScoreBand deriva de ella los niveles de logro
+    public static final long MIN_SCORE = 0;
+    public static final long MAX_SCORE = 20;
+
+    // Las notas se guardan en décimas de punto (SMALLINT): 18.5 se guarda como 185
+    public static final int SCALE = 10;
+    public static final long MIN_TENTHS = MIN_SCORE * SCALE;
+    public static final long MAX_TENTHS = MAX_SCORE * SCALE;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @NotBlank(message = "El nombre del curso es obligatorio")
-    @Size(max = 100, message = "El nombre del curso no puede tener más de 100 caracteres")
-    @Column(nullable = false)
-    private String course;
+    // Relación N:1 con Course
+    @NotNull(message = "El curso es obligatorio")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "course_id", nullable = false, foreignKey = @ForeignKey(name = "fk_grades_course"))
+    private Course course;
 
-    @NotNull(message = "La nota es obligatoria")
-    @Min(value = 0, message = "La nota no puede ser menor que 0")
-    @Max(value = 20, message = "La nota no puede ser mayor que 20")
-    @Column(nullable = false)
-    private Double score;
+    // Componente de evaluación del curso (opcional; ver FinalGradeService)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "component_id", foreignKey = @ForeignKey(name = "fk_grades_component"))
+    private CourseComponent component;
+
+    @Size(max = 100, message = "El nombre de la evaluación no puede tener más de 100 caracteres")
+    @Column(length = 100)
+    private String assessment; // p. ej. "Examen Parcial", "Proyecto Final"
+
+    @Min(value = MIN_TENTHS, message = "La nota no puede ser menor que 0")
+    @Max(value = MAX_TENTHS, message = "La nota no puede ser mayor que 20")
+    @Column(name = "score_tenths", nullable = false)
+    private short scoreTenths;
     
     @Size(max = 255, message = "El comentario no puede tener más de 255 caracteres")
     private String comments;
@@ -46,12 +85,35 @@ public class Grade {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Column(nullable = false)
+    private boolean deleted = false;
+
+    // Secuencia de cambios monotónica: la asigna la base de datos en cada INSERT/UPDATE (ver schema.sql)
+    @Column(name = "change_seq", insertable = false, updatable = false,
+            columnDefinition = "BIGINT DEFAULT NEXT VALUE FOR grade_change_seq ON UPDATE NEXT VALUE FOR grade_change_seq")
+    private Long changeSeq;
+
+    /**
+     * Nota en décimas (redondeada a la décima más cercana y acotada al rango de SMALLINT)
+     */
+    public static short toTenths(double score) {
+        long tenths = Math.round(score * SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, tenths));
+    }
+
+    /**
+     * Nota en puntos de la escala a partir de décimas (o de una suma de décimas)
+     */
+    public static double toPoints(double tenths) {
+        return tenths / SCALE;
+    }
+
     // Constructor vacío requerido por JPA
     public Grade() {}
 
-    public Grade(String course, String comments, Double score,  User user) {
+    public Grade(Course course, String comments, short scoreTenths,  User user) {
         this.course = course;
-        this.score = score;
+        this.scoreTenths = scoreTenths;
         this.comments = comments;
         this.user = user;
     }
@@ -76,20 +138,36 @@ public class Grade {
         this.id = id;
     }
 
-    public String getCourse() {
+    public Course getCourse() {
         return course;
     }
 
-    public void setCourse(String course) {
+    public void setCourse(Course course) {
         this.course = course;
     }
 
-    public double getScore() {
-        return score;
+    public CourseComponent getComponent() {
+        return component;
+    }
+
+    public void setComponent(CourseComponent component) {
+        this.component = component;
+    }
+
+    public String getAssessment() {
+        return assessment;
+    }
+
+    public void setAssessment(String assessment) {
+        this.assessment = assessment;
     }
 
-    public void setScore(double score) {
-        this.score = score;
+    public short getScoreTenths() {
+        return scoreTenths;
+    }
+
+    public void setScoreTenths(short scoreTenths) {
+        this.scoreTenths = scoreTenths;
     }
 
     public String getComments() {
@@ -123,4 +201,12 @@ public class Grade {
     public void setUser(User user) {
         this.user = user;
     }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
 }
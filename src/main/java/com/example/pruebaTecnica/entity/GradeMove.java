@@ -0,0 +1,42 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Reasignación de una calificación a otro estudiante (tabla grade_moves)
+ * Cada cambio de dueño deja su propia fila, numerada con la misma secuencia que
+ * Grade.changeSeq, para que la sincronización incremental informe la baja al dueño anterior.
+ * La escribe GradeRepository.recordMove y la lee GradeRepository.findChangesSince.
+ */
+@Entity
+@Table(name = "grade_moves", indexes = {
+        @Index(name = "idx_grade_moves_from_user_change_seq", columnList = "from_user_id, change_seq")
+})
+public class GradeMove {
+
+    @Id
+    @Column(name = "change_seq", columnDefinition = "BIGINT DEFAULT NEXT VALUE FOR grade_change_seq")
+    private Long changeSeq;
+
+    @Column(name = "grade_id", nullable = false)
+    private Long gradeId;
+
+    @Column(name = "from_user_id", nullable = false)
+    private Long fromUserId;
+
+    // Constructor vacío requerido por JPA
+    public GradeMove() {}
+
+    // Getters
+    public Long getChangeSeq() {
+        return changeSeq;
+    }
+
+    public Long getGradeId() {
+        return gradeId;
+    }
+
+    public Long getFromUserId() {
+        return fromUserId;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pruebaTecnica.entity;
+
+/**
+ * Niveles de logro sobre la escala vigesimal de Grade (0 a 20)
+ * Los umbrales se expresan como fracción de Grade.MAX_SCORE: AD desde 18, A desde 14,
+ * B desde 11 (nota aprobatoria) y C por debajo.
+ */
+public enum ScoreBand {
+
+    AD(0.90, "Logro destacado"),
+    A(0.70, "Logro esperado"),
+    B(0.55, "En proceso"),
+    C(0.0, "En inicio");
+
+    private final double threshold;
+    private final String description;
+
+    ScoreBand(double fractionOfScale, String description) {
+        this.threshold = Grade.MIN_SCORE + fractionOfScale * (Grade.MAX_SCORE - Grade.MIN_SCORE);
+        this.description = description;
+    }
+
+    /**
+     * Nivel correspondiente a una nota (o promedio) de la escala
+     */
+    public static ScoreBand of(double score) {
+        for (ScoreBand band : values()) {
+            if (score >= band.threshold) {
+                return band;
+            }
+        }
+        return C;
+    }
+
+    /**
+     * Aprueba quien alcanza al menos el nivel B
+     */
+    public boolean isPassing() {
+        return this != C;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un periodo académico (p. ej. "2025-1")
+ * Una calificación pertenece al periodo cuyas fechas (ambas incluidas) contienen su fecha de
+ * creación; los periodos no se solapan. El expediente agrupa las notas por periodo.
+ */
+@Entity
+@Table(name = "terms", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_terms_code", columnNames = "code")
+})
+public class Term {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @NotBlank(message = "El código del periodo es obligatorio")
+    @Size(max = 50, message = "El código del periodo no puede tener más de 50 caracteres")
+    @Column(nullable = false, length = 50)
+    private String code;
+
+    @Column(name = "starts_on", nullable = false)
+    private LocalDate startsOn;
+
+    @Column(name = "ends_on", nullable = false)
+    private LocalDate endsOn;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Constructor vacío requerido por JPA
+    public Term() {}
+
+    public Term(String code, LocalDate startsOn, LocalDate endsOn) {
+        this.code = code;
+        this.startsOn = startsOn;
+        this.endsOn = endsOn;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Getters y Setters
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public void setCode(String code) {
+        this.code = code;
+    }
+
+    public LocalDate getStartsOn() {
+        return startsOn;
+    }
+
+    public void setStartsOn(LocalDate startsOn) {
+        this.startsOn = startsOn;
+    }
+
+    public LocalDate getEndsOn() {
+        return endsOn;
+    }
+
+    public void setEndsOn(LocalDate endsOn) {
+        this.endsOn = endsOn;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Día de un periodo académico (tabla term_days)
+ * La clave primaria por día impide que dos periodos se solapen; la escribe TermRepository.addDays
+ * al crear el periodo y TranscriptRepository resuelve con ella el periodo de cada nota.
+ */
+@Entity
+@Table(name = "term_days")
+public class TermDay {
+
+    @Id
+    @Column(name = "calendar_day")
+    private LocalDate calendarDay;
+
+    @Column(name = "term_id", nullable = false)
+    private Integer termId;
+
+    // Constructor vacío requerido por JPA
+    public TermDay() {}
+
+    // Getters
+    public LocalDate getCalendarDay() {
+        return calendarDay;
+    }
+
+    public Integer getTermId() {
+        return termId;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.pruebaTecnica.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Celda del expediente materializado: cantidad y suma (en décimas) de las notas de un estudiante
+ * en un curso durante un periodo (tabla transcript_entries)
+ * La escriben las sentencias nativas de TranscriptRepository, que suman a la celda el cambio de
+ * cada escritura de calificaciones; se lee por el prefijo (estudiante) de la clave primaria.
+ */
+@Entity
+@Table(name = "transcript_entries")
+public class TranscriptEntry {
+
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "grade_count", nullable = false)
+    private int gradeCount;
+
+    @Column(name = "score_sum", nullable = false)
+    private long scoreSum;
+
+    // Constructor vacío requerido por JPA
+    public TranscriptEntry() {}
+
+    // Getters
+    public Key getId() {
+        return id;
+    }
+
+    public int getGradeCount() {
+        return gradeCount;
+    }
+
+    public long getScoreSum() {
+        return scoreSum;
+    }
+
+    /**
+     * Clave primaria (estudiante, periodo, curso)
+     */
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        @Column(name = "term_id", nullable = false)
+        private Integer termId;
+
+        @Column(name = "course_id", nullable = false)
+        private Integer courseId;
+
+        public Key() {}
+
+        public Key(Long userId, Integer termId, Integer courseId) {
+            this.userId = userId;
+            this.termId = termId;
+            this.courseId = courseId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Integer getTermId() {
+            return termId;
+        }
+
+        public Integer getCourseId() {
+            return courseId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Objects.equals(userId, key.userId)
+                    && Objects.equals(termId, key.termId) && Objects.equals(courseId, key.courseId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, termId, courseId);
+        }
+    }
+}
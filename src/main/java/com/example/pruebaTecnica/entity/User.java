@@ -4,6 +4,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -12,9 +16,13 @@ import java.util.List;
 /**
  * Entidad que representa un usuario en el sistema.
  * Relación 1:N con Grade - Un estudiante puede tener múltiples notas académicas.
+ * Se guarda en la caché de segundo nivel, igual que la resolución nombre de usuario -> id
+ * (identificador natural), porque se consulta por nombre en cada petición autenticada.
  */
 @Entity
 @Table(name = "users")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-natural-id")
 public class User {
 
     @Id
@@ -23,6 +31,7 @@ public class User {
 
     @NotBlank(message = "El nombre de usuario es obligatorio")
     @Size(min = 3, max = 50, message = "El nombre de usuario debe tener entre 3 y 50 caracteres")
+    @NaturalId
     @Column(unique = true, nullable = false)
     private String username;
 
@@ -0,0 +1,82 @@
+package com.example.pruebaTecnica.event;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Evento de dominio publicado por GradeService en cada escritura de calificaciones
+ * Los consumidores lo reciben tras el commit para invalidar cachés o actualizar vistas
+ *
+ * @param type tipo de cambio
+ * @param gradeId id de la calificación afectada
+ * @param previousStudentId dueño antes del cambio (null al crear)
+ * @param previous estado antes del cambio (null al crear, o en un upsert que inserta la nota)
+ * @param studentId dueño después del cambio (en un borrado o archivado, el dueño de la nota)
+ * @param current estado después del cambio (null al borrar o archivar)
+ */
+public record GradeChangedEvent(Type type,
+                                Long gradeId,
+                                Long previousStudentId,
+                                GradeDto previous,
+                                Long studentId,
+                                GradeDto current) {
+
+    /*
+     * Orden de los consumidores tras el commit (@Order): cada capa se actualiza antes que las que
+     * leen de ella. Si una caché se invalidara antes que su fuente, una lectura concurrente la
+     * volvería a llenar con el estado anterior (y la de respuestas, bajo el ETag nuevo).
+     */
+    // Vistas en memoria: GradeReadModel, GradeKeyValueStore, GradeAnalyticsStore, CourseStatistics
+    public static final int PROJECTION_ORDER = 0;
+    // Caché de segundo nivel de Hibernate (GradeEntityCache), de la que recarga GradeCache sin almacén clave-valor
+    public static final int ENTITY_CACHE_ORDER = 100;
+    // GradeCache: recarga de GradeKeyValueStore o de la base de datos
+    public static final int READ_CACHE_ORDER = 200;
+    // GradeResponseCache: recarga de GradeReadModel o de GradeCache
+    public static final int RESPONSE_CACHE_ORDER = 300;
+    // Aviso a los clientes (GradeEventStream), que pueden volver a pedir la lista al recibirlo
+    public static final int NOTIFICATION_ORDER = 400;
+
+    public enum Type {
+        CREATED, UPDATED, UPSERTED, DELETED,
+        // La nota pasa a grades_archive (GradeArchiver): deja las vistas de notas vigentes sin haberse eliminado
+        ARCHIVED
+    }
+
+    public static GradeChangedEvent created(Long studentId, GradeDto current) {
+        return new GradeChangedEvent(Type.CREATED, current.getId(), null, null, studentId, current);
+    }
+
+    public static GradeChangedEvent updated(Long previousStudentId, GradeDto previous, Long studentId, GradeDto current) {
+        return new GradeChangedEvent(Type.UPDATED, current.getId(), previousStudentId, previous, studentId, current);
+    }
+
+    public static GradeChangedEvent upserted(Long studentId, GradeDto previous, GradeDto current) {
+        return new GradeChangedEvent(Type.UPSERTED, current.getId(), studentId, previous, studentId, current);
+    }
+
+    public static GradeChangedEvent deleted(Long studentId, GradeDto previous) {
+        return new GradeChangedEvent(Type.DELETED, previous.getId(), studentId, previous, studentId, null);
+    }
+
+    public static GradeChangedEvent archived(Long studentId, GradeDto previous) {
+        return new GradeChangedEvent(Type.ARCHIVED, previous.getId(), studentId, previous, studentId, null);
+    }
+
+    /**
+     * Estudiantes cuyas listas de calificaciones cambian con este evento
+     * (dos cuando la nota pasa de un estudiante a otro)
+     */
+    public Set<Long> affectedStudentIds() {
+        Set<Long> ids = new LinkedHashSet<>(2);
+        if (previousStudentId != null) {
+            ids.add(previousStudentId);
+        }
+        if (studentId != null) {
+            ids.add(studentId);
+        }
+        return ids;
+    }
+}
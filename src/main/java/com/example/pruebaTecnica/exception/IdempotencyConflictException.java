@@ -0,0 +1,16 @@
+package com.example.pruebaTecnica.exception;
+
+/**
+ * Se lanza cuando una Idempotency-Key se reutiliza con otro cuerpo de petición
+ * o cuando la petición original sigue en curso más allá del tiempo de espera
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+
+    public IdempotencyConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.pruebaTecnica.exception;
+
+/**
+ * Se lanza cuando un parámetro de la petición está fuera del rango admitido
+ * y no lo cubre la validación de Bean Validation
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
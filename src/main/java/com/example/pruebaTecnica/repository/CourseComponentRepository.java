@@ -0,0 +1,51 @@
+package com.example.pruebaTecnica.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.pruebaTecnica.entity.CourseComponent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad CourseComponent
+ */
+@Repository
+public interface CourseComponentRepository extends JpaRepository<CourseComponent, Integer> {
+
+    /**
+     * Componentes de un curso por código (prefijo de uk_course_components_course_code)
+     */
+    List<CourseComponent> findByCourseIdOrderByCode(Integer courseId);
+
+    /**
+     * Componentes de varios cursos (detalle de las notas finales de un estudiante)
+     */
+    List<CourseComponent> findByCourseIdIn(Collection<Integer> courseIds);
+
+    /**
+     * Busca un componente de un curso por su código
+     */
+    Optional<CourseComponent> findByCourseIdAndCode(Integer courseId, String code);
+
+    /**
+     * Peso de un componente
+     */
+    interface ComponentWeight {
+        Integer getId();
+        Short getWeight();
+    }
+
+    /**
+     * Pesos vigentes de los componentes de un curso para calcular notas finales. Es una consulta
+     * nativa: no devuelve las entidades ya cargadas en el contexto de persistencia, que pueden
+     * conservar un peso cambiado por otra transacción después de cargarlas.
+     */
+    @Query(value = "SELECT id AS \"id\", weight AS \"weight\" FROM course_components WHERE course_id = :courseId",
+            nativeQuery = true)
+    List<ComponentWeight> findWeights(@Param("courseId") Integer courseId);
+}
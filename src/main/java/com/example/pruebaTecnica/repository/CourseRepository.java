@@ -0,0 +1,22 @@
+package com.example.pruebaTecnica.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.example.pruebaTecnica.entity.Course;
+
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad Course
+ */
+@Repository
+public interface CourseRepository extends JpaRepository<Course, Integer> {
+
+    /**
+     * Busca un curso por su código
+     * @param code código (nombre) del curso
+     * @return Optional con el curso encontrado
+     */
+    Optional<Course> findByCode(String code);
+}
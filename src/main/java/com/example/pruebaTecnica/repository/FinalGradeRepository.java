@@ -0,0 +1,151 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.CourseFinal;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FinalGradeRepository extends JpaRepository<CourseFinal, CourseFinal.Key> {
+
+    /**
+     * Bloquea al estudiante hasta el final de la transacción: serializa los recálculos de sus notas
+     * finales, que leen las filas de todos sus componentes y no solo la que cambió
+     */
+    @Query(value = "SELECT id FROM users WHERE id = :userId FOR UPDATE", nativeQuery = true)
+    Long lockStudent(@Param("userId") Long userId);
+
+    /**
+     * Bloquea a un lote de estudiantes en orden de id, el mismo orden en que los bloquean las
+     * escrituras de notas (ver lockStudent), así que un lote y una escritura no se interbloquean
+     */
+    @Query(value = "SELECT id FROM users WHERE id IN (:userIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockStudents(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Suma el cambio de una nota a la fila de su componente en una sola sentencia (la suma se hace
+     * en la base de datos, así que dos escrituras concurrentes no se pisan)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "component_scores"))
+    @Query(value = """
+            MERGE INTO component_scores e
+            USING (VALUES (CAST(:userId AS BIGINT), CAST(:courseId AS INTEGER), CAST(:componentId AS INTEGER)))
+                  AS s(user_id, course_id, component_id)
+            ON e.user_id = s.user_id AND e.course_id = s.course_id AND e.component_id = s.component_id
+            WHEN MATCHED THEN
+                UPDATE SET grade_count = e.grade_count + :countDelta, score_sum = e.score_sum + :sumDelta
+            WHEN NOT MATCHED THEN
+                INSERT (user_id, course_id, component_id, grade_count, score_sum)
+                VALUES (s.user_id, s.course_id, s.component_id, :countDelta, :sumDelta)
+            """, nativeQuery = true)
+    int addToComponent(@Param("userId") Long userId,
+                       @Param("courseId") Integer courseId,
+                       @Param("componentId") Integer componentId,
+                       @Param("countDelta") int countDelta,
+                       @Param("sumDelta") long sumDelta);
+
+    /**
+     * Acumulado de un estudiante en un componente
+     */
+    interface ComponentScoreRow {
+        Long getStudentId();
+        Integer getCourseId();
+        Integer getComponentId();
+        Integer getGradeCount();
+        Long getScoreSum();
+    }
+
+    // Componentes con nota de un estudiante en un curso: prefijo (user_id, course_id) de la clave primaria
+    @Query(value = """
+            SELECT user_id AS "studentId", course_id AS "courseId", component_id AS "componentId",
+                   grade_count AS "gradeCount", score_sum AS "scoreSum"
+            FROM component_scores
+            WHERE user_id = :userId AND course_id = :courseId AND grade_count > 0
+            """, nativeQuery = true)
+    List<ComponentScoreRow> findScores(@Param("userId") Long userId, @Param("courseId") Integer courseId);
+
+    // Componentes con nota de un estudiante en todos sus cursos (prefijo user_id de la clave primaria)
+    @Query(value = """
+            SELECT user_id AS "studentId", course_id AS "courseId", component_id AS "componentId",
+                   grade_count AS "gradeCount", score_sum AS "scoreSum"
+            FROM component_scores
+            WHERE user_id = :userId AND grade_count > 0
+            """, nativeQuery = true)
+    List<ComponentScoreRow> findScoresByStudent(@Param("userId") Long userId);
+
+    // Estudiantes con notas en componentes de un curso, en orden (recálculo tras un cambio de pesos)
+    @Query(value = "SELECT DISTINCT user_id FROM component_scores WHERE course_id = :courseId ORDER BY user_id",
+            nativeQuery = true)
+    List<Long> findStudentsOfCourse(@Param("courseId") Integer courseId);
+
+    // Acumulados de un lote de estudiantes en un curso (el lote los lee con sus estudiantes bloqueados)
+    @Query(value = """
+            SELECT user_id AS "studentId", course_id AS "courseId", component_id AS "componentId",
+                   grade_count AS "gradeCount", score_sum AS "scoreSum"
+            FROM component_scores
+            WHERE course_id = :courseId AND user_id IN (:userIds)
+            """, nativeQuery = true)
+    List<ComponentScoreRow> findScoresOfStudents(@Param("courseId") Integer courseId,
+                                                 @Param("userIds") Collection<Long> userIds);
+
+    // Fija la nota final de un estudiante en un curso
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_finals"))
+    @Query(value = """
+            MERGE INTO course_finals (user_id, course_id, final_tenths, graded_weight, updated_at)
+            KEY (user_id, course_id)
+            VALUES (:userId, :courseId, :finalTenths, :gradedWeight, LOCALTIMESTAMP)
+            """, nativeQuery = true)
+    int setFinal(@Param("userId") Long userId,
+                 @Param("courseId") Integer courseId,
+                 @Param("finalTenths") double finalTenths,
+                 @Param("gradedWeight") int gradedWeight);
+
+    // Quita la nota final de un estudiante que ya no tiene notas en componentes del curso
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "course_finals"))
+    @Query(value = "DELETE FROM course_finals WHERE user_id = :userId AND course_id = :courseId", nativeQuery = true)
+    int deleteFinal(@Param("userId") Long userId, @Param("courseId") Integer courseId);
+
+    /**
+     * Nota final de un estudiante en un curso
+     */
+    interface FinalRow {
+        Long getStudentId();
+        String getStudentUsername();
+        Integer getCourseId();
+        Double getFinalTenths();
+        Integer getGradedWeight();
+    }
+
+    // Notas finales de un estudiante (prefijo user_id de la clave primaria)
+    @Query(value = """
+            SELECT f.user_id AS "studentId", u.username AS "studentUsername", f.course_id AS "courseId",
+                   f.final_tenths AS "finalTenths", f.graded_weight AS "gradedWeight"
+            FROM course_finals f
+            JOIN users u ON u.id = f.user_id
+            WHERE f.user_id = :userId
+            ORDER BY f.course_id
+            """, nativeQuery = true)
+    List<FinalRow> findFinalsByStudent(@Param("userId") Long userId);
+
+    // Notas finales de un curso por username (idx_course_finals_course_user)
+    @Query(value = """
+            SELECT f.user_id AS "studentId", u.username AS "studentUsername", f.course_id AS "courseId",
+                   f.final_tenths AS "finalTenths", f.graded_weight AS "gradedWeight"
+            FROM course_finals f
+            JOIN users u ON u.id = f.user_id
+            WHERE f.course_id = :courseId
+            ORDER BY u.username
+            """, nativeQuery = true)
+    List<FinalRow> findFinalsByCourse(@Param("courseId") Integer courseId);
+}
@@ -0,0 +1,80 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.ArchivedGrade;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentCourseSumRow;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface GradeArchiveRepository extends JpaRepository<ArchivedGrade, Long> {
+
+    // Notas archivadas de un estudiante de la más reciente a la más antigua (idx_grades_archive_user_created)
+    List<ArchivedGrade> findByUserIdOrderByCreatedAtDescIdDesc(Long userId);
+
+    // Notas archivadas creadas entre dos instantes agrupadas por estudiante y curso (carga inicial de un periodo)
+    @Query(value = """
+            SELECT user_id AS "studentId", course_id AS "courseId", COUNT(*) AS "count", SUM(score_tenths) AS "sum"
+            FROM grades_archive
+            WHERE created_at >= :from AND created_at < :to
+            GROUP BY user_id, course_id
+            """, nativeQuery = true)
+    List<StudentCourseSumRow> sumByStudentAndCourse(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Ids del siguiente lote a archivar: notas vigentes creadas antes del corte, en orden de id,
+     * bloqueadas hasta el final de la transacción para que una edición concurrente no se pierda
+     * entre la copia y el borrado. Las eliminadas se quedan en grades: la sincronización
+     * incremental las necesita.
+     */
+    @Query(value = """
+            SELECT id FROM grades
+            WHERE deleted = FALSE AND created_at < :cutoff
+            ORDER BY id
+            FETCH FIRST :limit ROWS ONLY
+            FOR UPDATE
+            """, nativeQuery = true)
+    List<Long> lockArchivable(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    // Filas del lote con su dueño, para publicar los eventos de archivado
+    @Query(value = """
+            SELECT u.id AS "studentId", u.username AS "studentUsername", g.id, g.course_id AS "courseId",
+                   g.assessment, g.score_tenths AS "scoreTenths", g.comments,
+                   g.created_at AS "createdAt", g.updated_at AS "updatedAt"
+            FROM grades g
+            JOIN users u ON u.id = g.user_id
+            WHERE g.id IN (:ids)
+            """, nativeQuery = true)
+    List<StudentGradeRow> findWithStudentByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Copia el lote a grades_archive conservando los ids
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "grades_archive"))
+    @Query(value = """
+            INSERT INTO grades_archive (id, user_id, course_id, assessment, score_tenths, comments,
+                                        created_at, updated_at, archived_at)
+            SELECT id, user_id, course_id, assessment, score_tenths, comments, created_at, updated_at, LOCALTIMESTAMP
+            FROM grades
+            WHERE id IN (:ids)
+            """, nativeQuery = true)
+    int copyToArchive(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Borra físicamente el lote ya copiado (no deja tombstone: la nota sigue existiendo en el archivo).
+     * Solo invalida la caché de segundo nivel de grades, no la de las demás tablas.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "grades"))
+    @Query(value = "DELETE FROM grades WHERE id IN (:ids)", nativeQuery = true)
+    int deleteFromGrades(@Param("ids") Collection<Long> ids);
+}
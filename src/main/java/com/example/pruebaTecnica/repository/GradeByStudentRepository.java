@@ -0,0 +1,31 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.tenancy.Tenants;
+
+import java.util.List;
+
+/**
+ * Calificaciones de un estudiante desde la caché de consultas, en una región por tenant
+ * La clave de la caché de consultas de Hibernate no lleva el tenant: con una región compartida,
+ * dos tenants con el mismo id de estudiante compartirían la lista de ids y una escritura nativa
+ * tendría que vaciar la región de todos. Cada tenant usa la suya (ver regionOf).
+ */
+public interface GradeByStudentRepository {
+
+    // Región de la caché de consultas para las calificaciones de cada estudiante (sin multi-tenancy)
+    String GRADES_BY_STUDENT_REGION = "grades-by-student";
+
+    /**
+     * Región de las consultas del tenant; las de los demás tenants se crean al arrancar copiando
+     * la configuración de grades-by-student (ver SecondLevelCacheConfig)
+     */
+    static String regionOf(String tenant) {
+        return Tenants.DEFAULT.equals(tenant) ? GRADES_BY_STUDENT_REGION : GRADES_BY_STUDENT_REGION + "-" + tenant;
+    }
+
+    // Obtener todas las calificaciones de un usuario ordenadas por fecha de creación
+    // (caché de consultas: guarda los ids y las notas se leen de la región "grades")
+    List<Grade> findByUserOrderByCreatedAtDesc(User user);
+}
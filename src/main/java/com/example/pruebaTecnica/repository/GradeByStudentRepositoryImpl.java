@@ -0,0 +1,34 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.List;
+
+/**
+ * Implementación de GradeByStudentRepository: la misma consulta derivada, con la región del tenant actual
+ */
+class GradeByStudentRepositoryImpl implements GradeByStudentRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Tenants tenants;
+
+    GradeByStudentRepositoryImpl(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public List<Grade> findByUserOrderByCreatedAtDesc(User user) {
+        return entityManager.createQuery("SELECT g FROM Grade g WHERE g.user = :user ORDER BY g.createdAt DESC", Grade.class)
+                .setParameter("user", user)
+                .setHint(HibernateHints.HINT_CACHEABLE, true)
+                .setHint(HibernateHints.HINT_CACHE_REGION, GradeByStudentRepository.regionOf(tenants.current()))
+                .getResultList();
+    }
+}
@@ -1,25 +1,293 @@
 package com.example.pruebaTecnica.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.pruebaTecnica.entity.Grade;
 import com.example.pruebaTecnica.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface GradeRepository extends JpaRepository<Grade, Long> {
-    
-    // Obtener todas las calificaciones de un usuario ordenadas por fecha de creación
-    List<Grade> findByUserOrderByCreatedAtDesc(User user);
-    
+public interface GradeRepository extends JpaRepository<Grade, Long>, GradeByStudentRepository {
+
     // Alternativa: obtener calificaciones usando el id del usuario
     @Query("SELECT g FROM Grade g WHERE g.user.id = :userId ORDER BY g.createdAt DESC")
     List<Grade> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
     
     // Contar cuántas calificaciones tiene un usuario
     long countByUser(User user);
+
+    /**
+     * Fila de calificación devuelta por sentencias nativas. Es una proyección y no una
+     * entidad para no mezclarla con instancias ya cargadas en el contexto de persistencia.
+     */
+    interface GradeRow {
+        Long getId();
+        Integer getCourseId();
+        Integer getComponentId();
+        String getAssessment();
+        Short getScoreTenths();
+        String getComments();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    /**
+     * Calificación con los datos de su dueño, para reconstruir vistas en memoria sin
+     * hidratar entidades ni provocar una consulta extra por estudiante
+     */
+    interface StudentGradeRow {
+        Long getStudentId();
+        String getStudentUsername();
+        Long getId();
+        Integer getCourseId();
+        String getAssessment();
+        Short getScoreTenths();
+        String getComments();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    // Recorre todas las calificaciones con su dueño en una sola consulta (usar dentro de una transacción)
+    @Query("""
+            SELECT u.id AS studentId, u.username AS studentUsername, g.id AS id, g.course.id AS courseId,
+                   g.assessment AS assessment, g.scoreTenths AS scoreTenths, g.comments AS comments,
+                   g.createdAt AS createdAt, g.updatedAt AS updatedAt
+            FROM Grade g JOIN g.user u
+            """)
+    Stream<StudentGradeRow> streamAllWithStudent();
+
+    /**
+     * Inserta o actualiza una calificación por su clave natural (user_id, course_id, assessment)
+     * en una sola sentencia MERGE. FINAL TABLE devuelve la fila resultante (con su id),
+     * evitando la consulta previa de "buscar y luego insertar o actualizar".
+     * Si la clave natural corresponde a una nota eliminada, la reactiva conservando su id.
+     */
+    @Query(value = """
+            SELECT id, course_id AS "courseId", component_id AS "componentId", assessment,
+                   score_tenths AS "scoreTenths", comments, created_at AS "createdAt", updated_at AS "updatedAt"
+            FROM FINAL TABLE (
+                MERGE INTO grades g
+                USING (VALUES (CAST(:userId AS BIGINT), CAST(:courseId AS INTEGER), CAST(:componentId AS INTEGER),
+                               CAST(:assessment AS VARCHAR(100)), CAST(:scoreTenths AS SMALLINT),
+                               CAST(:comments AS VARCHAR(255))))
+                      AS s(user_id, course_id, component_id, assessment, score_tenths, comments)
+                ON g.user_id = s.user_id AND g.course_id = s.course_id AND g.assessment = s.assessment
+                WHEN MATCHED THEN
+                    UPDATE SET component_id = s.component_id, score_tenths = s.score_tenths, comments = s.comments,
+                               deleted = FALSE, updated_at = LOCALTIMESTAMP
+                WHEN NOT MATCHED THEN
+                    INSERT (user_id, course_id, component_id, assessment, score_tenths, comments, deleted,
+                            created_at, updated_at)
+                    VALUES (s.user_id, s.course_id, s.component_id, s.assessment, s.score_tenths, s.comments, FALSE,
+                            LOCALTIMESTAMP, LOCALTIMESTAMP)
+            )
+            """, nativeQuery = true)
+    GradeRow upsertByNaturalKey(@Param("userId") Long userId,
+                             @Param("courseId") Integer courseId,
+                             @Param("componentId") Integer componentId,
+                             @Param("assessment") String assessment,
+                             @Param("scoreTenths") short scoreTenths,
+                             @Param("comments") String comments);
+
+    /**
+     * Reactiva la nota eliminada (tombstone) con la misma clave natural, si existe, en lugar
+     * de insertar una fila nueva que violaría la restricción única
+     */
+    @Query(value = """
+            SELECT id, course_id AS "courseId", component_id AS "componentId", assessment,
+                   score_tenths AS "scoreTenths", comments, created_at AS "createdAt", updated_at AS "updatedAt"
+            FROM FINAL TABLE (
+                UPDATE grades
+                SET component_id = :componentId, score_tenths = :scoreTenths, comments = :comments, deleted = FALSE,
+                    created_at = LOCALTIMESTAMP, updated_at = LOCALTIMESTAMP
+                WHERE user_id = :userId AND course_id = :courseId AND assessment = :assessment AND deleted = TRUE
+            )
+            """, nativeQuery = true)
+    GradeRow reviveDeleted(@Param("userId") Long userId,
+                           @Param("courseId") Integer courseId,
+                           @Param("componentId") Integer componentId,
+                           @Param("assessment") String assessment,
+                           @Param("scoreTenths") short scoreTenths,
+                           @Param("comments") String comments);
+
+    /**
+     * Nota vigente con esa clave natural, bloqueada hasta el final de la transacción: el upsert
+     * la lee antes del MERGE para conocer el cambio que aplica sobre el expediente y la nota final
+     */
+    @Query(value = """
+            SELECT id, course_id AS "courseId", component_id AS "componentId", assessment,
+                   score_tenths AS "scoreTenths", comments, created_at AS "createdAt", updated_at AS "updatedAt"
+            FROM grades
+            WHERE user_id = :userId AND course_id = :courseId AND assessment = :assessment AND deleted = FALSE
+            FOR UPDATE
+            """, nativeQuery = true)
+    GradeRow findLiveByNaturalKey(@Param("userId") Long userId,
+                                  @Param("courseId") Integer courseId,
+                                  @Param("assessment") String assessment);
+
+    /**
+     * Cantidad y suma en décimas de las notas de un estudiante en un curso
+     */
+    interface StudentCourseSumRow {
+        Long getStudentId();
+        Integer getCourseId();
+        Long getCount();
+        Long getSum();
+    }
+
+    // Notas vigentes creadas entre dos instantes agrupadas por estudiante y curso (carga inicial de un periodo)
+    @Query(value = """
+            SELECT user_id AS "studentId", course_id AS "courseId", COUNT(*) AS "count", SUM(score_tenths) AS "sum"
+            FROM grades
+            WHERE deleted = FALSE AND created_at >= :from AND created_at < :to
+            GROUP BY user_id, course_id
+            """, nativeQuery = true)
+    List<StudentCourseSumRow> sumByStudentAndCourse(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Fila de la sincronización incremental: incluye las notas eliminadas y las que pasaron
+     * a otro estudiante (solo id, sin dueño y marcadas como eliminadas), que el cliente debe retirar
+     */
+    interface GradeChangeRow {
+        Long getId();
+        Long getUserId();
+        Integer getCourseId();
+        String getAssessment();
+        Short getScoreTenths();
+        String getComments();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+        Boolean getDeleted();
+        Long getChangeSeq();
+    }
+
+    // Cambios del estudiante posteriores al cursor, en orden de secuencia (usa los índices por change_seq):
+    // sus notas y las reasignaciones que le quitaron una nota, que llegan como bajas
+    @Query(value = """
+            SELECT id, user_id AS "userId", course_id AS "courseId", assessment, score_tenths AS "scoreTenths", comments,
+                   created_at AS "createdAt", updated_at AS "updatedAt", deleted, change_seq AS "changeSeq"
+            FROM grades
+            WHERE user_id = :userId AND change_seq > :since
+            UNION ALL
+            SELECT grade_id, from_user_id, NULL, NULL, NULL, NULL, NULL, NULL, TRUE, change_seq
+            FROM grade_moves
+            WHERE from_user_id = :userId AND change_seq > :since
+            ORDER BY "changeSeq"
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<GradeChangeRow> findChangesSince(@Param("userId") Long userId,
+                                         @Param("since") long since,
+                                         @Param("limit") int limit);
+
+    /**
+     * Registra que la nota pasó del estudiante indicado a otro; la fila toma su número de la misma
+     * secuencia que grades.change_seq y el dueño anterior la recibe como baja
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "grade_moves"))
+    @Query(value = "INSERT INTO grade_moves (grade_id, from_user_id) VALUES (:gradeId, :fromUserId)", nativeQuery = true)
+    int recordMove(@Param("gradeId") Long gradeId, @Param("fromUserId") Long fromUserId);
+
+    /**
+     * Agregados de un curso en décimas (sumas enteras exactas); con la suma de cuadrados se
+     * obtiene la desviación estándar y se pueden combinar los cursos en el total sin volver a
+     * leer las notas
+     */
+    interface CourseSummaryRow {
+        Integer getCourseId();
+        Long getCount();
+        Long getSum();
+        Long getSumOfSquares();
+        Short getMin();
+        Short getMax();
+        Short getLatestScore();
+        LocalDateTime getLatestAt();
+    }
+
+    // Resumen por curso del estudiante en un solo GROUP BY (sin hidratar entidades)
+    @Query(value = """
+            SELECT course_id AS "courseId", COUNT(*) AS "count", SUM(score_tenths) AS "sum",
+                   SUM(CAST(score_tenths AS INTEGER) * score_tenths) AS "sumOfSquares",
+                   MIN(score_tenths) AS "min", MAX(score_tenths) AS "max",
+                   ARRAY_AGG(score_tenths ORDER BY created_at DESC, id DESC)[1] AS "latestScore",
+                   MAX(created_at) AS "latestAt"
+            FROM grades
+            WHERE user_id = :userId AND deleted = FALSE
+            GROUP BY course_id
+            """, nativeQuery = true)
+    List<CourseSummaryRow> summarizeByCourse(@Param("userId") Long userId);
+
+    /**
+     * Cantidad de notas de un curso con la misma nota (bucket = nota en décimas)
+     */
+    interface ScoreBucketRow {
+        Integer getCourseId();
+        Integer getBucket();
+        Long getCount();
+    }
+
+    // Histograma de todos los cursos agregado en la base de datos (una fila por curso e intervalo)
+    @Query(value = """
+            SELECT course_id AS "courseId", score_tenths AS bucket, COUNT(*) AS "count"
+            FROM grades
+            WHERE deleted = FALSE
+            GROUP BY course_id, score_tenths
+            """, nativeQuery = true)
+    List<ScoreBucketRow> histogramByCourse();
+
+    /**
+     * Mejores notas de un curso con su dueño (para el ranking). El optimizador de H2 prefiere el
+     * índice de la clave foránea, más estrecho, y ordenaría todas las notas del curso; con
+     * USE INDEX recorre idx_grades_course_score ya ordenado y se detiene al llegar al límite.
+     * El orden empieza por el curso, constante en el filtro, para que H2 reconozca el orden del índice.
+     */
+    @Query(value = """
+            SELECT u.id AS "studentId", u.username AS "studentUsername", g.id, g.course_id AS "courseId",
+                   g.assessment, g.score_tenths AS "scoreTenths", g.comments,
+                   g.created_at AS "createdAt", g.updated_at AS "updatedAt"
+            FROM grades g USE INDEX (idx_grades_course_score)
+            JOIN users u ON u.id = g.user_id
+            WHERE g.course_id = :courseId AND g.deleted = FALSE
+            ORDER BY g.course_id, g.score_tenths DESC, g.id
+            """, nativeQuery = true)
+    List<StudentGradeRow> findTopByCourse(@Param("courseId") Integer courseId, Pageable pageable);
+
+    /**
+     * Nota de un estudiante para el libro de calificaciones.
+     * Un estudiante sin notas aparece en una fila con curso y nota nulos.
+     * Es un record y no una interfaz como las demás filas: una página trae miles de filas y el
+     * proxy de la proyección por interfaz costaba varias veces más que la propia consulta.
+     */
+    record GradebookRow(String studentUsername, Integer courseId, Short scoreTenths) {}
+
+    /**
+     * Notas de una página de estudiantes (ordenados por username) agrupadas por celda:
+     * ordenadas por estudiante, curso y fecha descendente, de modo que la primera fila de cada
+     * celda es la última nota. Con allCourses = false solo se incluyen los cursos indicados.
+     * No se agrega con GROUP BY porque en H2 cuesta varias veces más que recorrer las filas.
+     */
+    @Query(value = """
+            SELECT u.username AS "studentUsername", g.course_id AS "courseId", g.score_tenths AS "scoreTenths"
+            FROM (SELECT id, username FROM users WHERE role = 'STUDENT'
+                  ORDER BY username LIMIT :limit OFFSET :offset) u
+            LEFT JOIN grades g ON g.user_id = u.id AND g.deleted = FALSE
+                 AND (:allCourses = TRUE OR g.course_id IN (:courseIds))
+            ORDER BY u.username, g.course_id, g.created_at DESC, g.id DESC
+            """, nativeQuery = true)
+    Stream<GradebookRow> streamGradebook(@Param("offset") int offset,
+                                         @Param("limit") int limit,
+                                         @Param("allCourses") boolean allCourses,
+                                         @Param("courseIds") Collection<Integer> courseIds);
 }
@@ -0,0 +1,48 @@
+package com.example.pruebaTecnica.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.pruebaTecnica.entity.Term;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad Term
+ */
+@Repository
+public interface TermRepository extends JpaRepository<Term, Integer> {
+
+    /**
+     * Periodos en orden cronológico
+     */
+    List<Term> findAllByOrderByStartsOnAsc();
+
+    /**
+     * Indica si algún periodo se solapa con las fechas indicadas (ambas incluidas)
+     */
+    @Query("SELECT COUNT(t) > 0 FROM Term t WHERE t.startsOn <= :endsOn AND t.endsOn >= :startsOn")
+    boolean existsOverlapping(@Param("startsOn") LocalDate startsOn, @Param("endsOn") LocalDate endsOn);
+
+    /**
+     * Registra los días de un periodo (ambas fechas incluidas). Falla por la clave primaria de
+     * term_days si alguno ya pertenece a otro periodo.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "term_days"))
+    @Query(value = """
+            INSERT INTO term_days (calendar_day, term_id)
+            SELECT DATEADD(DAY, x, CAST(:startsOn AS DATE)), :termId
+            FROM SYSTEM_RANGE(0, DATEDIFF(DAY, CAST(:startsOn AS DATE), CAST(:endsOn AS DATE)))
+            """, nativeQuery = true)
+    int addDays(@Param("termId") Integer termId,
+                @Param("startsOn") LocalDate startsOn,
+                @Param("endsOn") LocalDate endsOn);
+}
@@ -0,0 +1,99 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.TranscriptEntry;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TranscriptRepository extends JpaRepository<TranscriptEntry, TranscriptEntry.Key> {
+
+    /**
+     * Bloquea a los estudiantes de una escritura de notas, en orden de id, hasta el final de la
+     * transacción. La creación de un periodo los bloquea a todos (lockAllStudents): una nota se
+     * suma a su celda con los periodos ya confirmados o la cuenta la carga inicial del periodo nuevo.
+     */
+    @Query(value = "SELECT id FROM users WHERE id IN (:userIds) ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockStudents(@Param("userIds") Collection<Long> userIds);
+
+    // Bloquea a todos los estudiantes en orden de id mientras se crea un periodo
+    @Query(value = "SELECT id FROM users WHERE role = 'STUDENT' ORDER BY id FOR UPDATE", nativeQuery = true)
+    List<Long> lockAllStudents();
+
+    /**
+     * Suma el cambio de una nota a su celda (estudiante, periodo, curso) en una sola sentencia.
+     * El periodo se resuelve en la misma sentencia buscando el día de creación de la nota en
+     * term_days; si ningún periodo lo contiene, no se escribe nada. La suma se hace en la base de
+     * datos, así que dos escrituras concurrentes sobre la misma celda no se pisan.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "transcript_entries"))
+    @Query(value = """
+            MERGE INTO transcript_entries e
+            USING (SELECT CAST(:userId AS BIGINT) AS user_id, d.term_id, CAST(:courseId AS INTEGER) AS course_id
+                   FROM term_days d
+                   WHERE d.calendar_day = CAST(:createdAt AS DATE)) s
+            ON e.user_id = s.user_id AND e.term_id = s.term_id AND e.course_id = s.course_id
+            WHEN MATCHED THEN
+                UPDATE SET grade_count = e.grade_count + :countDelta, score_sum = e.score_sum + :sumDelta
+            WHEN NOT MATCHED THEN
+                INSERT (user_id, term_id, course_id, grade_count, score_sum)
+                VALUES (s.user_id, s.term_id, s.course_id, :countDelta, :sumDelta)
+            """, nativeQuery = true)
+    int addToCell(@Param("userId") Long userId,
+                  @Param("courseId") Integer courseId,
+                  @Param("createdAt") LocalDateTime createdAt,
+                  @Param("countDelta") int countDelta,
+                  @Param("sumDelta") long sumDelta);
+
+    /**
+     * Fija el valor de una celda (carga inicial de un periodo nuevo)
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "transcript_entries"))
+    @Query(value = """
+            MERGE INTO transcript_entries (user_id, term_id, course_id, grade_count, score_sum)
+            KEY (user_id, term_id, course_id)
+            VALUES (:userId, :termId, :courseId, :gradeCount, :scoreSum)
+            """, nativeQuery = true)
+    int setCell(@Param("userId") Long userId,
+                @Param("termId") Integer termId,
+                @Param("courseId") Integer courseId,
+                @Param("gradeCount") long gradeCount,
+                @Param("scoreSum") long scoreSum);
+
+    /**
+     * Celda del expediente con el periodo y los créditos del curso
+     */
+    interface TranscriptRow {
+        String getTerm();
+        LocalDate getStartsOn();
+        LocalDate getEndsOn();
+        Integer getCourseId();
+        Short getCredits();
+        Integer getGradeCount();
+        Long getScoreSum();
+    }
+
+    // Expediente de un estudiante: rango de la clave primaria por user_id, en orden cronológico
+    @Query(value = """
+            SELECT t.code AS "term", t.starts_on AS "startsOn", t.ends_on AS "endsOn", e.course_id AS "courseId",
+                   c.credits AS "credits", e.grade_count AS "gradeCount", e.score_sum AS "scoreSum"
+            FROM transcript_entries e
+            JOIN terms t ON t.id = e.term_id
+            JOIN courses c ON c.id = e.course_id
+            WHERE e.user_id = :userId AND e.grade_count > 0
+            ORDER BY t.starts_on, e.course_id
+            """, nativeQuery = true)
+    List<TranscriptRow> findRowsByStudent(@Param("userId") Long userId);
+}
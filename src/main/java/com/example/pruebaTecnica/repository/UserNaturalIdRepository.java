@@ -0,0 +1,20 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.User;
+
+import java.util.Optional;
+
+/**
+ * Búsqueda de usuarios por su identificador natural (username)
+ * Sustituye a la consulta derivada de Spring Data para que la resolución pase por la
+ * caché de identificadores naturales y la región de usuarios en lugar de ir siempre a la base de datos
+ */
+public interface UserNaturalIdRepository {
+
+    /**
+     * Busca un usuario por su nombre de usuario
+     * @param username nombre de usuario
+     * @return Optional con el usuario encontrado
+     */
+    Optional<User> findByUsername(String username);
+}
@@ -0,0 +1,27 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Implementación de UserNaturalIdRepository sobre la API de identificadores naturales de Hibernate
+ */
+class UserNaturalIdRepositoryImpl implements UserNaturalIdRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Transaccional para que la sesión siga abierta también cuando se llama fuera de una transacción (filtro JWT)
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByUsername(String username) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(username);
+    }
+}
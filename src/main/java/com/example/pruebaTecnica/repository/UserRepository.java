@@ -5,21 +5,24 @@ import org.springframework.stereotype.Repository;
 
 import com.example.pruebaTecnica.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repositorio para la entidad User
  * Aplica patrón Repository para abstraer el acceso a datos
+ * findByUsername se resuelve por identificador natural (ver UserNaturalIdRepository)
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
-    
+public interface UserRepository extends JpaRepository<User, Long>, UserNaturalIdRepository {
+
     /**
-     * Busca un usuario por su nombre de usuario
-     * @param username nombre de usuario
-     * @return Optional con el usuario encontrado
+     * Busca varios usuarios por nombre de usuario en una sola consulta
+     * @param usernames nombres de usuario
+     * @return usuarios encontrados (los inexistentes se omiten)
      */
-    Optional<User> findByUsername(String username);
+    List<User> findByUsernameIn(Collection<String> usernames);
     
     /**
      * Busca un usuario por su email
@@ -0,0 +1,105 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.entity.Course;
+import com.example.pruebaTecnica.repository.CourseRepository;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Diccionario en memoria entre el código de cada curso y su id
+ * Las calificaciones guardan solo el id del curso; la API sigue usando el nombre, que se traduce
+ * aquí sin consultar la base de datos salvo la primera vez. Los cursos no se eliminan ni se
+ * renombran, así que las entradas nunca quedan obsoletas.
+ */
+@Component
+@TenantScoped
+public class CourseDictionary {
+
+    private final CourseRepository courseRepository;
+    private final TransactionTemplate newTransaction;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> codes = new ConcurrentHashMap<>();
+
+    public CourseDictionary(CourseRepository courseRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.courseRepository = courseRepository;
+        // El curso se confirma aparte: si la escritura que lo pidió se revierte, el id ya cacheado sigue siendo válido
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Gauge.builder("grades.courses.dictionary.size", codes, Map::size).tags(TenantContext.tags()).register(meterRegistry);
+    }
+
+    /**
+     * Id del curso, registrándolo si todavía no existe
+     */
+    public Integer idOf(String code) {
+        Integer id = ids.get(code);
+        return id != null ? id : register(code);
+    }
+
+    /**
+     * Id del curso si existe (para filtros: un curso desconocido no se crea)
+     */
+    public Optional<Integer> findId(String code) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        return courseRepository.findByCode(code).map(this::remember);
+    }
+
+    /**
+     * Código del curso con ese id
+     */
+    public String codeOf(Integer id) {
+        String code = codes.get(id);
+        if (code != null) {
+            return code;
+        }
+        return courseRepository.findById(id)
+                .map(course -> codes.get(remember(course)))
+                .orElseThrow(() -> new IllegalStateException("Curso inexistente con ID: " + id));
+    }
+
+    /**
+     * Referencia al curso (sin cargarlo) para asignarla a una calificación
+     */
+    public Course reference(String code) {
+        return courseRepository.getReferenceById(idOf(code));
+    }
+
+    private synchronized Integer register(String code) {
+        Integer id = ids.get(code);
+        if (id != null) {
+            return id;
+        }
+        Course course;
+        try {
+            course = newTransaction.execute(status -> courseRepository.findByCode(code)
+                    .orElseGet(() -> courseRepository.save(new Course(code))));
+        } catch (DataIntegrityViolationException ex) {
+            // Otra instancia lo registró a la vez: se usa el suyo
+            course = courseRepository.findByCode(code).orElseThrow(() -> ex);
+        }
+        return remember(course);
+    }
+
+    private Integer remember(Course course) {
+        ids.put(course.getCode(), course.getId());
+        codes.put(course.getId(), course.getCode());
+        return course.getId();
+    }
+}
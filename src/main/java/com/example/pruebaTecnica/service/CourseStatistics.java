@@ -0,0 +1,415 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.CourseStatisticsDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeRankDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.ScoreBand;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.ScoreBucketRow;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Estadísticas de cada curso mantenidas en memoria con un histograma de notas
+ * Como la nota está acotada a la escala de Grade, cada curso guarda un contador primitivo por
+ * intervalo de 0.1 puntos; las escrituras lo ajustan tras el commit y cualquier percentil se
+ * obtiene recorriendo los intervalos, sin acceder a la base de datos. Un árbol de Fenwick sobre
+ * los mismos intervalos responde el puesto de una nota en O(log n), y un conjunto acotado guarda
+ * las mejores notas del curso para el ranking. Se reconstruye al arrancar y se reconcilia
+ * periódicamente (una escritura confirmada durante la reconstrucción puede desviar un contador
+ * hasta la siguiente).
+ */
+@Component
+@TenantScoped
+public class CourseStatistics {
+
+    private static final Logger logger = LoggerFactory.getLogger(CourseStatistics.class);
+
+    // Un intervalo por cada nota posible en décimas (resolución de 0.1)
+    static final int SCALE = Grade.SCALE;
+    static final int BUCKETS = (int) (Grade.MAX_TENTHS - Grade.MIN_TENTHS) + 1;
+    public static final List<Double> DEFAULT_PERCENTILES = List.of(25.0, 50.0, 75.0, 90.0);
+
+    private static final int PASSING_BUCKET = bucket(Grade.toTenths(ScoreBand.B.getThreshold()));
+
+    // Orden del ranking: nota descendente y, a igual nota, la registrada primero
+    private static final Comparator<GradeDto> LEADERBOARD_ORDER = Comparator
+            .comparing(GradeDto::getScoreTenths, Comparator.reverseOrder())
+            .thenComparing(GradeDto::getId);
+
+    private final GradeRepository gradeRepository;
+    private final CourseDictionary courseDictionary;
+    private final int leaderboardCapacity;
+
+    private volatile Map<String, Histogram> courses = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public CourseStatistics(GradeRepository gradeRepository, CourseDictionary courseDictionary,
+                            MeterRegistry meterRegistry,
+                            @Value("${grades.leaderboard.capacity:100}") int leaderboardCapacity) {
+        this.gradeRepository = gradeRepository;
+        this.courseDictionary = courseDictionary;
+        this.leaderboardCapacity = leaderboardCapacity;
+        Gauge.builder("grades.statistics.courses", this, statistics -> statistics.courses.size())
+                .tags(TenantContext.tags())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Estadísticas del curso; vacío si no tiene notas
+     */
+    public Optional<CourseStatisticsDto> statistics(String course, List<Double> percentiles) {
+        validate(percentiles);
+        ensureReady();
+        Histogram histogram = courses.get(course);
+        return histogram == null ? Optional.empty() : Optional.of(histogram.snapshot().toDto(course, percentiles));
+    }
+
+    /**
+     * Estadísticas de todos los cursos con notas, ordenadas por nombre de curso
+     */
+    public List<CourseStatisticsDto> allStatistics(List<Double> percentiles) {
+        validate(percentiles);
+        ensureReady();
+        return courses.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot().toDto(entry.getKey(), percentiles))
+                .filter(dto -> dto.getCount() > 0)
+                .sorted(Comparator.comparing(CourseStatisticsDto::getCourse))
+                .toList();
+    }
+
+    /**
+     * Puesto de la nota en su curso calculado con el árbol de Fenwick; vacío si el curso no
+     * tiene notas registradas en memoria
+     */
+    public Optional<GradeRankDto> rank(GradeDto grade) {
+        ensureReady();
+        Histogram histogram = courses.get(grade.getCourse());
+        return histogram == null ? Optional.empty() : Optional.ofNullable(histogram.rank(grade));
+    }
+
+    /**
+     * Las k mejores notas del curso en O(k); vacío si el curso no tiene notas
+     */
+    public Optional<List<GradeDto>> top(String course, int k) {
+        if (k < 1 || k > leaderboardCapacity) {
+            throw new InvalidRequestException("k debe estar entre 1 y " + leaderboardCapacity);
+        }
+        ensureReady();
+        Histogram histogram = courses.get(course);
+        return histogram == null ? Optional.empty() : Optional.of(histogram.top(course, k));
+    }
+
+    /**
+     * Ajusta los contadores con el cambio confirmado: retira la nota anterior (si la hay, también
+     * en un upsert que actualiza) y suma la nueva
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.PROJECTION_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        GradeDto previous = event.previous();
+        GradeDto current = event.current();
+        if (previous != null) {
+            update(previous.getCourse(), bucket(previous.getScoreTenths()), -1,
+                    histogram -> histogram.removeTop(previous.getId()));
+        }
+        if (current != null) {
+            update(current.getCourse(), bucket(current.getScoreTenths()), 1,
+                    histogram -> histogram.offerTop(current));
+        }
+    }
+
+    /**
+     * Reconstruye los histogramas de todos los cursos (al arrancar y cada
+     * grades.statistics.reconcile-interval) y los publica de forma atómica
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${grades.statistics.reconcile-interval:10m}")
+    public synchronized void rebuild() {
+        try {
+            long start = System.nanoTime();
+            Map<String, Histogram> rebuilt = new ConcurrentHashMap<>();
+            for (ScoreBucketRow row : gradeRepository.histogramByCourse()) {
+                rebuilt.computeIfAbsent(courseDictionary.codeOf(row.getCourseId()), course -> new Histogram())
+                        .add(row.getBucket(), row.getCount());
+            }
+            // Los rankings no se cargan aquí sino bajo demanda, la primera vez que se consulta cada curso
+            courses = rebuilt;
+            ready = true;
+            logger.info("Estadísticas de cursos reconstruidas: {} cursos en {} ms",
+                    rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            logger.error("No se pudieron reconstruir las estadísticas de cursos: {}", ex.getMessage());
+        }
+    }
+
+    private void update(String course, int bucket, long delta, Consumer<Histogram> leaderboard) {
+        // compute bloquea solo la entrada del curso: el ajuste es atómico frente a otras escrituras
+        courses.compute(course, (key, histogram) -> {
+            Histogram target = histogram == null ? new Histogram() : histogram;
+            synchronized (target) {
+                target.add(bucket, delta);
+                leaderboard.accept(target);
+                return target.isEmpty() ? null : target;
+            }
+        });
+    }
+
+    private void ensureReady() {
+        if (!ready) {
+            rebuild();
+        }
+    }
+
+    private static void validate(List<Double> percentiles) {
+        for (Double percentile : percentiles) {
+            if (percentile == null || percentile < 0 || percentile > 100) {
+                throw new InvalidRequestException("Los percentiles deben estar entre 0 y 100: " + percentile);
+            }
+        }
+    }
+
+    static int bucket(short scoreTenths) {
+        return (int) Math.max(0, Math.min(BUCKETS - 1, scoreTenths - Grade.MIN_TENTHS));
+    }
+
+    private static double score(int bucket) {
+        return Grade.toPoints(Grade.MIN_TENTHS + bucket);
+    }
+
+    /**
+     * Contadores de un curso, su árbol de Fenwick y las mejores notas; se accede a ellos
+     * bajo su propio monitor
+     */
+    private final class Histogram {
+
+        private final long[] counts = new long[BUCKETS];
+        private final long[] tree = new long[BUCKETS + 1];
+        private long total;
+
+        private final TreeSet<GradeDto> top = new TreeSet<>(LEADERBOARD_ORDER);
+        // false cuando una nota salió del conjunto y puede haber otra fuera de él que deba ocupar su lugar
+        private boolean topComplete;
+        // Cambios del ranking llegados mientras alguna recarga consulta la base de datos (null sin recargas)
+        private List<TopWrite> writesDuringReload;
+        private int reloads;
+
+        synchronized void add(int bucket, long delta) {
+            // Nunca por debajo de cero aunque llegue un borrado de algo que no se contó
+            long applied = Math.max(delta, -counts[bucket]);
+            counts[bucket] += applied;
+            total += applied;
+            for (int i = bucket + 1; i <= BUCKETS; i += i & -i) {
+                tree[i] += applied;
+            }
+        }
+
+        synchronized void reset(long[] fresh) {
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                add(bucket, fresh[bucket] - counts[bucket]);
+            }
+        }
+
+        synchronized boolean isEmpty() {
+            return total == 0;
+        }
+
+        synchronized Snapshot snapshot() {
+            return new Snapshot(counts.clone(), total);
+        }
+
+        /**
+         * Cantidad de notas en los intervalos 0..bucket (suma de prefijo del árbol)
+         */
+        private long countUpTo(int bucket) {
+            long sum = 0;
+            for (int i = bucket + 1; i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        synchronized GradeRankDto rank(GradeDto grade) {
+            if (total == 0) {
+                return null;
+            }
+            long atOrBelow = countUpTo(bucket(grade.getScoreTenths()));
+            return new GradeRankDto(grade.getId(), grade.getCourse(), grade.getScore(),
+                    total - atOrBelow + 1, total, 100.0 * atOrBelow / total);
+        }
+
+        synchronized void offerTop(GradeDto grade) {
+            apply(set -> {
+                set.removeIf(entry -> entry.getId().equals(grade.getId()));
+                set.add(grade);
+                if (set.size() > leaderboardCapacity) {
+                    set.pollLast();
+                }
+                return true;
+            });
+        }
+
+        synchronized void removeTop(Long gradeId) {
+            apply(set -> !(set.removeIf(entry -> entry.getId().equals(gradeId)) && total > set.size()));
+        }
+
+        private void apply(TopWrite write) {
+            if (!write.applyTo(top)) {
+                topComplete = false;
+            }
+            if (writesDuringReload != null) {
+                writesDuringReload.add(write);
+            }
+        }
+
+        /**
+         * Las k mejores notas; si el conjunto quedó incompleto se recarga desde la base de datos
+         * fuera del monitor, para no bloquear las escrituras del curso durante la consulta. Las que
+         * llegan mientras tanto se anotan y se reaplican sobre el resultado, de modo que ninguna se
+         * pierde (reaplicarlas es idempotente porque se identifican por id).
+         */
+        List<GradeDto> top(String course, int k) {
+            int seen;
+            synchronized (this) {
+                if (topComplete) {
+                    return first(k);
+                }
+                if (reloads++ == 0) {
+                    writesDuringReload = new ArrayList<>();
+                }
+                seen = writesDuringReload.size();
+            }
+            TreeSet<GradeDto> fresh = new TreeSet<>(LEADERBOARD_ORDER);
+            try {
+                Integer courseId = courseDictionary.idOf(course);
+                for (StudentGradeRow row : gradeRepository.findTopByCourse(courseId, PageRequest.of(0, leaderboardCapacity))) {
+                    GradeDto dto = new GradeDto(row.getId(), course, row.getScoreTenths(), row.getComments(),
+                            row.getStudentUsername(), row.getCreatedAt(), row.getUpdatedAt());
+                    dto.setAssessment(row.getAssessment());
+                    fresh.add(dto);
+                }
+            } catch (RuntimeException ex) {
+                synchronized (this) {
+                    endReload();
+                }
+                throw ex;
+            }
+            synchronized (this) {
+                // Otra recarga pudo completar el conjunto mientras tanto; entonces ya está al día
+                if (!topComplete) {
+                    boolean complete = true;
+                    for (TopWrite write : writesDuringReload.subList(seen, writesDuringReload.size())) {
+                        complete &= write.applyTo(fresh);
+                    }
+                    top.clear();
+                    top.addAll(fresh);
+                    topComplete = complete;
+                }
+                endReload();
+                return first(k);
+            }
+        }
+
+        private void endReload() {
+            if (--reloads == 0) {
+                writesDuringReload = null;
+            }
+        }
+
+        private List<GradeDto> first(int k) {
+            List<GradeDto> result = new ArrayList<>(Math.min(k, top.size()));
+            for (GradeDto grade : top) {
+                if (result.size() == k) {
+                    break;
+                }
+                result.add(grade);
+            }
+            return result;
+        }
+    }
+
+    // Cambio del ranking aplicable a un conjunto; false si puede haberlo dejado incompleto
+    private interface TopWrite {
+        boolean applyTo(TreeSet<GradeDto> set);
+    }
+
+    private record Snapshot(long[] counts, long total) {
+
+        CourseStatisticsDto toDto(String course, List<Double> percentiles) {
+            CourseStatisticsDto dto = new CourseStatisticsDto();
+            dto.setCourse(course);
+            dto.setCount(total);
+            if (total == 0) {
+                return dto;
+            }
+
+            long weighted = 0;
+            long passing = 0;
+            int min = -1;
+            int max = -1;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                long count = counts[bucket];
+                if (count == 0) {
+                    continue;
+                }
+                weighted += count * bucket;
+                if (bucket >= PASSING_BUCKET) {
+                    passing += count;
+                }
+                if (min < 0) {
+                    min = bucket;
+                }
+                max = bucket;
+            }
+
+            dto.setMean(Grade.toPoints(Grade.MIN_TENTHS + (double) weighted / total));
+            dto.setMin(score(min));
+            dto.setMax(score(max));
+            dto.setMedian(percentile(50));
+            for (Double percentile : percentiles) {
+                String key = "p" + BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString();
+                dto.getPercentiles().put(key, percentile(percentile));
+            }
+            dto.setPassRate((double) passing / total);
+            return dto;
+        }
+
+        /**
+         * Percentil por rango más cercano: la menor nota cuyo acumulado alcanza p% del total
+         */
+        double percentile(double percentile) {
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long cumulative = 0;
+            for (int bucket = 0; bucket < counts.length; bucket++) {
+                cumulative += counts[bucket];
+                if (cumulative >= rank) {
+                    return score(bucket);
+                }
+            }
+            return score(counts.length - 1);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.RecomputationDto;
+import com.example.pruebaTecnica.dto.RecomputationDto.Status;
+import com.example.pruebaTecnica.repository.CourseComponentRepository;
+import com.example.pruebaTecnica.repository.FinalGradeRepository;
+import com.example.pruebaTecnica.repository.FinalGradeRepository.ComponentScoreRow;
+import com.example.pruebaTecnica.service.FinalGradeService.FinalCell;
+import com.example.pruebaTecnica.sharding.ShardMap;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Recálculo de las notas finales de un curso tras un cambio de pesos
+ * Reparte los estudiantes del curso en lotes de grades.finals.recompute.chunk-size y los
+ * recalcula en paralelo con grades.finals.recompute.parallelism hilos, un lote por transacción:
+ * cada lote bloquea a sus estudiantes en orden de id (como las escrituras de notas), lee sus
+ * acumulados y los pesos vigentes y fija sus notas finales, así que un lote que falla no deja
+ * celdas a medias y una escritura concurrente se recalcula antes o después del lote, nunca a la
+ * vez. El recálculo empieza tras el commit del cambio de pesos y su progreso se consulta por id;
+ * se conservan los últimos MAX_JOBS recálculos. Con sharding cada lote reúne estudiantes de un solo
+ * shard, así que su transacción escribe en uno solo. Se cuentan además los cambios de pesos confirmados
+ * por curso: una escritura que leyó los pesos antes de uno recalcula su celda tras su commit.
+ */
+@Component
+public class FinalGradeRecomputer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FinalGradeRecomputer.class);
+
+    static final int MAX_JOBS = 100;
+
+    private final FinalGradeRepository finalGradeRepository;
+    private final CourseComponentRepository componentRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final ShardMap shardMap;
+    private final int chunkSize;
+    private final ExecutorService workers;
+    private final Counter recomputed;
+
+    private final Map<CourseKey, Long> weightChanges = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > MAX_JOBS;
+        }
+    };
+
+    public FinalGradeRecomputer(FinalGradeRepository finalGradeRepository,
+                                CourseComponentRepository componentRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                ObjectProvider<ShardMap> shardMap,
+                                @Value("${grades.finals.recompute.chunk-size:500}") int chunkSize,
+                                @Value("${grades.finals.recompute.parallelism:4}") int parallelism) {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalStateException("grades.finals.recompute.chunk-size y parallelism deben ser mayores que 0");
+        }
+        this.finalGradeRepository = finalGradeRepository;
+        this.componentRepository = componentRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.shardMap = shardMap.getIfAvailable();
+        this.chunkSize = chunkSize;
+        this.workers = Executors.newFixedThreadPool(parallelism,
+                Thread.ofPlatform().name("final-grades-", 0).daemon().factory());
+        this.recomputed = Counter.builder("grades.finals.recomputed")
+                .description("Notas finales recalculadas por cambios de pesos")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra el recálculo del curso y lo lanza cuando se confirme la transacción en curso
+     * (de inmediato si no hay ninguna); si se revierte, el recálculo queda cancelado
+     */
+    public RecomputationDto start(Integer courseId, String course) {
+        Job job = new Job(ids.incrementAndGet(), TenantContext.current(), courseId, course);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        weightChanged(job);
+                        launch(job);
+                    } else {
+                        job.finish(Status.CANCELLED, "El cambio de pesos no se confirmó");
+                    }
+                }
+            });
+        } else {
+            weightChanged(job);
+            launch(job);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Cambios de pesos confirmados en el curso del tenant actual
+     */
+    public long weightChanges(Integer courseId) {
+        return weightChanges.getOrDefault(new CourseKey(TenantContext.current(), courseId), 0L);
+    }
+
+    /**
+     * Tras el commit de la transacción en curso, vuelve a calcular la celda si desde seen se
+     * confirmó algún cambio de pesos del curso (los pesos que leyó pueden ser los anteriores)
+     */
+    public void recheckAfterCommit(Integer courseId, Long studentId, long seen) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String tenant = TenantContext.current();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (weightChanges(courseId) == seen) {
+                    return;
+                }
+                workers.execute(() -> inTenant(tenant, () -> {
+                    try {
+                        chunkTransaction.executeWithoutResult(status -> recomputeChunk(courseId, List.of(studentId)));
+                    } catch (RuntimeException ex) {
+                        logger.warn("No se pudo recalcular la nota final de {} en el curso {}", studentId, courseId, ex);
+                    }
+                }));
+            }
+        });
+    }
+
+    private void weightChanged(Job job) {
+        weightChanges.merge(new CourseKey(job.tenant, job.courseId), 1L, Long::sum);
+    }
+
+    /**
+     * Progreso de un recálculo del tenant actual
+     */
+    public Optional<RecomputationDto> find(long id) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(id);
+        }
+        return Optional.ofNullable(job)
+                .filter(candidate -> Objects.equals(candidate.tenant, TenantContext.current()))
+                .map(Job::toDto);
+    }
+
+    private void launch(Job job) {
+        workers.execute(() -> inTenant(job.tenant, () -> plan(job)));
+    }
+
+    private void plan(Job job) {
+        List<Long> students;
+        try {
+            students = finalGradeRepository.findStudentsOfCourse(job.courseId);
+        } catch (RuntimeException ex) {
+            logger.warn("No se pudo iniciar el recálculo {} de {}", job.id, job.course, ex);
+            job.finish(Status.FAILED, ex.getMessage());
+            return;
+        }
+        List<List<Long>> parts = chunks(students);
+        int chunks = parts.size();
+        job.running(students.size(), chunks);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[chunks];
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            List<Long> ids = parts.get(chunk);
+            futures[chunk] = CompletableFuture.runAsync(() -> inTenant(job.tenant, () -> {
+                chunkTransaction.executeWithoutResult(status -> recomputeChunk(job.courseId, ids));
+                job.chunkDone(ids.size());
+                recomputed.increment(ids.size());
+            }), workers).exceptionally(ex -> {
+                logger.warn("Falló un lote del recálculo {} de {}", job.id, job.course, ex);
+                job.chunkFailed(ex.getMessage());
+                return null;
+            });
+        }
+        CompletableFuture.allOf(futures).whenComplete((result, ex) -> {
+            job.finish(job.error == null ? Status.COMPLETED : Status.FAILED, job.error);
+            logger.info("Recálculo {} de {}: {} estudiantes en {} lotes, {}",
+                    job.id, job.course, job.students, chunks, job.status);
+        });
+    }
+
+    /**
+     * Lotes de hasta chunkSize estudiantes en orden de id; con sharding, los de cada shard por separado
+     */
+    private List<List<Long>> chunks(List<Long> students) {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Long student : students) {
+            byShard.computeIfAbsent(shardMap == null ? 0 : shardMap.shardOfUser(student), shard -> new ArrayList<>())
+                    .add(student);
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (List<Long> shardStudents : byShard.values()) {
+            for (int from = 0; from < shardStudents.size(); from += chunkSize) {
+                chunks.add(shardStudents.subList(from, Math.min(shardStudents.size(), from + chunkSize)));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Recalcula un lote en una transacción: una lectura de los acumulados del lote y una
+     * escritura por estudiante
+     */
+    private void recomputeChunk(Integer courseId, List<Long> students) {
+        finalGradeRepository.lockStudents(students);
+        Map<Long, List<ComponentScoreRow>> scores = finalGradeRepository.findScoresOfStudents(courseId, students).stream()
+                .collect(Collectors.groupingBy(ComponentScoreRow::getStudentId));
+        Map<Integer, Short> weights = FinalGradeService.weightsById(componentRepository.findWeights(courseId));
+        for (Long student : students) {
+            FinalCell cell = FinalGradeService.compute(scores.getOrDefault(student, List.of()), weights);
+            if (cell == null) {
+                finalGradeRepository.deleteFinal(student, courseId);
+            } else {
+                finalGradeRepository.setFinal(student, courseId, cell.finalTenths(), cell.gradedWeight());
+            }
+        }
+    }
+
+    private static void inTenant(String tenant, Runnable task) {
+        String previous = TenantContext.current();
+        TenantContext.set(tenant);
+        try {
+            task.run();
+        } finally {
+            TenantContext.set(previous);
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    private record CourseKey(String tenant, Integer courseId) {}
+
+    /**
+     * Estado de un recálculo; los lotes lo actualizan desde varios hilos
+     */
+    private static final class Job {
+
+        final long id;
+        final String tenant;
+        final Integer courseId;
+        final String course;
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger completedChunks = new AtomicInteger();
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile Status status = Status.PENDING;
+        volatile int students;
+        volatile int chunks;
+        volatile LocalDateTime startedAt;
+        volatile LocalDateTime finishedAt;
+        volatile String error;
+
+        Job(long id, String tenant, Integer courseId, String course) {
+            this.id = id;
+            this.tenant = tenant;
+            this.courseId = courseId;
+            this.course = course;
+        }
+
+        void running(int students, int chunks) {
+            this.students = students;
+            this.chunks = chunks;
+            this.startedAt = LocalDateTime.now();
+            this.status = Status.RUNNING;
+        }
+
+        void chunkDone(int size) {
+            processed.addAndGet(size);
+            completedChunks.incrementAndGet();
+        }
+
+        void chunkFailed(String message) {
+            error = message;
+        }
+
+        void finish(Status status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        RecomputationDto toDto() {
+            return new RecomputationDto(id, course, status, students, processed.get(), chunks, completedChunks.get(),
+                    startedAt != null ? startedAt : createdAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.ComponentDto;
+import com.example.pruebaTecnica.dto.FinalGradeDto;
+import com.example.pruebaTecnica.dto.RecomputationDto;
+import com.example.pruebaTecnica.entity.CourseComponent;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.repository.CourseComponentRepository;
+import com.example.pruebaTecnica.repository.CourseComponentRepository.ComponentWeight;
+import com.example.pruebaTecnica.repository.FinalGradeRepository;
+import com.example.pruebaTecnica.repository.FinalGradeRepository.ComponentScoreRow;
+import com.example.pruebaTecnica.repository.FinalGradeRepository.FinalRow;
+import com.example.pruebaTecnica.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de componentes de evaluación y notas finales
+ * Cada curso define componentes con un peso y cada nota puede etiquetarse con uno. La nota final de
+ * un estudiante en un curso está materializada en course_finals y se mantiene de forma incremental:
+ * GradeService le pasa cada escritura en su misma transacción, aquí se suma el cambio al acumulado
+ * del componente (component_scores) y se recalcula solo la celda (estudiante, curso) afectada a
+ * partir de sus acumulados, una fila por componente. Un cambio de peso afecta a todo el curso y se
+ * recalcula en segundo plano (ver FinalGradeRecomputer).
+ */
+@Service
+@Transactional
+public class FinalGradeService {
+
+    @Autowired
+    private FinalGradeRepository finalGradeRepository;
+
+    @Autowired
+    private CourseComponentRepository componentRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseDictionary courseDictionary;
+
+    @Autowired
+    private FinalGradeRecomputer recomputer;
+
+    /**
+     * Nota tal como cuenta para la nota final: sin componente no cuenta
+     */
+    public record Entry(Long studentId, Integer courseId, Integer componentId, short scoreTenths) {
+
+        boolean sameComponent(Entry other) {
+            return studentId.equals(other.studentId) && courseId.equals(other.courseId)
+                    && componentId.equals(other.componentId);
+        }
+    }
+
+    /**
+     * Nota final de una celda en décimas y suma de los pesos con nota
+     */
+    record FinalCell(double finalTenths, int gradedWeight) {}
+
+    /**
+     * Promedio de los componentes con nota ponderado por su peso, recorriendo una vez los
+     * acumulados de la celda (uno por componente). Null si ningún componente tiene nota.
+     */
+    static FinalCell compute(Collection<ComponentScoreRow> rows, Map<Integer, Short> weights) {
+        double weighted = 0;
+        int gradedWeight = 0;
+        for (ComponentScoreRow row : rows) {
+            Short weight = weights.get(row.getComponentId());
+            if (weight == null || row.getGradeCount() <= 0) {
+                continue;
+            }
+            weighted += weight * ((double) row.getScoreSum() / row.getGradeCount());
+            gradedWeight += weight;
+        }
+        return gradedWeight == 0 ? null : new FinalCell(weighted / gradedWeight, gradedWeight);
+    }
+
+    /**
+     * Pesos por id de componente
+     */
+    static Map<Integer, Short> weightsById(List<ComponentWeight> weights) {
+        return weights.stream().collect(Collectors.toMap(ComponentWeight::getId, ComponentWeight::getWeight));
+    }
+
+    /**
+     * Componente con ese código en el curso, para etiquetar una nota (null si no se indica)
+     */
+    public CourseComponent findComponent(String course, String code) {
+        if (code == null) {
+            return null;
+        }
+        return courseDictionary.findId(course)
+                .flatMap(courseId -> componentRepository.findByCourseIdAndCode(courseId, code))
+                .orElseThrow(() -> new InvalidRequestException("El curso " + course + " no tiene el componente " + code));
+    }
+
+    /**
+     * Aplica el cambio de una nota: previous es su estado antes de la escritura y current el de
+     * después (null si no existía o si se eliminó). Suma el cambio a los acumulados de sus
+     * componentes y recalcula la nota final de cada celda afectada.
+     */
+    public void record(Entry previous, Entry current) {
+        previous = previous == null || previous.componentId() == null ? null : previous;
+        current = current == null || current.componentId() == null ? null : current;
+        if (previous == null && current == null) {
+            return;
+        }
+        if (previous != null && current != null && previous.sameComponent(current)
+                && previous.scoreTenths() == current.scoreTenths()) {
+            return;
+        }
+
+        // Bloqueo por estudiante en orden de id: una nota que cambia de dueño bloquea a ambos sin interbloqueo
+        Set<Long> students = new TreeSet<>();
+        if (previous != null) {
+            students.add(previous.studentId());
+        }
+        if (current != null) {
+            students.add(current.studentId());
+        }
+        students.forEach(finalGradeRepository::lockStudent);
+
+        if (previous != null && current != null && previous.sameComponent(current)) {
+            finalGradeRepository.addToComponent(current.studentId(), current.courseId(), current.componentId(),
+                    0, current.scoreTenths() - previous.scoreTenths());
+            recompute(current.studentId(), current.courseId());
+            return;
+        }
+        if (previous != null) {
+            finalGradeRepository.addToComponent(previous.studentId(), previous.courseId(), previous.componentId(),
+                    -1, -previous.scoreTenths());
+        }
+        if (current != null) {
+            finalGradeRepository.addToComponent(current.studentId(), current.courseId(), current.componentId(),
+                    1, current.scoreTenths());
+        }
+        if (previous != null) {
+            recompute(previous.studentId(), previous.courseId());
+        }
+        if (current != null && (previous == null || !previous.studentId().equals(current.studentId())
+                || !previous.courseId().equals(current.courseId()))) {
+            recompute(current.studentId(), current.courseId());
+        }
+    }
+
+    /**
+     * Recalcula una celda con el estudiante ya bloqueado. Si antes de confirmarse esta escritura se
+     * confirma un cambio de pesos del curso, los pesos leídos pueden ser los anteriores y el
+     * recálculo de ese cambio puede no ver aún esta celda: se vuelve a calcular tras el commit.
+     */
+    private void recompute(Long studentId, Integer courseId) {
+        long weightChanges = recomputer.weightChanges(courseId);
+        FinalCell cell = compute(finalGradeRepository.findScores(studentId, courseId),
+                weightsById(componentRepository.findWeights(courseId)));
+        if (cell == null) {
+            finalGradeRepository.deleteFinal(studentId, courseId);
+        } else {
+            finalGradeRepository.setFinal(studentId, courseId, cell.finalTenths(), cell.gradedWeight());
+        }
+        recomputer.recheckAfterCommit(courseId, studentId, weightChanges);
+    }
+
+    /**
+     * Componentes de un curso por código
+     */
+    @Transactional(readOnly = true)
+    public List<ComponentDto> listComponents(String course) {
+        return componentRepository.findByCourseIdOrderByCode(existingCourse(course)).stream()
+                .map(component -> new ComponentDto(course, component.getCode(), component.getWeight(), null))
+                .toList();
+    }
+
+    /**
+     * Crea un componente o cambia su peso (solo profesores). Un cambio de peso altera la nota
+     * final de todos los estudiantes del curso: se lanza un recálculo en segundo plano que empieza
+     * cuando se confirma esta transacción, y se devuelve para consultar su progreso.
+     */
+    public ComponentDto defineComponent(String course, String code, short weight) {
+        if (code == null || code.isBlank() || code.length() > 50) {
+            throw new InvalidRequestException("El código del componente debe tener entre 1 y 50 caracteres");
+        }
+        Integer courseId = courseDictionary.idOf(course);
+        CourseComponent component = componentRepository.findByCourseIdAndCode(courseId, code).orElse(null);
+        if (component == null) {
+            // Ninguna nota puede estar etiquetada con un componente nuevo: no hay nada que recalcular
+            componentRepository.save(new CourseComponent(courseId, code, weight));
+            return new ComponentDto(course, code, weight, null);
+        }
+        if (component.getWeight() == weight) {
+            return new ComponentDto(course, code, weight, null);
+        }
+        component.setWeight(weight);
+        componentRepository.saveAndFlush(component);
+        return new ComponentDto(course, code, weight, recomputer.start(courseId, course));
+    }
+
+    /**
+     * Progreso de un recálculo de las notas finales del curso
+     */
+    public RecomputationDto getRecomputation(String course, long id) {
+        return recomputer.find(id)
+                .filter(recomputation -> recomputation.getCourse().equals(course))
+                .orElseThrow(() -> new ResourceNotFoundException("Recálculo no encontrado con ID: " + id));
+    }
+
+    /**
+     * Notas finales del estudiante autenticado con el detalle de cada componente
+     */
+    @Transactional(readOnly = true)
+    public List<FinalGradeDto> getFinals() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User student = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado: " + username));
+
+        List<FinalRow> finals = finalGradeRepository.findFinalsByStudent(student.getId());
+        if (finals.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, List<CourseComponent>> components = componentsOf(finals);
+        Map<Integer, List<ComponentScoreRow>> scores = finalGradeRepository.findScoresByStudent(student.getId()).stream()
+                .collect(Collectors.groupingBy(ComponentScoreRow::getCourseId));
+
+        List<FinalGradeDto> result = new ArrayList<>(finals.size());
+        for (FinalRow row : finals) {
+            Map<Integer, CourseComponent> byId = components.getOrDefault(row.getCourseId(), List.of()).stream()
+                    .collect(Collectors.toMap(CourseComponent::getId, Function.identity()));
+            List<FinalGradeDto.ComponentResult> breakdown = new ArrayList<>();
+            for (ComponentScoreRow score : scores.getOrDefault(row.getCourseId(), List.of())) {
+                CourseComponent component = byId.get(score.getComponentId());
+                breakdown.add(new FinalGradeDto.ComponentResult(component.getCode(), component.getWeight(),
+                        score.getGradeCount(), Grade.toPoints((double) score.getScoreSum() / score.getGradeCount())));
+            }
+            breakdown.sort(Comparator.comparing(FinalGradeDto.ComponentResult::getComponent));
+            FinalGradeDto dto = toDto(row, totalWeight(byId.values()));
+            dto.setComponents(breakdown);
+            result.add(dto);
+        }
+        result.sort(Comparator.comparing(FinalGradeDto::getCourse));
+        return result;
+    }
+
+    /**
+     * Notas finales de todos los estudiantes de un curso, por username (solo profesores)
+     */
+    @Transactional(readOnly = true)
+    public List<FinalGradeDto> getCourseFinals(String course) {
+        Integer courseId = existingCourse(course);
+        int totalWeight = totalWeight(componentRepository.findByCourseIdOrderByCode(courseId));
+        return finalGradeRepository.findFinalsByCourse(courseId).stream()
+                .map(row -> toDto(row, totalWeight))
+                .toList();
+    }
+
+    private Map<Integer, List<CourseComponent>> componentsOf(List<FinalRow> finals) {
+        Set<Integer> courseIds = finals.stream().map(FinalRow::getCourseId).collect(Collectors.toSet());
+        return componentRepository.findByCourseIdIn(courseIds).stream()
+                .collect(Collectors.groupingBy(CourseComponent::getCourseId));
+    }
+
+    private FinalGradeDto toDto(FinalRow row, int totalWeight) {
+        return new FinalGradeDto(row.getStudentUsername(), courseDictionary.codeOf(row.getCourseId()),
+                Grade.toPoints(row.getFinalTenths()), row.getGradedWeight(), totalWeight, new ArrayList<>());
+    }
+
+    private int totalWeight(Collection<CourseComponent> components) {
+        return components.stream().mapToInt(CourseComponent::getWeight).sum();
+    }
+
+    private Integer existingCourse(String course) {
+        return courseDictionary.findId(course)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado: " + course));
+    }
+}
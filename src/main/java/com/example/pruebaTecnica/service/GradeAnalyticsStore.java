@@ -0,0 +1,532 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.AnalyticsResultDto;
+import com.example.pruebaTecnica.dto.AnalyticsStatsDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Almacén analítico columnar fuera del heap (opcional, grades.analytics.enabled=true)
+ * Cada calificación ocupa una fila en columnas primitivas sobre buffers directos: estudiante,
+ * curso codificado por diccionario, día de registro y nota en décimas (18 bytes por fila).
+ * Se carga desde GradeRepository al arrancar, se mantiene con los GradeChangedEvent y responde
+ * agregaciones filtradas recorriendo las columnas en paralelo por bloques, sin hidratar entidades.
+ */
+@Service
+@ConditionalOnProperty(prefix = "grades.analytics", name = "enabled", havingValue = "true")
+@TenantScoped
+public class GradeAnalyticsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeAnalyticsStore.class);
+
+    public enum GroupBy {
+        COURSE, STUDENT, MONTH
+    }
+
+    /**
+     * Filtros de una agregación; los null no filtran. Las fechas son inclusivas.
+     */
+    public record Filter(Collection<String> courses, LocalDate from, LocalDate to, Double minScore, Double maxScore) {
+
+        public static Filter none() {
+            return new Filter(null, null, null, null, null);
+        }
+    }
+
+    // Filas por bloque de recorrido paralelo
+    static final int CHUNK = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private final GradeRepository gradeRepository;
+    private final CourseDictionary courseDictionary;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer scanTimer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Protegido por lock
+    private Columns columns = new Columns(INITIAL_CAPACITY);
+
+    // Eventos recibidos mientras se reconstruye, para reaplicarlos sobre las columnas nuevas
+    private List<GradeChangedEvent> rebuildLog;
+
+    public GradeAnalyticsStore(GradeRepository gradeRepository,
+                               CourseDictionary courseDictionary,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
+        this.gradeRepository = gradeRepository;
+        this.courseDictionary = courseDictionary;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.scanTimer = meterRegistry.timer("grades.analytics.scan", TenantContext.tags());
+        Gauge.builder("grades.analytics.off_heap_bytes", this, store -> store.stats().getOffHeapBytes())
+                .tags(TenantContext.tags())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agregación (cantidad, promedio, mínima y máxima) de las notas que cumplen el filtro,
+     * agrupadas por curso, estudiante o mes de registro
+     */
+    public AnalyticsResultDto aggregate(GroupBy groupBy, Filter filter) {
+        lock.readLock().lock();
+        try {
+            Columns snapshot = columns;
+            ScanFilter scanFilter = snapshot.resolve(filter);
+            int size = snapshot.size;
+            int chunks = (size + CHUNK - 1) / CHUNK;
+
+            long start = System.nanoTime();
+            Partial result = IntStream.range(0, chunks).parallel()
+                    .mapToObj(chunk -> snapshot.scan(chunk * CHUNK, Math.min(size, (chunk + 1) * CHUNK), groupBy, scanFilter))
+                    .reduce(Partial::merge)
+                    .orElseGet(() -> new Partial(groupBy, snapshot.names.size()));
+            long elapsed = System.nanoTime() - start;
+            scanTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+            AnalyticsResultDto dto = new AnalyticsResultDto();
+            dto.setGroupBy(groupBy.name());
+            dto.setGroups(result.toGroups(snapshot.names));
+            dto.setScannedRows(size);
+            dto.setMatchedRows(dto.getGroups().stream().mapToLong(AnalyticsResultDto.Group::getCount).sum());
+            dto.setElapsedMillis(elapsed / 1_000_000.0);
+            dto.setRowsPerSecond(elapsed == 0 ? 0 : size * 1_000_000_000.0 / elapsed);
+            return dto;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ocupación del almacén: filas, memoria fuera del heap y bytes por millón de calificaciones
+     */
+    public AnalyticsStatsDto stats() {
+        lock.readLock().lock();
+        try {
+            Columns snapshot = columns;
+            AnalyticsStatsDto dto = new AnalyticsStatsDto();
+            dto.setRows(snapshot.size);
+            dto.setLiveRows(snapshot.live);
+            dto.setCapacity(snapshot.capacity);
+            dto.setCourses(snapshot.names.size());
+            dto.setOffHeapBytes(snapshot.offHeapBytes());
+            dto.setBytesPerRow(Columns.BYTES_PER_ROW);
+            // Columnas más el índice por id con su factor de carga máximo (1/2)
+            dto.setBytesPerMillionGrades(1_000_000L * (Columns.BYTES_PER_ROW + 2 * IdIndex.BYTES_PER_SLOT));
+            return dto;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.PROJECTION_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        synchronized (this) {
+            if (rebuildLog != null) {
+                rebuildLog.add(event);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            apply(columns, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recarga las columnas desde la base de datos (al arrancar y cada
+     * grades.analytics.reconcile-interval) y las publica de forma atómica
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${grades.analytics.reconcile-interval:1h}")
+    public void rebuild() {
+        synchronized (this) {
+            rebuildLog = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Columns fresh = readOnlyTransaction.execute(status -> load());
+
+            lock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    // Reaplicar es idempotente: cada fila se identifica por el id de la calificación
+                    rebuildLog.forEach(event -> apply(fresh, event));
+                    rebuildLog = null;
+                }
+                columns = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Almacén analítico cargado: {} calificaciones, {} bytes fuera del heap, en {} ms",
+                    fresh.live, fresh.offHeapBytes(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            logger.error("No se pudo cargar el almacén analítico: {}", ex.getMessage());
+        }
+    }
+
+    private Columns load() {
+        Columns fresh = new Columns(INITIAL_CAPACITY);
+        try (Stream<StudentGradeRow> rows = gradeRepository.streamAllWithStudent()) {
+            rows.forEach(row -> fresh.upsert(row.getId(), row.getStudentId(), courseDictionary.codeOf(row.getCourseId()),
+                    row.getScoreTenths(), row.getCreatedAt()));
+        }
+        return fresh;
+    }
+
+    private static void apply(Columns target, GradeChangedEvent event) {
+        GradeDto current = event.current();
+        if (current == null) {
+            target.remove(event.gradeId());
+        } else {
+            target.upsert(current.getId(), event.studentId(), current.getCourse(), current.getScoreTenths(),
+                    current.getCreatedAt());
+        }
+    }
+
+    /**
+     * Filtro ya traducido a los códigos de las columnas
+     */
+    private record ScanFilter(boolean[] courses, int fromDay, int toDay, short minScore, short maxScore) {
+    }
+
+    /**
+     * Columnas primitivas sobre buffers directos en orden nativo
+     */
+    private static final class Columns {
+
+        // estudiante (8) + curso (4) + día (4) + nota en décimas (2); el id vive solo en el índice
+        static final int BYTES_PER_ROW = 18;
+        // Nota de una fila eliminada
+        private static final short DELETED = -1;
+
+        private int capacity;
+        private int size;
+        private int live;
+
+        private LongBuffer students;
+        private IntBuffer courses;
+        private IntBuffer days;
+        private ShortBuffer scores;
+        private final IdIndex index = new IdIndex(INITIAL_CAPACITY * 2);
+
+        // Diccionario de cursos: nombre -> código y código -> nombre
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        Columns(int capacity) {
+            allocate(capacity);
+        }
+
+        void upsert(long id, Long studentId, String course, short scoreTenths, LocalDateTime createdAt) {
+            int row = index.get(id);
+            if (row < 0) {
+                if (size == capacity) {
+                    allocate(capacity * 2);
+                }
+                row = size++;
+                index.put(id, row);
+                live++;
+            } else if (scores.get(row) == DELETED) {
+                live++;
+            }
+            students.put(row, studentId == null ? 0 : studentId);
+            courses.put(row, dictionary.computeIfAbsent(course, name -> {
+                names.add(name);
+                return names.size() - 1;
+            }));
+            days.put(row, createdAt == null ? 0 : (int) createdAt.toLocalDate().toEpochDay());
+            scores.put(row, scoreTenths);
+        }
+
+        void remove(long id) {
+            int row = index.get(id);
+            if (row >= 0 && scores.get(row) != DELETED) {
+                scores.put(row, DELETED);
+                live--;
+            }
+        }
+
+        long offHeapBytes() {
+            return (long) capacity * BYTES_PER_ROW + index.offHeapBytes();
+        }
+
+        ScanFilter resolve(Filter filter) {
+            boolean[] allowed = null;
+            if (filter.courses() != null && !filter.courses().isEmpty()) {
+                allowed = new boolean[names.size()];
+                for (String course : filter.courses()) {
+                    Integer code = dictionary.get(course);
+                    if (code != null) {
+                        allowed[code] = true;
+                    }
+                }
+            }
+            return new ScanFilter(allowed,
+                    filter.from() == null ? Integer.MIN_VALUE : (int) filter.from().toEpochDay(),
+                    filter.to() == null ? Integer.MAX_VALUE : (int) filter.to().toEpochDay(),
+                    filter.minScore() == null ? 0 : Grade.toTenths(filter.minScore()),
+                    filter.maxScore() == null ? Short.MAX_VALUE : Grade.toTenths(filter.maxScore()));
+        }
+
+        /**
+         * Recorre las filas [from, to): bucles planos sobre columnas primitivas, sin objetos por fila
+         */
+        Partial scan(int from, int to, GroupBy groupBy, ScanFilter filter) {
+            Partial partial = new Partial(groupBy, names.size());
+            int lastDay = Integer.MIN_VALUE;
+            long lastMonth = 0;
+            for (int row = from; row < to; row++) {
+                short score = scores.get(row);
+                // Las filas eliminadas (-1) quedan fuera porque minScore nunca es negativo
+                if (score < filter.minScore() || score > filter.maxScore()) {
+                    continue;
+                }
+                int course = courses.get(row);
+                if (filter.courses() != null && !filter.courses()[course]) {
+                    continue;
+                }
+                int day = days.get(row);
+                if (day < filter.fromDay() || day > filter.toDay()) {
+                    continue;
+                }
+                switch (groupBy) {
+                    case COURSE -> partial.addDense(course, score);
+                    case STUDENT -> partial.addSparse(students.get(row), score);
+                    case MONTH -> {
+                        // Las filas llegan casi en orden de registro: se reutiliza la última conversión
+                        if (day != lastDay) {
+                            LocalDate date = LocalDate.ofEpochDay(day);
+                            lastMonth = date.getYear() * 12L + date.getMonthValue() - 1;
+                            lastDay = day;
+                        }
+                        partial.addSparse(lastMonth, score);
+                    }
+                }
+            }
+            return partial;
+        }
+
+        private void allocate(int newCapacity) {
+            LongBuffer newStudents = direct(newCapacity * 8).asLongBuffer();
+            IntBuffer newCourses = direct(newCapacity * 4).asIntBuffer();
+            IntBuffer newDays = direct(newCapacity * 4).asIntBuffer();
+            ShortBuffer newScores = direct(newCapacity * 2).asShortBuffer();
+            if (students != null) {
+                newStudents.put(students.duplicate().position(0).limit(size)).clear();
+                newCourses.put(courses.duplicate().position(0).limit(size)).clear();
+                newDays.put(days.duplicate().position(0).limit(size)).clear();
+                newScores.put(scores.duplicate().position(0).limit(size)).clear();
+            }
+            students = newStudents;
+            courses = newCourses;
+            days = newDays;
+            scores = newScores;
+            capacity = newCapacity;
+        }
+    }
+
+    /**
+     * Índice id de calificación -> fila, con direccionamiento abierto sobre buffers directos
+     * (el id 0 marca una ranura libre)
+     */
+    private static final class IdIndex {
+
+        static final int BYTES_PER_SLOT = 12;
+
+        private LongBuffer keys;
+        private IntBuffer values;
+        private int slots;
+        private int entries;
+
+        IdIndex(int slots) {
+            allocate(Integer.highestOneBit(Math.max(16, slots - 1)) << 1);
+        }
+
+        int get(long id) {
+            int mask = slots - 1;
+            for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+                long key = keys.get(slot);
+                if (key == id) {
+                    return values.get(slot);
+                }
+                if (key == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        void put(long id, int row) {
+            if ((entries + 1) * 2 > slots) {
+                rehash(slots * 2);
+            }
+            int mask = slots - 1;
+            int slot = hash(id) & mask;
+            while (keys.get(slot) != 0 && keys.get(slot) != id) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys.get(slot) == 0) {
+                entries++;
+            }
+            keys.put(slot, id);
+            values.put(slot, row);
+        }
+
+        long offHeapBytes() {
+            return (long) slots * BYTES_PER_SLOT;
+        }
+
+        private void rehash(int newSlots) {
+            LongBuffer oldKeys = keys;
+            IntBuffer oldValues = values;
+            int oldSlots = slots;
+            allocate(newSlots);
+            entries = 0;
+            for (int slot = 0; slot < oldSlots; slot++) {
+                long key = oldKeys.get(slot);
+                if (key != 0) {
+                    put(key, oldValues.get(slot));
+                }
+            }
+        }
+
+        private void allocate(int newSlots) {
+            keys = direct(newSlots * 8).asLongBuffer();
+            values = direct(newSlots * 4).asIntBuffer();
+            slots = newSlots;
+        }
+
+        private static int hash(long id) {
+            long mixed = id * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+
+    private static ByteBuffer direct(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Acumulados parciales de un bloque: arreglos densos por código de curso o un mapa
+     * para claves dispersas (estudiante, mes). Las sumas en décimas son exactas.
+     */
+    private static final class Partial {
+
+        private final GroupBy groupBy;
+        private long[] count;
+        private long[] sum;
+        private int[] min;
+        private int[] max;
+        private final Map<Long, long[]> sparse = new HashMap<>();
+
+        Partial(GroupBy groupBy, int dictionarySize) {
+            this.groupBy = groupBy;
+            if (groupBy == GroupBy.COURSE) {
+                count = new long[dictionarySize];
+                sum = new long[dictionarySize];
+                min = new int[dictionarySize];
+                max = new int[dictionarySize];
+                Arrays.fill(min, Integer.MAX_VALUE);
+                Arrays.fill(max, Integer.MIN_VALUE);
+            }
+        }
+
+        void addDense(int key, short score) {
+            count[key]++;
+            sum[key] += score;
+            min[key] = Math.min(min[key], score);
+            max[key] = Math.max(max[key], score);
+        }
+
+        void addSparse(long key, short score) {
+            long[] acc = sparse.computeIfAbsent(key, k -> new long[]{0, 0, Long.MAX_VALUE, Long.MIN_VALUE});
+            acc[0]++;
+            acc[1] += score;
+            acc[2] = Math.min(acc[2], score);
+            acc[3] = Math.max(acc[3], score);
+        }
+
+        Partial merge(Partial other) {
+            if (groupBy == GroupBy.COURSE) {
+                for (int key = 0; key < count.length; key++) {
+                    count[key] += other.count[key];
+                    sum[key] += other.sum[key];
+                    min[key] = Math.min(min[key], other.min[key]);
+                    max[key] = Math.max(max[key], other.max[key]);
+                }
+            } else {
+                other.sparse.forEach((key, acc) -> sparse.merge(key, acc, (mine, theirs) -> new long[]{
+                        mine[0] + theirs[0], mine[1] + theirs[1],
+                        Math.min(mine[2], theirs[2]), Math.max(mine[3], theirs[3])}));
+            }
+            return this;
+        }
+
+        List<AnalyticsResultDto.Group> toGroups(List<String> names) {
+            List<AnalyticsResultDto.Group> groups = new ArrayList<>();
+            if (groupBy == GroupBy.COURSE) {
+                for (int key = 0; key < count.length; key++) {
+                    if (count[key] > 0) {
+                        groups.add(group(names.get(key), count[key], sum[key], min[key], max[key]));
+                    }
+                }
+            } else {
+                sparse.forEach((key, acc) -> groups.add(group(label(key), acc[0], acc[1], acc[2], acc[3])));
+            }
+            groups.sort(Comparator.comparing(AnalyticsResultDto.Group::getKey));
+            return groups;
+        }
+
+        private String label(long key) {
+            if (groupBy == GroupBy.MONTH) {
+                return YearMonth.of((int) (key / 12), (int) (key % 12) + 1).toString();
+            }
+            return Long.toString(key);
+        }
+
+        private static AnalyticsResultDto.Group group(String key, long count, long sumTenths, long minTenths, long maxTenths) {
+            return new AnalyticsResultDto.Group(key, count, Grade.toPoints((double) sumTenths / count),
+                    Grade.toPoints(minTenths), Grade.toPoints(maxTenths));
+        }
+    }
+}
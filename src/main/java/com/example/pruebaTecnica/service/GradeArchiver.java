@@ -0,0 +1,119 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeArchiveRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archivado de calificaciones antiguas (opcional, grades.archive.enabled=true)
+ * Mueve a grades_archive las notas vigentes creadas hace más de grades.archive.older-than, en lotes
+ * de batch-size notas con una transacción por lote: cada lote bloquea sus filas, las copia y las borra
+ * de grades de forma atómica, así que una ejecución interrumpida no pierde ni duplica notas y la
+ * siguiente continúa con las que quedan. Así grades y sus índices se mantienen del tamaño de los
+ * datos recientes. Cada nota movida publica un GradeChangedEvent ARCHIVED que la retira de las vistas
+ * y cachés de notas vigentes; GET /api/grades?includeArchived=true sigue devolviéndola.
+ * No se combina con grades.sharding.enabled.
+ */
+@Component
+@ConditionalOnProperty(prefix = "grades.archive", name = "enabled", havingValue = "true")
+@TenantScoped
+public class GradeArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeArchiver.class);
+
+    private final GradeArchiveRepository archiveRepository;
+    private final CourseDictionary courseDictionary;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate batchTransaction;
+    private final Duration olderThan;
+    private final int batchSize;
+    private final Counter archived;
+
+    public GradeArchiver(GradeArchiveRepository archiveRepository,
+                         CourseDictionary courseDictionary,
+                         ApplicationEventPublisher eventPublisher,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${grades.archive.older-than:365d}") Duration olderThan,
+                         @Value("${grades.archive.batch-size:500}") int batchSize,
+                         @Value("${grades.sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("grades.archive.enabled no se puede activar junto con grades.sharding.enabled");
+        }
+        if (batchSize < 1) {
+            throw new IllegalStateException("grades.archive.batch-size debe ser mayor que 0");
+        }
+        this.archiveRepository = archiveRepository;
+        this.courseDictionary = courseDictionary;
+        this.eventPublisher = eventPublisher;
+        this.batchTransaction = new TransactionTemplate(transactionManager);
+        this.olderThan = olderThan;
+        this.batchSize = batchSize;
+        this.archived = Counter.builder("grades.archive.archived")
+                .description("Calificaciones movidas a grades_archive")
+                .tags(TenantContext.tags())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Archiva todas las notas anteriores al corte, lote a lote (según grades.archive.cron, por
+     * defecto de madrugada). Devuelve cuántas notas se movieron.
+     */
+    @Scheduled(cron = "${grades.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        // El corte se fija al empezar: las notas que lo cruzan durante la ejecución esperan a la siguiente
+        LocalDateTime cutoff = LocalDateTime.now().minus(olderThan);
+        long start = System.nanoTime();
+        int total = 0;
+        int moved;
+        do {
+            moved = batchTransaction.execute(status -> archiveBatch(cutoff));
+            total += moved;
+            if (moved > 0) {
+                logger.debug("Lote de archivado: {} notas ({} en esta ejecución)", moved, total);
+            }
+        } while (moved == batchSize);
+        if (total > 0) {
+            logger.info("Archivadas {} calificaciones anteriores a {} en {} ms",
+                    total, cutoff, (System.nanoTime() - start) / 1_000_000);
+        }
+        return total;
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = archiveRepository.lockArchivable(cutoff, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<StudentGradeRow> rows = archiveRepository.findWithStudentByIdIn(ids);
+        archiveRepository.copyToArchive(ids);
+        archiveRepository.deleteFromGrades(ids);
+        // Se entregan tras el commit del lote, como los de GradeService
+        for (StudentGradeRow row : rows) {
+            GradeDto grade = new GradeDto(row.getId(), courseDictionary.codeOf(row.getCourseId()), row.getScoreTenths(),
+                    row.getComments(), row.getStudentUsername(), row.getCreatedAt(), row.getUpdatedAt());
+            grade.setAssessment(row.getAssessment());
+            eventPublisher.publishEvent(GradeChangedEvent.archived(row.getStudentId(), grade));
+        }
+        archived.increment(ids.size());
+        return ids.size();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeSummaryDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Caché de lecturas de calificaciones sobre Spring Cache
+ * Guarda las listas por id de estudiante y las notas por id, y se invalida de forma
+ * precisa con los GradeChangedEvent una vez confirmada la transacción de escritura
+ * Con multi-tenancy cada tenant usa sus propias cachés (userGrades@colegio-a, ...)
+ */
+@Component
+public class GradeCache {
+
+    public static final String USER_GRADES = "userGrades";
+    public static final String GRADES = "grades";
+    public static final String GRADE_SUMMARIES = "gradeSummaries";
+    public static final List<String> CACHE_NAMES = List.of(USER_GRADES, GRADES, GRADE_SUMMARIES);
+
+    private final CacheManager cacheManager;
+    private final Tenants tenants;
+
+    public GradeCache(CacheManager cacheManager, Tenants tenants) {
+        this.cacheManager = cacheManager;
+        this.tenants = tenants;
+    }
+
+    /**
+     * Nombre de la caché de un tenant
+     */
+    public static String cacheName(String cacheName, String tenant) {
+        return cacheName + "@" + tenant;
+    }
+
+    /**
+     * Devuelve las calificaciones cacheadas del estudiante o las carga con el loader
+     */
+    public List<GradeDto> userGrades(Long userId, Callable<List<GradeDto>> loader) {
+        return get(USER_GRADES, userId, loader);
+    }
+
+    /**
+     * Devuelve la calificación cacheada o la carga con el loader
+     */
+    public GradeDto grade(Long gradeId, Callable<GradeDto> loader) {
+        return get(GRADES, gradeId, loader);
+    }
+
+    /**
+     * Devuelve el resumen cacheado del estudiante o lo calcula con el loader
+     */
+    public GradeSummaryDto summary(Long userId, Callable<GradeSummaryDto> loader) {
+        return get(GRADE_SUMMARIES, userId, loader);
+    }
+
+    /**
+     * Invalida la nota cambiada y las listas y resúmenes de todos los estudiantes afectados
+     * (incluido el dueño anterior cuando la nota cambia de estudiante)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.READ_CACHE_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        Cache userGrades = cache(USER_GRADES);
+        Cache summaries = cache(GRADE_SUMMARIES);
+        event.affectedStudentIds().forEach(studentId -> {
+            userGrades.evict(studentId);
+            summaries.evict(studentId);
+        });
+        cache(GRADES).evict(event.gradeId());
+    }
+
+    private <T> T get(String cacheName, Object key, Callable<T> loader) {
+        try {
+            return cache(cacheName).get(key, loader);
+        } catch (Cache.ValueRetrievalException ex) {
+            // Propagar tal cual las excepciones de negocio del loader (p. ej. ResourceNotFoundException)
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private Cache cache(String cacheName) {
+        if (tenants.isEnabled()) {
+            cacheName = cacheName(cacheName, tenants.current());
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new IllegalStateException("Caché no configurada: " + cacheName);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeByStudentRepository;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalidación de la caché de segundo nivel de Hibernate para las calificaciones escritas con SQL nativo
+ * El MERGE del upsert y la reactivación de notas eliminadas no pasan por el contexto de persistencia,
+ * así que Hibernate no actualiza la región "grades" ni marca la tabla como modificada para la caché
+ * de consultas. Las creaciones, ediciones y borrados con entidades ya los gestiona Hibernate.
+ * Solo se invalida lo del tenant de la escritura: las entradas de los demás tenants siguen valiendo.
+ */
+@Component
+public class GradeEntityCache {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final Cache cache;
+    private final Tenants tenants;
+
+    public GradeEntityCache(EntityManagerFactory entityManagerFactory, Tenants tenants) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cache = sessionFactory.getCache();
+        this.tenants = tenants;
+    }
+
+    /**
+     * Tras el commit, descarta la nota escrita y las listas cacheadas por estudiante del tenant.
+     * Vaciar su región de consultas equivale a lo que hace Hibernate en cualquier escritura sobre
+     * grades. Una creación puede venir de la reactivación nativa, por eso también se invalida, igual
+     * que el archivado, que borra la fila con SQL nativo.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.ENTITY_CACHE_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        if (event.type() != GradeChangedEvent.Type.UPSERTED && event.type() != GradeChangedEvent.Type.CREATED
+                && event.type() != GradeChangedEvent.Type.ARCHIVED) {
+            return;
+        }
+        String tenant = tenants.current();
+        evictGrade(event.gradeId(), tenants.isEnabled() ? tenant : null);
+        cache.evictQueryRegion(GradeByStudentRepository.regionOf(tenant));
+    }
+
+    /**
+     * Descarta la entrada de la nota con la clave que usan las sesiones del tenant (sin
+     * multi-tenancy, null): evictEntityData(Class, id) la busca siempre sin tenant
+     */
+    private void evictGrade(Long gradeId, String tenant) {
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(Grade.class);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        if (access != null) {
+            access.evict(access.generateCacheKey(gradeId, persister, sessionFactory, tenant));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Difusión de cambios de calificaciones por Server-Sent Events
+ * Cada suscriptor tiene una cola acotada que vacía un hilo virtual, de modo que las conexiones
+ * inactivas no ocupan hilos de plataforma y un consumidor lento se desconecta en lugar de
+ * frenar al resto. Los últimos eventos se conservan en un búfer circular para reanudar con
+ * Last-Event-ID.
+ */
+@Service
+@TenantScoped
+public class GradeEventStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeEventStream.class);
+
+    public static final String RESYNC_EVENT = "resync";
+
+    private final Duration timeout;
+    private final int bufferSize;
+    private final int replaySize;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Deque<StreamedEvent> recent = new ArrayDeque<>();
+    private final Counter dropped;
+    private long sequence;
+
+    public GradeEventStream(MeterRegistry meterRegistry,
+                            @Value("${grades.stream.timeout:30m}") Duration timeout,
+                            @Value("${grades.stream.buffer-size:64}") int bufferSize,
+                            @Value("${grades.stream.replay-size:1024}") int replaySize) {
+        this.timeout = timeout;
+        this.bufferSize = bufferSize;
+        this.replaySize = replaySize;
+        this.dropped = meterRegistry.counter("grades.stream.dropped", TenantContext.tags());
+        Gauge.builder("grades.stream.subscribers", subscribers,
+                        map -> map.values().stream().mapToInt(Set::size).sum())
+                .tags(TenantContext.tags())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Suscribe al estudiante. Si envía Last-Event-ID se le reenvían los eventos perdidos;
+     * si ya no están en el búfer recibe un evento "resync" para que recargue su lista.
+     */
+    public SseEmitter subscribe(String username, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(username, emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        synchronized (this) {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        Thread.ofVirtual().name("sse-" + username).start(subscriber::drain);
+        return emitter;
+    }
+
+    /**
+     * Publica el cambio a los estudiantes afectados una vez confirmada la escritura
+     * (si la nota cambia de estudiante, el dueño anterior la recibe como eliminada). Archivar una
+     * nota no se publica: no se ha eliminado y sigue disponible en la lectura histórica.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.NOTIFICATION_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        if (event.type() == GradeChangedEvent.Type.ARCHIVED) {
+            return;
+        }
+        GradeDto previous = event.previous();
+        GradeDto current = event.current();
+        if (current == null) {
+            publish(previous.getStudentUsername(), "grade-deleted", previous);
+            return;
+        }
+        if (previous != null && !previous.getStudentUsername().equals(current.getStudentUsername())) {
+            publish(previous.getStudentUsername(), "grade-deleted", previous);
+        }
+        String name = event.type() == GradeChangedEvent.Type.CREATED ? "grade-created" : "grade-updated";
+        publish(current.getStudentUsername(), name, current);
+    }
+
+    /**
+     * Comentario periódico para mantener viva la conexión a través de proxies
+     */
+    @Scheduled(fixedRateString = "${grades.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        subscribers.values().forEach(set -> set.forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private synchronized void publish(String username, String name, GradeDto grade) {
+        StreamedEvent event = new StreamedEvent(++sequence, username, name, grade);
+        recent.addLast(event);
+        if (recent.size() > replaySize) {
+            recent.removeFirst();
+        }
+        Set<Subscriber> targets = subscribers.get(username);
+        if (targets != null) {
+            targets.forEach(subscriber -> subscriber.offer(event.toSse()));
+        }
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        StreamedEvent oldest = recent.peekFirst();
+        boolean gap = lastEventId > sequence || (oldest != null && lastEventId < oldest.id() - 1);
+        if (gap) {
+            subscriber.offer(SseEmitter.event().id(Long.toString(sequence)).name(RESYNC_EVENT).data(""));
+            return;
+        }
+        recent.stream()
+                .filter(event -> event.id() > lastEventId && event.username().equals(subscriber.username))
+                .forEach(event -> subscriber.offer(event.toSse()));
+    }
+
+    private record StreamedEvent(long id, String username, String name, GradeDto grade) {
+        SseEventBuilder toSse() {
+            return SseEmitter.event()
+                    .id(Long.toString(id))
+                    .name(name)
+                    .data(grade, MediaType.APPLICATION_JSON);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final String username;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEventBuilder> queue;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Thread drainer;
+
+        private Subscriber(String username, SseEmitter emitter, BlockingQueue<SseEventBuilder> queue) {
+            this.username = username;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        void offer(SseEventBuilder event) {
+            if (!closed.get() && !queue.offer(event)) {
+                // Consumidor lento: se desconecta; al reconectar puede reanudar con Last-Event-ID
+                dropped.increment();
+                logger.warn("Suscriptor SSE lento desconectado: {}", username);
+                emitter.complete();
+                close();
+            }
+        }
+
+        void drain() {
+            drainer = Thread.currentThread();
+            try {
+                while (!closed.get()) {
+                    emitter.send(queue.take());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException ex) {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                subscribers.computeIfPresent(username, (key, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+                Thread thread = drainer;
+                if (thread != null) {
+                    thread.interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.DataUtils;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.h2.mvstore.WriteBuffer;
+import org.h2.mvstore.type.BasicDataType;
+import org.h2.mvstore.type.LongDataType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Motor de almacenamiento clave-valor para las lecturas de un estudiante
+ * (opcional, grades.storage.engine=mvstore)
+ * Guarda las calificaciones en un mapa ordenado de H2 MVStore con clave compuesta
+ * (estudiante, fecha de creación descendente, id descendente), de modo que las notas de un
+ * estudiante son un rango contiguo ya en el orden de la API, y un segundo mapa id -> clave para
+ * las búsquedas por id. Los valores se codifican en binario compacto (enteros de longitud
+ * variable y cadenas sin cabecera de tipo).
+ * La base SQL sigue siendo la fuente de verdad: el almacén se carga desde GradeRepository al
+ * arrancar, se mantiene con los GradeChangedEvent y se reconcilia periódicamente. Mientras no
+ * está listo, GradeService lee de JPA.
+ */
+@Component
+@ConditionalOnProperty(prefix = "grades.storage", name = "engine", havingValue = "mvstore")
+@TenantScoped
+public class GradeKeyValueStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeKeyValueStore.class);
+
+    /**
+     * Clave de una calificación: fecha de creación en microsegundos desde la época (UTC, como
+     * la guarda la columna TIMESTAMP) y Long.MIN_VALUE si no tiene
+     */
+    record GradeKey(long studentId, long createdAt, long id) {
+    }
+
+    /**
+     * Valor de una calificación: lo que no está en la clave
+     */
+    record StoredGrade(int courseId, short scoreTenths, String assessment, String comments,
+                       String studentUsername, long updatedAt) {
+    }
+
+    private final GradeRepository gradeRepository;
+    private final CourseDictionary courseDictionary;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MVStore mvStore;
+    private final MVMap<GradeKey, StoredGrade> grades;
+    private final MVMap<Long, GradeKey> keysById;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile boolean ready;
+
+    // Eventos recibidos mientras se reconstruye, para reaplicarlos al terminar
+    private List<GradeChangedEvent> rebuildLog;
+
+    public GradeKeyValueStore(GradeRepository gradeRepository,
+                              CourseDictionary courseDictionary,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${grades.storage.mvstore.file:}") String file) {
+        this.gradeRepository = gradeRepository;
+        this.courseDictionary = courseDictionary;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        MVStore.Builder builder = new MVStore.Builder().compress();
+        this.mvStore = (file == null || file.isBlank() ? builder : builder.fileName(file)).open();
+        this.grades = mvStore.openMap("grades",
+                new MVMap.Builder<GradeKey, StoredGrade>().keyType(KeyType.INSTANCE).valueType(ValueType.INSTANCE));
+        this.keysById = mvStore.openMap("grade-keys",
+                new MVMap.Builder<Long, GradeKey>().keyType(LongDataType.INSTANCE).valueType(KeyType.INSTANCE));
+        this.hits = meterRegistry.counter("grades.kv.requests", TenantContext.tags().and("result", "hit"));
+        this.misses = meterRegistry.counter("grades.kv.requests", TenantContext.tags().and("result", "miss"));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Calificaciones del estudiante, de la más reciente a la más antigua (un recorrido de rango)
+     */
+    public List<GradeDto> findByStudent(long studentId) {
+        List<GradeDto> result = new ArrayList<>();
+        Cursor<GradeKey, StoredGrade> cursor = grades.cursor(
+                new GradeKey(studentId, Long.MAX_VALUE, Long.MAX_VALUE),
+                new GradeKey(studentId, Long.MIN_VALUE, Long.MIN_VALUE), false);
+        while (cursor.hasNext()) {
+            GradeKey key = cursor.next();
+            result.add(toDto(key, cursor.getValue()));
+        }
+        hits.increment();
+        return result;
+    }
+
+    public Optional<GradeDto> findById(long gradeId) {
+        GradeKey key = keysById.get(gradeId);
+        StoredGrade grade = key == null ? null : grades.get(key);
+        if (grade == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(toDto(key, grade));
+    }
+
+    /**
+     * Inserta o reemplaza una calificación (también si cambió de estudiante o de fecha)
+     */
+    public void put(long studentId, GradeDto grade) {
+        store(new GradeKey(studentId, toMicros(grade.getCreatedAt()), grade.getId()),
+                new StoredGrade(courseDictionary.idOf(grade.getCourse()), grade.getScoreTenths(), grade.getAssessment(),
+                        grade.getComments(), grade.getStudentUsername(), toMicros(grade.getUpdatedAt())));
+    }
+
+    private synchronized void store(GradeKey key, StoredGrade grade) {
+        GradeKey previous = keysById.put(key.id(), key);
+        if (previous != null && !previous.equals(key)) {
+            grades.remove(previous);
+        }
+        grades.put(key, grade);
+    }
+
+    public synchronized void remove(long gradeId) {
+        GradeKey key = keysById.remove(gradeId);
+        if (key != null) {
+            grades.remove(key);
+        }
+    }
+
+    public long size() {
+        return keysById.sizeAsLong();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.PROJECTION_ORDER)
+    public synchronized void onGradeChanged(GradeChangedEvent event) {
+        if (rebuildLog != null) {
+            rebuildLog.add(event);
+        }
+        apply(event);
+    }
+
+    /**
+     * Recarga el almacén desde la base de datos (al arrancar y cada grades.storage.reconcile-interval).
+     * Durante la recarga las lecturas van a JPA.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${grades.storage.reconcile-interval:1h}")
+    public void rebuild() {
+        synchronized (this) {
+            ready = false;
+            rebuildLog = new ArrayList<>();
+            grades.clear();
+            keysById.clear();
+        }
+        try {
+            long start = System.nanoTime();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<StudentGradeRow> rows = gradeRepository.streamAllWithStudent()) {
+                    rows.forEach(row -> store(new GradeKey(row.getStudentId(), toMicros(row.getCreatedAt()), row.getId()),
+                            new StoredGrade(row.getCourseId(), row.getScoreTenths(), row.getAssessment(), row.getComments(),
+                                    row.getStudentUsername(), toMicros(row.getUpdatedAt()))));
+                }
+            });
+            synchronized (this) {
+                rebuildLog.forEach(this::apply);
+                rebuildLog = null;
+                mvStore.commit();
+                ready = true;
+            }
+            logger.info("Almacén clave-valor de calificaciones cargado: {} notas en {} ms",
+                    size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            logger.error("No se pudo cargar el almacén clave-valor de calificaciones: {}", ex.getMessage());
+        }
+    }
+
+    private void apply(GradeChangedEvent event) {
+        if (event.current() == null) {
+            remove(event.gradeId());
+            return;
+        }
+        // Una actualización más antigua que la ya guardada llega tarde: se ignora
+        GradeKey key = keysById.get(event.gradeId());
+        StoredGrade stored = key == null ? null : grades.get(key);
+        if (stored != null && event.current().getUpdatedAt() != null
+                && stored.updatedAt() > toMicros(event.current().getUpdatedAt())) {
+            return;
+        }
+        put(event.studentId(), event.current());
+    }
+
+    @Override
+    public void close() {
+        mvStore.close();
+    }
+
+    private GradeDto toDto(GradeKey key, StoredGrade grade) {
+        GradeDto dto = new GradeDto(key.id(), courseDictionary.codeOf(grade.courseId()), grade.scoreTenths(),
+                grade.comments(), grade.studentUsername(), fromMicros(key.createdAt()), fromMicros(grade.updatedAt()));
+        dto.setAssessment(grade.assessment());
+        return dto;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        if (micros == Long.MIN_VALUE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Orden de las claves: estudiante ascendente y, dentro de él, fecha e id descendentes
+     */
+    static final class KeyType extends BasicDataType<GradeKey> {
+
+        static final KeyType INSTANCE = new KeyType();
+
+        @Override
+        public int compare(GradeKey a, GradeKey b) {
+            int byStudent = Long.compare(a.studentId(), b.studentId());
+            if (byStudent != 0) {
+                return byStudent;
+            }
+            int byCreated = Long.compare(b.createdAt(), a.createdAt());
+            return byCreated != 0 ? byCreated : Long.compare(b.id(), a.id());
+        }
+
+        @Override
+        public int getMemory(GradeKey key) {
+            return 40;
+        }
+
+        @Override
+        public void write(WriteBuffer buff, GradeKey key) {
+            buff.putVarLong(key.studentId()).putLong(key.createdAt()).putVarLong(key.id());
+        }
+
+        @Override
+        public GradeKey read(ByteBuffer buff) {
+            return new GradeKey(DataUtils.readVarLong(buff), buff.getLong(), DataUtils.readVarLong(buff));
+        }
+
+        @Override
+        public GradeKey[] createStorage(int size) {
+            return new GradeKey[size];
+        }
+    }
+
+    static final class ValueType extends BasicDataType<StoredGrade> {
+
+        static final ValueType INSTANCE = new ValueType();
+
+        @Override
+        public int getMemory(StoredGrade grade) {
+            return 64 + 2 * (length(grade.assessment()) + length(grade.comments()) + length(grade.studentUsername()));
+        }
+
+        @Override
+        public void write(WriteBuffer buff, StoredGrade grade) {
+            buff.putVarInt(grade.courseId()).putShort(grade.scoreTenths()).putLong(grade.updatedAt());
+            putString(buff, grade.assessment());
+            putString(buff, grade.comments());
+            putString(buff, grade.studentUsername());
+        }
+
+        @Override
+        public StoredGrade read(ByteBuffer buff) {
+            int courseId = DataUtils.readVarInt(buff);
+            short scoreTenths = buff.getShort();
+            long updatedAt = buff.getLong();
+            return new StoredGrade(courseId, scoreTenths, readString(buff), readString(buff), readString(buff), updatedAt);
+        }
+
+        @Override
+        public StoredGrade[] createStorage(int size) {
+            return new StoredGrade[size];
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+
+        // Longitud + 1 (0 para null) seguida de los caracteres
+        private static void putString(WriteBuffer buff, String value) {
+            if (value == null) {
+                buff.putVarInt(0);
+            } else {
+                buff.putVarInt(value.length() + 1).putStringData(value, value.length());
+            }
+        }
+
+        private static String readString(ByteBuffer buff) {
+            int length = DataUtils.readVarInt(buff);
+            return length == 0 ? null : DataUtils.readString(buff, length - 1);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Vista de lectura en memoria (CQRS) de las calificaciones de cada estudiante
+ * Cada estudiante tiene un arreglo compacto e inmutable ordenado por fecha de creación
+ * descendente; las escrituras lo reemplazan (copy-on-write) a partir de los GradeChangedEvent
+ * publicados tras el commit. Se reconstruye desde GradeRepository al arrancar y se reconcilia
+ * periódicamente para corregir cualquier desviación.
+ */
+@Component
+@TenantScoped
+public class GradeReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradeReadModel.class);
+
+    static final Comparator<GradeDto> NEWEST_FIRST = Comparator
+            .comparing(GradeDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(GradeDto::getId, Comparator.nullsLast(Comparator.reverseOrder()));
+
+    private static final GradeDto[] EMPTY = new GradeDto[0];
+
+    private final GradeRepository gradeRepository;
+    private final CourseDictionary courseDictionary;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Map<Long, GradeDto[]> byStudent = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Eventos recibidos mientras se reconstruye, para reaplicarlos sobre la nueva vista
+    private List<GradeChangedEvent> rebuildLog;
+
+    public GradeReadModel(GradeRepository gradeRepository,
+                          CourseDictionary courseDictionary,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry) {
+        this.gradeRepository = gradeRepository;
+        this.courseDictionary = courseDictionary;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.hits = meterRegistry.counter("grades.read_model.requests", TenantContext.tags().and("result", "hit"));
+        this.misses = meterRegistry.counter("grades.read_model.requests", TenantContext.tags().and("result", "miss"));
+        Gauge.builder("grades.read_model.students", this, model -> model.byStudent.size())
+                .tags(TenantContext.tags())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calificaciones del estudiante desde memoria; vacío si la vista aún no está lista o
+     * no conoce al estudiante (en ese caso se debe consultar la base de datos)
+     */
+    public Optional<List<GradeDto>> findByStudent(Long studentId) {
+        GradeDto[] grades = ready ? byStudent.get(studentId) : null;
+        if (grades == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(Collections.unmodifiableList(Arrays.asList(grades)));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.PROJECTION_ORDER)
+    public synchronized void onGradeChanged(GradeChangedEvent event) {
+        if (rebuildLog != null) {
+            rebuildLog.add(event);
+        }
+        apply(byStudent, event);
+    }
+
+    /**
+     * Reconstruye la vista completa desde la base de datos (al arrancar y cada
+     * grades.read-model.reconcile-interval) y la publica de forma atómica
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${grades.read-model.reconcile-interval:10m}")
+    public void rebuild() {
+        synchronized (this) {
+            rebuildLog = new ArrayList<>();
+        }
+        try {
+            long start = System.nanoTime();
+            Map<Long, List<GradeDto>> loaded = readOnlyTransaction.execute(status -> load());
+
+            Map<Long, GradeDto[]> rebuilt = new ConcurrentHashMap<>(Math.max(16, loaded.size() * 2));
+            loaded.forEach((studentId, grades) -> {
+                GradeDto[] sorted = grades.toArray(EMPTY);
+                Arrays.sort(sorted, NEWEST_FIRST);
+                rebuilt.put(studentId, sorted);
+            });
+
+            synchronized (this) {
+                rebuildLog.forEach(event -> apply(rebuilt, event));
+                rebuildLog = null;
+                byStudent = rebuilt;
+                ready = true;
+            }
+            logger.info("Vista de calificaciones reconstruida: {} estudiantes en {} ms",
+                    rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException ex) {
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            logger.error("No se pudo reconstruir la vista de calificaciones: {}", ex.getMessage());
+        }
+    }
+
+    private Map<Long, List<GradeDto>> load() {
+        Map<Long, List<GradeDto>> grades = new HashMap<>();
+        try (Stream<StudentGradeRow> rows = gradeRepository.streamAllWithStudent()) {
+            rows.forEach(row -> grades.computeIfAbsent(row.getStudentId(), id -> new ArrayList<>()).add(toDto(row)));
+        }
+        return grades;
+    }
+
+    private static void apply(Map<Long, GradeDto[]> view, GradeChangedEvent event) {
+        if (event.previousStudentId() != null) {
+            view.computeIfPresent(event.previousStudentId(), (id, grades) -> without(grades, event));
+        }
+        if (event.current() != null && event.studentId() != null) {
+            view.compute(event.studentId(), (id, grades) -> with(grades == null ? EMPTY : grades, event.current()));
+        }
+    }
+
+    private static GradeDto[] without(GradeDto[] grades, GradeChangedEvent event) {
+        int index = indexOf(grades, event.gradeId());
+        if (index < 0) {
+            return grades;
+        }
+        // Una actualización más antigua que la ya aplicada llega tarde: se ignora
+        if (event.current() != null && isNewer(grades[index], event.current())) {
+            return grades;
+        }
+        GradeDto[] copy = new GradeDto[grades.length - 1];
+        System.arraycopy(grades, 0, copy, 0, index);
+        System.arraycopy(grades, index + 1, copy, index, grades.length - index - 1);
+        return copy;
+    }
+
+    private static GradeDto[] with(GradeDto[] grades, GradeDto grade) {
+        int existing = indexOf(grades, grade.getId());
+        if (existing >= 0) {
+            if (isNewer(grades[existing], grade)) {
+                return grades;
+            }
+            GradeDto[] copy = grades.clone();
+            copy[existing] = grade;
+            Arrays.sort(copy, NEWEST_FIRST);
+            return copy;
+        }
+        int insertAt = Arrays.binarySearch(grades, grade, NEWEST_FIRST);
+        insertAt = insertAt < 0 ? -insertAt - 1 : insertAt;
+        GradeDto[] copy = new GradeDto[grades.length + 1];
+        System.arraycopy(grades, 0, copy, 0, insertAt);
+        copy[insertAt] = grade;
+        System.arraycopy(grades, insertAt, copy, insertAt + 1, grades.length - insertAt);
+        return copy;
+    }
+
+    private static boolean isNewer(GradeDto current, GradeDto candidate) {
+        return current.getUpdatedAt() != null && candidate.getUpdatedAt() != null
+                && current.getUpdatedAt().isAfter(candidate.getUpdatedAt());
+    }
+
+    private static int indexOf(GradeDto[] grades, Long gradeId) {
+        for (int i = 0; i < grades.length; i++) {
+            if (grades[i].getId().equals(gradeId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private GradeDto toDto(StudentGradeRow row) {
+        GradeDto dto = new GradeDto(row.getId(), courseDictionary.codeOf(row.getCourseId()), row.getScoreTenths(), row.getComments(),
+                row.getStudentUsername(), row.getCreatedAt(), row.getUpdatedAt());
+        dto.setAssessment(row.getAssessment());
+        return dto;
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.tenancy.TenantContext;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de cuerpos de respuesta ya serializados (JSON + ETag) de la lista de calificaciones
+ * de cada estudiante. El controlador escribe los bytes directamente, sin volver a pasar por
+ * Jackson. El tamaño se acota por presupuesto total de bytes, no por número de entradas.
+ *
+ * El ETag no depende del contenido sino de una versión por estudiante que cambia con cada
+ * escritura; así un GET condicional se resuelve leyendo la versión, sin cargar ni serializar la
+ * lista. Las versiones salen de un único reloj creciente del proceso y se guardan en un mapa
+ * acotado (grades.response-cache.max-versions): si se desaloja la de un estudiante, la siguiente
+ * es mayor que cualquiera ya emitida y no coincide con ETags antiguos. La época del proceso forma
+ * parte del ETag para que el reloj reiniciado tras un arranque tampoco coincida.
+ */
+@Component
+@TenantScoped
+public class GradeResponseCache {
+
+    // Sobrecoste aproximado por entrada (clave, ETag, nodo de la caché)
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final Cache<String, CachedBody> bodies;
+    private final Cache<String, Long> versions;
+    private final AtomicLong clock = new AtomicLong();
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ObjectMapper objectMapper;
+
+    public GradeResponseCache(ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${grades.response-cache.max-bytes:64MB}") DataSize maxBytes,
+                              @Value("${grades.response-cache.ttl:30m}") Duration ttl,
+                              @Value("${grades.response-cache.max-versions:100000}") long maxVersions) {
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes.toBytes())
+                .weigher((String username, CachedBody body) -> body.bytes().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "gradeResponses", TenantContext.tags());
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxVersions)
+                .build();
+    }
+
+    /**
+     * ETag actual de la lista del estudiante (lectura de la versión, sin acceso a datos). Un
+     * estudiante sin versión recibe una nueva del reloj, distinta de las que pudo tener antes.
+     */
+    public String etag(String username) {
+        return etag(versions.get(username, key -> clock.incrementAndGet()));
+    }
+
+    /**
+     * ETag de la lista con o sin las notas archivadas: las dos variantes comparten el contador de
+     * versión, que también avanza al archivar una nota, con un prefijo distinto
+     */
+    public String etag(String username, boolean includeArchived) {
+        String etag = etag(username);
+        return includeArchived ? etag.replace("\"g-", "\"ga-") : etag;
+    }
+
+    /**
+     * Serializa la lista con las notas archivadas sin guardarla: es una lectura histórica poco
+     * frecuente que no debe desplazar de la caché las listas de notas vigentes
+     */
+    public CachedBody withArchived(String username, Supplier<List<GradeDto>> loader) {
+        String etag = etag(username, true);
+        return serialize(loader.get(), etag);
+    }
+
+    /**
+     * Devuelve el cuerpo serializado de las calificaciones del estudiante, serializándolo
+     * una sola vez a partir del loader si no está en caché
+     */
+    public CachedBody userGrades(String username, Supplier<List<GradeDto>> loader) {
+        return bodies.get(username, key -> {
+            // La versión se lee antes de cargar: si una escritura llega durante la carga,
+            // el ETag queda atrasado y el siguiente GET condicional vuelve a descargar
+            String etag = etag(username);
+            return serialize(loader.get(), etag);
+        });
+    }
+
+    /**
+     * Descarta el cuerpo cacheado del estudiante
+     */
+    public void evict(String username) {
+        bodies.invalidate(username);
+    }
+
+    /**
+     * Incrementa la versión e invalida los cuerpos de los estudiantes cuyas listas
+     * cambian con la escritura
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(GradeChangedEvent.RESPONSE_CACHE_ORDER)
+    public void onGradeChanged(GradeChangedEvent event) {
+        if (event.previous() != null) {
+            changed(event.previous().getStudentUsername());
+        }
+        if (event.current() != null) {
+            changed(event.current().getStudentUsername());
+        }
+    }
+
+    private void changed(String username) {
+        versions.put(username, clock.incrementAndGet());
+        evict(username);
+    }
+
+    private String etag(long version) {
+        return "\"g-" + epoch + "-" + version + "\"";
+    }
+
+    private CachedBody serialize(List<GradeDto> grades, String etag) {
+        try {
+            return new CachedBody(objectMapper.writeValueAsBytes(grades), etag);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("No se pudo serializar la lista de calificaciones", ex);
+        }
+    }
+
+    /**
+     * Cuerpo JSON ya codificado y su ETag
+     */
+    public record CachedBody(byte[] bytes, String etag) {}
+}
@@ -1,19 +1,42 @@
 package com.example.pruebaTecnica.service;
 
+import com.example.pruebaTecnica.dto.GradeChangesDto;
 import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeSummaryDto;
+import com.example.pruebaTecnica.dto.GradebookDto;
+import com.example.pruebaTecnica.entity.ArchivedGrade;
+import com.example.pruebaTecnica.entity.CourseComponent;
 import com.example.pruebaTecnica.entity.Grade;
 import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
 import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.repository.GradeArchiveRepository;
 import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.CourseSummaryRow;
+import com.example.pruebaTecnica.repository.GradeRepository.GradeChangeRow;
+import com.example.pruebaTecnica.repository.GradeRepository.GradeRow;
+import com.example.pruebaTecnica.repository.GradeRepository.GradebookRow;
 import com.example.pruebaTecnica.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Servicio para la gestión de calificaciones académicas
@@ -23,12 +46,43 @@ import java.util.stream.Collectors;
 @Transactional
 public class GradeService {
 
+    // Máximo de cambios por página en la sincronización incremental
+    static final int MAX_CHANGES_PAGE = 1000;
+
+    // Máximo de estudiantes por página del libro de calificaciones
+    static final int MAX_GRADEBOOK_PAGE = 500;
+
     @Autowired
     private GradeRepository gradeRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private GradeArchiveRepository gradeArchiveRepository;
+
+    @Autowired
+    private CourseDictionary courseDictionary;
+
+    @Autowired
+    private GradeCache gradeCache;
+
+    @Autowired
+    private GradeReadModel gradeReadModel;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private FinalGradeService finalGradeService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Motor clave-valor para las lecturas de un estudiante (solo con grades.storage.engine=mvstore)
+    @Autowired(required = false)
+    private GradeKeyValueStore keyValueStore;
+
     /**
      * Registra una nueva calificación para un estudiante indicado
      * (solo profesores pueden usar este método)
@@ -41,28 +95,236 @@ public class GradeService {
 
         // Crear la calificación
         Grade grade = new Grade(
-                gradeDto.getCourse(),
+                courseDictionary.reference(gradeDto.getCourse()),
                 gradeDto.getComments(),
-                gradeDto.getScore(),
+                gradeDto.getScoreTenths(),
                 student
         );
+        grade.setAssessment(gradeDto.getAssessment());
+        grade.setComponent(finalGradeService.findComponent(gradeDto.getCourse(), gradeDto.getComponent()));
+
+        // El estudiante se bloquea antes de escribir: change_seq se asigna en la escritura y así los
+        // cambios de un estudiante se confirman en el orden de su secuencia (cursor de /changes)
+        transcriptService.lockStudents(List.of(student.getId()));
+
+        // Una evaluación eliminada antes se reactiva con su id en vez de chocar con la clave natural
+        GradeRow revived = gradeDto.getAssessment() == null ? null : gradeRepository.reviveDeleted(
+                student.getId(), courseDictionary.idOf(gradeDto.getCourse()), componentId(grade),
+                gradeDto.getAssessment(), gradeDto.getScoreTenths(), gradeDto.getComments());
+        if (revived != null) {
+            transcriptService.record(null, entry(student, revived));
+            finalGradeService.record(null, finalEntry(student, revived));
+            GradeDto created = toDto(revived, student);
+            eventPublisher.publishEvent(GradeChangedEvent.created(student.getId(), created));
+            return created;
+        }
 
         Grade savedGrade = gradeRepository.save(grade);
-        return convertToDto(savedGrade);
+        transcriptService.record(null, entry(savedGrade));
+        finalGradeService.record(null, finalEntry(savedGrade));
+        GradeDto created = convertToDto(savedGrade);
+        eventPublisher.publishEvent(GradeChangedEvent.created(student.getId(), created));
+        return created;
+    }
+
+    /**
+     * Inserta o actualiza una calificación por su clave natural (estudiante, curso, evaluación)
+     * con una única sentencia MERGE (solo profesores)
+     */
+    public GradeDto upsertGrade(GradeDto gradeDto) {
+        User student = userRepository.findByUsername(gradeDto.getStudentUsername())
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Estudiante no encontrado: " + gradeDto.getStudentUsername()));
+
+        GradeChangedEvent upserted = merge(gradeDto, student);
+        eventPublisher.publishEvent(upserted);
+        return upserted.current();
+    }
+
+    /**
+     * Upsert masivo: resuelve todos los estudiantes del lote en una sola consulta
+     * y ejecuta un MERGE por fila, de modo que re-importar el mismo lote es idempotente
+     */
+    public List<GradeDto> upsertGrades(List<GradeDto> gradeDtos) {
+        Set<String> usernames = gradeDtos.stream()
+                .map(GradeDto::getStudentUsername)
+                .collect(Collectors.toSet());
+        Map<String, User> students = userRepository.findByUsernameIn(usernames).stream()
+                .collect(Collectors.toMap(User::getUsername, Function.identity()));
+        transcriptService.lockStudents(students.values().stream().map(User::getId).toList());
+
+        List<GradeDto> result = new ArrayList<>(gradeDtos.size());
+        for (GradeDto gradeDto : gradeDtos) {
+            User student = students.get(gradeDto.getStudentUsername());
+            if (student == null) {
+                throw new ResourceNotFoundException("Estudiante no encontrado: " + gradeDto.getStudentUsername());
+            }
+            GradeChangedEvent upserted = merge(gradeDto, student);
+            eventPublisher.publishEvent(upserted);
+            result.add(upserted.current());
+        }
+        return result;
     }
 
     /**
      * Obtiene todas las calificaciones del estudiante autenticado
+     * Se sirven desde la vista en memoria; si aún no conoce al estudiante se recurre
+     * a la caché y, en último término, al motor de almacenamiento configurado
      */
     @Transactional(readOnly = true)
     public List<GradeDto> getUserGrades() {
+        return currentGrades(getCurrentUser());
+    }
+
+    /**
+     * Calificaciones del estudiante autenticado incluidas las archivadas (lectura histórica explícita):
+     * une las vigentes con las de grades_archive, de la más reciente a la más antigua. Una nota que se
+     * está archivando en este momento puede estar en ambas fuentes y se devuelve una sola vez.
+     */
+    @Transactional(readOnly = true)
+    public List<GradeDto> getUserGradesIncludingArchived() {
+        User currentUser = getCurrentUser();
+        List<GradeDto> current = currentGrades(currentUser);
+        List<ArchivedGrade> archived = gradeArchiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(currentUser.getId());
+        if (archived.isEmpty()) {
+            return current;
+        }
+        Set<Long> currentIds = current.stream().map(GradeDto::getId).collect(Collectors.toSet());
+        List<GradeDto> grades = new ArrayList<>(current.size() + archived.size());
+        grades.addAll(current);
+        for (ArchivedGrade grade : archived) {
+            if (!currentIds.contains(grade.getId())) {
+                GradeDto dto = new GradeDto(grade.getId(), courseDictionary.codeOf(grade.getCourseId()), grade.getScoreTenths(),
+                        grade.getComments(), currentUser.getUsername(), grade.getCreatedAt(), grade.getUpdatedAt());
+                dto.setAssessment(grade.getAssessment());
+                grades.add(dto);
+            }
+        }
+        grades.sort(Comparator.comparing(GradeDto::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(GradeDto::getId, Comparator.reverseOrder()));
+        return grades;
+    }
+
+    private List<GradeDto> currentGrades(User currentUser) {
+        return gradeReadModel.findByStudent(currentUser.getId()).orElseGet(() ->
+                gradeCache.userGrades(currentUser.getId(), () -> keyValueStoreReady()
+                        ? keyValueStore.findByStudent(currentUser.getId())
+                        : gradeRepository.findByUserOrderByCreatedAtDesc(currentUser).stream()
+                                .map(this::convertToDto)
+                                .toList()));
+    }
+
+    private boolean keyValueStoreReady() {
+        return keyValueStore != null && keyValueStore.isReady();
+    }
+
+    /**
+     * Cambios en las calificaciones del estudiante autenticado posteriores al cursor
+     * (0 para la carga inicial). Las notas eliminadas o reasignadas a otro estudiante
+     * se devuelven solo como ids en "deleted".
+     */
+    @Transactional(readOnly = true)
+    public GradeChangesDto getGradeChanges(long since, int limit) {
         User currentUser = getCurrentUser();
+        int pageSize = Math.min(Math.max(limit, 1), MAX_CHANGES_PAGE);
 
-        List<Grade> grades = gradeRepository.findByUserOrderByCreatedAtDesc(currentUser);
+        List<GradeChangeRow> rows = gradeRepository.findChangesSince(currentUser.getId(), since, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
 
-        return grades.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        // Una nota puede aparecer varias veces en la página (p. ej. sale y vuelve al estudiante): manda la última
+        Map<Long, GradeChangeRow> latest = new LinkedHashMap<>();
+        for (GradeChangeRow row : rows) {
+            latest.remove(row.getId());
+            latest.put(row.getId(), row);
+        }
+        List<GradeDto> changed = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        for (GradeChangeRow row : latest.values()) {
+            if (Boolean.TRUE.equals(row.getDeleted()) || !currentUser.getId().equals(row.getUserId())) {
+                deleted.add(row.getId());
+            } else {
+                GradeDto dto = new GradeDto(row.getId(), courseDictionary.codeOf(row.getCourseId()), row.getScoreTenths(),
+                        row.getComments(), currentUser.getUsername(), row.getCreatedAt(), row.getUpdatedAt());
+                dto.setAssessment(row.getAssessment());
+                changed.add(dto);
+            }
+        }
+        long cursor = rows.isEmpty() ? since : rows.get(rows.size() - 1).getChangeSeq();
+        return new GradeChangesDto(changed, deleted, cursor, hasMore);
+    }
+
+    /**
+     * Resumen estadístico de las calificaciones del estudiante autenticado: cantidad, promedio,
+     * mínima, máxima, desviación estándar y última nota por curso y en total. Se calcula con
+     * un único GROUP BY en la base de datos y se cachea hasta la siguiente escritura.
+     */
+    @Transactional(readOnly = true)
+    public GradeSummaryDto getGradeSummary() {
+        User currentUser = getCurrentUser();
+        return gradeCache.summary(currentUser.getId(), () ->
+                summarize(gradeRepository.summarizeByCourse(currentUser.getId())));
+    }
+
+    /**
+     * Libro de calificaciones para profesores: matriz estudiantes × cursos con el promedio o la
+     * última nota de cada celda, para una página de estudiantes ordenados por username y,
+     * opcionalmente, solo los cursos indicados. Se arma en una sola pasada sobre las notas de la
+     * página, ordenadas por celda, sin cargar entidades.
+     */
+    @Transactional(readOnly = true)
+    public GradebookDto getGradebook(int page, int size, List<String> courses, GradebookDto.CellValue value) {
+        if (page < 0 || size < 1 || size > MAX_GRADEBOOK_PAGE) {
+            throw new InvalidRequestException("La página debe ser >= 0 y el tamaño estar entre 1 y " + MAX_GRADEBOOK_PAGE);
+        }
+        boolean allCourses = courses == null || courses.isEmpty();
+        Map<String, Double[]> columns = allCourses ? new TreeMap<>() : new LinkedHashMap<>();
+        // Id 0 no corresponde a ningún curso: evita un IN vacío cuando no se filtra o ningún curso existe
+        List<Integer> courseIds = new ArrayList<>(List.of(0));
+        if (!allCourses) {
+            courses.forEach(course -> {
+                columns.putIfAbsent(course, new Double[size + 1]);
+                courseDictionary.findId(course).ifPresent(courseIds::add);
+            });
+        }
+
+        List<String> students = new ArrayList<>(size + 1);
+        GradebookCell cell = new GradebookCell(value);
+        // Se pide un estudiante de más solo para saber si hay otra página
+        try (Stream<GradebookRow> rows = gradeRepository.streamGradebook(
+                Math.multiplyExact(page, size), size + 1, allCourses, courseIds)) {
+            rows.forEach(row -> {
+                if (students.isEmpty() || !students.get(students.size() - 1).equals(row.studentUsername())) {
+                    cell.flush();
+                    students.add(row.studentUsername());
+                }
+                if (row.courseId() != null) {
+                    if (!cell.isAt(row.courseId())) {
+                        cell.flush();
+                        cell.open(row.courseId(),
+                                columns.computeIfAbsent(courseDictionary.codeOf(row.courseId()),
+                                        course -> new Double[size + 1]),
+                                students.size() - 1);
+                    }
+                    cell.add(row.scoreTenths());
+                }
+            });
+        }
+        cell.flush();
+
+        boolean hasMore = students.size() > size;
+        int pageSize = Math.min(students.size(), size);
+        GradebookDto gradebook = new GradebookDto();
+        gradebook.setValue(value);
+        gradebook.setPage(page);
+        gradebook.setSize(size);
+        gradebook.setHasMore(hasMore);
+        gradebook.setStudents(students.subList(0, pageSize));
+        gradebook.setCourses(new ArrayList<>(columns.keySet()));
+        gradebook.setScores(columns.values().stream().map(column -> Arrays.copyOf(column, pageSize)).toList());
+        return gradebook;
     }
 
     /**
@@ -72,18 +334,20 @@ public class GradeService {
     public GradeDto getGradeById(Long gradeId) {
         User currentUser = getCurrentUser();
 
-        Grade grade = gradeRepository.findById(gradeId)
+        GradeDto grade = gradeCache.grade(gradeId, () -> (keyValueStoreReady()
+                ? keyValueStore.findById(gradeId)
+                : gradeRepository.findById(gradeId).map(this::convertToDto))
                 .orElseThrow(() -> new ResourceNotFoundException(
-                        "Calificación no encontrada con ID: " + gradeId));
+                        "Calificación no encontrada con ID: " + gradeId)));
 
         // Solo el dueño puede ver su calificación (si es estudiante)
-        if (!grade.getUser().getId().equals(currentUser.getId())
+        if (!grade.getStudentUsername().equals(currentUser.getUsername())
             && !currentUser.getRole().equals("TEACHER")) {
             throw new ResourceNotFoundException(
                     "Calificación no encontrada con ID: " + gradeId);
         }
 
-        return convertToDto(grade);
+        return grade;
     }
 
     /**
@@ -93,22 +357,41 @@ public class GradeService {
         Grade grade = gradeRepository.findById(gradeId)
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Calificación no encontrada con ID: " + gradeId));
+        Long previousStudentId = grade.getUser().getId();
+        GradeDto previous = convertToDto(grade);
+        TranscriptService.Entry previousEntry = entry(grade);
+        FinalGradeService.Entry previousFinal = finalEntry(grade);
 
-        // Actualizar campos
-        grade.setCourse(gradeDto.getCourse());
-        grade.setScore(gradeDto.getScore());
-        grade.setComments(gradeDto.getComments());
-
-        // Si es profesor y envía un estudiante, actualizar el dueño
+        // Si es profesor y envía un estudiante, la nota pasa a ese estudiante
+        User student = grade.getUser();
         if (gradeDto.getStudentUsername() != null) {
-            User student = userRepository.findByUsername(gradeDto.getStudentUsername())
+            student = userRepository.findByUsername(gradeDto.getStudentUsername())
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Estudiante no encontrado: " + gradeDto.getStudentUsername()));
+        }
+        // Ambos dueños se bloquean antes de tocar la entidad: Hibernate volcaría los cambios (y asignaría
+        // change_seq) antes de la consulta del bloqueo
+        transcriptService.lockStudents(List.of(previousStudentId, student.getId()));
+
+        // Actualizar campos
+        grade.setCourse(courseDictionary.reference(gradeDto.getCourse()));
+        grade.setComponent(finalGradeService.findComponent(gradeDto.getCourse(), gradeDto.getComponent()));
+        grade.setAssessment(gradeDto.getAssessment());
+        grade.setScoreTenths(gradeDto.getScoreTenths());
+        grade.setComments(gradeDto.getComments());
+        if (!student.getId().equals(previousStudentId)) {
+            // Cada cambio de dueño deja su propia baja para el estudiante anterior
+            gradeRepository.recordMove(gradeId, previousStudentId);
             grade.setUser(student);
         }
 
         Grade updatedGrade = gradeRepository.save(grade);
-        return convertToDto(updatedGrade);
+        transcriptService.record(previousEntry, entry(updatedGrade));
+        finalGradeService.record(previousFinal, finalEntry(updatedGrade));
+        GradeDto updated = convertToDto(updatedGrade);
+        eventPublisher.publishEvent(GradeChangedEvent.updated(
+                previousStudentId, previous, updatedGrade.getUser().getId(), updated));
+        return updated;
     }
 
     /**
@@ -119,7 +402,108 @@ public class GradeService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "Calificación no encontrada con ID: " + gradeId));
 
+        GradeDto previous = convertToDto(grade);
+        transcriptService.lockStudents(List.of(grade.getUser().getId()));
         gradeRepository.delete(grade);
+        transcriptService.record(entry(grade), null);
+        finalGradeService.record(finalEntry(grade), null);
+        eventPublisher.publishEvent(GradeChangedEvent.deleted(grade.getUser().getId(), previous));
+    }
+
+    /**
+     * MERGE de una fila; devuelve el evento con la nota anterior (la fila vigente ya bloqueada) y la resultante
+     */
+    private GradeChangedEvent merge(GradeDto gradeDto, User student) {
+        Integer courseId = courseDictionary.idOf(gradeDto.getCourse());
+        CourseComponent component = finalGradeService.findComponent(gradeDto.getCourse(), gradeDto.getComponent());
+        // El MERGE asigna change_seq: el estudiante se bloquea antes (en un lote ya lo está y no espera)
+        transcriptService.lockStudents(List.of(student.getId()));
+        // La fila vigente (si la hay) queda bloqueada: el cambio sobre el expediente y la nota final es exacto
+        GradeRow previous = gradeRepository.findLiveByNaturalKey(student.getId(), courseId, gradeDto.getAssessment());
+        GradeRow row = gradeRepository.upsertByNaturalKey(
+                student.getId(),
+                courseId,
+                component == null ? null : component.getId(),
+                gradeDto.getAssessment(),
+                gradeDto.getScoreTenths(),
+                gradeDto.getComments());
+        transcriptService.record(previous == null ? null : entry(student, previous), entry(student, row));
+        finalGradeService.record(previous == null ? null : finalEntry(student, previous), finalEntry(student, row));
+        return GradeChangedEvent.upserted(student.getId(), previous == null ? null : toDto(previous, student),
+                toDto(row, student));
+    }
+
+    private FinalGradeService.Entry finalEntry(User student, GradeRow row) {
+        return new FinalGradeService.Entry(student.getId(), row.getCourseId(), row.getComponentId(), row.getScoreTenths());
+    }
+
+    private FinalGradeService.Entry finalEntry(Grade grade) {
+        return new FinalGradeService.Entry(grade.getUser().getId(), grade.getCourse().getId(), componentId(grade),
+                grade.getScoreTenths());
+    }
+
+    private Integer componentId(Grade grade) {
+        return grade.getComponent() == null ? null : grade.getComponent().getId();
+    }
+
+    private TranscriptService.Entry entry(User student, GradeRow row) {
+        return new TranscriptService.Entry(student.getId(), row.getCourseId(), row.getCreatedAt(), row.getScoreTenths());
+    }
+
+    private TranscriptService.Entry entry(Grade grade) {
+        return new TranscriptService.Entry(grade.getUser().getId(), grade.getCourse().getId(),
+                grade.getCreatedAt(), grade.getScoreTenths());
+    }
+
+    private GradeDto toDto(GradeRow row, User student) {
+        GradeDto dto = new GradeDto(row.getId(), courseDictionary.codeOf(row.getCourseId()), row.getScoreTenths(),
+                row.getComments(), student.getUsername(), row.getCreatedAt(), row.getUpdatedAt());
+        dto.setAssessment(row.getAssessment());
+        return dto;
+    }
+
+    /**
+     * Arma el resumen: las estadísticas de cada curso salen de sus agregados y el total
+     * combina las sumas de todos los cursos. Las sumas son enteras (en décimas), así que son
+     * exactas; solo el promedio y la desviación se pasan a puntos al final.
+     */
+    private GradeSummaryDto summarize(List<CourseSummaryRow> rows) {
+        List<GradeSummaryDto.Stats> courses = new ArrayList<>(rows.size());
+        long count = 0;
+        long sum = 0;
+        long sumOfSquares = 0;
+        short min = Short.MAX_VALUE;
+        short max = Short.MIN_VALUE;
+        CourseSummaryRow latest = null;
+
+        for (CourseSummaryRow row : rows) {
+            courses.add(stats(courseDictionary.codeOf(row.getCourseId()), row.getCount(), row.getSum(), row.getSumOfSquares(),
+                    row.getMin(), row.getMax(), row.getLatestScore(), row.getLatestAt()));
+            count += row.getCount();
+            sum += row.getSum();
+            sumOfSquares += row.getSumOfSquares();
+            min = (short) Math.min(min, row.getMin());
+            max = (short) Math.max(max, row.getMax());
+            if (latest == null || row.getLatestAt().isAfter(latest.getLatestAt())) {
+                latest = row;
+            }
+        }
+
+        courses.sort(Comparator.comparing(GradeSummaryDto.Stats::getCourse));
+
+        GradeSummaryDto.Stats overall = latest == null
+                ? new GradeSummaryDto.Stats(null, 0, null, null, null, null, null, null)
+                : stats(null, count, sum, sumOfSquares, min, max, latest.getLatestScore(), latest.getLatestAt());
+        return new GradeSummaryDto(overall, courses);
+    }
+
+    private GradeSummaryDto.Stats stats(String course, long count, long sum, long sumOfSquares,
+                                        short min, short max, short latestScore, LocalDateTime latestAt) {
+        // Varianza poblacional en décimas² como cociente de enteros exactos: (n·Σx² − (Σx)²) / n²
+        double variance = (double) (count * sumOfSquares - sum * sum) / ((double) count * count);
+        return new GradeSummaryDto.Stats(course, count, Grade.toPoints((double) sum / count),
+                Grade.toPoints(min), Grade.toPoints(max), Grade.toPoints(Math.sqrt(variance)),
+                Grade.toPoints(latestScore), latestAt);
     }
 
     /**
@@ -139,12 +523,59 @@ public class GradeService {
     private GradeDto convertToDto(Grade grade) {
         GradeDto dto = new GradeDto();
         dto.setId(grade.getId());
-        dto.setCourse(grade.getCourse());
-        dto.setScore(grade.getScore());
+        // getId() no inicializa el proxy del curso: el nombre sale del diccionario
+        dto.setCourse(courseDictionary.codeOf(grade.getCourse().getId()));
+        dto.setAssessment(grade.getAssessment());
+        dto.setScoreTenths(grade.getScoreTenths());
         dto.setComments(grade.getComments());
         dto.setStudentUsername(grade.getUser().getUsername()); // asignamos username del estudiante
         dto.setCreatedAt(grade.getCreatedAt());
         dto.setUpdatedAt(grade.getUpdatedAt());
         return dto;
     }
+
+    /**
+     * Celda del libro en construcción: las filas de una celda llegan contiguas y la primera es
+     * la nota más reciente; la suma se lleva en décimas
+     */
+    private static final class GradebookCell {
+
+        private final GradebookDto.CellValue value;
+        private Integer courseId;
+        private Double[] column;
+        private int student;
+        private long sum;
+        private int count;
+
+        GradebookCell(GradebookDto.CellValue value) {
+            this.value = value;
+        }
+
+        boolean isAt(Integer courseId) {
+            return courseId.equals(this.courseId);
+        }
+
+        void open(Integer courseId, Double[] column, int student) {
+            this.courseId = courseId;
+            this.column = column;
+            this.student = student;
+            this.sum = 0;
+            this.count = 0;
+        }
+
+        void add(short scoreTenths) {
+            if (count++ == 0 && value == GradebookDto.CellValue.LATEST) {
+                column[student] = Grade.toPoints(scoreTenths);
+            }
+            sum += scoreTenths;
+        }
+
+        void flush() {
+            if (column != null && value == GradebookDto.CellValue.AVERAGE) {
+                column[student] = Grade.toPoints((double) sum / count);
+            }
+            courseId = null;
+            column = null;
+        }
+    }
 }
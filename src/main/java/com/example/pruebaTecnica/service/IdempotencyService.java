@@ -0,0 +1,129 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.exception.IdempotencyConflictException;
+import com.example.pruebaTecnica.tenancy.TenantScoped;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Servicio de deduplicación de escrituras mediante el header Idempotency-Key
+ * Guarda la primera respuesta por (usuario, clave) en una caché acotada con expiración;
+ * los duplicados concurrentes esperan el resultado en curso en lugar de ejecutarse dos veces
+ */
+@Service
+@TenantScoped
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final ConcurrentMap<String, CompletableFuture<StoredResponse>> responses;
+    private final ObjectMapper objectMapper;
+    private final Duration inFlightTimeout;
+
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl:24h}") Duration ttl,
+                              @Value("${idempotency.max-entries:10000}") long maxEntries,
+                              @Value("${idempotency.in-flight-timeout:30s}") Duration inFlightTimeout) {
+        Cache<String, CompletableFuture<StoredResponse>> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+        this.responses = cache.asMap();
+        this.objectMapper = objectMapper;
+        this.inFlightTimeout = inFlightTimeout;
+    }
+
+    /**
+     * Ejecuta la acción una sola vez por (usuario, clave). Sin clave, la ejecuta siempre.
+     *
+     * @param username usuario autenticado que hace la petición
+     * @param key valor del header Idempotency-Key (puede ser null)
+     * @param request cuerpo de la petición, para detectar claves reutilizadas con otro contenido
+     * @param action escritura a ejecutar
+     * @return la respuesta original, o su repetición marcada con Idempotent-Replayed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String username, String key, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String cacheKey = username + ':' + key;
+        byte[] fingerprint = fingerprint(request);
+
+        while (true) {
+            CompletableFuture<StoredResponse> inFlight = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.putIfAbsent(cacheKey, inFlight);
+
+            if (existing == null) {
+                try {
+                    ResponseEntity<T> response = action.get();
+                    inFlight.complete(new StoredResponse(fingerprint, response));
+                    return response;
+                } catch (Throwable ex) {
+                    // Los errores no se memorizan: el cliente puede reintentar con la misma clave.
+                    // También los Error (StackOverflowError, OutOfMemoryError...): si la entrada quedara
+                    // pendiente, los reintentos esperarían a una petición que ya no va a terminar.
+                    responses.remove(cacheKey, inFlight);
+                    inFlight.completeExceptionally(ex);
+                    throw ex;
+                }
+            }
+
+            StoredResponse stored = await(existing);
+            if (stored == null) {
+                continue; // la petición original falló; esta la reemplaza
+            }
+            if (!Arrays.equals(stored.fingerprint(), fingerprint)) {
+                throw new IdempotencyConflictException(
+                        "La Idempotency-Key ya se usó con un cuerpo de petición distinto");
+            }
+            ResponseEntity<T> original = (ResponseEntity<T>) stored.response();
+            return ResponseEntity.status(original.getStatusCode())
+                    .headers(original.getHeaders())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(original.getBody());
+        }
+    }
+
+    private StoredResponse await(CompletableFuture<StoredResponse> existing) {
+        try {
+            return existing.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            return null;
+        } catch (TimeoutException ex) {
+            throw new IdempotencyConflictException("Una petición con la misma Idempotency-Key sigue en curso");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrumpido esperando la petición original", ex);
+        }
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición", ex);
+        }
+    }
+
+    private record StoredResponse(byte[] fingerprint, ResponseEntity<?> response) {}
+}
@@ -0,0 +1,228 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.CourseDto;
+import com.example.pruebaTecnica.dto.TermDto;
+import com.example.pruebaTecnica.dto.TranscriptDto;
+import com.example.pruebaTecnica.entity.Course;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.Term;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.repository.CourseRepository;
+import com.example.pruebaTecnica.repository.GradeArchiveRepository;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentCourseSumRow;
+import com.example.pruebaTecnica.repository.TermRepository;
+import com.example.pruebaTecnica.repository.TranscriptRepository;
+import com.example.pruebaTecnica.repository.TranscriptRepository.TranscriptRow;
+import com.example.pruebaTecnica.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Servicio del expediente académico (periodos, créditos y promedios)
+ * El expediente está materializado en transcript_entries: una celda por (estudiante, periodo, curso)
+ * con la cantidad y la suma de sus notas. GradeService le pasa cada escritura dentro de su misma
+ * transacción y aquí solo se suma el cambio a la celda afectada, así que leer el expediente es un
+ * recorrido por la clave primaria del estudiante. Los créditos se aplican al leer: cambiar los de
+ * un curso no obliga a recalcular nada. Archivar una nota no la quita del expediente.
+ */
+@Service
+@Transactional
+public class TranscriptService {
+
+    @Autowired
+    private TranscriptRepository transcriptRepository;
+
+    @Autowired
+    private TermRepository termRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private GradeArchiveRepository gradeArchiveRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseDictionary courseDictionary;
+
+    /**
+     * Nota tal como cuenta en el expediente: su celda sale del estudiante, el curso y la fecha de creación
+     */
+    public record Entry(Long studentId, Integer courseId, LocalDateTime createdAt, short scoreTenths) {
+
+        boolean sameCell(Entry other) {
+            return studentId.equals(other.studentId) && courseId.equals(other.courseId)
+                    && createdAt.toLocalDate().equals(other.createdAt.toLocalDate());
+        }
+    }
+
+    /**
+     * Aplica al expediente el cambio de una nota: previous es su estado antes de la escritura y
+     * current el de después (null si no existía o si se eliminó). Un cambio dentro de la misma
+     * celda se aplica con una sola sentencia. Una nota sin fecha de creación no pertenece a ningún periodo.
+     * Los estudiantes quedan bloqueados hasta el final de la transacción (ver createTerm).
+     */
+    public void record(Entry previous, Entry current) {
+        previous = previous == null || previous.createdAt() == null ? null : previous;
+        current = current == null || current.createdAt() == null ? null : current;
+        if (previous != null && current != null && previous.sameCell(current)) {
+            if (previous.scoreTenths() != current.scoreTenths()) {
+                transcriptRepository.lockStudents(List.of(current.studentId()));
+                add(current, 0, current.scoreTenths() - previous.scoreTenths());
+            }
+            return;
+        }
+        Set<Long> students = new TreeSet<>();
+        if (previous != null) {
+            students.add(previous.studentId());
+        }
+        if (current != null) {
+            students.add(current.studentId());
+        }
+        if (!students.isEmpty()) {
+            transcriptRepository.lockStudents(students);
+        }
+        if (previous != null) {
+            add(previous, -1, -previous.scoreTenths());
+        }
+        if (current != null) {
+            add(current, 1, current.scoreTenths());
+        }
+    }
+
+    /**
+     * Bloquea de antemano, en orden de id, a los estudiantes de una escritura de varias notas, para
+     * que no se interbloquee con la creación de un periodo ni con otra escritura
+     */
+    public void lockStudents(Collection<Long> studentIds) {
+        if (!studentIds.isEmpty()) {
+            transcriptRepository.lockStudents(new TreeSet<>(studentIds));
+        }
+    }
+
+    private void add(Entry entry, int countDelta, long sumDelta) {
+        transcriptRepository.addToCell(entry.studentId(), entry.courseId(), entry.createdAt(), countDelta, sumDelta);
+    }
+
+    /**
+     * Expediente del estudiante autenticado: promedio de cada curso por periodo, promedio de cada
+     * periodo y promedio acumulado, ponderados por los créditos actuales de los cursos
+     */
+    @Transactional(readOnly = true)
+    public TranscriptDto getTranscript() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User student = userRepository.findByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario no encontrado: " + username));
+
+        List<TranscriptDto.TermResult> terms = new ArrayList<>();
+        TranscriptDto.TermResult term = null;
+        long termCredits = 0;
+        double termWeighted = 0;
+        long totalCredits = 0;
+        double totalWeighted = 0;
+        // Las filas llegan ordenadas por periodo: cada periodo se cierra al aparecer el siguiente
+        for (TranscriptRow row : transcriptRepository.findRowsByStudent(student.getId())) {
+            if (term == null || !term.getTerm().equals(row.getTerm())) {
+                close(term, termCredits, termWeighted);
+                term = new TranscriptDto.TermResult(row.getTerm(), row.getStartsOn(), row.getEndsOn(), 0, null, new ArrayList<>());
+                terms.add(term);
+                termCredits = 0;
+                termWeighted = 0;
+            }
+            double average = Grade.toPoints((double) row.getScoreSum() / row.getGradeCount());
+            term.getCourses().add(new TranscriptDto.CourseResult(courseDictionary.codeOf(row.getCourseId()),
+                    row.getCredits(), row.getGradeCount(), average));
+            termCredits += row.getCredits();
+            termWeighted += row.getCredits() * average;
+            totalCredits += row.getCredits();
+            totalWeighted += row.getCredits() * average;
+        }
+        close(term, termCredits, termWeighted);
+        return new TranscriptDto(student.getUsername(), totalCredits,
+                totalCredits == 0 ? null : totalWeighted / totalCredits, terms);
+    }
+
+    private void close(TranscriptDto.TermResult term, long credits, double weighted) {
+        if (term != null) {
+            term.setCredits(credits);
+            term.setAverage(weighted / credits);
+        }
+    }
+
+    /**
+     * Periodos en orden cronológico
+     */
+    @Transactional(readOnly = true)
+    public List<TermDto> listTerms() {
+        return termRepository.findAllByOrderByStartsOnAsc().stream()
+                .map(term -> new TermDto(term.getCode(), term.getStartsOn(), term.getEndsOn()))
+                .toList();
+    }
+
+    /**
+     * Crea un periodo (solo profesores) y carga su expediente con las notas, vigentes y archivadas,
+     * creadas entre sus fechas. Los periodos no pueden solaparse: cada nota pertenece a uno solo.
+     * Bloquea antes a todos los estudiantes, como cada escritura de notas bloquea a los suyos: una
+     * nota confirmada antes de bloquearlos entra en la carga inicial y una posterior ve el periodo
+     * ya confirmado y se suma a su celda. La clave primaria de term_days rechaza los solapamientos.
+     */
+    public TermDto createTerm(TermDto termDto) {
+        transcriptRepository.lockAllStudents();
+        if (termRepository.existsOverlapping(termDto.getStartsOn(), termDto.getEndsOn())) {
+            throw new InvalidRequestException("El periodo se solapa con otro existente");
+        }
+        Term term = termRepository.saveAndFlush(new Term(termDto.getCode(), termDto.getStartsOn(), termDto.getEndsOn()));
+        termRepository.addDays(term.getId(), term.getStartsOn(), term.getEndsOn());
+
+        LocalDateTime from = term.getStartsOn().atStartOfDay();
+        LocalDateTime to = term.getEndsOn().plusDays(1).atStartOfDay();
+        Map<StudentCourse, long[]> cells = new HashMap<>();
+        for (List<StudentCourseSumRow> rows : List.of(gradeRepository.sumByStudentAndCourse(from, to),
+                gradeArchiveRepository.sumByStudentAndCourse(from, to))) {
+            for (StudentCourseSumRow row : rows) {
+                long[] cell = cells.computeIfAbsent(new StudentCourse(row.getStudentId(), row.getCourseId()),
+                        key -> new long[2]);
+                cell[0] += row.getCount();
+                cell[1] += row.getSum();
+            }
+        }
+        cells.forEach((key, cell) ->
+                transcriptRepository.setCell(key.studentId(), term.getId(), key.courseId(), cell[0], cell[1]));
+        return new TermDto(term.getCode(), term.getStartsOn(), term.getEndsOn());
+    }
+
+    /**
+     * Cambia los créditos de un curso existente (solo profesores); los expedientes los reflejan
+     * en la siguiente lectura
+     */
+    public CourseDto setCredits(String code, short credits) {
+        Integer id = courseDictionary.findId(code)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado: " + code));
+        Course course = courseRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Curso no encontrado: " + code));
+        course.setCredits(credits);
+        return new CourseDto(course.getCode(), course.getCredits());
+    }
+
+    // Celda de la carga inicial de un periodo
+    private record StudentCourse(Long studentId, Integer courseId) {}
+}
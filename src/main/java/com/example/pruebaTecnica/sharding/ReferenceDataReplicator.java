@@ -0,0 +1,117 @@
+package com.example.pruebaTecnica.sharding;
+
+import com.example.pruebaTecnica.entity.Course;
+import com.example.pruebaTecnica.entity.CourseComponent;
+import com.example.pruebaTecnica.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia de los datos de referencia (usuarios, cursos y sus componentes) en todos los shards
+ * Se escriben solo en el directorio (shard 0) y, tras cada commit, la fila se copia con MERGE
+ * a los demás shards, donde la necesitan las claves foráneas de grades y los JOIN del ranking
+ * y del libro de calificaciones. La copia es posterior al commit y no transaccional: si un
+ * shard no responde se registra el fallo y la sincronización completa del arranque lo repara.
+ * Los periodos (terms y term_days) se copian en la misma transacción que los crea (ver
+ * ShardedStudentDataRepository); el arranque también los sincroniza.
+ */
+public class ReferenceDataReplicator implements PostCommitInsertEventListener, PostCommitUpdateEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataReplicator.class);
+
+    // Entidad replicada -> tabla; los cursos primero, en el mismo orden que las claves foráneas
+    private static final Map<Class<?>, String> TABLES = Map.of(Course.class, "courses",
+            CourseComponent.class, "course_components", User.class, "users");
+    private static final List<String> SYNC_ORDER = List.of("courses", "course_components", "users", "terms", "term_days");
+    // Tabla -> columna de la clave del MERGE, si no es id
+    private static final Map<String, String> KEYS = Map.of("term_days", "calendar_day");
+
+    private final JdbcTemplate directory;
+    private final List<JdbcTemplate> replicas = new ArrayList<>();
+
+    public ReferenceDataReplicator(ShardedDataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.directory = new JdbcTemplate(dataSource.shard(ShardContext.DIRECTORY));
+        for (int shard = ShardContext.DIRECTORY + 1; shard < dataSource.shardCount(); shard++) {
+            replicas.add(new JdbcTemplate(dataSource.shard(shard)));
+        }
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    }
+
+    /**
+     * Copia todas las filas de referencia del directorio a los demás shards (al arrancar)
+     */
+    public void synchronizeAll() {
+        for (String table : SYNC_ORDER) {
+            List<Map<String, Object>> rows = directory.queryForList("SELECT * FROM " + table);
+            replicas.forEach(replica -> merge(replica, table, rows));
+            logger.info("Tabla {} sincronizada en {} shards ({} filas)", table, replicas.size() + 1, rows.size());
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        replicate(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        replicate(event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return TABLES.containsKey(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Sin commit no hay nada que copiar
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Sin commit no hay nada que copiar
+    }
+
+    private void replicate(EntityPersister persister, Object id) {
+        String table = TABLES.get(persister.getMappedClass());
+        try {
+            List<Map<String, Object>> rows = directory.queryForList("SELECT * FROM " + table + " WHERE id = ?", id);
+            replicas.forEach(replica -> merge(replica, table, rows));
+        } catch (DataAccessException ex) {
+            logger.warn("No se pudo copiar {} {} a los shards; se copiará en el próximo arranque: {}",
+                    table, id, ex.getMessage());
+        }
+    }
+
+    private void merge(JdbcTemplate replica, String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = List.copyOf(rows.get(0).keySet());
+        String sql = "MERGE INTO " + table + " (" + String.join(", ", columns) + ") KEY (" + KEYS.getOrDefault(table, "id") + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        replica.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList());
+    }
+}
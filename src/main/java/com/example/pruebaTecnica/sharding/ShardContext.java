@@ -0,0 +1,37 @@
+package com.example.pruebaTecnica.sharding;
+
+/**
+ * Shard al que van las sentencias del hilo actual
+ * Solo lo fija ShardedGradeRepository mientras dura una llamada al repositorio de calificaciones
+ * (o la parte de una consulta repartida que corre en cada hilo); fuera de ellas no hay shard
+ * y las sentencias van al directorio (shard 0), donde viven los usuarios y los cursos.
+ */
+public final class ShardContext {
+
+    public static final int DIRECTORY = 0;
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    static void set(int shard) {
+        CURRENT.set(shard);
+    }
+
+    static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Shard de la próxima sentencia: el fijado o, si no hay, el directorio
+     */
+    static int target() {
+        Integer shard = CURRENT.get();
+        return shard != null ? shard : DIRECTORY;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.pruebaTecnica.sharding;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Comprobación del reparto al arrancar (tabla shard_layout de cada shard)
+ * Las calificaciones se buscan por id con id mod N, sin pasar por los buckets de su estudiante.
+ * Cambiar el número de shards, el número de buckets, grades.sharding.bucket-map o el orden de
+ * grades.sharding.urls dejaría notas existentes fuera del shard al que llevan su id o su
+ * estudiante, así que un shard con calificaciones se niega a arrancar con otro reparto. Un
+ * shard sin calificaciones adopta el reparto nuevo. Una base anterior a esta comprobación
+ * adopta el reparto con el que arranca por primera vez.
+ */
+public final class ShardLayout {
+
+    private ShardLayout() {}
+
+    public static void verify(JdbcTemplate jdbc, int shard, ShardMap shardMap) {
+        String layout = shardMap.describe();
+        List<Stored> stored = jdbc.query("SELECT shard, layout FROM shard_layout",
+                (rs, rowNum) -> new Stored(rs.getInt("shard"), rs.getString("layout")));
+        if (stored.size() == 1 && stored.get(0).shard() == shard && stored.get(0).layout().equals(layout)) {
+            return;
+        }
+        if (!stored.isEmpty() && Boolean.TRUE.equals(jdbc.queryForObject("SELECT EXISTS (SELECT 1 FROM grades)", Boolean.class))) {
+            throw new IllegalStateException("El shard " + shard + " tiene calificaciones escritas con otro reparto"
+                    + " (era el shard " + stored.get(0).shard() + " con shards/buckets " + summary(stored.get(0).layout())
+                    + "; ahora " + summary(layout) + " u otra asignación de buckets): cambiar grades.sharding.urls,"
+                    + " grades.sharding.buckets o grades.sharding.bucket-map no mueve los datos existentes y los"
+                    + " dejaría inalcanzables");
+        }
+        jdbc.update("DELETE FROM shard_layout");
+        jdbc.update("INSERT INTO shard_layout (shard, layout, updated_at) VALUES (?, ?, LOCALTIMESTAMP)", shard, layout);
+    }
+
+    private static String summary(String layout) {
+        return layout.substring(0, layout.indexOf(';'));
+    }
+
+    private record Stored(int shard, String layout) {}
+}
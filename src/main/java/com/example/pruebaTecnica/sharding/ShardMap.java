@@ -0,0 +1,109 @@
+package com.example.pruebaTecnica.sharding;
+
+import java.util.Arrays;
+
+/**
+ * Reparto de estudiantes y calificaciones entre shards
+ * El id del estudiante se dispersa en un número fijo de buckets y cada bucket se asigna a un
+ * shard (por defecto bucket mod N, o según grades.sharding.bucket-map).
+ * Las calificaciones se identifican por id sin consultar al estudiante: cada shard genera ids
+ * congruentes con su número (id mod N), de modo que una búsqueda por id va a un solo shard.
+ * Por eso el reparto queda fijo en cuanto hay calificaciones: ShardLayout impide arrancar con
+ * otro número de shards u otra asignación de buckets, que no movería las notas existentes.
+ */
+public final class ShardMap {
+
+    private final int shardCount;
+    private final int[] bucketToShard;
+
+    private ShardMap(int shardCount, int[] bucketToShard) {
+        this.shardCount = shardCount;
+        this.bucketToShard = bucketToShard;
+    }
+
+    /**
+     * @param bucketMap rangos "desde-hasta:shard" separados por comas (p. ej. "0-31:0,32-63:1");
+     *                  vacío para asignar cada bucket al shard bucket mod N
+     */
+    public static ShardMap of(int shardCount, int buckets, String bucketMap) {
+        if (shardCount < 1 || buckets < shardCount) {
+            throw new IllegalArgumentException(
+                    "Se necesita al menos un shard y al menos tantos buckets como shards (" + buckets + " < " + shardCount + ")");
+        }
+        int[] bucketToShard = new int[buckets];
+        if (bucketMap == null || bucketMap.isBlank()) {
+            Arrays.setAll(bucketToShard, bucket -> bucket % shardCount);
+            return new ShardMap(shardCount, bucketToShard);
+        }
+
+        Arrays.fill(bucketToShard, -1);
+        for (String entry : bucketMap.split(",")) {
+            String[] rangeAndShard = entry.trim().split(":");
+            String[] range = rangeAndShard[0].trim().split("-");
+            int from = Integer.parseInt(range[0].trim());
+            int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+            int shard = Integer.parseInt(rangeAndShard[1].trim());
+            if (from < 0 || to >= buckets || from > to || shard < 0 || shard >= shardCount) {
+                throw new IllegalArgumentException("Entrada no válida en grades.sharding.bucket-map: " + entry);
+            }
+            Arrays.fill(bucketToShard, from, to + 1, shard);
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            if (bucketToShard[bucket] < 0) {
+                throw new IllegalArgumentException("El bucket " + bucket + " no está asignado en grades.sharding.bucket-map");
+            }
+        }
+        return new ShardMap(shardCount, bucketToShard);
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int bucketOf(long userId) {
+        return (int) Math.floorMod(mix(userId), (long) bucketToShard.length);
+    }
+
+    public int shardOfUser(long userId) {
+        return bucketToShard[bucketOf(userId)];
+    }
+
+    public int shardOfGrade(long gradeId) {
+        return (int) Math.floorMod(gradeId, (long) shardCount);
+    }
+
+    /**
+     * Primer id mayor que maxId que le corresponde al shard (ids del shard: shard, shard + N, ...)
+     */
+    public long nextGradeId(int shard, long maxId) {
+        long candidate = Math.max(maxId + 1, 1);
+        return candidate + Math.floorMod(shard - candidate, (long) shardCount);
+    }
+
+    /**
+     * Reparto en forma canónica: "N/buckets;desde-hasta:shard,..." (dos configuraciones que asignan
+     * igual cada bucket dan la misma cadena)
+     */
+    public String describe() {
+        StringBuilder layout = new StringBuilder().append(shardCount).append('/').append(bucketToShard.length).append(';');
+        int from = 0;
+        for (int bucket = 1; bucket <= bucketToShard.length; bucket++) {
+            if (bucket == bucketToShard.length || bucketToShard[bucket] != bucketToShard[from]) {
+                layout.append(from == 0 ? "" : ",").append(from).append('-').append(bucket - 1)
+                        .append(':').append(bucketToShard[from]);
+                from = bucket;
+            }
+        }
+        return layout.toString();
+    }
+
+    // Mezcla final de MurmurHash3: ids consecutivos caen en buckets repartidos
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
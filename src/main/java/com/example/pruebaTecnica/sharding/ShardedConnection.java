@@ -0,0 +1,188 @@
+package com.example.pruebaTecnica.sharding;
+
+import io.micrometer.core.instrument.Counter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Conexión lógica de una transacción sobre varios shards
+ * Cada sentencia se prepara en la conexión física del shard de ShardContext, que se abre la
+ * primera vez que se necesita con la configuración ya fijada (autocommit, solo lectura,
+ * aislamiento). El commit, el rollback y el cierre se aplican a todas las conexiones abiertas.
+ * No hay commit en dos fases: una transacción normal lee del directorio y escribe en un solo
+ * shard; si el commit de un shard falla, los que faltan se revierten.
+ */
+final class ShardedConnection implements InvocationHandler {
+
+    private final List<DataSource> shards;
+    private final Counter[] statements;
+    private final Connection[] open;
+
+    // Configuración fijada por el gestor de transacciones, para las conexiones que se abran después
+    private boolean autoCommit = true;
+    private boolean readOnly;
+    private Integer isolation;
+    private boolean closed;
+
+    private ShardedConnection(List<DataSource> shards, Counter[] statements) {
+        this.shards = shards;
+        this.statements = statements;
+        this.open = new Connection[shards.size()];
+    }
+
+    static Connection open(List<DataSource> shards, Counter[] statements) {
+        return (Connection) Proxy.newProxyInstance(ShardedConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ShardedConnection(shards, statements));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "createStatement", "prepareStatement", "prepareCall" -> {
+                int shard = ShardContext.target();
+                statements[shard].increment();
+                return call(physical(shard), method, args);
+            }
+            case "setSavepoint", "releaseSavepoint" -> {
+                return call(physical(ShardContext.target()), method, args);
+            }
+            case "setAutoCommit" -> {
+                autoCommit = (Boolean) args[0];
+                return forEachOpen(method, args);
+            }
+            case "getAutoCommit" -> {
+                return autoCommit;
+            }
+            case "setReadOnly" -> {
+                readOnly = (Boolean) args[0];
+                return forEachOpen(method, args);
+            }
+            case "isReadOnly" -> {
+                return readOnly;
+            }
+            case "setTransactionIsolation" -> {
+                isolation = (Integer) args[0];
+                return forEachOpen(method, args);
+            }
+            case "commit" -> {
+                commit();
+                return null;
+            }
+            case "rollback" -> {
+                return args == null ? forEachOpen(method, null) : call(physical(ShardContext.target()), method, args);
+            }
+            case "close" -> {
+                closed = true;
+                try {
+                    return forEachOpen(method, null);
+                } finally {
+                    Arrays.fill(open, null);
+                }
+            }
+            case "isClosed" -> {
+                return closed;
+            }
+            case "unwrap" -> {
+                return ((Class<?>) args[0]).isInstance(proxy) ? proxy : call(physical(ShardContext.DIRECTORY), method, args);
+            }
+            case "isWrapperFor" -> {
+                return ((Class<?>) args[0]).isInstance(proxy) || (Boolean) call(physical(ShardContext.DIRECTORY), method, args);
+            }
+            case "equals" -> {
+                return proxy == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(proxy);
+            }
+            case "toString" -> {
+                return "ShardedConnection" + Arrays.toString(open);
+            }
+            default -> {
+                // Metadatos, avisos, tipos LOB, etc.: los del directorio (todos los shards tienen el mismo esquema)
+                return call(physical(ShardContext.DIRECTORY), method, args);
+            }
+        }
+    }
+
+    private Connection physical(int shard) throws SQLException {
+        if (closed) {
+            throw new SQLException("La conexión está cerrada");
+        }
+        Connection connection = open[shard];
+        if (connection == null) {
+            connection = shards.get(shard).getConnection();
+            try {
+                connection.setAutoCommit(autoCommit);
+                connection.setReadOnly(readOnly);
+                if (isolation != null) {
+                    connection.setTransactionIsolation(isolation);
+                }
+            } catch (SQLException ex) {
+                connection.close();
+                throw ex;
+            }
+            open[shard] = connection;
+        }
+        return connection;
+    }
+
+    private void commit() throws SQLException {
+        for (int shard = 0; shard < open.length; shard++) {
+            if (open[shard] == null) {
+                continue;
+            }
+            try {
+                open[shard].commit();
+            } catch (SQLException ex) {
+                for (int pending = shard + 1; pending < open.length; pending++) {
+                    if (open[pending] != null) {
+                        try {
+                            open[pending].rollback();
+                        } catch (SQLException rollbackFailure) {
+                            ex.addSuppressed(rollbackFailure);
+                        }
+                    }
+                }
+                throw ex;
+            }
+        }
+    }
+
+    private Object forEachOpen(Method method, Object[] args) throws Throwable {
+        Throwable failure = null;
+        for (Connection connection : open) {
+            if (connection == null) {
+                continue;
+            }
+            try {
+                call(connection, method, args);
+            } catch (Throwable ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    failure.addSuppressed(ex);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return null;
+    }
+
+    private static Object call(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
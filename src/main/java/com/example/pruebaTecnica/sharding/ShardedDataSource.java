@@ -0,0 +1,60 @@
+package com.example.pruebaTecnica.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+/**
+ * DataSource de la aplicación con sharding: entrega conexiones lógicas (ShardedConnection) que
+ * reparten las sentencias entre los pools de los shards según ShardContext
+ * Cierra los pools al cerrarse el contexto.
+ */
+public class ShardedDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> pools;
+    private final List<DataSource> shards;
+    private final Counter[] statements;
+
+    public ShardedDataSource(List<HikariDataSource> pools, MeterRegistry meterRegistry) {
+        this.pools = List.copyOf(pools);
+        this.shards = List.copyOf(pools);
+        this.statements = new Counter[shards.size()];
+        for (int shard = 0; shard < shards.size(); shard++) {
+            statements[shard] = Counter.builder("grades.sharding.statements")
+                    .description("Sentencias preparadas en cada shard")
+                    .tag("shard", String.valueOf(shard))
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Pool de un shard, para las tareas que trabajan shard a shard (migraciones, copia de datos de referencia)
+     */
+    public DataSource shard(int shard) {
+        return shards.get(shard);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public Connection getConnection() {
+        return ShardedConnection.open(shards, statements);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        throw new UnsupportedOperationException("Las credenciales de los shards se configuran en spring.datasource");
+    }
+
+    @Override
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.pruebaTecnica.sharding;
+
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.repository.GradeRepository.GradebookRow;
+import com.example.pruebaTecnica.repository.GradeRepository.ScoreBucketRow;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import jakarta.persistence.EntityManager;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Capa de sharding bajo GradeRepository (grades.sharding.enabled=true)
+ * Envuelve el repositorio y decide a qué shard va cada llamada:
+ * - Las consultas de un estudiante (por User o por su id) van solo a su shard.
+ * - Las búsquedas, escrituras y borrados por id de calificación van al shard del id.
+ * - Las consultas de profesores y agregadas se lanzan en paralelo en todos los shards, cada
+ *   una en su propia transacción de solo lectura, y se combinan: sumas para conteos e
+ *   histogramas, concatenación para las sumas por estudiante, mezcla ordenada para el ranking y,
+ *   en los Stream, intercalado (todas las notas) o mezcla k-way que conserva el orden de la
+ *   consulta (libro de calificaciones).
+ * Los métodos no previstos fallan en lugar de leer un solo shard en silencio.
+ */
+public class ShardedGradeRepository implements MethodInterceptor, AutoCloseable {
+
+    // Filas en vuelo por shard en los Stream repartidos
+    static final int STREAM_BUFFER = 1024;
+
+    // Orden de streamGradebook: username y curso (las filas sin nota primero, como NULLS FIRST en H2)
+    private static final Comparator<GradebookRow> GRADEBOOK_ORDER = Comparator
+            .comparing(GradebookRow::studentUsername)
+            .thenComparing(GradebookRow::courseId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    // Orden de findTopByCourse: nota descendente y, a igual nota, id ascendente
+    private static final Comparator<StudentGradeRow> TOP_ORDER = Comparator
+            .comparing(StudentGradeRow::getScoreTenths, Comparator.reverseOrder())
+            .thenComparing(StudentGradeRow::getId);
+
+    private record Bucket(Integer courseId, Integer bucket, Long count) implements ScoreBucketRow {
+
+        @Override
+        public Integer getCourseId() {
+            return courseId;
+        }
+
+        @Override
+        public Integer getBucket() {
+            return bucket;
+        }
+
+        @Override
+        public Long getCount() {
+            return count;
+        }
+    }
+
+    private final ShardMap shardMap;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService scatter = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("shard-scatter-", 0).factory());
+
+    public ShardedGradeRepository(ShardMap shardMap, EntityManager entityManager, TransactionTemplate readOnlyTransaction) {
+        this.shardMap = shardMap;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object[] args = invocation.getArguments();
+        // Ya enrutada (parte de una consulta repartida) o método de Object
+        if (ShardContext.current() != null || method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+
+        return switch (method.getName()) {
+            case "findByUserOrderByCreatedAtDesc", "countByUser" ->
+                    onShard(shardMap.shardOfUser(((User) args[0]).getId()), invocation, false);
+            case "findByUserIdOrderByCreatedAtDesc", "upsertByNaturalKey", "reviveDeleted", "findLiveByNaturalKey",
+                 "findChangesSince", "summarizeByCourse" ->
+                    onShard(shardMap.shardOfUser((Long) args[0]), invocation, false);
+            case "findById", "existsById", "getReferenceById" ->
+                    onShard(shardMap.shardOfGrade((Long) args[0]), invocation, false);
+            case "deleteById" -> onShard(shardMap.shardOfGrade((Long) args[0]), invocation, true);
+            case "recordMove" -> onShard(shardMap.shardOfUser((Long) args[1]), invocation, true);
+            case "delete" -> onShard(shardMap.shardOfGrade(((Grade) args[0]).getId()), invocation, true);
+            case "save", "saveAndFlush" -> onShard(shardOf((Grade) args[0]), invocation, true);
+            case "count" -> scatter(invocation.getThis(), method, args).stream().mapToLong(Long.class::cast).sum();
+            case "histogramByCourse" -> mergeBuckets(scatter(invocation.getThis(), method, args));
+            // Cada estudiante está en un solo shard: sus grupos no se repiten entre shards
+            case "sumByStudentAndCourse" -> scatter(invocation.getThis(), method, args).stream()
+                    .flatMap(part -> ((List<?>) part).stream())
+                    .toList();
+            case "findTopByCourse" -> findTopByCourse(invocation.getThis(), method, (Integer) args[0], (Pageable) args[1]);
+            case "streamAllWithStudent" -> scatterStream(invocation.getThis(), method, args, null);
+            case "streamGradebook" -> scatterStream(invocation.getThis(), method, args, GRADEBOOK_ORDER);
+            default -> throw new UnsupportedOperationException(
+                    "GradeRepository." + method.getName() + " no está soportado con sharding");
+        };
+    }
+
+    /**
+     * Shard de una calificación que se guarda: el de su estudiante. Una nota existente no puede
+     * pasar a un estudiante de otro shard, porque su fila y su id pertenecen al shard de origen.
+     */
+    private int shardOf(Grade grade) {
+        int shard = shardMap.shardOfUser(grade.getUser().getId());
+        if (grade.getId() != null && shardMap.shardOfGrade(grade.getId()) != shard) {
+            throw new InvalidRequestException("La calificación " + grade.getId()
+                    + " no puede pasar a un estudiante de otro shard: elimínela y regístrela para el nuevo estudiante");
+        }
+        return shard;
+    }
+
+    /**
+     * Ejecuta la llamada en el shard indicado, dentro de la transacción en curso si la hay.
+     * Las escrituras se vuelcan antes de salir: Hibernate aplazaría el UPDATE o el borrado al
+     * commit, cuando ya no hay shard fijado y la sentencia iría al directorio.
+     */
+    private Object onShard(int shard, MethodInvocation invocation, boolean write) throws Throwable {
+        ShardContext.set(shard);
+        try {
+            Object result = invocation.proceed();
+            if (write && TransactionSynchronizationManager.isActualTransactionActive()) {
+                entityManager.flush();
+            }
+            return result;
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    /**
+     * Lanza la misma llamada en todos los shards en paralelo y devuelve los resultados en orden de shard
+     */
+    private List<Object> scatter(Object repository, Method method, Object[] args) {
+        List<CompletableFuture<Object>> parts = new ArrayList<>(shardMap.shardCount());
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            int target = shard;
+            parts.add(CompletableFuture.supplyAsync(
+                    () -> inShard(target, () -> readOnlyTransaction.execute(status -> call(repository, method, args))), scatter));
+        }
+        List<Object> results = new ArrayList<>(parts.size());
+        for (CompletableFuture<Object> part : parts) {
+            try {
+                results.add(part.join());
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        return results;
+    }
+
+    private List<ScoreBucketRow> mergeBuckets(List<Object> parts) {
+        Map<List<Integer>, Long> counts = new LinkedHashMap<>();
+        for (Object part : parts) {
+            for (Object row : (List<?>) part) {
+                ScoreBucketRow bucket = (ScoreBucketRow) row;
+                counts.merge(List.of(bucket.getCourseId(), bucket.getBucket()), bucket.getCount(), Long::sum);
+            }
+        }
+        List<ScoreBucketRow> merged = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> merged.add(new Bucket(key.get(0), key.get(1), count)));
+        return merged;
+    }
+
+    /**
+     * Cada shard devuelve sus mejores offset + size notas; las mejores del total están entre ellas
+     */
+    private List<StudentGradeRow> findTopByCourse(Object repository, Method method, Integer courseId, Pageable pageable) {
+        Pageable perShard = pageable.isPaged()
+                ? PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()))
+                : pageable;
+        Stream<StudentGradeRow> merged = scatter(repository, method, new Object[]{courseId, perShard}).stream()
+                .flatMap(part -> ((List<?>) part).stream())
+                .map(StudentGradeRow.class::cast)
+                .sorted(TOP_ORDER);
+        if (pageable.isPaged()) {
+            merged = merged.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        }
+        return merged.toList();
+    }
+
+    /**
+     * Stream repartido: cada shard recorre su parte en un hilo propio, con su transacción abierta
+     * mientras produce filas, y el consumidor las recibe intercaladas o mezcladas en orden
+     */
+    private <T> Stream<T> scatterStream(Object repository, Method method, Object[] args, Comparator<? super T> order) {
+        ShardedStream<T> merged = new ShardedStream<>(shardMap.shardCount(), order, STREAM_BUFFER);
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            int target = shard;
+            scatter.execute(() -> {
+                try {
+                    inShard(target, () -> readOnlyTransaction.execute(status -> {
+                        try (Stream<?> rows = (Stream<?>) call(repository, method, args)) {
+                            Iterator<?> iterator = rows.iterator();
+                            while (iterator.hasNext() && merged.offer(target, iterator.next())) {
+                                // la fila ya se entregó al consumidor
+                            }
+                        }
+                        return null;
+                    }));
+                    merged.complete(target);
+                } catch (RuntimeException ex) {
+                    merged.fail(target, ex);
+                }
+            });
+        }
+        return merged.stream();
+    }
+
+    private <T> T inShard(int shard, Supplier<T> work) {
+        ShardContext.set(shard);
+        try {
+            return work.get();
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    // Las partes repartidas llaman al repositorio original: ShardContext ya está fijado en el hilo
+    private static Object call(Object repository, Method method, Object[] args) {
+        try {
+            return method.invoke(repository, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(ex.getCause());
+        } catch (IllegalAccessException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        scatter.shutdownNow();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.pruebaTecnica.sharding;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stream de una consulta repartida: cada shard produce sus filas en su propio hilo sobre una
+ * cola acotada y el consumidor las recibe como un único Stream
+ * Sin orden, las filas se intercalan según llegan; con orden, cada shard tiene su cola y se
+ * mezclan (k-way merge) comparando la primera fila pendiente de cada uno, que ya viene ordenado
+ * de la base de datos. Al cerrar el Stream los productores dejan de leer.
+ */
+final class ShardedStream<T> {
+
+    private static final Object END = new Object();
+
+    private record Failure(RuntimeException exception) {
+    }
+
+    private record Head<T>(int shard, T row) {
+    }
+
+    private final int shards;
+    private final Comparator<? super T> order;
+    private final List<BlockingQueue<Object>> queues;
+    private volatile boolean closed;
+
+    ShardedStream(int shards, Comparator<? super T> order, int bufferSize) {
+        this.shards = shards;
+        this.order = order;
+        int queueCount = order == null ? 1 : shards;
+        this.queues = IntStream.range(0, queueCount)
+                .<BlockingQueue<Object>>mapToObj(queue -> new ArrayBlockingQueue<>(bufferSize))
+                .toList();
+    }
+
+    /**
+     * Entrega una fila del shard; devuelve false si el consumidor ya cerró el Stream
+     */
+    boolean offer(int shard, Object row) {
+        BlockingQueue<Object> queue = queues.get(order == null ? 0 : shard);
+        try {
+            while (!closed) {
+                if (queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    void complete(int shard) {
+        offer(shard, END);
+    }
+
+    void fail(int shard, RuntimeException exception) {
+        offer(shard, new Failure(exception));
+    }
+
+    Stream<T> stream() {
+        Iterator<T> rows = order == null ? new Interleaved() : new Merged();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+                .onClose(() -> closed = true);
+    }
+
+    private Object take(int queue) {
+        try {
+            Object item = queues.get(queue).take();
+            if (item instanceof Failure failure) {
+                closed = true;
+                throw failure.exception();
+            }
+            return item;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            closed = true;
+            throw new IllegalStateException("Lectura de los shards interrumpida", ex);
+        }
+    }
+
+    private final class Interleaved implements Iterator<T> {
+
+        private int finished;
+        private Object next;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && finished < shards) {
+                Object item = take(0);
+                if (item == END) {
+                    finished++;
+                } else {
+                    next = item;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T row = (T) next;
+            next = null;
+            return row;
+        }
+    }
+
+    private final class Merged implements Iterator<T> {
+
+        private PriorityQueue<Head<T>> heads;
+
+        @Override
+        public boolean hasNext() {
+            if (heads == null) {
+                // A igual clave, primero el shard menor: el orden no depende de qué shard respondió antes
+                heads = new PriorityQueue<>(Comparator.<Head<T>, T>comparing(Head::row, order)
+                        .thenComparingInt(Head::shard));
+                for (int shard = 0; shard < shards; shard++) {
+                    pull(shard);
+                }
+            }
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Head<T> head = heads.poll();
+            pull(head.shard());
+            return head.row();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void pull(int shard) {
+            Object item = take(shard);
+            if (item != END) {
+                heads.add(new Head<>(shard, (T) item));
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.pruebaTecnica.sharding;
+
+import com.example.pruebaTecnica.entity.Term;
+import com.example.pruebaTecnica.repository.FinalGradeRepository.FinalRow;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Capa de sharding bajo los repositorios de datos derivados de las calificaciones
+ * (TranscriptRepository, FinalGradeRepository y TermRepository, grades.sharding.enabled=true)
+ * El expediente y las notas finales se mantienen en la misma transacción que cada escritura de
+ * calificaciones, así que viven junto a ellas en el shard del estudiante: una escritura de notas
+ * sigue tocando un solo shard. A diferencia de ShardedGradeRepository, las llamadas a varios
+ * shards corren en la transacción del llamador (bloquean y escriben en ella):
+ * - Las filas y bloqueos de un estudiante (por su id) van a su shard.
+ * - Los bloqueos y lecturas de un lote de estudiantes se reparten por shard y se concatenan.
+ * - Las consultas de un curso recorren todos los shards y se mezclan en el orden de la consulta.
+ * - Los periodos se leen del directorio y se escriben en todos los shards, que los necesitan
+ *   para resolver el periodo de cada nota; crear un periodo es la única escritura en todos.
+ * Los métodos no previstos fallan en lugar de leer un solo shard en silencio.
+ */
+public class ShardedStudentDataRepository implements MethodInterceptor {
+
+    private final ShardMap shardMap;
+    // Sobre el DataSource con sharding: usa la conexión de la transacción en curso
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShardedStudentDataRepository(ShardMap shardMap, JdbcTemplate jdbcTemplate) {
+        this.shardMap = shardMap;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        Object[] args = invocation.getArguments();
+        if (ShardContext.current() != null || method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        Object repository = invocation.getThis();
+
+        return switch (method.getName()) {
+            case "lockStudent", "addToComponent", "findScores", "findScoresByStudent", "setFinal", "deleteFinal",
+                 "findFinalsByStudent", "addToCell", "setCell", "findRowsByStudent" ->
+                    inShard(shardMap.shardOfUser((Long) args[0]), () -> invocation.proceed());
+            case "lockStudents" -> byShardOfStudents((Collection<?>) args[0],
+                    students -> new Object[]{students}, repository, method);
+            case "findScoresOfStudents" -> byShardOfStudents((Collection<?>) args[1],
+                    students -> new Object[]{args[0], students}, repository, method);
+            case "lockAllStudents" -> concat(everyShard(repository, method, args));
+            case "findStudentsOfCourse" -> concat(everyShard(repository, method, args)).stream()
+                    .map(Long.class::cast)
+                    .sorted()
+                    .toList();
+            case "findFinalsByCourse" -> concat(everyShard(repository, method, args)).stream()
+                    .map(FinalRow.class::cast)
+                    .sorted(Comparator.comparing(FinalRow::getStudentUsername))
+                    .toList();
+            case "findAllByOrderByStartsOnAsc", "existsOverlapping" -> invocation.proceed();
+            case "saveAndFlush" -> {
+                Term term = (Term) invocation.proceed();
+                copyToShards(term);
+                yield term;
+            }
+            case "addDays" -> everyShard(repository, method, args).stream().mapToInt(Integer.class::cast).sum();
+            default -> throw new UnsupportedOperationException(
+                    method.getDeclaringClass().getSimpleName() + "." + method.getName() + " no está soportado con sharding");
+        };
+    }
+
+    /**
+     * Llama una vez por shard con los estudiantes del lote que viven en él, en orden de shard y
+     * conservando el orden de los ids, y concatena los resultados
+     */
+    private List<Object> byShardOfStudents(Collection<?> students, Function<List<Long>, Object[]> args,
+                                           Object repository, Method method) throws Throwable {
+        Map<Integer, List<Long>> byShard = new TreeMap<>();
+        for (Object student : students) {
+            Long id = (Long) student;
+            byShard.computeIfAbsent(shardMap.shardOfUser(id), shard -> new ArrayList<>()).add(id);
+        }
+        List<Object> results = new ArrayList<>();
+        for (Map.Entry<Integer, List<Long>> part : byShard.entrySet()) {
+            results.add(inShard(part.getKey(), () -> call(repository, method, args.apply(part.getValue()))));
+        }
+        return concat(results);
+    }
+
+    // La misma llamada en cada shard, en orden, dentro de la transacción en curso
+    private List<Object> everyShard(Object repository, Method method, Object[] args) throws Throwable {
+        List<Object> results = new ArrayList<>(shardMap.shardCount());
+        for (int shard = 0; shard < shardMap.shardCount(); shard++) {
+            results.add(inShard(shard, () -> call(repository, method, args)));
+        }
+        return results;
+    }
+
+    /**
+     * Copia un periodo recién creado en el directorio a los demás shards con el mismo id
+     */
+    private void copyToShards(Term term) throws Throwable {
+        for (int shard = ShardContext.DIRECTORY + 1; shard < shardMap.shardCount(); shard++) {
+            inShard(shard, () -> jdbcTemplate.update(
+                    "MERGE INTO terms (id, code, starts_on, ends_on, created_at) KEY (id) VALUES (?, ?, ?, ?, ?)",
+                    term.getId(), term.getCode(), term.getStartsOn(), term.getEndsOn(), term.getCreatedAt()));
+        }
+    }
+
+    private static List<Object> concat(List<Object> parts) {
+        List<Object> rows = new ArrayList<>();
+        for (Object part : parts) {
+            rows.addAll((Collection<?>) part);
+        }
+        return rows;
+    }
+
+    private interface ShardCall {
+        Object run() throws Throwable;
+    }
+
+    private static Object inShard(int shard, ShardCall call) throws Throwable {
+        ShardContext.set(shard);
+        try {
+            return call.run();
+        } finally {
+            ShardContext.clear();
+        }
+    }
+
+    private static Object call(Object repository, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(repository, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.scope.ScopedProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Ata cada instancia @TenantScoped a su tenant (solo con grades.tenancy.enabled=true)
+ * Las llamadas que no llegan por una petición, como las tareas @Scheduled de reconstrucción
+ * o el cierre del contexto, corren así con el tenant de la instancia y consultan su esquema.
+ * Va antes que el procesador de @Scheduled para que las tareas se programen sobre el proxy.
+ */
+public class TenantBindingPostProcessor implements BeanPostProcessor, Ordered {
+
+    private final Tenants tenants;
+
+    public TenantBindingPostProcessor(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!tenants.isEnabled() || !ScopedProxyUtils.isScopedTarget(beanName)
+                || !AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), TenantScoped.class)) {
+            return bean;
+        }
+        // TenantScope crea la instancia con su tenant fijado
+        String tenant = tenants.current();
+        ProxyFactory proxy = new ProxyFactory(bean);
+        proxy.setProxyTargetClass(true);
+        proxy.addAdvice((MethodInterceptor) invocation -> {
+            String previous = TenantContext.current();
+            TenantContext.set(tenant);
+            try {
+                return invocation.proceed();
+            } finally {
+                TenantContext.set(previous);
+            }
+        });
+        return proxy.getProxy();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE - 1;
+    }
+}
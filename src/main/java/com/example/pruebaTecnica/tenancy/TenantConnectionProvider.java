@@ -0,0 +1,64 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Conexiones de Hibernate por tenant: cada sesión usa el pool (y el esquema) de su tenant
+ * Al tratarse de multi-tenancy de Hibernate, la caché de segundo nivel incluye el tenant en sus
+ * claves y no mezcla entidades con el mismo id de tenants distintos. La de consultas no lo
+ * incluye: cada tenant tiene su propia región (ver GradeByStudentRepository).
+ */
+public class TenantConnectionProvider implements MultiTenantConnectionProvider<String> {
+
+    private final TenantRoutingDataSource dataSource;
+    private final Tenants tenants;
+
+    public TenantConnectionProvider(TenantRoutingDataSource dataSource, Tenants tenants) {
+        this.dataSource = dataSource;
+        this.tenants = tenants;
+    }
+
+    /**
+     * Conexión sin sesión (metadatos y validación del esquema al arrancar): la del tenant por defecto
+     */
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return dataSource.pool(tenants.defaultTenant()).getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenant) throws SQLException {
+        return dataSource.pool(tenant).getConnection();
+    }
+
+    @Override
+    public void releaseConnection(String tenant, Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> type) {
+        return type.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) {
+        if (!isUnwrappableAs(type)) {
+            throw new IllegalArgumentException("TenantConnectionProvider no se puede convertir en " + type.getName());
+        }
+        return type.cast(this);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.pruebaTecnica.tenancy;
+
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Tenant del hilo actual (grades.tenancy.enabled=true)
+ * Lo fija TenantFilter durante cada petición y TenantScope mientras crea o usa los componentes
+ * de un tenant (incluidas sus tareas programadas). Sin tenant fijado se usa el tenant por defecto.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Fija el tenant del hilo; con null lo quita (útil para restaurar el anterior)
+     */
+    public static void set(String tenant) {
+        if (tenant == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tenant);
+        }
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Etiqueta "tenant" de las métricas de un componente @TenantScoped: el tenant fijado mientras se
+     * crea o, fuera del ámbito (sin multi-tenancy no hay otro), el implícito Tenants.DEFAULT
+     */
+    public static Tags tags() {
+        String tenant = CURRENT.get();
+        return Tags.of("tenant", tenant != null ? tenant : Tenants.DEFAULT);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.pruebaTecnica.tenancy;
+
+import com.example.pruebaTecnica.util.JwtUtils;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resuelve el tenant de cada petición antes de la cadena de seguridad (grades.tenancy.enabled=true)
+ * Con un token válido manda su claim "tenant" (los tokens sin claim son del tenant por defecto) y
+ * la cabecera X-Tenant se ignora: un token de un tenant no sirve para otro. Sin token (registro y
+ * login) se usa la cabecera X-Tenant o, si falta, el tenant por defecto. Un tenant desconocido
+ * responde 400. Mide la duración de las peticiones de cada tenant en grades.tenancy.requests.
+ */
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Tenant";
+
+    private final Tenants tenants;
+    private final JwtUtils jwtUtils;
+    private final Map<String, Timer> requests = new HashMap<>();
+
+    public TenantFilter(Tenants tenants, JwtUtils jwtUtils, MeterRegistry meterRegistry) {
+        this.tenants = tenants;
+        this.jwtUtils = jwtUtils;
+        for (String tenant : tenants.ids()) {
+            requests.put(tenant, Timer.builder("grades.tenancy.requests")
+                    .description("Peticiones HTTP atendidas por tenant")
+                    .tag("tenant", tenant)
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String tenant = resolve(request);
+        if (!tenants.contains(tenant)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Tenant desconocido: " + tenant);
+            return;
+        }
+        Timer.Sample sample = Timer.start();
+        TenantContext.set(tenant);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+            sample.stop(requests.get(tenant));
+        }
+    }
+
+    private String resolve(HttpServletRequest request) {
+        String authHeader = request.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                String claimed = jwtUtils.getTenantFromJwtToken(authHeader.substring(7));
+                return claimed != null ? claimed : tenants.defaultTenant();
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Token no válido: lo rechaza la cadena de seguridad; el tenant sale de la cabecera
+            }
+        }
+        String header = request.getHeader(HEADER);
+        return header != null && !header.isBlank() ? header.trim() : tenants.defaultTenant();
+    }
+}
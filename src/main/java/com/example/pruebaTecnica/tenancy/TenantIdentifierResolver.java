@@ -0,0 +1,26 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Tenant de cada sesión de Hibernate: el de TenantContext al abrirla o, si no hay, el de por defecto
+ */
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+    private final Tenants tenants;
+
+    public TenantIdentifierResolver(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return tenants.current();
+    }
+
+    // Una sesión abierta para un tenant no se reutiliza con otro
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return true;
+    }
+}
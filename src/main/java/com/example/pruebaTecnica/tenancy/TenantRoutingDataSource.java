@@ -0,0 +1,50 @@
+package com.example.pruebaTecnica.tenancy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * DataSource de la aplicación con multi-tenancy: entrega conexiones del pool del tenant actual
+ * Cada tenant tiene su propio pool, con su límite de conexiones y las conexiones ya situadas en
+ * su esquema, así que una carga masiva de un tenant solo puede agotar su pool. Lo usan JdbcTemplate,
+ * los health checks y Flyway; Hibernate pide las conexiones por TenantConnectionProvider.
+ * Cierra los pools al cerrarse el contexto.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final Tenants tenants;
+    private final Map<String, HikariDataSource> pools;
+
+    public TenantRoutingDataSource(Tenants tenants, Map<String, HikariDataSource> pools) {
+        this.tenants = tenants;
+        this.pools = Map.copyOf(pools);
+        setTargetDataSources(new HashMap<>(pools));
+        setDefaultTargetDataSource(pools.get(tenants.defaultTenant()));
+        setLenientFallback(false);
+    }
+
+    /**
+     * Pool de un tenant, para Hibernate y para las tareas que recorren los tenants (migraciones)
+     */
+    public DataSource pool(String tenant) {
+        HikariDataSource pool = pools.get(tenant);
+        if (pool == null) {
+            throw new IllegalStateException("Tenant sin pool de conexiones: " + tenant);
+        }
+        return pool;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return tenants.current();
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(HikariDataSource::close);
+    }
+}
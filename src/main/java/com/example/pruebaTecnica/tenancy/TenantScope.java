@@ -0,0 +1,117 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ámbito "tenant": una instancia de cada componente @TenantScoped por tenant
+ * La instancia se crea con el tenant fijado en TenantContext, de modo que su construcción y las
+ * consultas que haga van al esquema de ese tenant. Sin multi-tenancy hay un solo tenant y cada
+ * componente se comporta como un singleton. Las instancias se destruyen al cerrarse el contexto.
+ */
+public class TenantScope implements Scope, DisposableBean {
+
+    public static final String NAME = "tenant";
+
+    private final Tenants tenants;
+    private final Map<String, Map<String, Object>> instances = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Runnable>> destructionCallbacks = new ConcurrentHashMap<>();
+
+    public TenantScope(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        String tenant = tenants.current();
+        Map<String, Object> scoped = instances.computeIfAbsent(tenant, t -> new ConcurrentHashMap<>());
+        Object instance = scoped.get(name);
+        if (instance != null) {
+            return instance;
+        }
+        // Sin computeIfAbsent: crear un componente puede crear otros del mismo tenant
+        synchronized (scoped) {
+            instance = scoped.get(name);
+            if (instance == null) {
+                instance = callAs(tenant, objectFactory::getObject);
+                scoped.put(name, instance);
+            }
+            return instance;
+        }
+    }
+
+    @Override
+    public Object remove(String name) {
+        String tenant = tenants.current();
+        Map<String, Runnable> callbacks = destructionCallbacks.get(tenant);
+        if (callbacks != null) {
+            callbacks.remove(name);
+        }
+        Map<String, Object> scoped = instances.get(tenant);
+        return scoped != null ? scoped.remove(name) : null;
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        destructionCallbacks.computeIfAbsent(tenants.current(), t -> new LinkedHashMap<>()).put(name, callback);
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return tenants.current();
+    }
+
+    /**
+     * Crea al arrancar los componentes de cada tenant, como los singletons: así las vistas en
+     * memoria programan su carga inicial sin esperar a la primera petición
+     */
+    public void instantiateAll(ConfigurableListableBeanFactory beanFactory) {
+        List<String> names = new ArrayList<>();
+        for (String name : beanFactory.getBeanDefinitionNames()) {
+            BeanDefinition definition = beanFactory.getBeanDefinition(name);
+            if (NAME.equals(definition.getScope()) && !definition.isAbstract()) {
+                names.add(name);
+            }
+        }
+        for (String tenant : tenants.ids()) {
+            callAs(tenant, () -> {
+                names.forEach(beanFactory::getBean);
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void destroy() {
+        destructionCallbacks.values().forEach(callbacks -> callbacks.values().forEach(Runnable::run));
+        destructionCallbacks.clear();
+        instances.clear();
+    }
+
+    private <T> T callAs(String tenant, ObjectFactory<T> action) {
+        if (!tenants.isEnabled()) {
+            return action.getObject();
+        }
+        String previous = TenantContext.current();
+        TenantContext.set(tenant);
+        try {
+            return action.getObject();
+        } finally {
+            TenantContext.set(previous);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.annotation.ScopedProxyMode;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Componente con una instancia por tenant (ver TenantScope)
+ * Para las vistas y cachés en memoria que indexan por id de estudiante, nota o curso: cada
+ * tenant tiene su propia secuencia de ids, así que una instancia compartida mezclaría datos.
+ * Se inyecta un proxy que delega en la instancia del tenant actual.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Scope(value = TenantScope.NAME, proxyMode = ScopedProxyMode.TARGET_CLASS)
+public @interface TenantScoped {
+}
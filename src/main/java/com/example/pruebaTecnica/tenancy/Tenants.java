@@ -0,0 +1,85 @@
+package com.example.pruebaTecnica.tenancy;
+
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Tenants configurados en grades.tenancy.tenants
+ * Sin multi-tenancy hay un único tenant implícito (DEFAULT). Con ella, el primero de la lista es
+ * el tenant por defecto: el de las peticiones sin token ni cabecera X-Tenant y el del código que
+ * corre fuera de una petición, como la carga inicial de datos.
+ */
+public class Tenants {
+
+    public static final String DEFAULT = "default";
+
+    // Los ids acaban en nombres de esquema y de pool: minúsculas, dígitos y guiones
+    private static final Pattern ID = Pattern.compile("[a-z0-9][a-z0-9-]{0,29}");
+
+    private final boolean enabled;
+    private final List<String> ids;
+
+    public Tenants(boolean enabled, List<String> ids) {
+        if (!enabled) {
+            this.enabled = false;
+            this.ids = List.of(DEFAULT);
+            return;
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("grades.tenancy.enabled=true requiere al menos un tenant en grades.tenancy.tenants");
+        }
+        for (String id : ids) {
+            if (!ID.matcher(id).matches()) {
+                throw new IllegalStateException("Id de tenant no válido (minúsculas, dígitos y guiones): " + id);
+            }
+        }
+        if (ids.stream().distinct().count() != ids.size()) {
+            throw new IllegalStateException("grades.tenancy.tenants tiene ids repetidos: " + ids);
+        }
+        this.enabled = true;
+        this.ids = List.copyOf(ids);
+    }
+
+    public static Tenants of(Environment environment) {
+        Binder binder = Binder.get(environment);
+        return new Tenants(
+                binder.bind("grades.tenancy.enabled", Boolean.class).orElse(false),
+                binder.bind("grades.tenancy.tenants", Bindable.listOf(String.class)).orElse(List.of()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<String> ids() {
+        return ids;
+    }
+
+    public boolean contains(String tenant) {
+        return ids.contains(tenant);
+    }
+
+    public String defaultTenant() {
+        return ids.get(0);
+    }
+
+    /**
+     * Tenant del hilo actual o, si no hay ninguno fijado, el tenant por defecto
+     */
+    public String current() {
+        String tenant = enabled ? TenantContext.current() : null;
+        return tenant != null ? tenant : defaultTenant();
+    }
+
+    /**
+     * Esquema de la base de datos con las tablas del tenant: colegio-a → TENANT_COLEGIO_A
+     */
+    public String schemaOf(String tenant) {
+        return "TENANT_" + tenant.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+}
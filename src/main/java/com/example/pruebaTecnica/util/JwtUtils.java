@@ -1,5 +1,6 @@
 package com.example.pruebaTecnica.util;
 
+import com.example.pruebaTecnica.tenancy.TenantContext;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
@@ -22,6 +23,8 @@ public class JwtUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+    public static final String TENANT_CLAIM = "tenant";
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
@@ -40,6 +43,7 @@ public class JwtUtils {
 
     /**
      * Genera un token JWT para el usuario autenticado
+     * Con multi-tenancy incluye el claim "tenant" con el tenant en el que se autenticó
      * 
      * @param authentication objeto de autenticación
      * @return token JWT generado
@@ -53,6 +57,8 @@ public class JwtUtils {
                         .stream()
                         .map(auth -> auth.getAuthority())
                         .toList())
+                // Jwts omite los claims nulos: sin multi-tenancy el token no cambia
+                .claim(TENANT_CLAIM, TenantContext.current())
                 .issuedAt(new Date())
                 .expiration(new Date(new Date().getTime() + jwtExpirationMs))
                 .signWith(getSigningKey())
@@ -75,6 +81,21 @@ public class JwtUtils {
                 .get("roles", List.class);
     }
 
+    /**
+     * Extrae el tenant del token JWT
+     * 
+     * @param token token JWT
+     * @return tenant del token, o null si se emitió sin multi-tenancy
+     */
+    public String getTenantFromJwtToken(String token) {
+        return Jwts.parser()
+                .verifyWith(getSigningKey())
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .get(TENANT_CLAIM, String.class);
+    }
+
     /**
      * Extrae el nombre de usuario del token JWT
      * 
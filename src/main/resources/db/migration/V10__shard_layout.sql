@@ -0,0 +1,8 @@
+-- Reparto de shards con el que se escribieron los datos de esta base (ShardLayout; solo se usa con
+-- grades.sharding.enabled). Un shard con calificaciones no arranca con otro número de shards ni otro
+-- reparto de buckets: los ids de sus notas (id mod N) y sus estudiantes dejarían de llevar a él.
+CREATE TABLE shard_layout (
+    shard INTEGER NOT NULL PRIMARY KEY,
+    layout CHARACTER LARGE OBJECT NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,38 @@
+-- Esquema inicial (perfil prod, Flyway): usuarios y calificaciones con el curso en texto y la nota
+-- en coma flotante, como los generaba Hibernate antes de normalizar cursos (V2) y notas (V3)
+
+-- Secuencia de cambios de calificaciones (columna grades.change_seq), usada por la sincronización incremental
+CREATE SEQUENCE IF NOT EXISTS grade_change_seq;
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username VARCHAR(50) NOT NULL,
+    email VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_users_username UNIQUE (username),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE grades (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    course VARCHAR(255) NOT NULL,
+    assessment VARCHAR(100),
+    score FLOAT(53) NOT NULL,
+    comments VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    previous_user_id BIGINT,
+    deleted BOOLEAN NOT NULL,
+    change_seq BIGINT DEFAULT NEXT VALUE FOR grade_change_seq ON UPDATE NEXT VALUE FOR grade_change_seq,
+    CONSTRAINT ck_grades_score CHECK (score >= 0 AND score <= 20),
+    CONSTRAINT fk_grades_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT uk_grades_user_course_assessment UNIQUE (user_id, course, assessment)
+);
+
+CREATE INDEX idx_grades_user_change_seq ON grades (user_id, change_seq);
+CREATE INDEX idx_grades_previous_user_change_seq ON grades (previous_user_id, change_seq);
+CREATE INDEX idx_grades_course_score ON grades (course, score);
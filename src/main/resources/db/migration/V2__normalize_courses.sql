@@ -0,0 +1,26 @@
+-- Modelo normalizado de cursos: grades.course (texto libre) pasa a la tabla courses y en grades
+-- queda solo course_id
+
+CREATE TABLE courses (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(100) NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_courses_code UNIQUE (code)
+);
+
+-- Un curso por cada nombre distinto, en orden alfabético
+INSERT INTO courses (code, created_at)
+SELECT course, LOCALTIMESTAMP FROM (SELECT DISTINCT course FROM grades) ORDER BY course;
+
+ALTER TABLE grades ADD COLUMN course_id INTEGER;
+UPDATE grades g SET course_id = (SELECT c.id FROM courses c WHERE c.code = g.course);
+ALTER TABLE grades ALTER COLUMN course_id SET NOT NULL;
+
+-- La clave natural y el índice del ranking pasan a usar el id del curso
+ALTER TABLE grades DROP CONSTRAINT IF EXISTS uk_grades_user_course_assessment;
+DROP INDEX IF EXISTS idx_grades_course_score;
+ALTER TABLE grades DROP COLUMN course;
+
+ALTER TABLE grades ADD CONSTRAINT fk_grades_course FOREIGN KEY (course_id) REFERENCES courses (id);
+ALTER TABLE grades ADD CONSTRAINT uk_grades_user_course_assessment UNIQUE (user_id, course_id, assessment);
+CREATE INDEX idx_grades_course_score ON grades (course_id, score);
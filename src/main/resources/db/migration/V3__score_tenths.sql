@@ -0,0 +1,11 @@
+-- Notas en décimas: grades.score (DOUBLE) pasa a grades.score_tenths (SMALLINT, nota × 10)
+
+ALTER TABLE grades ADD COLUMN score_tenths SMALLINT;
+UPDATE grades SET score_tenths = CAST(ROUND(score * 10) AS SMALLINT);
+ALTER TABLE grades ALTER COLUMN score_tenths SET NOT NULL;
+
+DROP INDEX IF EXISTS idx_grades_course_score;
+ALTER TABLE grades DROP CONSTRAINT IF EXISTS ck_grades_score;
+ALTER TABLE grades DROP COLUMN score;
+ALTER TABLE grades ADD CONSTRAINT ck_grades_score_tenths CHECK (score_tenths >= 0 AND score_tenths <= 200);
+CREATE INDEX idx_grades_course_score ON grades (course_id, score_tenths);
@@ -0,0 +1,7 @@
+-- Índices según las consultas de GradeRepository (comprobados con EXPLAIN en QueryPlanTest)
+
+-- Ranking de un curso: con la nota descendente en el índice, las k mejores se leen directamente
+-- sin ordenar todas las notas del curso (findTopByCourse lo pide con USE INDEX); el id desempata
+-- igual que el ORDER BY. Sigue sirviendo a los histogramas por curso.
+DROP INDEX IF EXISTS idx_grades_course_score;
+CREATE INDEX idx_grades_course_score ON grades (course_id, score_tenths DESC, id);
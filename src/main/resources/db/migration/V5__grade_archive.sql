@@ -0,0 +1,17 @@
+-- Archivo de calificaciones antiguas (GradeArchiver): las notas creadas antes del corte pasan de grades a
+-- grades_archive con su mismo id, para que grades y sus índices se mantengan pequeños. Sin claves foráneas
+-- ni clave natural: la tabla solo se escribe al archivar y se lee por estudiante.
+
+CREATE TABLE grades_archive (
+    id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    course_id INTEGER NOT NULL,
+    assessment VARCHAR(100),
+    score_tenths SMALLINT NOT NULL,
+    comments VARCHAR(255),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    archived_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE INDEX idx_grades_archive_user_created ON grades_archive (user_id, created_at DESC, id DESC);
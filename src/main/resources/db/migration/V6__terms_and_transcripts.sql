@@ -0,0 +1,27 @@
+-- Periodos académicos, créditos por curso y expediente materializado (TranscriptService)
+
+-- Peso de cada curso en los promedios del expediente; los cursos existentes valen 1 crédito
+ALTER TABLE courses ADD COLUMN credits SMALLINT DEFAULT 1 NOT NULL;
+ALTER TABLE courses ADD CONSTRAINT ck_courses_credits CHECK (credits > 0);
+
+-- Una nota pertenece al periodo cuyas fechas contienen su fecha de creación
+CREATE TABLE terms (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(50) NOT NULL,
+    starts_on DATE NOT NULL,
+    ends_on DATE NOT NULL,
+    created_at TIMESTAMP(6),
+    CONSTRAINT uk_terms_code UNIQUE (code)
+);
+
+-- Cantidad y suma (en décimas) de las notas de cada estudiante por periodo y curso. GradeService la
+-- actualiza en la misma transacción de cada escritura; el expediente de un estudiante es un rango de
+-- la clave primaria.
+CREATE TABLE transcript_entries (
+    user_id BIGINT NOT NULL,
+    term_id INTEGER NOT NULL,
+    course_id INTEGER NOT NULL,
+    grade_count INTEGER NOT NULL,
+    score_sum BIGINT NOT NULL,
+    PRIMARY KEY (user_id, term_id, course_id)
+);
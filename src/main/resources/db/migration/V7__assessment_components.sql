@@ -0,0 +1,46 @@
+-- Componentes de evaluación por curso con su peso y nota final mantenida de forma incremental (FinalGradeService)
+
+-- Componentes (exámenes, laboratorios, proyectos...) de cada curso; el peso es relativo a los demás del curso
+CREATE TABLE course_components (
+    id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    course_id INTEGER NOT NULL,
+    code VARCHAR(50) NOT NULL,
+    weight SMALLINT NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_course_components_course_code UNIQUE (course_id, code),
+    CONSTRAINT fk_course_components_course FOREIGN KEY (course_id) REFERENCES courses (id),
+    CONSTRAINT ck_course_components_weight CHECK (weight > 0)
+);
+
+-- Componente al que cuenta cada nota (opcional: una nota sin componente no entra en la nota final)
+ALTER TABLE grades ADD COLUMN component_id INTEGER;
+ALTER TABLE grades ADD CONSTRAINT fk_grades_component FOREIGN KEY (component_id) REFERENCES course_components (id);
+
+-- Cantidad y suma (en décimas) de las notas de cada estudiante por componente. GradeService la actualiza
+-- en la misma transacción de cada escritura; la nota final de un estudiante en un curso se recalcula con
+-- sus filas (un rango de la clave primaria, una por componente).
+CREATE TABLE component_scores (
+    user_id BIGINT NOT NULL,
+    course_id INTEGER NOT NULL,
+    component_id INTEGER NOT NULL,
+    grade_count INTEGER NOT NULL,
+    score_sum BIGINT NOT NULL,
+    PRIMARY KEY (user_id, course_id, component_id)
+);
+
+-- Estudiantes de un curso, para el recálculo tras un cambio de pesos
+CREATE INDEX idx_component_scores_course_user ON component_scores (course_id, user_id);
+
+-- Nota final de cada estudiante en cada curso: promedio de sus componentes con nota, ponderado por su peso
+CREATE TABLE course_finals (
+    user_id BIGINT NOT NULL,
+    course_id INTEGER NOT NULL,
+    final_tenths DOUBLE PRECISION NOT NULL,
+    graded_weight INTEGER NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (user_id, course_id)
+);
+
+-- Notas finales de un curso (vista del profesor)
+CREATE INDEX idx_course_finals_course_user ON course_finals (course_id, user_id);
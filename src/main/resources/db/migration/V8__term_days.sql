@@ -0,0 +1,11 @@
+-- Días de cada periodo académico (TranscriptService). La clave primaria por día impide en la base de
+-- datos que dos periodos se solapen, y el expediente resuelve el periodo de una nota buscando su día.
+CREATE TABLE term_days (
+    calendar_day DATE NOT NULL PRIMARY KEY,
+    term_id INTEGER NOT NULL,
+    CONSTRAINT fk_term_days_term FOREIGN KEY (term_id) REFERENCES terms (id)
+);
+
+INSERT INTO term_days (calendar_day, term_id)
+SELECT DATEADD(DAY, r.x, t.starts_on), t.id
+FROM terms t JOIN SYSTEM_RANGE(0, 36600) r ON r.x <= DATEDIFF(DAY, t.starts_on, t.ends_on);
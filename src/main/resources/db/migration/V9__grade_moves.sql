@@ -0,0 +1,19 @@
+-- Reasignaciones de notas entre estudiantes (sincronización incremental). Cada cambio de dueño deja
+-- su propia fila con un número de la misma secuencia que grades.change_seq, de modo que una nota que
+-- pasa de A a B y luego a C sigue informando la baja a A; la columna previous_user_id solo recordaba
+-- el último dueño.
+CREATE TABLE grade_moves (
+    change_seq BIGINT DEFAULT NEXT VALUE FOR grade_change_seq PRIMARY KEY,
+    grade_id BIGINT NOT NULL,
+    from_user_id BIGINT NOT NULL,
+    CONSTRAINT fk_grade_moves_user FOREIGN KEY (from_user_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_grade_moves_from_user_change_seq ON grade_moves (from_user_id, change_seq);
+
+INSERT INTO grade_moves (change_seq, grade_id, from_user_id)
+SELECT change_seq, id, previous_user_id FROM grades
+WHERE previous_user_id IS NOT NULL AND previous_user_id <> user_id;
+
+DROP INDEX idx_grades_previous_user_change_seq;
+ALTER TABLE grades DROP COLUMN previous_user_id;
@@ -0,0 +1,2 @@
+-- Secuencia de cambios de calificaciones (columna grades.change_seq), usada por la sincronización incremental
+CREATE SEQUENCE IF NOT EXISTS grade_change_seq;
@@ -0,0 +1,50 @@
+package com.example.pruebaTecnica;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprueba que las migraciones de db/migration crean el esquema que esperan las entidades:
+ * Hibernate arranca en modo validate sobre una base vacía migrada por Flyway, como en el perfil prod
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:flyway;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never"
+})
+@ActiveProfiles("test")
+class FlywayMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void migrate_AppliesAllVersions_AndSchemaValidates() {
+        assertEquals(10, flyway.info().applied().length);
+        assertEquals("10", flyway.info().current().getVersion().getVersion());
+    }
+
+    @Test
+    void migratedSchema_AssignsChangeSequenceOnInsert() {
+        jdbcTemplate.update("INSERT INTO users (username, email, password, role) VALUES ('flyway', 'flyway@example.com', 'x', 'STUDENT')");
+        jdbcTemplate.update("INSERT INTO courses (code) VALUES ('Flyway')");
+        jdbcTemplate.update("""
+                INSERT INTO grades (user_id, course_id, assessment, score_tenths, deleted)
+                SELECT u.id, c.id, 'Parcial', 185, FALSE FROM users u, courses c
+                WHERE u.username = 'flyway' AND c.code = 'Flyway'
+                """);
+
+        Long changeSeq = jdbcTemplate.queryForObject("SELECT change_seq FROM grades WHERE assessment = 'Parcial'", Long.class);
+        assertNotNull(changeSeq);
+    }
+}
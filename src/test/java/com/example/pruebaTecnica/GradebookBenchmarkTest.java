@@ -0,0 +1,124 @@
+package com.example.pruebaTecnica;
+
+import com.example.pruebaTecnica.dto.UserLoginDto;
+import com.example.pruebaTecnica.dto.UserRegistrationDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tiempo del libro de calificaciones de extremo a extremo (MockMvc, serialización incluida)
+ * No forma parte de la suite normal; ejecutar con:
+ *   mvn test -Dtest=GradebookBenchmarkTest -Dbenchmark=true
+ * Una página de 300 estudiantes × 12 cursos con 3 notas por celda (10.800 filas leídas) de entre
+ * 3.000 estudiantes, con el esquema de las migraciones. Falla si el p90 en caliente pasa de 100 ms.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:gradebook-benchmark;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GradebookBenchmarkTest {
+
+    private static final int STUDENTS = 3_000;
+    private static final int COURSES = 12;
+    private static final int ASSESSMENTS = 3;
+    private static final int PAGE = 300;
+    private static final int WARMUP = 30;
+    private static final int REQUESTS = 100;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String teacherToken;
+
+    @Test
+    void gradebook_300StudentsBy12Courses_UnderOneHundredMilliseconds() throws Exception {
+        UserRegistrationDto teacher = new UserRegistrationDto();
+        teacher.setUsername("teacher1");
+        teacher.setEmail("teacher1@example.com");
+        teacher.setPassword("password123");
+        teacher.setRole("TEACHER");
+        mockMvc.perform(post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(teacher)))
+                .andExpect(status().isCreated());
+        String login = mockMvc.perform(post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new UserLoginDto("teacher1", "password123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        teacherToken = objectMapper.readTree(login).get("token").asText();
+
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, password, role, created_at, updated_at)
+                SELECT 'gb' || LPAD(x, 5, '0'), 'gb' || x || '@example.com', 'x', 'STUDENT', LOCALTIMESTAMP, LOCALTIMESTAMP
+                FROM SYSTEM_RANGE(1, ?)
+                """, STUDENTS);
+        jdbcTemplate.update("INSERT INTO courses (code, created_at) SELECT 'Curso ' || x, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+                COURSES);
+        jdbcTemplate.update("""
+                INSERT INTO grades (user_id, course_id, assessment, score_tenths, deleted, created_at, updated_at)
+                SELECT u.id, c.id, 'Evaluación ' || a.x, MOD(u.id * 7 + c.id * 13 + a.x, 201), FALSE,
+                       DATEADD(MINUTE, -(u.id + c.id * 10 + a.x), LOCALTIMESTAMP), LOCALTIMESTAMP
+                FROM users u CROSS JOIN courses c CROSS JOIN SYSTEM_RANGE(1, ?) a
+                """, ASSESSMENTS);
+
+        mockMvc.perform(get("/api/grades/gradebook")
+                .header("Authorization", "Bearer " + teacherToken)
+                .param("size", Integer.toString(PAGE)))
+                .andExpect(jsonPath("$.students.length()").value(PAGE))
+                .andExpect(jsonPath("$.courses.length()").value(COURSES));
+
+        for (String value : new String[] {"AVERAGE", "LATEST"}) {
+            for (int i = 0; i < WARMUP; i++) {
+                request(i, value);
+            }
+            long[] elapsed = new long[REQUESTS];
+            for (int i = 0; i < REQUESTS; i++) {
+                long start = System.nanoTime();
+                request(i, value);
+                elapsed[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(elapsed);
+            double p50 = elapsed[REQUESTS / 2] / 1e6;
+            double p90 = elapsed[REQUESTS * 9 / 10] / 1e6;
+            System.out.printf("%-8s p50 %6.1f ms  p90 %6.1f ms%n", value, p50, p90);
+            assertTrue(p90 < 100, value + ": p90 " + p90 + " ms");
+        }
+    }
+
+    private void request(int i, String value) throws Exception {
+        mockMvc.perform(get("/api/grades/gradebook")
+                .header("Authorization", "Bearer " + teacherToken)
+                .param("page", Integer.toString(i % (STUDENTS / PAGE)))
+                .param("size", Integer.toString(PAGE))
+                .param("value", value))
+                .andExpect(status().isOk());
+    }
+}
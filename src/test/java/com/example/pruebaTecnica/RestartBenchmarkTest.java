@@ -0,0 +1,86 @@
+package com.example.pruebaTecnica;
+
+import com.example.pruebaTecnica.service.GradeReadModel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tiempo de reinicio del perfil prod (H2 en fichero + Flyway) con 1M de calificaciones
+ * No forma parte de la suite normal; ejecutar con:
+ *   mvn test -Dtest=RestartBenchmarkTest -Dbenchmark=true
+ * Mide el arranque del contexto (abrir la base, validar migraciones y esquema) y, aparte, el
+ * tiempo hasta que la vista en memoria termina de reconstruirse en segundo plano.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class RestartBenchmarkTest {
+
+    private static final int STUDENTS = 10_000;
+    private static final int COURSES = 10;
+    private static final int ASSESSMENTS = 10;
+    private static final long GRADES = (long) STUDENTS * COURSES * ASSESSMENTS;
+
+    @TempDir
+    Path dataDir;
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(PruebaTecnicaApplication.class)
+                .profiles("prod")
+                .properties("grades.data-dir=" + dataDir, "server.port=0")
+                .run();
+    }
+
+    @Test
+    void restart_With1MGrades_StartsWithinSeconds() throws Exception {
+        // Primer arranque: Flyway crea el esquema; se cargan las notas directamente por SQL
+        long loadStart = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            jdbc.update("""
+                    INSERT INTO users (username, email, password, role, created_at, updated_at)
+                    SELECT 'student' || x, 'student' || x || '@example.com', 'x', 'STUDENT', LOCALTIMESTAMP, LOCALTIMESTAMP
+                    FROM SYSTEM_RANGE(1, ?)
+                    """, STUDENTS);
+            jdbc.update("INSERT INTO courses (code, created_at) SELECT 'Curso ' || x, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+                    COURSES);
+            jdbc.update("""
+                    INSERT INTO grades (user_id, course_id, assessment, score_tenths, deleted, created_at, updated_at)
+                    SELECT u.id, c.id, 'Evaluación ' || a.x, MOD(u.id * 7 + c.id * 13 + a.x, 201), FALSE,
+                           LOCALTIMESTAMP, LOCALTIMESTAMP
+                    FROM users u CROSS JOIN courses c CROSS JOIN SYSTEM_RANGE(1, ?) a
+                    """, ASSESSMENTS);
+            assertEquals(GRADES, jdbc.queryForObject("SELECT COUNT(*) FROM grades", Long.class));
+        }
+        System.out.printf("Carga de %,d calificaciones y cierre: %d ms%n", GRADES, millisSince(loadStart));
+
+        // Reinicio en caliente sobre el fichero existente
+        long restartStart = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            long startupMillis = millisSince(restartStart);
+            GradeReadModel readModel = context.getBean(GradeReadModel.class);
+            long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+            while (!readModel.isReady() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+            }
+            long warmMillis = millisSince(restartStart);
+
+            System.out.printf("Reinicio con %,d calificaciones: contexto listo en %d ms, vista en memoria en %d ms%n",
+                    GRADES, startupMillis, warmMillis);
+            assertTrue(readModel.isReady());
+            assertTrue(startupMillis < Duration.ofSeconds(15).toMillis(),
+                    "El arranque tardó " + startupMillis + " ms");
+        }
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.pruebaTecnica;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.CourseDictionary;
+import com.example.pruebaTecnica.service.GradeKeyValueStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Rendimiento del motor clave-valor (MVStore) frente a JPA en las operaciones de un estudiante
+ * No forma parte de la suite normal; ejecutar con:
+ *   mvn test -Dtest=StorageEngineBenchmarkTest -Dbenchmark=true
+ * Mide operaciones por segundo en un hilo para listar las notas de un estudiante, leer una por
+ * id, crearla y actualizarla. En JPA cada operación es una transacción (con la caché de segundo
+ * nivel activa, como en la aplicación); en MVStore es una operación sobre el mapa. Las escrituras
+ * en MVStore miden solo el coste del motor: en la aplicación siguen yendo primero a SQL.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "grades.storage.engine=mvstore",
+        // La carga la lanza la prueba después de insertar los datos
+        "grades.storage.reconcile-interval=1h"
+})
+@ActiveProfiles("test")
+class StorageEngineBenchmarkTest {
+
+    private static final int STUDENTS = 2_000;
+    private static final int GRADES_PER_STUDENT = 20;
+    private static final int WARMUP = 2_000;
+    private static final int OPERATIONS = 20_000;
+    private static final long GRADES = (long) STUDENTS * GRADES_PER_STUDENT;
+
+    @Autowired
+    private GradeKeyValueStore keyValueStore;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseDictionary courseDictionary;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private long firstStudent;
+    private long firstGrade;
+
+    @Test
+    void keyValueEngine_VersusJpa_ListGetCreateUpdate() {
+        String course = "Bench";
+        Integer courseId = courseDictionary.idOf(course);
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, password, role, created_at, updated_at)
+                SELECT 'bench' || x, 'bench' || x || '@example.com', 'x', 'STUDENT', LOCALTIMESTAMP, LOCALTIMESTAMP
+                FROM SYSTEM_RANGE(1, ?)
+                """, STUDENTS);
+        jdbcTemplate.update("""
+                INSERT INTO grades (user_id, course_id, assessment, score_tenths, deleted, created_at, updated_at)
+                SELECT u.id, ?, 'Evaluación ' || a.x, MOD(u.id * 7 + a.x, 201), FALSE,
+                       DATEADD('MINUTE', a.x, LOCALTIMESTAMP), LOCALTIMESTAMP
+                FROM users u CROSS JOIN SYSTEM_RANGE(1, ?) a
+                WHERE u.username LIKE 'bench%'
+                """, courseId, GRADES_PER_STUDENT);
+        firstStudent = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users WHERE username LIKE 'bench%'", Long.class);
+        firstGrade = jdbcTemplate.queryForObject("SELECT MIN(id) FROM grades", Long.class);
+        keyValueStore.rebuild();
+        assertEquals(GRADES, keyValueStore.size());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        User student = userRepository.findById(firstStudent).orElseThrow();
+
+        System.out.println("Operación  JPA (ops/s)  MVStore (ops/s)");
+        report("list",
+                measure(i -> readOnly.execute(status ->
+                        (long) gradeRepository.findByUserIdOrderByCreatedAtDesc(randomStudent()).size())),
+                measure(i -> keyValueStore.findByStudent(randomStudent()).size()));
+        report("get",
+                measure(i -> readOnly.execute(status ->
+                        gradeRepository.findById(randomGrade()).orElseThrow().getId())),
+                measure(i -> keyValueStore.findById(randomGrade()).orElseThrow().getId()));
+        report("create",
+                measure(i -> transaction.execute(status -> gradeRepository.save(new Grade(
+                        courseDictionary.reference(course), null, (short) 150, student)).getId())),
+                measure(i -> {
+                    GradeDto grade = new GradeDto(Long.MAX_VALUE / 2 + i, course, (short) 150, null,
+                            student.getUsername(), LocalDateTime.now(), LocalDateTime.now());
+                    keyValueStore.put(student.getId(), grade);
+                    return grade.getId();
+                }));
+        report("update",
+                measure(i -> transaction.execute(status -> {
+                    Grade grade = gradeRepository.findById(randomGrade()).orElseThrow();
+                    grade.setScoreTenths((short) (i % 201));
+                    return gradeRepository.save(grade).getId();
+                })),
+                measure(i -> {
+                    GradeDto grade = keyValueStore.findById(randomGrade()).orElseThrow();
+                    grade.setScoreTenths((short) (i % 201));
+                    grade.setUpdatedAt(LocalDateTime.now());
+                    keyValueStore.put(studentOf(grade), grade);
+                    return grade.getId();
+                }));
+    }
+
+    // Los estudiantes y las notas se insertan en bloque: sus ids son consecutivos
+    private long randomStudent() {
+        return firstStudent + ThreadLocalRandom.current().nextInt(STUDENTS);
+    }
+
+    private long randomGrade() {
+        return firstGrade + ThreadLocalRandom.current().nextLong(GRADES);
+    }
+
+    // El id del estudiante sale del username generado ('bench' || n), sin consultar la base de datos
+    private long studentOf(GradeDto grade) {
+        return firstStudent + Long.parseLong(grade.getStudentUsername().substring("bench".length())) - 1;
+    }
+
+    private static double measure(LongUnaryOperator operation) {
+        long checksum = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            checksum += operation.applyAsLong(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            checksum += operation.applyAsLong(WARMUP + i);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertNotEquals(0, checksum);
+        return OPERATIONS / (elapsed / 1e9);
+    }
+
+    private static void report(String operation, double jpa, double keyValue) {
+        System.out.printf("%-10s %,12.0f %,16.0f  (x%.1f)%n", operation, jpa, keyValue, keyValue / jpa);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.pruebaTecnica.config;
+
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración del enrutado de lecturas a réplicas con dos bases H2 en memoria
+ * La replicación se simula copiando el primario en la réplica (SCRIPT / RUNSCRIPT); lo que se
+ * escribe después solo está en el primario, y así se distingue de dónde lee cada transacción.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "grades.replicas.enabled=true",
+        "grades.replicas.urls=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "grades.replicas.max-lag=5s",
+        // Las comprobaciones de retraso las lanza cada prueba
+        "grades.replicas.heartbeat-interval=1h"
+})
+@ActiveProfiles("test")
+class ReadReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaRoutingDataSource routing;
+
+    @Autowired
+    private ReplicaLagMonitor monitor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path snapshotDir;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private JdbcTemplate primary() {
+        return new JdbcTemplate((DataSource) routing.getResolvedDefaultDataSource());
+    }
+
+    private JdbcTemplate replica() {
+        return new JdbcTemplate(routing.getReplicas().get(0));
+    }
+
+    /**
+     * Copia el estado actual del primario (latido incluido) en la réplica y la da por al día
+     */
+    private void replicate() {
+        monitor.checkReplicas();
+        String snapshot = snapshotDir.resolve("snapshot.sql").toString().replace('\\', '/');
+        primary().execute("SCRIPT TO '" + snapshot + "'");
+        replica().execute("DROP ALL OBJECTS");
+        replica().execute("RUNSCRIPT FROM '" + snapshot + "'");
+        monitor.checkReplicas();
+        assertTrue(routing.isAvailable(0));
+    }
+
+    private String createStudentOnPrimary() {
+        String username = "routing-" + UUID.randomUUID().toString().substring(0, 8);
+        userRepository.save(new User(username, username + "@example.com", "password123", "STUDENT"));
+        return username;
+    }
+
+    private <T> T inReadWriteTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                username, null, List.of(new SimpleGrantedAuthority("ROLE_TEACHER"))));
+    }
+
+    private double routed(String route) {
+        return meterRegistry.get("grades.datasource.read-only.connections").tag("route", route).counter().count();
+    }
+
+    @Test
+    void readOnlyTransactions_ReadFromReplica_WritesGoToPrimary() {
+        replicate();
+        String username = createStudentOnPrimary();
+
+        assertFalse(userService.existsByUsername(username)); // réplica: aún no tiene el alta
+        assertTrue(inReadWriteTransaction(() -> userRepository.existsByUsername(username)));
+
+        replicate();
+        assertTrue(userService.existsByUsername(username));
+    }
+
+    @Test
+    void afterWrite_SameUserReadsFromPrimary_OthersFromReplica() {
+        replicate();
+        authenticate("teacher-writer");
+        String username = inReadWriteTransaction(this::createStudentOnPrimary);
+        double sticky = routed("primary-read-your-writes");
+
+        assertTrue(userService.existsByUsername(username));
+        assertEquals(sticky + 1, routed("primary-read-your-writes"));
+
+        authenticate("teacher-reader");
+        assertFalse(userService.existsByUsername(username));
+    }
+
+    @Test
+    void laggingReplica_FallsBackToPrimary_UntilCaughtUp() {
+        replicate();
+        String username = createStudentOnPrimary();
+
+        // La réplica deja de recibir cambios: su último latido queda un minuto por detrás
+        replica().update("UPDATE replication_heartbeat SET beat_millis = beat_millis - 60000");
+        monitor.checkReplicas();
+        assertFalse(routing.isAvailable(0));
+        double lagFallbacks = routed("primary-replica-lag");
+
+        assertTrue(userService.existsByUsername(username));
+        assertEquals(lagFallbacks + 1, routed("primary-replica-lag"));
+        assertTrue(meterRegistry.get("grades.datasource.replica.lag").tag("replica", "replica-0").gauge().value() >= 60);
+
+        replicate();
+        double toReplica = routed("replica");
+        assertTrue(userService.existsByUsername(username));
+        assertEquals(toReplica + 1, routed("replica"));
+    }
+
+    @Test
+    void replicaWithoutHeartbeat_IsTakenOutOfRotation() {
+        replicate();
+        replica().execute("DROP TABLE replication_heartbeat");
+
+        monitor.checkReplicas();
+
+        assertFalse(routing.isAvailable(0));
+        assertEquals(-1, meterRegistry.get("grades.datasource.replica.lag").gauge().value());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.pruebaTecnica.controller;
+
+import com.example.pruebaTecnica.dto.ComponentDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.GradeService;
+import com.example.pruebaTecnica.util.JwtUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración de los componentes de evaluación y las notas finales sobre el esquema de
+ * las migraciones (course_components, component_scores y course_finals de V7)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:finals;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never",
+        "grades.finals.recompute.chunk-size=2",
+        "grades.finals.recompute.parallelism=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class FinalGradeControllerIntegrationTest {
+
+    private static final String COURSE = "Química";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private GradeDto upsert(String student, String component, String assessment, double score) {
+        GradeDto gradeDto = new GradeDto(null, COURSE, Grade.toTenths(score), null, student, null, null);
+        gradeDto.setAssessment(assessment);
+        gradeDto.setComponent(component);
+        return gradeService.upsertGrade(gradeDto);
+    }
+
+    private String token(String username, String role) {
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                org.springframework.security.core.userdetails.User.withUsername(username)
+                        .password("password123").roles(role).build(), null));
+    }
+
+    private JsonNode call(MockHttpServletRequestBuilder request, String username, String role, int expectedStatus)
+            throws Exception {
+        String body = mockMvc.perform(request.header("Authorization", "Bearer " + token(username, role)))
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getContentAsString();
+        return body.isEmpty() ? null : objectMapper.readTree(body);
+    }
+
+    private JsonNode defineComponent(String component, int weight) throws Exception {
+        return call(put("/api/courses/{course}/components/{component}", COURSE, component)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new ComponentDto(null, null, (short) weight, null))),
+                "profesor", "TEACHER", 200);
+    }
+
+    // Las notas finales mantenidas por incrementos coinciden con calcularlas desde las notas vigentes
+    private void assertFinalsMatchGrades() {
+        List<Map<String, Object>> recomputed = jdbcTemplate.queryForList("""
+                SELECT user_id, course_id, CAST(ROUND(SUM(weight * average) / SUM(weight), 6) AS DECIMAL(12, 6)) AS final,
+                       SUM(weight) AS graded_weight
+                FROM (SELECT g.user_id, g.course_id, k.weight, AVG(CAST(g.score_tenths AS DOUBLE PRECISION)) AS average
+                      FROM grades g JOIN course_components k ON k.id = g.component_id
+                      WHERE g.deleted = FALSE
+                      GROUP BY g.user_id, g.course_id, k.id, k.weight)
+                GROUP BY user_id, course_id
+                ORDER BY 1, 2
+                """);
+        List<Map<String, Object>> finals = jdbcTemplate.queryForList("""
+                SELECT user_id, course_id, CAST(ROUND(final_tenths, 6) AS DECIMAL(12, 6)) AS final,
+                       CAST(graded_weight AS BIGINT) AS graded_weight
+                FROM course_finals ORDER BY 1, 2
+                """);
+        assertEquals(recomputed.toString(), finals.toString());
+    }
+
+    @Test
+    void finals_AreMaintainedPerCell_AndRecomputedInChunksAfterAWeightChange() throws Exception {
+        userRepository.save(new User("profesor", "profesor@example.com", "password123", "TEACHER"));
+        for (int i = 1; i <= 5; i++) {
+            userRepository.save(new User("alumno" + i, "alumno" + i + "@example.com", "password123", "STUDENT"));
+        }
+        assertTrue(defineComponent("Exámenes", 60).get("recomputation").isNull());
+        defineComponent("Laboratorios", 40);
+
+        upsert("alumno1", "Exámenes", "Parcial 1", 15.0);
+        upsert("alumno1", "Exámenes", "Parcial 2", 17.0);
+        upsert("alumno1", "Laboratorios", "Lab 1", 12.0);
+        // Sin componente no cuenta para la nota final
+        upsert("alumno1", null, "Participación", 5.0);
+        for (int i = 2; i <= 5; i++) {
+            upsert("alumno" + i, "Exámenes", "Parcial 1", 10.0 + i);
+            upsert("alumno" + i, "Laboratorios", "Lab 1", 20.0 - i);
+        }
+        // (60·16 + 40·12) / 100; luego el laboratorio pasa a 14: (60·16 + 40·14) / 100
+        assertEquals(14.4, call(get("/api/finals"), "alumno1", "STUDENT", 200).get(0).get("score").asDouble(), 1e-9);
+        upsert("alumno1", "Laboratorios", "Lab 1", 14.0);
+        assertFinalsMatchGrades();
+
+        JsonNode finals = call(get("/api/finals"), "alumno1", "STUDENT", 200);
+        assertEquals(1, finals.size());
+        assertEquals(15.2, finals.get(0).get("score").asDouble(), 1e-9);
+        assertEquals(100, finals.get(0).get("totalWeight").asInt());
+        assertEquals("Exámenes", finals.get(0).get("components").get(0).get("component").asText());
+        assertEquals(2, finals.get(0).get("components").get(0).get("grades").asInt());
+        assertEquals(16.0, finals.get(0).get("components").get(0).get("average").asDouble(), 1e-9);
+
+        // Un componente que el curso no tiene se rechaza
+        call(post("/api/grades").contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(Map.of(
+                        "course", COURSE, "assessment", "Proyecto", "score", 12, "studentUsername", "alumno1",
+                        "component", "Proyectos"))),
+                "profesor", "TEACHER", 400);
+
+        // El cambio de peso recalcula los cinco estudiantes en tres lotes de dos
+        JsonNode recomputation = defineComponent("Laboratorios", 60).get("recomputation");
+        long id = recomputation.get("id").asLong();
+        JsonNode progress = recomputation;
+        for (int attempt = 0; attempt < 100 && !"COMPLETED".equals(progress.get("status").asText()); attempt++) {
+            Thread.sleep(100);
+            progress = call(get("/api/courses/{course}/recomputations/{id}", COURSE, id), "profesor", "TEACHER", 200);
+        }
+        assertEquals("COMPLETED", progress.get("status").asText());
+        assertEquals(5, progress.get("students").asInt());
+        assertEquals(5, progress.get("processed").asInt());
+        assertEquals(3, progress.get("chunks").asInt());
+        assertEquals(3, progress.get("completedChunks").asInt());
+        assertFinalsMatchGrades();
+
+        JsonNode courseFinals = call(get("/api/courses/{course}/finals", COURSE), "profesor", "TEACHER", 200);
+        assertEquals(5, courseFinals.size());
+        assertEquals("alumno1", courseFinals.get(0).get("student").asText());
+        // (60·16 + 60·14) / 120
+        assertEquals(15.0, courseFinals.get(0).get("score").asDouble(), 1e-9);
+        assertEquals(120, courseFinals.get(0).get("gradedWeight").asInt());
+
+        // Borrar la única nota de un componente lo saca de la nota final
+        GradeDto lab = upsert("alumno1", "Laboratorios", "Lab 1", 14.0);
+        gradeService.deleteGrade(lab.getId());
+        assertFinalsMatchGrades();
+        JsonNode afterDelete = call(get("/api/finals"), "alumno1", "STUDENT", 200).get(0);
+        assertEquals(16.0, afterDelete.get("score").asDouble(), 1e-9);
+        assertEquals(60, afterDelete.get("gradedWeight").asInt());
+
+        call(get("/api/courses/{course}/recomputations/{id}", COURSE, id + 1000), "profesor", "TEACHER", 404);
+    }
+}
@@ -1,9 +1,17 @@
 package com.example.pruebaTecnica.controller;
 
+import com.example.pruebaTecnica.dto.GradeBatchDto;
 import com.example.pruebaTecnica.dto.GradeDto;
 import com.example.pruebaTecnica.dto.UserLoginDto;
 import com.example.pruebaTecnica.dto.UserRegistrationDto;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
 import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.CourseDictionary;
+import com.example.pruebaTecnica.service.GradeEventStream;
+import com.example.pruebaTecnica.service.GradeResponseCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,9 +24,15 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -40,12 +54,26 @@ class GradeControllerIntegrationTest {
     @Autowired
     private GradeRepository gradeRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseDictionary courseDictionary;
+
+    @Autowired
+    private GradeResponseCache gradeResponseCache;
+
+    @Autowired
+    private GradeEventStream gradeEventStream;
+
     private String teacherToken;
     private String studentToken;
 
     @BeforeEach
     void setUp() throws Exception {
         gradeRepository.deleteAll();
+        // Las pruebas se revierten sin commit, así que los eventos de invalidación no llegan a publicarse
+        gradeResponseCache.evict("student1");
 
         // registrar TEACHER
         UserRegistrationDto teacherDto = new UserRegistrationDto();
@@ -90,7 +118,7 @@ class GradeControllerIntegrationTest {
 
     @Test
     void createGrade_AsTeacher_Success() throws Exception {
-        GradeDto gradeDto = new GradeDto(null, "Matemáticas", 18.5, "Buen trabajo",
+        GradeDto gradeDto = new GradeDto(null, "Matemáticas", Grade.toTenths(18.5), "Buen trabajo",
                 "student1", LocalDateTime.now(), null);
 
         mockMvc.perform(post("/api/grades")
@@ -105,9 +133,23 @@ class GradeControllerIntegrationTest {
                 .andExpect(jsonPath("$.createdAt").exists());
     }
 
+    @Test
+    void createGrade_ScoreWithTwoDecimals_BadRequest() throws Exception {
+        String body = "{\"course\":\"Matemáticas\",\"score\":18.55,\"studentUsername\":\"student1\"}";
+
+        mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.scoreInTenths").exists());
+
+        assertEquals(0, gradeRepository.count());
+    }
+
     @Test
     void createGrade_AsStudent_Forbidden() throws Exception {
-        GradeDto gradeDto = new GradeDto(null, "Historia", 14.0, "Regular",
+        GradeDto gradeDto = new GradeDto(null, "Historia", Grade.toTenths(14.0), "Regular",
                 "student1", LocalDateTime.now(), null);
 
         mockMvc.perform(post("/api/grades")
@@ -120,7 +162,7 @@ class GradeControllerIntegrationTest {
     @Test
     void getAllGrades_AsStudent_Success() throws Exception {
         // primero un TEACHER crea
-        GradeDto gradeDto = new GradeDto(null, "Inglés", 12.0, "Falta estudiar",
+        GradeDto gradeDto = new GradeDto(null, "Inglés", Grade.toTenths(12.0), "Falta estudiar",
                 "student1", LocalDateTime.now(), null);
 
         mockMvc.perform(post("/api/grades")
@@ -134,12 +176,331 @@ class GradeControllerIntegrationTest {
                 .header("Authorization", "Bearer " + studentToken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[*].course").value(hasItem("Inglés")));
+                .andExpect(jsonPath("$[*].course").value(hasItem("Inglés")))
+                .andExpect(header().exists("ETag"));
+    }
+
+    @Test
+    void upsertGrade_SameNaturalKey_UpdatesInsteadOfDuplicating() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Química", Grade.toTenths(13.0), "Primer intento",
+                "student1", null, null);
+        gradeDto.setAssessment("Examen Final");
+
+        MvcResult first = mockMvc.perform(put("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(gradeDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.assessment").value("Examen Final"))
+                .andReturn();
+        long id = objectMapper.readTree(first.getResponse().getContentAsString()).get("id").asLong();
+
+        gradeDto.setScore(16.0);
+        gradeDto.setComments("Re-importado desde el LMS");
+        mockMvc.perform(put("/api/grades/batch")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new GradeBatchDto(List.of(gradeDto)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(id))
+                .andExpect(jsonPath("$[0].score").value(16.0));
+
+        assertEquals(1, gradeRepository.count());
+    }
+
+    @Test
+    void upsertGrade_WithoutAssessment_BadRequest() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Química", Grade.toTenths(13.0), null, "student1", null, null);
+
+        mockMvc.perform(put("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(gradeDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.validationErrors.assessment").exists());
+    }
+
+    @Test
+    void createGrade_WithIdempotencyKey_RetryDoesNotDuplicate() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Biología", Grade.toTenths(15.0), null, "student1", null, null);
+        String body = objectMapper.writeValueAsString(gradeDto);
+
+        MvcResult first = mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .header("Idempotency-Key", "retry-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(first.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .header("Idempotency-Key", "retry-123")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(id));
+
+        assertEquals(1, gradeRepository.count());
+    }
+
+    @Test
+    void getAllGrades_WithCurrentEtag_NotModified() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/grades")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/grades")
+                .header("Authorization", "Bearer " + studentToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void getGradeById_WithCurrentEtag_NotModified() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Arte", Grade.toTenths(17.0), null, "student1", null, null);
+        MvcResult created = mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(gradeDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        String etag = mockMvc.perform(get("/api/grades/" + id)
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/grades/" + id)
+                .header("Authorization", "Bearer " + studentToken)
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void streamGrades_WithLastEventId_ReplaysMissedEvents() throws Exception {
+        GradeDto published = new GradeDto(99L, "Música", Grade.toTenths(19.0), null, "student1", null, null);
+        gradeEventStream.onGradeChanged(GradeChangedEvent.created(1L, published));
+
+        MvcResult result = mockMvc.perform(get("/api/grades/stream")
+                .header("Authorization", "Bearer " + studentToken)
+                .header("Last-Event-ID", "0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = "";
+        for (int i = 0; i < 50 && !body.contains("Música"); i++) {
+            Thread.sleep(20);
+            body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        }
+        assertTrue(body.contains("event:grade-created"));
+        assertTrue(body.contains("Música"));
+    }
+
+    @Test
+    void streamGrades_AsTeacher_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/grades/stream")
+                .header("Authorization", "Bearer " + teacherToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getGradeChanges_AfterDelete_ReturnsTombstoneSinceCursor() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Geografía", Grade.toTenths(14.0), null, "student1", null, null);
+        MvcResult created = mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(gradeDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        MvcResult initial = mockMvc.perform(get("/api/grades/changes")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed[0].id").value(id))
+                .andExpect(jsonPath("$.deleted").isEmpty())
+                .andReturn();
+        long cursor = objectMapper.readTree(initial.getResponse().getContentAsString()).get("cursor").asLong();
+
+        mockMvc.perform(delete("/api/grades/" + id)
+                .header("Authorization", "Bearer " + teacherToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/grades/changes")
+                .header("Authorization", "Bearer " + studentToken)
+                .param("since", Long.toString(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed").isEmpty())
+                .andExpect(jsonPath("$.deleted[0]").value(id))
+                .andExpect(jsonPath("$.hasMore").value(false));
+        assertEquals(0, gradeRepository.count());
+    }
+
+    @Test
+    void getGradeChanges_AfterMovingGradeTwice_FirstOwnerGetsTombstone() throws Exception {
+        for (String username : List.of("student2", "student3")) {
+            UserRegistrationDto other = new UserRegistrationDto();
+            other.setUsername(username);
+            other.setEmail(username + "@example.com");
+            other.setPassword("password123");
+            other.setRole("STUDENT");
+            mockMvc.perform(post("/api/auth/register")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(other)))
+                    .andExpect(status().isCreated());
+        }
+        GradeDto gradeDto = new GradeDto(null, "Historia", Grade.toTenths(13.0), null, "student1", null, null);
+        MvcResult created = mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(gradeDto)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+        MvcResult initial = mockMvc.perform(get("/api/grades/changes")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andReturn();
+        long cursor = objectMapper.readTree(initial.getResponse().getContentAsString()).get("cursor").asLong();
+
+        // student1 -> student2 -> student3: la baja de student1 no debe perderse con el segundo cambio
+        for (String username : List.of("student2", "student3")) {
+            gradeDto.setStudentUsername(username);
+            mockMvc.perform(put("/api/grades/" + id)
+                    .header("Authorization", "Bearer " + teacherToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(gradeDto)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/api/grades/changes")
+                .header("Authorization", "Bearer " + studentToken)
+                .param("since", Long.toString(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changed").isEmpty())
+                .andExpect(jsonPath("$.deleted", contains((int) id)));
+    }
+
+    @Test
+    void createGrade_AfterDeletingSameAssessment_RevivesGrade() throws Exception {
+        GradeDto gradeDto = new GradeDto(null, "Arte", Grade.toTenths(12.0), null, "student1", null, null);
+        gradeDto.setAssessment("Proyecto Final");
+        String body = objectMapper.writeValueAsString(gradeDto);
+
+        MvcResult created = mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = objectMapper.readTree(created.getResponse().getContentAsString()).get("id").asLong();
+
+        mockMvc.perform(delete("/api/grades/" + id)
+                .header("Authorization", "Bearer " + teacherToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/grades")
+                .header("Authorization", "Bearer " + teacherToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(id));
+    }
+
+    @Test
+    void getGradeSummary_AsStudent_AggregatesPerCourse() throws Exception {
+        for (double score : new double[]{10.0, 14.0}) {
+            GradeDto gradeDto = new GradeDto(null, "Lenguaje", Grade.toTenths(score), null, "student1", null, null);
+            mockMvc.perform(post("/api/grades")
+                    .header("Authorization", "Bearer " + teacherToken)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(gradeDto)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/grades/summary")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courses[0].course").value("Lenguaje"))
+                .andExpect(jsonPath("$.courses[0].count").value(2))
+                .andExpect(jsonPath("$.courses[0].mean").value(12.0))
+                .andExpect(jsonPath("$.courses[0].stdDev").value(2.0))
+                .andExpect(jsonPath("$.courses[0].latestScore").value(14.0))
+                .andExpect(jsonPath("$.overall.band").value("B"))
+                .andExpect(jsonPath("$.overall.passing").value(true));
+    }
+
+    @Test
+    void getCourseStatistics_AsStudent_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/grades/statistics")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void getCourseTop_KAboveCapacity_BadRequest() throws Exception {
+        mockMvc.perform(get("/api/grades/statistics/Matemáticas/top")
+                .header("Authorization", "Bearer " + teacherToken)
+                .param("k", "1000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getGradebook_300StudentsBy12Courses_ReturnsColumnarMatrix() throws Exception {
+        List<User> students = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String username = String.format("gb%03d", i);
+            students.add(new User(username, username + "@example.com", "password123", "STUDENT"));
+        }
+        userRepository.saveAll(students);
+        List<Grade> grades = new ArrayList<>();
+        for (User student : students) {
+            for (int c = 0; c < 12; c++) {
+                grades.add(new Grade(courseDictionary.reference("Curso " + c), null, Grade.toTenths(10.0 + c % 5), student));
+            }
+        }
+        grades.add(new Grade(courseDictionary.reference("Curso 0"), null, Grade.toTenths(20.0), students.get(0)));
+        gradeRepository.saveAll(grades);
+
+        mockMvc.perform(get("/api/grades/gradebook")
+                .header("Authorization", "Bearer " + teacherToken)
+                .param("size", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courses.length()").value(12))
+                .andExpect(jsonPath("$.students[0]").value("gb000"))
+                .andExpect(jsonPath("$.scores[0][0]").value(15.0)) // promedio de 10 y 20
+                .andExpect(jsonPath("$.scores[1][299]").value(11.0)); // "Curso 1" (cursos en orden alfabético)
+
+        mockMvc.perform(get("/api/grades/gradebook")
+                .header("Authorization", "Bearer " + teacherToken)
+                .param("size", "2")
+                .param("course", "Curso 0", "Sin notas")
+                .param("value", "LATEST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.students").value(contains("gb000", "gb001")))
+                .andExpect(jsonPath("$.courses").value(contains("Curso 0", "Sin notas")))
+                .andExpect(jsonPath("$.scores[0][0]").value(20.0))
+                .andExpect(jsonPath("$.scores[1][0]").doesNotExist())
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    void getGradebook_AsStudent_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/grades/gradebook")
+                .header("Authorization", "Bearer " + studentToken))
+                .andExpect(status().isForbidden());
     }
 
     @Test
     void createGrade_Unauthorized_WithoutToken() throws Exception {
-        GradeDto gradeDto = new GradeDto(null, "Física", 10.0, "Debe mejorar",
+        GradeDto gradeDto = new GradeDto(null, "Física", Grade.toTenths(10.0), "Debe mejorar",
                 "student1", LocalDateTime.now(), null);
 
         mockMvc.perform(post("/api/grades")
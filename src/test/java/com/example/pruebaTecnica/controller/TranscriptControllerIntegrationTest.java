@@ -0,0 +1,171 @@
+package com.example.pruebaTecnica.controller;
+
+import com.example.pruebaTecnica.dto.CourseDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.TermDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.GradeService;
+import com.example.pruebaTecnica.util.JwtUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración del expediente sobre el esquema de las migraciones
+ * (terms, transcript_entries y courses.credits de V6 y term_days de V8, validados contra las entidades)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transcript;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TranscriptControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private GradeDto upsert(String student, String course, String assessment, double score) {
+        GradeDto gradeDto = new GradeDto(null, course, Grade.toTenths(score), null, student, null, null);
+        gradeDto.setAssessment(assessment);
+        return gradeService.upsertGrade(gradeDto);
+    }
+
+    private String token(String username, String role) {
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                org.springframework.security.core.userdetails.User.withUsername(username)
+                        .password("password123").roles(role).build(), null));
+    }
+
+    private int createTerm(String code, LocalDate startsOn, LocalDate endsOn) throws Exception {
+        return mockMvc.perform(post("/api/terms")
+                        .header("Authorization", "Bearer " + token("profesor", "TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new TermDto(code, startsOn, endsOn))))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private JsonNode transcript(String student) throws Exception {
+        String body = mockMvc.perform(get("/api/transcript")
+                        .header("Authorization", "Bearer " + token(student, "STUDENT")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    // Las celdas mantenidas por incrementos coinciden con recalcularlas desde las notas vigentes
+    private void assertCellsMatchGrades() {
+        List<Map<String, Object>> recomputed = jdbcTemplate.queryForList("""
+                SELECT g.user_id, t.id AS term_id, g.course_id, COUNT(*) AS grade_count, SUM(g.score_tenths) AS score_sum
+                FROM grades g JOIN terms t ON CAST(g.created_at AS DATE) BETWEEN t.starts_on AND t.ends_on
+                WHERE g.deleted = FALSE
+                GROUP BY g.user_id, t.id, g.course_id
+                ORDER BY 1, 2, 3
+                """);
+        List<Map<String, Object>> cells = jdbcTemplate.queryForList("""
+                SELECT user_id, term_id, course_id, CAST(grade_count AS BIGINT) AS grade_count, score_sum
+                FROM transcript_entries WHERE grade_count > 0 ORDER BY 1, 2, 3
+                """);
+        assertEquals(recomputed.toString(), cells.toString());
+    }
+
+    @Test
+    void transcript_IsBackfilledOnTermCreation_AndMaintainedIncrementallyByGradeWrites() throws Exception {
+        userRepository.save(new User("profesor", "profesor@example.com", "password123", "TEACHER"));
+        User student = userRepository.save(new User("expediente", "expediente@example.com", "password123", "STUDENT"));
+
+        // Notas anteriores a cualquier periodo: no cuentan hasta que se crea el suyo
+        GradeDto old = upsert("expediente", "Historia", "Parcial 1", 10.0);
+        jdbcTemplate.update("UPDATE grades SET created_at = ? WHERE id = ?", LocalDateTime.now().minusDays(300), old.getId());
+        upsert("expediente", "Matemáticas", "Parcial 1", 16.0);
+        assertTrue(transcript("expediente").get("terms").isEmpty());
+
+        LocalDate today = LocalDate.now();
+        assertEquals(201, createTerm("2025-1", today.minusDays(400), today.minusDays(200)));
+        assertEquals(201, createTerm("2025-2", today.minusDays(10), today.plusDays(10)));
+        // Solapado: 400; código repetido: 409
+        assertEquals(400, createTerm("2025-X", today.minusDays(5), today.plusDays(30)));
+        assertEquals(409, createTerm("2025-2", today.plusDays(100), today.plusDays(150)));
+        assertCellsMatchGrades();
+        // La base de datos también rechaza un día que ya pertenece a otro periodo
+        assertThrows(DataIntegrityViolationException.class, () -> jdbcTemplate.update(
+                "INSERT INTO term_days (calendar_day, term_id) SELECT ?, id FROM terms WHERE code = '2025-1'", today));
+
+        // Escrituras dentro del periodo actual
+        upsert("expediente", "Matemáticas", "Parcial 2", 12.0);
+        upsert("expediente", "Matemáticas", "Parcial 1", 18.0);
+        GradeDto physics = upsert("expediente", "Física", "Parcial 1", 9.0);
+        gradeService.deleteGrade(physics.getId());
+        assertCellsMatchGrades();
+
+        JsonNode transcript = transcript("expediente");
+        assertEquals(2, transcript.get("terms").size());
+        JsonNode past = transcript.get("terms").get(0);
+        assertEquals("2025-1", past.get("term").asText());
+        assertEquals(10.0, past.get("average").asDouble(), 1e-9);
+        JsonNode current = transcript.get("terms").get(1);
+        assertEquals(1, current.get("courses").size());
+        assertEquals("Matemáticas", current.get("courses").get(0).get("course").asText());
+        assertEquals(2, current.get("courses").get(0).get("grades").asLong());
+        assertEquals(15.0, current.get("average").asDouble(), 1e-9);
+        assertEquals(12.5, transcript.get("gpa").asDouble(), 1e-9);
+
+        // Los créditos se aplican al leer: (3·15 + 1·10) / 4
+        mockMvc.perform(put("/api/courses/Matemáticas/credits")
+                        .header("Authorization", "Bearer " + token("profesor", "TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CourseDto(null, (short) 3))))
+                .andExpect(status().isOk());
+        transcript = transcript("expediente");
+        assertEquals(4, transcript.get("credits").asLong());
+        assertEquals(13.75, transcript.get("gpa").asDouble(), 1e-9);
+        assertEquals(student.getUsername(), transcript.get("student").asText());
+
+        mockMvc.perform(put("/api/courses/Química/credits")
+                        .header("Authorization", "Bearer " + token("profesor", "TEACHER"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CourseDto(null, (short) 3))))
+                .andExpect(status().isNotFound());
+    }
+}
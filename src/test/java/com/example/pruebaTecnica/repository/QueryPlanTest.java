@@ -0,0 +1,321 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Plan de ejecución de cada consulta de los repositorios sobre el esquema de las migraciones
+ * Ejecuta cada método, captura el SQL que genera Hibernate y falla si el EXPLAIN de H2 recorre
+ * una tabla completa (tableScan, o un índice entero sin condición ni orden que aprovechar)
+ * con el volumen de datos configurado:
+ *   mvn test -Dtest=QueryPlanTest -Dquery-plan.students=10000   (10 notas por estudiante)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:queryplan;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.pruebaTecnica.repository.QueryPlanTest$RecordingStatementInspector"
+})
+@ActiveProfiles("test")
+class QueryPlanTest {
+
+    private static final int COURSES = 5;
+    private static final int ASSESSMENTS = 2;
+
+    // Consultas que leen todas las calificaciones a propósito (reconstrucción de vistas en memoria)
+    private static final Set<String> FULL_SCAN_BY_DESIGN = Set.of(
+            "GradeRepository.streamAllWithStudent",
+            "GradeRepository.histogramByCourse",
+            // Carga inicial de un periodo nuevo: se ejecuta una vez por periodo
+            "GradeRepository.sumByStudentAndCourse",
+            // Bloquea a todos los estudiantes mientras se crea un periodo
+            "TranscriptRepository.lockAllStudents");
+
+    // Consultas que deben leer el índice ya ordenado en lugar de ordenar las filas
+    private static final Set<String> SORTED_BY_INDEX = Set.of(
+            "GradeRepository.findTopByCourse");
+
+    // Acceso a una tabla en el plan de H2: /* PUBLIC.INDICE: condición */ o /* PUBLIC.TABLA.tableScan */
+    private static final Pattern TABLE_ACCESS = Pattern.compile("/\\* PUBLIC\\.([A-Z0-9_.]+?)(: [^*]*)? \\*/");
+
+    // Sentencia de datos dentro de FINAL TABLE (...): H2 no muestra su plan en el EXPLAIN del SELECT
+    private static final Pattern DELTA_TABLE = Pattern.compile("FINAL TABLE \\((.*)\\)", Pattern.DOTALL);
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private TranscriptRepository transcriptRepository;
+
+    @Autowired
+    private FinalGradeRepository finalGradeRepository;
+
+    @Autowired
+    private CourseComponentRepository componentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${query-plan.students:1000}")
+    private int students;
+
+    /**
+     * Registra el SQL de cada sentencia que prepara Hibernate (incluidas las nativas)
+     */
+    public static class RecordingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @BeforeEach
+    void seed() {
+        if (userRepository.count() > 0) {
+            return;
+        }
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, password, role, created_at, updated_at)
+                SELECT 'student' || x, 'student' || x || '@example.com', 'x', 'STUDENT', LOCALTIMESTAMP, LOCALTIMESTAMP
+                FROM SYSTEM_RANGE(1, ?)
+                """, students);
+        jdbcTemplate.update("INSERT INTO courses (code, created_at) SELECT 'Curso ' || x, LOCALTIMESTAMP FROM SYSTEM_RANGE(1, ?)",
+                COURSES);
+        jdbcTemplate.update("""
+                INSERT INTO grades (user_id, course_id, assessment, score_tenths, deleted, created_at, updated_at)
+                SELECT u.id, c.id, 'Evaluación ' || a.x, MOD(u.id * 7 + c.id * 13 + a.x, 201), MOD(u.id + a.x, 50) = 0,
+                       DATEADD(MINUTE, -(u.id + c.id * 10 + a.x), LOCALTIMESTAMP), LOCALTIMESTAMP
+                FROM users u CROSS JOIN courses c CROSS JOIN SYSTEM_RANGE(1, ?) a
+                """, ASSESSMENTS);
+        jdbcTemplate.update("""
+                INSERT INTO grade_moves (grade_id, from_user_id)
+                SELECT g.id, g.user_id - 1 FROM grades g WHERE MOD(g.user_id, 100) = 0
+                """);
+        jdbcTemplate.update("INSERT INTO terms (code, starts_on, ends_on, created_at) VALUES ('2025-1', ?, ?, LOCALTIMESTAMP)",
+                LocalDate.now().minusDays(30), LocalDate.now().plusDays(30));
+        jdbcTemplate.update("""
+                INSERT INTO term_days (calendar_day, term_id)
+                SELECT DATEADD(DAY, x, t.starts_on), t.id FROM terms t CROSS JOIN SYSTEM_RANGE(0, 60)
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO course_components (course_id, code, weight, created_at, updated_at)
+                SELECT c.id, 'Componente ' || k.x, 50, LOCALTIMESTAMP, LOCALTIMESTAMP
+                FROM courses c CROSS JOIN SYSTEM_RANGE(1, 2) k
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO component_scores (user_id, course_id, component_id, grade_count, score_sum)
+                SELECT g.user_id, g.course_id, k.id, COUNT(*), SUM(g.score_tenths)
+                FROM grades g JOIN course_components k ON k.course_id = g.course_id AND k.code = 'Componente 1'
+                WHERE g.deleted = FALSE
+                GROUP BY g.user_id, g.course_id, k.id
+                """);
+        jdbcTemplate.update("""
+                INSERT INTO course_finals (user_id, course_id, final_tenths, graded_weight, updated_at)
+                SELECT user_id, course_id, CAST(score_sum AS DOUBLE PRECISION) / grade_count, 50, LOCALTIMESTAMP
+                FROM component_scores
+                """);
+        // Estadísticas de selectividad para que el optimizador elija como lo haría con datos reales
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    /**
+     * Una invocación representativa por cada método declarado en los repositorios
+     */
+    private Map<String, Runnable> queries() {
+        User student = userRepository.findById(students / 2L).orElseThrow();
+        Long userId = student.getId();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+
+        queries.put("GradeByStudentRepository.findByUserOrderByCreatedAtDesc", () -> gradeRepository.findByUserOrderByCreatedAtDesc(student));
+        queries.put("GradeRepository.findByUserIdOrderByCreatedAtDesc", () -> gradeRepository.findByUserIdOrderByCreatedAtDesc(userId));
+        queries.put("GradeRepository.countByUser", () -> gradeRepository.countByUser(student));
+        queries.put("GradeRepository.streamAllWithStudent", () -> {
+            try (var rows = gradeRepository.streamAllWithStudent()) {
+                rows.limit(1).forEach(row -> { });
+            }
+        });
+        queries.put("GradeRepository.upsertByNaturalKey", () ->
+                gradeRepository.upsertByNaturalKey(userId, 1, null, "Evaluación 1", (short) 150, null));
+        queries.put("GradeRepository.reviveDeleted", () ->
+                gradeRepository.reviveDeleted(userId, 1, null, "Evaluación 2", (short) 150, null));
+        queries.put("GradeRepository.findLiveByNaturalKey", () ->
+                gradeRepository.findLiveByNaturalKey(userId, 1, "Evaluación 1"));
+        queries.put("GradeRepository.sumByStudentAndCourse", () ->
+                gradeRepository.sumByStudentAndCourse(LocalDateTime.now().minusDays(1), LocalDateTime.now()));
+        queries.put("GradeRepository.findChangesSince", () -> gradeRepository.findChangesSince(userId, 0, 100));
+        queries.put("GradeRepository.recordMove", () -> gradeRepository.recordMove(1L, userId));
+        queries.put("GradeRepository.summarizeByCourse", () -> gradeRepository.summarizeByCourse(userId));
+        queries.put("GradeRepository.histogramByCourse", () -> gradeRepository.histogramByCourse());
+        queries.put("GradeRepository.findTopByCourse", () -> gradeRepository.findTopByCourse(1, PageRequest.of(0, 10)));
+        queries.put("GradeRepository.streamGradebook", () -> {
+            try (var rows = gradeRepository.streamGradebook(students / 2, 50, false, List.of(1, 2))) {
+                rows.forEach(row -> { });
+            }
+        });
+
+        queries.put("UserNaturalIdRepository.findByUsername", () -> userRepository.findByUsername(student.getUsername()));
+        queries.put("UserRepository.findByUsernameIn", () -> userRepository.findByUsernameIn(List.of("student1", "student2")));
+        queries.put("UserRepository.findByEmail", () -> userRepository.findByEmail(student.getEmail()));
+        queries.put("UserRepository.existsByUsername", () -> userRepository.existsByUsername(student.getUsername()));
+        queries.put("UserRepository.existsByEmail", () -> userRepository.existsByEmail(student.getEmail()));
+
+        queries.put("CourseRepository.findByCode", () -> courseRepository.findByCode("Curso 1"));
+
+        queries.put("TranscriptRepository.addToCell", () ->
+                transcriptRepository.addToCell(userId, 1, LocalDateTime.now(), 1, 150));
+        queries.put("TranscriptRepository.setCell", () -> transcriptRepository.setCell(userId, 1, 1, 2, 300));
+        queries.put("TranscriptRepository.lockStudents", () -> transcriptRepository.lockStudents(List.of(userId, userId + 1)));
+        queries.put("TranscriptRepository.lockAllStudents", () -> transcriptRepository.lockAllStudents());
+        queries.put("TranscriptRepository.findRowsByStudent", () -> transcriptRepository.findRowsByStudent(userId));
+
+        queries.put("FinalGradeRepository.lockStudent", () -> finalGradeRepository.lockStudent(userId));
+        queries.put("FinalGradeRepository.addToComponent", () -> finalGradeRepository.addToComponent(userId, 1, 1, 1, 150));
+        queries.put("FinalGradeRepository.findScores", () -> finalGradeRepository.findScores(userId, 1));
+        queries.put("FinalGradeRepository.findScoresByStudent", () -> finalGradeRepository.findScoresByStudent(userId));
+        queries.put("FinalGradeRepository.findStudentsOfCourse", () -> finalGradeRepository.findStudentsOfCourse(1));
+        queries.put("FinalGradeRepository.lockStudents", () -> finalGradeRepository.lockStudents(List.of(userId, userId + 1)));
+        queries.put("FinalGradeRepository.findScoresOfStudents", () ->
+                finalGradeRepository.findScoresOfStudents(1, List.of(userId, userId + 1)));
+        queries.put("FinalGradeRepository.setFinal", () -> finalGradeRepository.setFinal(userId, 1, 150.0, 50));
+        queries.put("FinalGradeRepository.deleteFinal", () -> finalGradeRepository.deleteFinal(userId, 1));
+        queries.put("FinalGradeRepository.findFinalsByStudent", () -> finalGradeRepository.findFinalsByStudent(userId));
+        queries.put("FinalGradeRepository.findFinalsByCourse", () -> finalGradeRepository.findFinalsByCourse(1));
+        queries.put("CourseComponentRepository.findByCourseIdOrderByCode", () -> componentRepository.findByCourseIdOrderByCode(1));
+        queries.put("CourseComponentRepository.findByCourseIdIn", () -> componentRepository.findByCourseIdIn(List.of(1, 2)));
+        queries.put("CourseComponentRepository.findByCourseIdAndCode", () ->
+                componentRepository.findByCourseIdAndCode(1, "Componente 1"));
+        queries.put("CourseComponentRepository.findWeights", () -> componentRepository.findWeights(1));
+        return queries;
+    }
+
+    @Test
+    void everyRepositoryQuery_IsCovered() {
+        Set<String> declared = new TreeSet<>();
+        for (Class<?> repository : List.of(GradeRepository.class, GradeByStudentRepository.class, UserRepository.class,
+                UserNaturalIdRepository.class, CourseRepository.class, TranscriptRepository.class,
+                FinalGradeRepository.class, CourseComponentRepository.class)) {
+            Arrays.stream(repository.getDeclaredMethods())
+                    .filter(method -> !method.isDefault() && !method.isSynthetic() && !Modifier.isStatic(method.getModifiers()))
+                    .map(Method::getName)
+                    .forEach(name -> declared.add(repository.getSimpleName() + "." + name));
+        }
+
+        assertEquals(declared, new TreeSet<>(queries().keySet()),
+                "Cada consulta nueva de un repositorio debe añadirse a QueryPlanTest");
+    }
+
+    @Test
+    void everyRepositoryQuery_UsesAnIndex() {
+        List<String> failures = new ArrayList<>();
+        queries().forEach((name, query) -> {
+            List<String> statements = capture(query);
+            assertFalse(statements.isEmpty(), name + " no ejecutó ninguna sentencia");
+            if (FULL_SCAN_BY_DESIGN.contains(name)) {
+                return;
+            }
+            for (String sql : statements) {
+                String plan = explain(sql);
+                if (isFullScan(plan)) {
+                    failures.add(name + " recorre la tabla completa:\n" + plan);
+                }
+                if (SORTED_BY_INDEX.contains(name) && !plan.contains("/* index sorted */")) {
+                    failures.add(name + " ordena las filas en lugar de leer el índice ordenado:\n" + plan);
+                }
+            }
+        });
+
+        assertTrue(failures.isEmpty(), String.join("\n\n", failures));
+    }
+
+    private List<String> capture(Runnable query) {
+        // Sin caché de segundo nivel, para que todas las lecturas lleguen a la base de datos
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        RecordingStatementInspector.STATEMENTS.clear();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            query.run();
+            status.setRollbackOnly();
+        });
+        return List.copyOf(RecordingStatementInspector.STATEMENTS);
+    }
+
+    /**
+     * Un acceso sin condición recorre toda la tabla, salvo que el índice aporte el orden y la
+     * consulta se detenga antes (paginación por username en el libro de calificaciones)
+     */
+    private static boolean isFullScan(String plan) {
+        Matcher access = TABLE_ACCESS.matcher(plan);
+        while (access.find()) {
+            boolean unconditioned = access.group(2) == null;
+            if (access.group(1).endsWith(".tableScan")
+                    || (unconditioned && !plan.contains("/* index sorted */"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String explain(String sql) {
+        Matcher delta = DELTA_TABLE.matcher(sql);
+        return runExplain(delta.find() ? delta.group(1) : sql);
+    }
+
+    private String runExplain(String sql) {
+        return jdbcTemplate.query(connection -> connection.prepareStatement("EXPLAIN " + sql),
+                resultSet -> {
+                    List<String> lines = new ArrayList<>();
+                    while (resultSet.next()) {
+                        lines.add(resultSet.getString(1));
+                    }
+                    return lines.stream().collect(Collectors.joining("\n"));
+                });
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.pruebaTecnica.repository;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.service.GradeService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración de la caché de segundo nivel de Hibernate
+ * Sin @Transactional: cada llamada confirma su propia transacción, que es cuando se llena la caché
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+    private User student;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String username = "cache-" + UUID.randomUUID().toString().substring(0, 8);
+        student = userRepository.save(new User(username, username + "@example.com", "password123", "STUDENT"));
+        statistics.clear();
+    }
+
+    private GradeDto upsert(String assessment, double score) {
+        GradeDto gradeDto = new GradeDto(null, "Caché", Grade.toTenths(score), null, student.getUsername(), null, null);
+        gradeDto.setAssessment(assessment);
+        return gradeService.upsertGrade(gradeDto);
+    }
+
+    @Test
+    void findByUsername_ResolvesFromNaturalIdCache() {
+        // Los INSERT con id IDENTITY no llenan la región: la primera lectura va a la base de datos
+        userRepository.findByUsername(student.getUsername()).orElseThrow();
+        statistics.clear();
+
+        User user = userRepository.findByUsername(student.getUsername()).orElseThrow();
+
+        assertEquals(student.getId(), user.getId());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(0, statistics.getPrepareStatementCount()); // ninguna consulta a la base de datos
+    }
+
+    @Test
+    void findById_AfterNativeUpsert_ReturnsNewScore() {
+        Long id = upsert("Parcial", 12.0).getId();
+        assertEquals(Grade.toTenths(12.0), gradeRepository.findById(id).orElseThrow().getScoreTenths());
+
+        upsert("Parcial", 17.5);
+
+        assertEquals(Grade.toTenths(17.5), gradeRepository.findById(id).orElseThrow().getScoreTenths());
+    }
+
+    @Test
+    void findByUserOrderByCreatedAtDesc_UsesQueryCache_AndSeesNativeUpsert() {
+        upsert("Parcial", 12.0);
+        gradeRepository.findByUserOrderByCreatedAtDesc(student);
+        gradeRepository.findByUserOrderByCreatedAtDesc(student);
+        assertTrue(statistics.getQueryCacheHitCount() >= 1);
+
+        upsert("Final", 15.0);
+
+        List<Grade> grades = gradeRepository.findByUserOrderByCreatedAtDesc(student);
+        assertEquals(2, grades.size());
+    }
+
+    @Test
+    void regionStatistics_ExposedAsMetrics() {
+        userRepository.findByUsername(student.getUsername()).orElseThrow();
+        userRepository.findByUsername(student.getUsername()).orElseThrow();
+
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "users", "result", "hit").functionCounter());
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "grades", "result", "miss").functionCounter());
+        assertTrue(meterRegistry.find("hibernate.cache.natural.id.requests")
+                .tags("result", "hit").functionCounter().count() >= 1);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.CourseStatisticsDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeRankDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.ScoreBucketRow;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import org.springframework.data.domain.Pageable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para los histogramas de CourseStatistics
+ */
+@ExtendWith(MockitoExtension.class)
+class CourseStatisticsTest {
+
+    private static final int MATH = 1;
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private CourseDictionary courseDictionary;
+
+    private CourseStatistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new CourseStatistics(gradeRepository, courseDictionary, new SimpleMeterRegistry(), 2);
+        lenient().when(courseDictionary.codeOf(MATH)).thenReturn("Math");
+        lenient().when(courseDictionary.idOf("Math")).thenReturn(MATH);
+        lenient().when(courseDictionary.findId("Math")).thenReturn(Optional.of(MATH));
+    }
+
+    private GradeDto grade(long id, String course, double score) {
+        return new GradeDto(id, course, Grade.toTenths(score), null, "student1", null, null);
+    }
+
+    private ScoreBucketRow row(int courseId, int bucket, long count) {
+        ScoreBucketRow row = mock(ScoreBucketRow.class);
+        lenient().when(row.getCourseId()).thenReturn(courseId);
+        when(row.getBucket()).thenReturn(bucket);
+        when(row.getCount()).thenReturn(count);
+        return row;
+    }
+
+    private CourseStatisticsDto math() {
+        return statistics.statistics("Math", CourseStatistics.DEFAULT_PERCENTILES).orElseThrow();
+    }
+
+    @Test
+    void rebuild_ComputesPercentilesFromHistogram() {
+        // 10.0, 12.5, 12.5 y 18.0
+        ScoreBucketRow ten = row(MATH, 100, 1);
+        ScoreBucketRow twelve = row(MATH, 125, 2);
+        ScoreBucketRow eighteen = row(MATH, 180, 1);
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of(ten, twelve, eighteen));
+
+        statistics.rebuild();
+        CourseStatisticsDto dto = math();
+
+        assertEquals(4, dto.getCount());
+        assertEquals(13.25, dto.getMean(), 1e-9);
+        assertEquals(10.0, dto.getMin());
+        assertEquals(18.0, dto.getMax());
+        assertEquals(12.5, dto.getMedian());
+        assertEquals(10.0, dto.getPercentiles().get("p25"));
+        assertEquals(18.0, dto.getPercentiles().get("p90"));
+        assertEquals(0.75, dto.getPassRate());
+    }
+
+    @Test
+    void onGradeChanged_AppliesCreateUpdateAndDelete() {
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of());
+        statistics.rebuild();
+
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(1L, "Math", 9.0)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(2L, "Math", 15.0)));
+        statistics.onGradeChanged(GradeChangedEvent.updated(1L, grade(1L, "Math", 9.0), 1L, grade(1L, "Math", 11.0)));
+        assertEquals(13.0, math().getMean(), 1e-9);
+        assertEquals(1.0, math().getPassRate());
+
+        statistics.onGradeChanged(GradeChangedEvent.deleted(1L, grade(1L, "Math", 11.0)));
+        statistics.onGradeChanged(GradeChangedEvent.deleted(1L, grade(2L, "Math", 15.0)));
+        assertTrue(statistics.statistics("Math", List.of()).isEmpty());
+    }
+
+    @Test
+    void onGradeChanged_Upsert_AppliesDeltaAgainstPreviousGrade() {
+        ScoreBucketRow sixteen = row(MATH, 160, 3);
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of(sixteen));
+        statistics.rebuild();
+
+        statistics.onGradeChanged(GradeChangedEvent.upserted(1L, null, grade(1L, "Math", 12.0)));
+        statistics.onGradeChanged(GradeChangedEvent.upserted(1L, grade(1L, "Math", 12.0), grade(1L, "Math", 18.0)));
+
+        assertEquals(4, math().getCount());
+        assertEquals(18.0, math().getMax());
+        assertEquals(16.5, math().getMean(), 1e-9);
+        verify(gradeRepository, times(1)).histogramByCourse();
+    }
+
+    @Test
+    void statistics_InvalidPercentile_Throws() {
+        assertThrows(InvalidRequestException.class, () -> statistics.allStatistics(List.of(150.0)));
+    }
+
+    @Test
+    void rank_CountsHigherScoresWithFenwickTree() {
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of());
+        statistics.rebuild();
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(1L, "Math", 12.0)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(2L, "Math", 17.5)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(3L, "Math", 17.5)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(4L, "Math", 19.0)));
+
+        GradeRankDto rank = statistics.rank(grade(2L, "Math", 17.5)).orElseThrow();
+
+        assertEquals(2, rank.getRank()); // empata con la nota 3
+        assertEquals(4, rank.getTotal());
+        assertEquals(75.0, rank.getPercentile());
+        assertEquals(4, statistics.rank(grade(1L, "Math", 12.0)).orElseThrow().getRank());
+    }
+
+    @Test
+    void top_RefillsFromDatabaseOnlyWhenAnEntryLeaves() {
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of());
+        statistics.rebuild();
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(1L, "Math", 20.0)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(2L, "Math", 19.0)));
+        StudentGradeRow first = topRow(grade(1L, "Math", 20.0));
+        StudentGradeRow second = topRow(grade(2L, "Math", 19.0));
+        when(gradeRepository.findTopByCourse(eq(MATH), any(Pageable.class))).thenReturn(List.of(first, second));
+
+        assertEquals(List.of(1L, 2L), ids(statistics.top("Math", 2).orElseThrow()));
+
+        // Una nota menor no entra al ranking; una mayor desplaza a la última sin ir a la base de datos
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(3L, "Math", 18.0)));
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(4L, "Math", 19.5)));
+        assertEquals(List.of(1L, 4L), ids(statistics.top("Math", 2).orElseThrow()));
+        verify(gradeRepository, times(1)).findTopByCourse(eq(MATH), any(Pageable.class));
+
+        // Si una nota del ranking baja, la siguiente fuera de él puede superarla: se recarga
+        statistics.onGradeChanged(GradeChangedEvent.updated(1L, grade(4L, "Math", 19.5), 1L, grade(4L, "Math", 5.0)));
+        statistics.top("Math", 2);
+        verify(gradeRepository, times(2)).findTopByCourse(eq(MATH), any(Pageable.class));
+    }
+
+    @Test
+    void top_ReloadDoesNotBlockWrites_AndKeepsThoseArrivingMeanwhile() {
+        when(gradeRepository.histogramByCourse()).thenReturn(List.of());
+        statistics.rebuild();
+        statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(1L, "Math", 18.0)));
+        StudentGradeRow first = topRow(grade(1L, "Math", 18.0));
+        // Durante la consulta, otro hilo registra una nota mejor: no espera a que termine la recarga
+        when(gradeRepository.findTopByCourse(eq(MATH), any(Pageable.class))).thenAnswer(invocation -> {
+            Thread writer = new Thread(() ->
+                    statistics.onGradeChanged(GradeChangedEvent.created(1L, grade(2L, "Math", 19.0))));
+            writer.start();
+            writer.join(5_000);
+            assertFalse(writer.isAlive(), "La escritura quedó bloqueada por la recarga del ranking");
+            return List.of(first);
+        });
+
+        assertEquals(List.of(2L, 1L), ids(statistics.top("Math", 2).orElseThrow()));
+        verify(gradeRepository, times(1)).findTopByCourse(eq(MATH), any(Pageable.class));
+    }
+
+    @Test
+    void top_KAboveCapacity_Throws() {
+        assertThrows(InvalidRequestException.class, () -> statistics.top("Math", 3));
+    }
+
+    private StudentGradeRow topRow(GradeDto grade) {
+        StudentGradeRow row = mock(StudentGradeRow.class);
+        when(row.getId()).thenReturn(grade.getId());
+        when(row.getScoreTenths()).thenReturn(grade.getScoreTenths());
+        when(row.getStudentUsername()).thenReturn(grade.getStudentUsername());
+        return row;
+    }
+
+    private static List<Long> ids(List<GradeDto> grades) {
+        return grades.stream().map(GradeDto::getId).toList();
+    }
+}
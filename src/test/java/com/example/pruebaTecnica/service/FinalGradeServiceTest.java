@@ -0,0 +1,137 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.repository.CourseComponentRepository;
+import com.example.pruebaTecnica.repository.CourseComponentRepository.ComponentWeight;
+import com.example.pruebaTecnica.repository.FinalGradeRepository;
+import com.example.pruebaTecnica.repository.FinalGradeRepository.ComponentScoreRow;
+import com.example.pruebaTecnica.service.FinalGradeService.Entry;
+import com.example.pruebaTecnica.service.FinalGradeService.FinalCell;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del cálculo de la nota final y del cambio que FinalGradeService aplica a los
+ * acumulados por componente
+ */
+@ExtendWith(MockitoExtension.class)
+class FinalGradeServiceTest {
+
+    @Mock
+    private FinalGradeRepository finalGradeRepository;
+
+    @Mock
+    private CourseComponentRepository componentRepository;
+
+    @Mock
+    private FinalGradeRecomputer recomputer;
+
+    @InjectMocks
+    private FinalGradeService finalGradeService;
+
+    private static ComponentScoreRow score(Long studentId, Integer componentId, int count, long sum) {
+        return new ComponentScoreRow() {
+            public Long getStudentId() { return studentId; }
+            public Integer getCourseId() { return 7; }
+            public Integer getComponentId() { return componentId; }
+            public Integer getGradeCount() { return count; }
+            public Long getScoreSum() { return sum; }
+        };
+    }
+
+    private static ComponentWeight weight(Integer id, int weight) {
+        return new ComponentWeight() {
+            public Integer getId() { return id; }
+            public Short getWeight() { return (short) weight; }
+        };
+    }
+
+    @Test
+    void compute_WeightsTheAverageOfGradedComponentsOnly() {
+        // Exámenes (60): 150 y 170; laboratorios (40): 120; el proyecto (20) aún no tiene notas
+        FinalCell cell = FinalGradeService.compute(
+                List.of(score(1L, 1, 2, 320), score(1L, 2, 1, 120), score(1L, 3, 0, 0)),
+                Map.of(1, (short) 60, 2, (short) 40, 3, (short) 20));
+
+        assertEquals(144.0, cell.finalTenths(), 1e-9);
+        assertEquals(100, cell.gradedWeight());
+        assertNull(FinalGradeService.compute(List.of(score(1L, 3, 0, 0)), Map.of(3, (short) 20)));
+    }
+
+    @Test
+    void record_ScoreChangeInSameComponent_AppliesTheDifferenceAndRecomputesTheCell() {
+        when(finalGradeRepository.findScores(1L, 7)).thenReturn(List.of(score(1L, 1, 1, 155)));
+        when(componentRepository.findWeights(7)).thenReturn(List.of(weight(1, 60)));
+
+        finalGradeService.record(new Entry(1L, 7, 1, (short) 120), new Entry(1L, 7, 1, (short) 155));
+
+        InOrder inOrder = inOrder(finalGradeRepository);
+        inOrder.verify(finalGradeRepository).lockStudent(1L);
+        inOrder.verify(finalGradeRepository).addToComponent(1L, 7, 1, 0, 35);
+        inOrder.verify(finalGradeRepository).setFinal(1L, 7, 155.0, 60);
+    }
+
+    @Test
+    void record_ChecksAfterCommitForWeightChangesSinceItReadTheWeights() {
+        when(recomputer.weightChanges(7)).thenReturn(3L);
+        when(finalGradeRepository.findScores(1L, 7)).thenReturn(List.of(score(1L, 1, 1, 120)));
+        when(componentRepository.findWeights(7)).thenReturn(List.of(weight(1, 60)));
+
+        finalGradeService.record(null, new Entry(1L, 7, 1, (short) 120));
+
+        InOrder inOrder = inOrder(recomputer, componentRepository);
+        inOrder.verify(recomputer).weightChanges(7);
+        inOrder.verify(componentRepository).findWeights(7);
+        inOrder.verify(recomputer).recheckAfterCommit(7, 1L, 3L);
+    }
+
+    @Test
+    void record_UnchangedOrUntaggedGrade_DoesNotWrite() {
+        finalGradeService.record(new Entry(1L, 7, 1, (short) 120), new Entry(1L, 7, 1, (short) 120));
+        finalGradeService.record(null, new Entry(1L, 7, null, (short) 120));
+
+        verifyNoInteractions(finalGradeRepository, componentRepository, recomputer);
+    }
+
+    @Test
+    void record_LastGradeOfTheCellRemoved_DeletesTheFinal() {
+        when(finalGradeRepository.findScores(1L, 7)).thenReturn(List.of(score(1L, 1, 0, 0)));
+        when(componentRepository.findWeights(7)).thenReturn(List.of(weight(1, 60)));
+
+        finalGradeService.record(new Entry(1L, 7, 1, (short) 120), null);
+
+        verify(finalGradeRepository).addToComponent(1L, 7, 1, -1, -120);
+        verify(finalGradeRepository).deleteFinal(1L, 7);
+        verify(finalGradeRepository, never()).setFinal(anyLong(), anyInt(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void record_ReassignedToAnotherStudent_LocksBothInIdOrderAndRecomputesBothCells() {
+        when(componentRepository.findWeights(7)).thenReturn(List.of(weight(1, 60)));
+        when(finalGradeRepository.findScores(2L, 7)).thenReturn(List.of());
+        when(finalGradeRepository.findScores(1L, 7)).thenReturn(List.of(score(1L, 1, 1, 120)));
+
+        finalGradeService.record(new Entry(2L, 7, 1, (short) 120), new Entry(1L, 7, 1, (short) 120));
+
+        InOrder inOrder = inOrder(finalGradeRepository);
+        inOrder.verify(finalGradeRepository).lockStudent(1L);
+        inOrder.verify(finalGradeRepository).lockStudent(2L);
+        verify(finalGradeRepository).addToComponent(2L, 7, 1, -1, -120);
+        verify(finalGradeRepository).addToComponent(1L, 7, 1, 1, 120);
+        verify(finalGradeRepository).deleteFinal(2L, 7);
+        verify(finalGradeRepository).setFinal(1L, 7, 120.0, 60);
+    }
+}
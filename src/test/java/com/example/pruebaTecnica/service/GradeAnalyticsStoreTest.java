@@ -0,0 +1,126 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.AnalyticsResultDto;
+import com.example.pruebaTecnica.dto.AnalyticsStatsDto;
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.service.GradeAnalyticsStore.Filter;
+import com.example.pruebaTecnica.service.GradeAnalyticsStore.GroupBy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para el almacén analítico columnar GradeAnalyticsStore
+ */
+@ExtendWith(MockitoExtension.class)
+class GradeAnalyticsStoreTest {
+
+    private static final LocalDateTime JAN = LocalDateTime.of(2024, 1, 15, 9, 0);
+    private static final LocalDateTime MAR = LocalDateTime.of(2024, 3, 10, 9, 0);
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private CourseDictionary courseDictionary;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GradeAnalyticsStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new GradeAnalyticsStore(gradeRepository, courseDictionary, transactionManager, new SimpleMeterRegistry());
+    }
+
+    private void create(long id, long studentId, String course, double score, LocalDateTime createdAt) {
+        GradeDto grade = new GradeDto(id, course, Grade.toTenths(score), null, "student" + studentId, createdAt, createdAt);
+        store.onGradeChanged(GradeChangedEvent.created(studentId, grade));
+    }
+
+    @Test
+    void aggregate_GroupsAndFiltersAcrossWrites() {
+        create(1L, 1L, "Math", 12.0, JAN);
+        create(2L, 2L, "Math", 15.5, MAR);
+        create(3L, 1L, "Physics", 18.0, MAR);
+        create(4L, 2L, "Physics", 8.0, JAN);
+        GradeDto updated = new GradeDto(4L, "Physics", Grade.toTenths(10.0), null, "student2", JAN, MAR);
+        store.onGradeChanged(GradeChangedEvent.updated(2L, null, 2L, updated));
+        store.onGradeChanged(GradeChangedEvent.deleted(1L, new GradeDto(1L, "Math", Grade.toTenths(12.0), null, "student1", JAN, JAN)));
+
+        AnalyticsResultDto byCourse = store.aggregate(GroupBy.COURSE, Filter.none());
+        assertEquals(List.of("Math", "Physics"), byCourse.getGroups().stream().map(AnalyticsResultDto.Group::getKey).toList());
+        assertEquals(1, byCourse.getGroups().get(0).getCount());
+        assertEquals(14.0, byCourse.getGroups().get(1).getMean());
+        assertEquals(3, byCourse.getMatchedRows());
+
+        AnalyticsResultDto byMonth = store.aggregate(GroupBy.MONTH,
+                new Filter(List.of("Physics"), null, null, 9.0, null));
+        assertEquals(List.of("2024-01", "2024-03"), byMonth.getGroups().stream().map(AnalyticsResultDto.Group::getKey).toList());
+
+        AnalyticsResultDto byStudent = store.aggregate(GroupBy.STUDENT,
+                new Filter(null, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), null, null));
+        assertEquals(List.of("1", "2"), byStudent.getGroups().stream().map(AnalyticsResultDto.Group::getKey).toList());
+    }
+
+    @Test
+    void stats_AccountForColumnsAndIndexOffHeap() {
+        int grades = 10_000;
+        for (int i = 1; i <= grades; i++) {
+            create(i, i % 300, i % 2 == 0 ? "Math" : "Physics", (i % 201) / 10.0, JAN.plusMinutes(i));
+        }
+
+        AnalyticsResultDto result = store.aggregate(GroupBy.COURSE, Filter.none());
+        AnalyticsStatsDto stats = store.stats();
+
+        assertEquals(grades, result.getScannedRows());
+        assertEquals(grades, stats.getLiveRows());
+        // 18 B por fila en columnas + 24 B por índice: ~40 MB por millón fuera del heap
+        assertEquals(42_000_000L, stats.getBytesPerMillionGrades());
+        assertTrue(stats.getOffHeapBytes() >= 42L * grades);
+    }
+
+    /**
+     * Medición con un millón de notas (mvn test -Dtest=GradeAnalyticsStoreTest -Dbenchmark=true)
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void aggregate_OneMillionGrades_ReportsMemoryAndThroughput() {
+        int grades = 1_000_000;
+        String[] courses = {"Math", "Physics", "Chemistry", "History", "Art", "Music", "Biology", "English"};
+        for (int i = 1; i <= grades; i++) {
+            create(i, i % 3000, courses[i % courses.length], (i % 201) / 10.0, JAN.plusMinutes(i));
+        }
+
+        // Algunas pasadas de calentamiento para medir el recorrido ya compilado por el JIT
+        AnalyticsResultDto result = null;
+        for (int run = 0; run < 5; run++) {
+            result = store.aggregate(GroupBy.COURSE, new Filter(null, null, null, 10.5, null));
+        }
+        AnalyticsStatsDto stats = store.stats();
+
+        assertEquals(grades, result.getScannedRows());
+        assertEquals(courses.length, result.getGroups().size());
+        assertEquals(grades, stats.getLiveRows());
+        // 18 B por fila en columnas + 24 B por índice: ~40 MB por millón fuera del heap
+        assertEquals(42_000_000L, stats.getBytesPerMillionGrades());
+        assertTrue(stats.getOffHeapBytes() < 2 * 42_000_000L);
+        System.out.printf("Almacén analítico: %d filas, %d bytes fuera del heap, recorrido en %.2f ms (%.0f filas/s)%n",
+                stats.getRows(), stats.getOffHeapBytes(), result.getElapsedMillis(), result.getRowsPerSecond());
+    }
+}
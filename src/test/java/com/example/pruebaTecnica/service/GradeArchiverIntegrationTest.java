@@ -0,0 +1,138 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.util.JwtUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pruebas de integración del archivado de calificaciones sobre el esquema de las migraciones
+ * (grades_archive de V5, validado contra la entidad ArchivedGrade)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never",
+        "grades.archive.enabled=true",
+        "grades.archive.older-than=30d",
+        "grades.archive.batch-size=2"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class GradeArchiverIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private GradeArchiver gradeArchiver;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private long upsert(String student, String assessment, double score, int daysAgo) {
+        GradeDto gradeDto = new GradeDto(null, "Historia", Grade.toTenths(score), null, student, null, null);
+        gradeDto.setAssessment(assessment);
+        long id = gradeService.upsertGrade(gradeDto).getId();
+        jdbcTemplate.update("UPDATE grades SET created_at = ? WHERE id = ?", LocalDateTime.now().minusDays(daysAgo), id);
+        return id;
+    }
+
+    private JsonNode grades(String student, boolean includeArchived) throws Exception {
+        String body = mockMvc.perform(get("/api/grades")
+                        .param("includeArchived", Boolean.toString(includeArchived))
+                        .header("Authorization", "Bearer " + token(student)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private String token(String student) {
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(
+                org.springframework.security.core.userdetails.User.withUsername(student)
+                        .password("password123").roles("STUDENT").build(), null));
+    }
+
+    private List<Long> ids(JsonNode grades) {
+        return grades.findValues("id").stream().map(JsonNode::asLong).toList();
+    }
+
+    @Test
+    void archive_MovesOldGradesInBatches_AndIncludeArchivedMergesBothSources() throws Exception {
+        String student = "archivo-" + UUID.randomUUID().toString().substring(0, 8);
+        User saved = userRepository.save(new User(student, student + "@example.com", "password123", "STUDENT"));
+        long recent = upsert(student, "Parcial 4", 15.0, 1);
+        long old1 = upsert(student, "Parcial 3", 12.0, 100);
+        long old2 = upsert(student, "Parcial 2", 11.0, 200);
+        long old3 = upsert(student, "Parcial 1", 10.0, 300);
+        long deleted = upsert(student, "Recuperación", 8.0, 400);
+        gradeService.deleteGrade(deleted);
+        // La vista en memoria tiene las notas (con su fecha de creación original)
+        assertEquals(4, grades(student, false).size());
+        double before = meterRegistry.get("grades.archive.archived").counter().count();
+
+        // Tres notas en lotes de dos: dos transacciones con notas y una vacía
+        assertEquals(3, gradeArchiver.archive());
+        assertEquals(0, gradeArchiver.archive());
+
+        assertEquals(before + 3, meterRegistry.get("grades.archive.archived").counter().count());
+        assertEquals(List.of(old1, old2, old3), jdbcTemplate.queryForList(
+                "SELECT id FROM grades_archive WHERE user_id = ? ORDER BY id", Long.class, saved.getId()));
+        // En grades queda la nota reciente y el tombstone de la eliminada
+        assertEquals(List.of(recent, deleted), jdbcTemplate.queryForList(
+                "SELECT id FROM grades WHERE user_id = ? ORDER BY id", Long.class, saved.getId()));
+
+        assertEquals(List.of(recent), ids(grades(student, false)));
+        JsonNode all = grades(student, true);
+        assertEquals(List.of(recent, old1, old2, old3), ids(all));
+        assertEquals("Parcial 3", all.get(1).get("assessment").asText());
+        assertEquals(12.0, all.get(1).get("score").asDouble());
+
+        // La caché de segundo nivel ya no devuelve la fila borrada de grades
+        assertTrue(gradeRepository.findById(old1).isEmpty());
+        // La clave natural queda libre: un upsert crea una nota nueva y la archivada se conserva
+        long reopened = upsert(student, "Parcial 3", 19.0, 0);
+        assertNotEquals(old1, reopened);
+        assertEquals(5, grades(student, true).size());
+    }
+}
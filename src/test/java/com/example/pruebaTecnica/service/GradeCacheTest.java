@@ -0,0 +1,93 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.tenancy.Tenants;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.core.annotation.Order;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para la invalidación precisa de GradeCache
+ */
+class GradeCacheTest {
+
+    private GradeCache gradeCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        gradeCache = new GradeCache(new ConcurrentMapCacheManager(), new Tenants(false, List.of()));
+        loads = new AtomicInteger();
+    }
+
+    private GradeDto grade(long id, String student) {
+        return new GradeDto(id, "Math", Grade.toTenths(15.0), null, student, null, null);
+    }
+
+    private List<GradeDto> loadList(long id, String student) {
+        loads.incrementAndGet();
+        return List.of(grade(id, student));
+    }
+
+    @Test
+    void onGradeChanged_OwnershipMove_EvictsPreviousAndNewOwner() {
+        gradeCache.userGrades(1L, () -> loadList(10L, "student1"));
+        gradeCache.userGrades(2L, () -> loadList(11L, "student2"));
+        gradeCache.userGrades(3L, () -> loadList(12L, "student3"));
+
+        gradeCache.onGradeChanged(GradeChangedEvent.updated(1L, grade(10L, "student1"), 2L, grade(10L, "student2")));
+
+        gradeCache.userGrades(1L, () -> loadList(10L, "student1"));
+        gradeCache.userGrades(2L, () -> loadList(11L, "student2"));
+        gradeCache.userGrades(3L, () -> loadList(12L, "student3"));
+        assertEquals(5, loads.get()); // 3 cargas iniciales + 2 estudiantes invalidados
+    }
+
+    @Test
+    void onGradeChanged_Delete_EvictsGradeById() {
+        gradeCache.grade(10L, () -> grade(10L, "student1"));
+
+        gradeCache.onGradeChanged(GradeChangedEvent.deleted(1L, grade(10L, "student1")));
+
+        assertThrows(ResourceNotFoundException.class, () -> gradeCache.grade(10L, () -> {
+            throw new ResourceNotFoundException("Calificación no encontrada con ID: 10");
+        }));
+    }
+
+    @Test
+    void onGradeChanged_GetBetweenListeners_NeverReloadsStaleGrade() throws Exception {
+        GradeDto updated = new GradeDto(10L, "Math", Grade.toTenths(18.0), null, "student1", null, null);
+        AtomicReference<GradeDto> keyValueStore = new AtomicReference<>(grade(10L, "student1"));
+        gradeCache.grade(10L, keyValueStore::get);
+
+        // Los consumidores en el orden en que Spring los invoca tras el commit, con un getGradeById
+        // entre cada uno: si la caché se invalidara antes que el almacén, recargaría la nota anterior
+        assertTrue(order(GradeKeyValueStore.class) < order(GradeCache.class));
+        Map<Integer, Runnable> listeners = new TreeMap<>();
+        listeners.put(order(GradeKeyValueStore.class), () -> keyValueStore.set(updated));
+        listeners.put(order(GradeCache.class), () -> gradeCache.onGradeChanged(
+                GradeChangedEvent.updated(1L, grade(10L, "student1"), 1L, updated)));
+        for (Runnable listener : listeners.values()) {
+            listener.run();
+            gradeCache.grade(10L, keyValueStore::get);
+        }
+
+        assertEquals(updated.getScoreTenths(), gradeCache.grade(10L, keyValueStore::get).getScoreTenths());
+    }
+
+    private static int order(Class<?> listener) throws NoSuchMethodException {
+        return listener.getMethod("onGradeChanged", GradeChangedEvent.class).getAnnotation(Order.class).value();
+    }
+}
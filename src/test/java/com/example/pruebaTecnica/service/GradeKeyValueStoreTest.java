@@ -0,0 +1,135 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del motor clave-valor GradeKeyValueStore (MVStore en memoria)
+ */
+@ExtendWith(MockitoExtension.class)
+class GradeKeyValueStoreTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private CourseDictionary courseDictionary;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GradeKeyValueStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new GradeKeyValueStore(gradeRepository, courseDictionary, transactionManager, new SimpleMeterRegistry(), "");
+        lenient().when(courseDictionary.codeOf(1)).thenReturn("Math");
+        lenient().when(courseDictionary.idOf("Math")).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private GradeDto grade(long id, String student, double score, int minutes) {
+        GradeDto grade = new GradeDto(id, "Math", Grade.toTenths(score), null, student, T0.plusMinutes(minutes), T0.plusMinutes(minutes));
+        grade.setAssessment("Parcial " + id);
+        return grade;
+    }
+
+    private StudentGradeRow row(long studentId, GradeDto grade) {
+        StudentGradeRow row = mock(StudentGradeRow.class);
+        when(row.getStudentId()).thenReturn(studentId);
+        when(row.getStudentUsername()).thenReturn(grade.getStudentUsername());
+        when(row.getId()).thenReturn(grade.getId());
+        when(row.getCourseId()).thenReturn(1);
+        when(row.getAssessment()).thenReturn(grade.getAssessment());
+        when(row.getScoreTenths()).thenReturn(grade.getScoreTenths());
+        when(row.getCreatedAt()).thenReturn(grade.getCreatedAt());
+        when(row.getUpdatedAt()).thenReturn(grade.getUpdatedAt());
+        return row;
+    }
+
+    private List<Long> ids(long studentId) {
+        return store.findByStudent(studentId).stream().map(GradeDto::getId).toList();
+    }
+
+    @Test
+    void rebuild_ListsEachStudentNewestFirst_WithoutNeighbours() {
+        List<StudentGradeRow> rows = List.of(
+                row(1L, grade(10L, "student1", 12.0, 0)),
+                row(2L, grade(20L, "student2", 11.0, 1)),
+                row(1L, grade(11L, "student1", 15.0, 5)),
+                row(1L, grade(12L, "student1", 9.0, 5)),
+                row(3L, grade(30L, "student3", 18.0, 2)));
+        when(gradeRepository.streamAllWithStudent()).thenReturn(rows.stream());
+
+        assertFalse(store.isReady());
+        store.rebuild();
+
+        assertTrue(store.isReady());
+        assertEquals(List.of(12L, 11L, 10L), ids(1L)); // misma fecha: id descendente
+        assertEquals(List.of(20L), ids(2L));
+        assertEquals(List.of(), ids(4L));
+        assertEquals(5, store.size());
+    }
+
+    @Test
+    void findById_RoundTripsAllFields() {
+        GradeDto grade = grade(7L, "student1", 18.5, 0);
+        grade.setComments("Muy bien");
+        grade.setCreatedAt(T0.plusNanos(123_456_789));
+        store.put(1L, grade);
+
+        GradeDto stored = store.findById(7L).orElseThrow();
+        assertEquals("Math", stored.getCourse());
+        assertEquals("Parcial 7", stored.getAssessment());
+        assertEquals(185, stored.getScoreTenths().intValue());
+        assertEquals("Muy bien", stored.getComments());
+        assertEquals("student1", stored.getStudentUsername());
+        assertEquals(T0.plusNanos(123_456_000), stored.getCreatedAt()); // precisión de microsegundos, como TIMESTAMP
+        assertEquals(T0, stored.getUpdatedAt());
+        assertTrue(store.findById(8L).isEmpty());
+    }
+
+    @Test
+    void events_MoveUpdateAndDeleteGrades() {
+        GradeDto created = grade(10L, "student1", 12.0, 0);
+        store.onGradeChanged(GradeChangedEvent.created(1L, created));
+        assertEquals(List.of(10L), ids(1L));
+
+        GradeDto moved = grade(10L, "student2", 14.0, 0);
+        moved.setUpdatedAt(T0.plusMinutes(10));
+        store.onGradeChanged(GradeChangedEvent.updated(1L, created, 2L, moved));
+        assertEquals(List.of(), ids(1L));
+        assertEquals(List.of(10L), ids(2L));
+
+        // Una actualización anterior que llega tarde no pisa la más reciente
+        store.onGradeChanged(GradeChangedEvent.updated(2L, moved, 2L, grade(10L, "student2", 5.0, 1)));
+        assertEquals(140, store.findById(10L).orElseThrow().getScoreTenths().intValue());
+
+        store.onGradeChanged(GradeChangedEvent.deleted(2L, moved));
+        assertEquals(List.of(), ids(2L));
+        assertTrue(store.findById(10L).isEmpty());
+    }
+}
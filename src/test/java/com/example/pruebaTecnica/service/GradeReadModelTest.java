@@ -0,0 +1,116 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para la vista en memoria GradeReadModel
+ */
+@ExtendWith(MockitoExtension.class)
+class GradeReadModelTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+    @Mock
+    private GradeRepository gradeRepository;
+
+    @Mock
+    private CourseDictionary courseDictionary;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private GradeReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new GradeReadModel(gradeRepository, courseDictionary, transactionManager, new SimpleMeterRegistry());
+        lenient().when(courseDictionary.codeOf(1)).thenReturn("Math");
+    }
+
+    private GradeDto grade(long id, String student, double score, int minutes) {
+        return new GradeDto(id, "Math", Grade.toTenths(score), null, student, T0.plusMinutes(minutes), T0.plusMinutes(minutes));
+    }
+
+    private StudentGradeRow row(long studentId, GradeDto grade) {
+        StudentGradeRow row = mock(StudentGradeRow.class);
+        when(row.getStudentId()).thenReturn(studentId);
+        when(row.getStudentUsername()).thenReturn(grade.getStudentUsername());
+        when(row.getId()).thenReturn(grade.getId());
+        when(row.getCourseId()).thenReturn(1);
+        when(row.getScoreTenths()).thenReturn(grade.getScoreTenths());
+        when(row.getCreatedAt()).thenReturn(grade.getCreatedAt());
+        when(row.getUpdatedAt()).thenReturn(grade.getUpdatedAt());
+        return row;
+    }
+
+    @Test
+    void findByStudent_BeforeRebuild_FallsBackToDatabase() {
+        assertTrue(readModel.findByStudent(1L).isEmpty());
+    }
+
+    @Test
+    void rebuild_SortsNewestFirst() {
+        StudentGradeRow older = row(1L, grade(10L, "student1", 12.0, 0));
+        StudentGradeRow newer = row(1L, grade(11L, "student1", 15.0, 5));
+        when(gradeRepository.streamAllWithStudent()).thenReturn(Stream.of(older, newer));
+
+        readModel.rebuild();
+
+        List<GradeDto> grades = readModel.findByStudent(1L).orElseThrow();
+        assertEquals(List.of(11L, 10L), grades.stream().map(GradeDto::getId).toList());
+        assertTrue(readModel.findByStudent(2L).isEmpty()); // estudiante desconocido: se consulta la BD
+    }
+
+    @Test
+    void onGradeChanged_AppliesCreateUpdateMoveAndDelete() {
+        StudentGradeRow existing = row(1L, grade(10L, "student1", 12.0, 0));
+        when(gradeRepository.streamAllWithStudent()).thenReturn(Stream.of(existing));
+        readModel.rebuild();
+
+        GradeDto created = grade(11L, "student1", 14.0, 10);
+        readModel.onGradeChanged(GradeChangedEvent.created(1L, created));
+        assertEquals(List.of(11L, 10L), ids(1L));
+
+        GradeDto moved = grade(10L, "student2", 16.0, 20);
+        readModel.onGradeChanged(GradeChangedEvent.updated(1L, grade(10L, "student1", 12.0, 0), 2L, moved));
+        assertEquals(List.of(11L), ids(1L));
+        assertEquals(16.0, readModel.findByStudent(2L).orElseThrow().get(0).getScore());
+
+        readModel.onGradeChanged(GradeChangedEvent.deleted(1L, created));
+        assertEquals(List.of(), ids(1L)); // sigue conocido, con lista vacía
+    }
+
+    @Test
+    void onGradeChanged_OutOfOrderUpdate_IsIgnored() {
+        StudentGradeRow existing = row(1L, grade(10L, "student1", 12.0, 30));
+        when(gradeRepository.streamAllWithStudent()).thenReturn(Stream.of(existing));
+        readModel.rebuild();
+
+        GradeDto stale = grade(10L, "student1", 9.0, 5);
+        readModel.onGradeChanged(GradeChangedEvent.updated(1L, null, 1L, stale));
+
+        assertEquals(12.0, readModel.findByStudent(1L).orElseThrow().get(0).getScore());
+    }
+
+    private List<Long> ids(long studentId) {
+        return readModel.findByStudent(studentId).orElseThrow().stream().map(GradeDto::getId).toList();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.service.GradeResponseCache.CachedBody;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para GradeResponseCache
+ */
+class GradeResponseCacheTest {
+
+    private GradeResponseCache responseCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new GradeResponseCache(new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry(),
+                DataSize.ofMegabytes(1), Duration.ofMinutes(5), 2);
+        loads = new AtomicInteger();
+    }
+
+    private List<GradeDto> load(double score) {
+        loads.incrementAndGet();
+        return List.of(new GradeDto(1L, "Math", Grade.toTenths(score), null, "student1", null, null));
+    }
+
+    @Test
+    void userGrades_SerializesOncePerStudent() {
+        CachedBody first = responseCache.userGrades("student1", () -> load(15.0));
+        CachedBody second = responseCache.userGrades("student1", () -> load(15.0));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertTrue(new String(first.bytes(), StandardCharsets.UTF_8).contains("\"score\":15.0"));
+        assertTrue(first.etag().startsWith("\""));
+    }
+
+    @Test
+    void onGradeChanged_InvalidatesOwnerBody_AndChangesEtag() {
+        CachedBody before = responseCache.userGrades("student1", () -> load(15.0));
+        GradeDto updated = new GradeDto(1L, "Math", Grade.toTenths(17.0), null, "student1", null, null);
+
+        responseCache.onGradeChanged(GradeChangedEvent.upserted(1L, null, updated));
+        CachedBody after = responseCache.userGrades("student1", () -> load(17.0));
+
+        assertEquals(2, loads.get());
+        assertNotEquals(before.etag(), after.etag());
+    }
+
+    @Test
+    void etag_VersionsAreBounded_AndAnEvictedVersionNeverRepeatsAnIssuedEtag() {
+        Set<String> issued = new HashSet<>();
+        String first = responseCache.etag("student1");
+        responseCache.onGradeChanged(GradeChangedEvent.upserted(1L, null,
+                new GradeDto(1L, "Math", Grade.toTenths(17.0), null, "student1", null, null)));
+        String changed = responseCache.etag("student1");
+        issued.add(first);
+        issued.add(changed);
+        // Más estudiantes que versiones recordadas: la de student1 puede desalojarse
+        for (int i = 2; i <= 50; i++) {
+            issued.add(responseCache.etag("student" + i));
+        }
+
+        String current = responseCache.etag("student1");
+        assertTrue(current.equals(changed) || !issued.contains(current));
+        assertNotEquals(first, current);
+    }
+
+    @Test
+    void onGradeChanged_GetBetweenListeners_NeverCachesStaleBodyUnderNewEtag() throws Exception {
+        AtomicReference<Double> readModel = new AtomicReference<>(15.0);
+        responseCache.userGrades("student1", () -> load(readModel.get()));
+        GradeChangedEvent event = GradeChangedEvent.upserted(1L, null,
+                new GradeDto(1L, "Math", Grade.toTenths(17.0), null, "student1", null, null));
+
+        // Los consumidores en el orden en que Spring los invoca tras el commit, con un GET entre
+        // cada uno: si la caché se invalidara antes que la vista, ese GET guardaría la lista
+        // anterior bajo el ETag nuevo y ningún GET condicional la volvería a descargar
+        assertTrue(order(GradeReadModel.class) < order(GradeResponseCache.class));
+        Map<Integer, Runnable> listeners = new TreeMap<>();
+        listeners.put(order(GradeReadModel.class), () -> readModel.set(17.0));
+        listeners.put(order(GradeResponseCache.class), () -> responseCache.onGradeChanged(event));
+        for (Runnable listener : listeners.values()) {
+            listener.run();
+            responseCache.userGrades("student1", () -> load(readModel.get()));
+        }
+
+        CachedBody body = responseCache.userGrades("student1", () -> load(readModel.get()));
+        assertEquals(responseCache.etag("student1"), body.etag());
+        assertTrue(new String(body.bytes(), StandardCharsets.UTF_8).contains("\"score\":17.0"));
+    }
+
+    private static int order(Class<?> listener) throws NoSuchMethodException {
+        return listener.getMethod("onGradeChanged", GradeChangedEvent.class).getAnnotation(Order.class).value();
+    }
+}
@@ -1,18 +1,33 @@
 package com.example.pruebaTecnica.service;
 
+import com.example.pruebaTecnica.dto.GradeChangesDto;
 import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.GradeSummaryDto;
+import com.example.pruebaTecnica.entity.ArchivedGrade;
+import com.example.pruebaTecnica.entity.Course;
 import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.entity.ScoreBand;
 import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
 import com.example.pruebaTecnica.exception.ResourceNotFoundException;
+import com.example.pruebaTecnica.repository.GradeArchiveRepository;
 import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.CourseSummaryRow;
+import com.example.pruebaTecnica.repository.GradeRepository.GradeChangeRow;
+import com.example.pruebaTecnica.repository.GradeRepository.GradeRow;
 import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.tenancy.Tenants;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -24,6 +39,9 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyShort;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 /**
@@ -38,6 +56,27 @@ class GradeServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private GradeArchiveRepository gradeArchiveRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private GradeReadModel gradeReadModel;
+
+    @Mock
+    private TranscriptService transcriptService;
+
+    @Mock
+    private FinalGradeService finalGradeService;
+
+    @Mock
+    private CourseDictionary courseDictionary;
+
+    @Spy
+    private GradeCache gradeCache = new GradeCache(new ConcurrentMapCacheManager(), new Tenants(false, List.of()));
+
     @Mock
     private SecurityContext securityContext;
 
@@ -47,6 +86,9 @@ class GradeServiceTest {
     @InjectMocks
     private GradeService gradeService;
 
+    private final Course math = course(1, "Math");
+    private final Course physics = course(2, "Physics");
+
     private User testUser;
     private Grade testGrade;
     private GradeDto testGradeDto;
@@ -56,7 +98,7 @@ class GradeServiceTest {
         testUser = new User("student1", "student@example.com", "password", "STUDENT");
         testUser.setId(1L);
 
-        testGrade = new Grade("Math", "Grade description", 18.0, testUser);
+        testGrade = new Grade(math, "Grade description", Grade.toTenths(18.0), testUser);
         testGrade.setId(1L);
         testGrade.setCreatedAt(LocalDateTime.now());
         testGrade.setUpdatedAt(LocalDateTime.now());
@@ -68,6 +110,7 @@ class GradeServiceTest {
         testGradeDto.setStudentUsername("student1");
 
         mockSecurityContext();
+        mockCourseDictionary();
     }
 
     @AfterEach
@@ -75,6 +118,20 @@ class GradeServiceTest {
         SecurityContextHolder.clearContext();
     }
 
+    private static Course course(int id, String code) {
+        Course course = new Course(code);
+        course.setId(id);
+        return course;
+    }
+
+    private void mockCourseDictionary() {
+        for (Course course : List.of(math, physics)) {
+            lenient().when(courseDictionary.idOf(course.getCode())).thenReturn(course.getId());
+            lenient().when(courseDictionary.codeOf(course.getId())).thenReturn(course.getCode());
+            lenient().when(courseDictionary.reference(course.getCode())).thenReturn(course);
+        }
+    }
+
     private void mockSecurityContext() {
         lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
         lenient().when(authentication.getName()).thenReturn("student1");
@@ -120,6 +177,61 @@ class GradeServiceTest {
         verify(gradeRepository, times(1)).findByUserOrderByCreatedAtDesc(testUser);
     }
 
+    @Test
+    void getUserGrades_SecondCall_IsServedFromCache() {
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeRepository.findByUserOrderByCreatedAtDesc(testUser))
+                .thenReturn(Arrays.asList(testGrade));
+
+        gradeService.getUserGrades();
+        List<GradeDto> result = gradeService.getUserGrades();
+
+        assertEquals(1, result.size());
+        verify(gradeRepository, times(1)).findByUserOrderByCreatedAtDesc(testUser);
+    }
+
+    @Test
+    void getUserGrades_ServedFromReadModel_WithoutQueryingGrades() {
+        GradeDto projected = new GradeDto(1L, "Math", Grade.toTenths(18.0), null, "student1", null, null);
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeReadModel.findByStudent(1L)).thenReturn(Optional.of(List.of(projected)));
+
+        List<GradeDto> result = gradeService.getUserGrades();
+
+        assertEquals(List.of(projected), result);
+        verify(gradeRepository, never()).findByUserOrderByCreatedAtDesc(any(User.class));
+    }
+
+    @Test
+    void getUserGradesIncludingArchived_MergesNewestFirst_WithoutDuplicates() {
+        LocalDateTime now = LocalDateTime.now();
+        GradeDto recent = new GradeDto(5L, "Math", Grade.toTenths(18.0), null, "student1", now, now);
+        GradeDto beingArchived = new GradeDto(3L, "Math", Grade.toTenths(11.0), null, "student1", now.minusYears(1), now);
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeReadModel.findByStudent(1L)).thenReturn(Optional.of(List.of(recent, beingArchived)));
+        List<ArchivedGrade> archived = List.of(
+                archivedGrade(4L, now.minusMonths(13)),
+                archivedGrade(3L, now.minusYears(1)),
+                archivedGrade(2L, now.minusYears(2)));
+        when(gradeArchiveRepository.findByUserIdOrderByCreatedAtDescIdDesc(1L)).thenReturn(archived);
+
+        List<GradeDto> result = gradeService.getUserGradesIncludingArchived();
+
+        assertEquals(List.of(5L, 3L, 4L, 2L), result.stream().map(GradeDto::getId).toList());
+        assertEquals(11.0, result.get(1).getScore());
+        assertEquals("Physics", result.get(2).getCourse());
+        assertEquals("student1", result.get(3).getStudentUsername());
+    }
+
+    private ArchivedGrade archivedGrade(long id, LocalDateTime createdAt) {
+        ArchivedGrade grade = mock(ArchivedGrade.class);
+        lenient().when(grade.getId()).thenReturn(id);
+        lenient().when(grade.getCourseId()).thenReturn(physics.getId());
+        lenient().when(grade.getScoreTenths()).thenReturn(Grade.toTenths(9.0));
+        lenient().when(grade.getCreatedAt()).thenReturn(createdAt);
+        return grade;
+    }
+
     @Test
     void getUserGrades_ThrowsException_WhenUserNotFound() {
         when(userRepository.findByUsername("student1")).thenReturn(Optional.empty());
@@ -154,7 +266,7 @@ class GradeServiceTest {
     void getGradeById_ThrowsException_WhenUserNotOwner() {
         User otherUser = new User("other", "other@example.com", "password", "STUDENT");
         otherUser.setId(2L);
-        Grade otherGrade = new Grade("Physics", "Other grade", 15.0, otherUser);
+        Grade otherGrade = new Grade(physics, "Other grade", Grade.toTenths(15.0), otherUser);
         otherGrade.setId(1L);
 
         when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
@@ -171,7 +283,7 @@ class GradeServiceTest {
         updateDto.setScore(19.0);
         updateDto.setStudentUsername("student1");
 
-        Grade updatedGrade = new Grade("Physics", "Updated description", 19.0, testUser);
+        Grade updatedGrade = new Grade(physics, "Updated description", Grade.toTenths(19.0), testUser);
         updatedGrade.setId(1L);
 
         when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
@@ -187,6 +299,84 @@ class GradeServiceTest {
         verify(gradeRepository, times(1)).save(testGrade);
     }
 
+    private GradeRow gradeRow(long id, Course course, String assessment, double score) {
+        GradeRow row = mock(GradeRow.class);
+        lenient().when(row.getId()).thenReturn(id);
+        lenient().when(row.getCourseId()).thenReturn(course.getId());
+        lenient().when(row.getAssessment()).thenReturn(assessment);
+        lenient().when(row.getScoreTenths()).thenReturn(Grade.toTenths(score));
+        return row;
+    }
+
+    @Test
+    void upsertGrade_MergesByNaturalKey() {
+        testGradeDto.setAssessment("Examen Parcial");
+        GradeRow row = gradeRow(1L, math, "Examen Parcial", 18.0);
+
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeRepository.upsertByNaturalKey(1L, 1, null, "Examen Parcial", Grade.toTenths(18.0), "Grade description"))
+                .thenReturn(row);
+
+        GradeDto result = gradeService.upsertGrade(testGradeDto);
+
+        assertEquals(1L, result.getId());
+        assertEquals("Examen Parcial", result.getAssessment());
+        assertEquals("student1", result.getStudentUsername());
+        verify(gradeRepository, never()).findById(any());
+        verify(gradeRepository, never()).save(any(Grade.class));
+    }
+
+    @Test
+    void upsertGrades_ResolvesStudentsInSingleQuery() {
+        GradeDto second = new GradeDto(null, "Physics", Grade.toTenths(15.0), null, "student1", null, null);
+        second.setAssessment("Laboratorio");
+        testGradeDto.setAssessment("Examen Parcial");
+        GradeRow firstRow = gradeRow(1L, math, "Examen Parcial", 18.0);
+        GradeRow secondRow = gradeRow(2L, physics, "Laboratorio", 15.0);
+
+        when(userRepository.findByUsernameIn(anySet())).thenReturn(List.of(testUser));
+        when(gradeRepository.upsertByNaturalKey(1L, 1, null, "Examen Parcial", Grade.toTenths(18.0), "Grade description"))
+                .thenReturn(firstRow);
+        when(gradeRepository.upsertByNaturalKey(1L, 2, null, "Laboratorio", Grade.toTenths(15.0), null))
+                .thenReturn(secondRow);
+
+        List<GradeDto> result = gradeService.upsertGrades(List.of(testGradeDto, second));
+
+        assertEquals(2, result.size());
+        verify(userRepository, times(1)).findByUsernameIn(anySet());
+        verify(userRepository, never()).findByUsername(anyString());
+    }
+
+    @Test
+    void upsertGrades_ThrowsException_WhenStudentNotFound() {
+        testGradeDto.setAssessment("Examen Parcial");
+        when(userRepository.findByUsernameIn(anySet())).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> gradeService.upsertGrades(List.of(testGradeDto)));
+        verify(gradeRepository, never()).upsertByNaturalKey(any(), any(), any(), any(), anyShort(), any());
+    }
+
+    @Test
+    void updateGrade_MovingOwnership_PublishesEventForBothStudents() {
+        User otherStudent = new User("student2", "student2@example.com", "password", "STUDENT");
+        otherStudent.setId(2L);
+        GradeDto updateDto = new GradeDto(null, "Math", Grade.toTenths(17.0), null, "student2", null, null);
+
+        when(gradeRepository.findById(1L)).thenReturn(Optional.of(testGrade));
+        when(userRepository.findByUsername("student2")).thenReturn(Optional.of(otherStudent));
+        when(gradeRepository.save(any(Grade.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        gradeService.updateGrade(1L, updateDto);
+
+        ArgumentCaptor<GradeChangedEvent> captor = ArgumentCaptor.forClass(GradeChangedEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        GradeChangedEvent event = captor.getValue();
+        assertEquals(GradeChangedEvent.Type.UPDATED, event.type());
+        assertEquals(18.0, event.previous().getScore());
+        assertEquals(17.0, event.current().getScore());
+        assertEquals(List.of(1L, 2L), List.copyOf(event.affectedStudentIds()));
+    }
+
     @Test
     void deleteGrade_Success() {
         lenient().when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
@@ -204,4 +394,76 @@ class GradeServiceTest {
         assertThrows(ResourceNotFoundException.class, () -> gradeService.deleteGrade(1L));
         verify(gradeRepository, never()).delete(any(Grade.class));
     }
+
+    @Test
+    void getGradeChanges_SplitsChangedAndDeleted() {
+        GradeChangeRow live = changeRow(10L, 1L, false, 5L);
+        GradeChangeRow removed = changeRow(11L, 1L, true, 6L);
+        GradeChangeRow moved = changeRow(12L, 2L, false, 7L);
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeRepository.findChangesSince(1L, 4L, 3)).thenReturn(List.of(live, removed, moved));
+
+        GradeChangesDto changes = gradeService.getGradeChanges(4L, 2);
+
+        assertEquals(List.of(10L), changes.getChanged().stream().map(GradeDto::getId).toList());
+        assertEquals("student1", changes.getChanged().get(0).getStudentUsername());
+        assertEquals(List.of(11L), changes.getDeleted());
+        assertEquals(6L, changes.getCursor());
+        assertTrue(changes.isHasMore());
+    }
+
+    @Test
+    void getGradeSummary_CombinesCoursesIntoOverall() {
+        LocalDateTime now = LocalDateTime.now();
+        // En décimas: Math 100 y 140; Physics 180 (agrupados por id de curso, sin orden)
+        CourseSummaryRow mathRow = summaryRow(math, 2L, 240L, 29600L, 100, 140, 140, now.minusDays(1));
+        CourseSummaryRow physicsRow = summaryRow(physics, 1L, 180L, 32400L, 180, 180, 180, now);
+        when(userRepository.findByUsername("student1")).thenReturn(Optional.of(testUser));
+        when(gradeRepository.summarizeByCourse(1L)).thenReturn(List.of(physicsRow, mathRow));
+
+        GradeSummaryDto summary = gradeService.getGradeSummary();
+        gradeService.getGradeSummary();
+
+        GradeSummaryDto.Stats mathStats = summary.getCourses().get(0);
+        assertEquals("Math", mathStats.getCourse());
+        assertEquals(12.0, mathStats.getMean());
+        assertEquals(2.0, mathStats.getStdDev(), 1e-9);
+        assertEquals(ScoreBand.B, mathStats.getBand());
+        assertTrue(mathStats.isPassing());
+
+        GradeSummaryDto.Stats overall = summary.getOverall();
+        assertEquals(3, overall.getCount());
+        assertEquals(14.0, overall.getMean(), 1e-9);
+        assertEquals(10.0, overall.getMin());
+        assertEquals(18.0, overall.getMax());
+        assertEquals(Math.sqrt(32.0 / 3), overall.getStdDev(), 1e-9);
+        assertEquals(18.0, overall.getLatestScore());
+        assertEquals(ScoreBand.A, overall.getBand());
+        verify(gradeRepository, times(1)).summarizeByCourse(1L); // la segunda lectura sale de caché
+    }
+
+    private CourseSummaryRow summaryRow(Course course, Long count, Long sum, Long sumOfSquares,
+                                        int min, int max, int latestScore, LocalDateTime latestAt) {
+        CourseSummaryRow row = mock(CourseSummaryRow.class);
+        when(row.getCourseId()).thenReturn(course.getId());
+        when(row.getCount()).thenReturn(count);
+        when(row.getSum()).thenReturn(sum);
+        when(row.getSumOfSquares()).thenReturn(sumOfSquares);
+        when(row.getMin()).thenReturn((short) min);
+        when(row.getMax()).thenReturn((short) max);
+        lenient().when(row.getLatestScore()).thenReturn((short) latestScore);
+        when(row.getLatestAt()).thenReturn(latestAt);
+        return row;
+    }
+
+    private GradeChangeRow changeRow(Long id, Long userId, boolean deleted, Long changeSeq) {
+        GradeChangeRow row = mock(GradeChangeRow.class);
+        lenient().when(row.getId()).thenReturn(id);
+        lenient().when(row.getUserId()).thenReturn(userId);
+        lenient().when(row.getDeleted()).thenReturn(deleted);
+        lenient().when(row.getChangeSeq()).thenReturn(changeSeq);
+        lenient().when(row.getCourseId()).thenReturn(math.getId());
+        lenient().when(row.getScoreTenths()).thenReturn(Grade.toTenths(15.0));
+        return row;
+    }
 }
@@ -0,0 +1,133 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.exception.IdempotencyConflictException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para IdempotencyService
+ */
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+    private GradeDto request;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(new ObjectMapper().findAndRegisterModules(),
+                Duration.ofMinutes(5), 100, Duration.ofSeconds(5));
+        request = new GradeDto(null, "Math", Grade.toTenths(18.0), null, "student1", null, null);
+    }
+
+    @Test
+    void execute_SameKey_ReplaysFirstResponse() {
+        AtomicInteger executions = new AtomicInteger();
+
+        ResponseEntity<String> first = idempotencyService.execute("teacher1", "key-1", request,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("grade-" + executions.incrementAndGet()));
+        ResponseEntity<String> retry = idempotencyService.execute("teacher1", "key-1", request,
+                () -> ResponseEntity.status(HttpStatus.CREATED).body("grade-" + executions.incrementAndGet()));
+
+        assertEquals(1, executions.get());
+        assertEquals("grade-1", retry.getBody());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_KeysAreScopedPerUser() {
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute("teacher1", "key-1", request, () -> ResponseEntity.ok(executions.incrementAndGet()));
+        idempotencyService.execute("teacher2", "key-1", request, () -> ResponseEntity.ok(executions.incrementAndGet()));
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_SameKeyDifferentBody_ThrowsConflict() {
+        idempotencyService.execute("teacher1", "key-1", request, () -> ResponseEntity.ok("ok"));
+        GradeDto other = new GradeDto(null, "Math", Grade.toTenths(11.0), null, "student1", null, null);
+
+        assertThrows(IdempotencyConflictException.class, () ->
+                idempotencyService.execute("teacher1", "key-1", other, () -> ResponseEntity.ok("ok")));
+    }
+
+    @Test
+    void execute_FailedAttempt_IsNotRemembered() {
+        assertThrows(IllegalStateException.class, () ->
+                idempotencyService.execute("teacher1", "key-1", request, () -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        ResponseEntity<String> retry = idempotencyService.execute("teacher1", "key-1", request,
+                () -> ResponseEntity.ok("ok"));
+
+        assertEquals("ok", retry.getBody());
+    }
+
+    @Test
+    void execute_AttemptFailingWithError_IsNotRemembered() {
+        assertThrows(StackOverflowError.class, () ->
+                idempotencyService.execute("teacher1", "key-1", request, () -> {
+                    throw new StackOverflowError();
+                }));
+
+        ResponseEntity<String> retry = idempotencyService.execute("teacher1", "key-1", request,
+                () -> ResponseEntity.ok("ok"));
+
+        assertEquals("ok", retry.getBody());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicates_WaitForInFlightResult() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<ResponseEntity<Integer>> original = executor.submit(() ->
+                    idempotencyService.execute("teacher1", "key-1", request, () -> {
+                        started.countDown();
+                        await(release);
+                        return ResponseEntity.ok(executions.incrementAndGet());
+                    }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<ResponseEntity<Integer>> duplicate = executor.submit(() ->
+                    idempotencyService.execute("teacher1", "key-1", request,
+                            () -> ResponseEntity.ok(executions.incrementAndGet())));
+            release.countDown();
+
+            assertEquals(1, original.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals(1, duplicate.get(5, TimeUnit.SECONDS).getBody());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
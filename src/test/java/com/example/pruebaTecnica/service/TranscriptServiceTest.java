@@ -0,0 +1,67 @@
+package com.example.pruebaTecnica.service;
+
+import com.example.pruebaTecnica.repository.TranscriptRepository;
+import com.example.pruebaTecnica.service.TranscriptService.Entry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias del cambio que TranscriptService aplica a las celdas del expediente
+ */
+@ExtendWith(MockitoExtension.class)
+class TranscriptServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 10, 9, 30);
+
+    @Mock
+    private TranscriptRepository transcriptRepository;
+
+    @InjectMocks
+    private TranscriptService transcriptService;
+
+    @Test
+    void record_ScoreChangeInSameCell_AppliesOnlyTheDifference() {
+        transcriptService.record(new Entry(1L, 7, CREATED, (short) 120), new Entry(1L, 7, CREATED.plusHours(2), (short) 155));
+
+        verify(transcriptRepository).lockStudents(List.of(1L));
+        verify(transcriptRepository).addToCell(1L, 7, CREATED.plusHours(2), 0, 35);
+        verifyNoMoreInteractions(transcriptRepository);
+    }
+
+    @Test
+    void record_UnchangedScore_DoesNotWrite() {
+        transcriptService.record(new Entry(1L, 7, CREATED, (short) 120), new Entry(1L, 7, CREATED, (short) 120));
+
+        verifyNoInteractions(transcriptRepository);
+    }
+
+    @Test
+    void record_ReassignedToAnotherStudent_LocksBothInIdOrderAndMovesBetweenCells() {
+        transcriptService.record(new Entry(2L, 7, CREATED, (short) 120), new Entry(1L, 7, CREATED, (short) 120));
+
+        InOrder inOrder = inOrder(transcriptRepository);
+        inOrder.verify(transcriptRepository).lockStudents(argThat(ids -> List.copyOf(ids).equals(List.of(1L, 2L))));
+        inOrder.verify(transcriptRepository).addToCell(2L, 7, CREATED, -1, -120);
+        inOrder.verify(transcriptRepository).addToCell(1L, 7, CREATED, 1, 120);
+    }
+
+    @Test
+    void record_GradeWithoutCreationDate_IsIgnored() {
+        transcriptService.record(null, new Entry(1L, 7, null, (short) 120));
+
+        verify(transcriptRepository, never()).addToCell(any(), any(), any(), anyInt(), anyLong());
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.pruebaTecnica.sharding;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.FinalGradeDto;
+import com.example.pruebaTecnica.dto.GradebookDto;
+import com.example.pruebaTecnica.dto.RecomputationDto;
+import com.example.pruebaTecnica.dto.TermDto;
+import com.example.pruebaTecnica.entity.User;
+import com.example.pruebaTecnica.exception.InvalidRequestException;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.GradeRepository.ScoreBucketRow;
+import com.example.pruebaTecnica.repository.GradeRepository.StudentGradeRow;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.FinalGradeService;
+import com.example.pruebaTecnica.service.GradeService;
+import com.example.pruebaTecnica.service.TranscriptService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de integración del sharding de calificaciones con tres bases H2 en memoria
+ * Cada prueba crea sus propios estudiantes y curso, y comprueba en qué shard quedó cada fila
+ * leyendo directamente los pools de los shards.
+ */
+@SpringBootTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never",
+        "grades.sharding.enabled=true",
+        "grades.sharding.urls=jdbc:h2:mem:sharding-0;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:sharding-1;DB_CLOSE_DELAY=-1,"
+                + "jdbc:h2:mem:sharding-2;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+class ShardingIntegrationTest {
+
+    private static final int SHARDS = 3;
+
+    @Autowired
+    private GradeService gradeService;
+
+    @Autowired
+    private FinalGradeService finalGradeService;
+
+    @Autowired
+    private TranscriptService transcriptService;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardedDataSource dataSource;
+
+    @Autowired
+    private ShardMap shardMap;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String course;
+
+    @BeforeEach
+    void setUp() {
+        course = "Curso-" + UUID.randomUUID().toString().substring(0, 8);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "teacher", null, List.of(new SimpleGrantedAuthority("ROLE_TEACHER"))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private JdbcTemplate shard(int shard) {
+        return new JdbcTemplate(dataSource.shard(shard));
+    }
+
+    /**
+     * Estudiantes nuevos hasta tener al menos uno en cada shard
+     */
+    private List<User> studentsOnEveryShard() {
+        List<User> students = new ArrayList<>();
+        boolean[] covered = new boolean[SHARDS];
+        while (!(covered[0] && covered[1] && covered[2])) {
+            String username = "shard-" + UUID.randomUUID().toString().substring(0, 8);
+            User student = userRepository.save(new User(username, username + "@example.com", "password123", "STUDENT"));
+            covered[shardMap.shardOfUser(student.getId())] = true;
+            students.add(student);
+        }
+        return students;
+    }
+
+    private GradeDto grade(User student, String assessment, double score) {
+        GradeDto grade = new GradeDto();
+        grade.setStudentUsername(student.getUsername());
+        grade.setCourse(course);
+        grade.setAssessment(assessment);
+        grade.setScore(score);
+        return gradeService.createGrade(grade);
+    }
+
+    private GradeDto grade(User student, String component, String assessment, double score) {
+        GradeDto grade = new GradeDto();
+        grade.setStudentUsername(student.getUsername());
+        grade.setCourse(course);
+        grade.setAssessment(assessment);
+        grade.setComponent(component);
+        grade.setScore(score);
+        return gradeService.createGrade(grade);
+    }
+
+    // Filas de la tabla del estudiante en cada shard
+    private int[] rowsPerShard(String table, User student) {
+        int[] rows = new int[SHARDS];
+        for (int shard = 0; shard < SHARDS; shard++) {
+            rows[shard] = shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM " + table + " WHERE user_id = ?", Integer.class, student.getId());
+        }
+        return rows;
+    }
+
+    private int shardsHolding(long gradeId) {
+        int holding = 0;
+        for (int shard = 0; shard < SHARDS; shard++) {
+            holding += shard(shard).queryForObject("SELECT COUNT(*) FROM grades WHERE id = ?", Integer.class, gradeId);
+        }
+        return holding;
+    }
+
+    private double statements(int shard) {
+        return meterRegistry.get("grades.sharding.statements").tag("shard", String.valueOf(shard)).counter().count();
+    }
+
+    @Test
+    void referenceData_IsCopiedToEveryShard() {
+        User student = studentsOnEveryShard().get(0);
+        grade(student, "Parcial", 14.0);
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(1, shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM users WHERE username = ?", Integer.class, student.getUsername()));
+            assertEquals(1, shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM courses WHERE code = ?", Integer.class, course));
+        }
+    }
+
+    @Test
+    void grades_LiveOnlyOnTheirStudentsShard_WithIdsOfThatShard() {
+        for (User student : studentsOnEveryShard()) {
+            GradeDto created = grade(student, "Parcial", 12.5);
+            int owner = shardMap.shardOfUser(student.getId());
+
+            assertEquals(owner, created.getId() % SHARDS);
+            assertEquals(1, shard(owner).queryForObject("SELECT COUNT(*) FROM grades WHERE id = ?", Integer.class, created.getId()));
+            assertEquals(1, shardsHolding(created.getId()));
+        }
+    }
+
+    @Test
+    void singleStudentQueries_TouchOnlyTheirShard() {
+        User student = studentsOnEveryShard().get(0);
+        grade(student, "Parcial", 11.0);
+        grade(student, "Final", 16.0);
+        int owner = shardMap.shardOfUser(student.getId());
+        double[] before = IntStream.range(0, SHARDS).mapToDouble(this::statements).toArray();
+
+        assertEquals(2, gradeRepository.countByUser(student));
+        assertEquals(2, gradeRepository.findByUserIdOrderByCreatedAtDesc(student.getId()).size());
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            if (shard == owner) {
+                assertEquals(before[shard] + 2, statements(shard));
+            } else {
+                assertEquals(before[shard], statements(shard));
+            }
+        }
+    }
+
+    @Test
+    void teacherQueries_ScatterToAllShards_AndMergeResults() {
+        List<User> students = studentsOnEveryShard();
+        long countBefore = gradeRepository.count();
+        for (int i = 0; i < students.size(); i++) {
+            grade(students.get(i), "Parcial", 10.0 + i % 3);
+        }
+
+        assertEquals(countBefore + students.size(), gradeRepository.count());
+
+        grade(students.get(0), "Final", 20.0);
+        Integer courseId = shard(0).queryForObject("SELECT id FROM courses WHERE code = ?", Integer.class, course);
+        List<ScoreBucketRow> histogram = gradeRepository.histogramByCourse().stream()
+                .filter(row -> courseId.equals(row.getCourseId())).toList();
+        assertEquals(students.size() + 1, histogram.stream().mapToLong(ScoreBucketRow::getCount).sum());
+        assertEquals(histogram.size(), histogram.stream().map(ScoreBucketRow::getBucket).distinct().count());
+
+        List<StudentGradeRow> all = gradeRepository.findTopByCourse(courseId, PageRequest.of(0, 100));
+        assertEquals(students.size() + 1, all.size());
+        assertEquals(200, all.get(0).getScoreTenths().intValue());
+        assertEquals(all.stream().sorted(Comparator.comparing(StudentGradeRow::getScoreTenths, Comparator.reverseOrder())
+                .thenComparing(StudentGradeRow::getId)).toList(), all);
+        assertEquals(all.subList(2, 4).stream().map(StudentGradeRow::getId).toList(),
+                gradeRepository.findTopByCourse(courseId, PageRequest.of(1, 2)).stream().map(StudentGradeRow::getId).toList());
+    }
+
+    @Test
+    void gradebook_MergesStudentsFromAllShardsInUsernameOrder() {
+        List<User> students = studentsOnEveryShard();
+        for (User student : students) {
+            grade(student, "Parcial", 15.0);
+        }
+
+        GradebookDto gradebook = gradeService.getGradebook(0, 500, List.of(course), GradebookDto.CellValue.LATEST);
+
+        assertEquals(gradebook.getStudents().stream().sorted().toList(), gradebook.getStudents());
+        assertEquals(gradebook.getStudents().stream().distinct().count(), gradebook.getStudents().size());
+        Double[] column = gradebook.getScores().get(0);
+        for (User student : students) {
+            assertEquals(15.0, column[gradebook.getStudents().indexOf(student.getUsername())]);
+        }
+    }
+
+    @Test
+    void updateAndDelete_RouteByGradeId() {
+        User student = studentsOnEveryShard().get(0);
+        GradeDto created = grade(student, "Parcial", 9.0);
+        int owner = shardMap.shardOfUser(student.getId());
+
+        created.setScore(17.5);
+        gradeService.updateGrade(created.getId(), created);
+        assertEquals(175, shard(owner).queryForObject(
+                "SELECT score_tenths FROM grades WHERE id = ?", Integer.class, created.getId()));
+
+        gradeService.deleteGrade(created.getId());
+        assertTrue(shard(owner).queryForObject("SELECT deleted FROM grades WHERE id = ?", Boolean.class, created.getId()));
+        assertTrue(gradeRepository.findById(created.getId()).isEmpty());
+    }
+
+    @Test
+    void shardLayout_ChangedWhileShardHasGrades_IsRejected() {
+        User student = studentsOnEveryShard().get(0);
+        grade(student, "Parcial", 14.0);
+        int shard = shardMap.shardOfUser(student.getId());
+
+        assertThrows(IllegalStateException.class,
+                () -> ShardLayout.verify(shard(shard), shard, ShardMap.of(SHARDS + 1, 64, "")));
+        assertThrows(IllegalStateException.class,
+                () -> ShardLayout.verify(shard(shard), shard, ShardMap.of(SHARDS, 64, "0-63:" + shard)));
+        assertThrows(IllegalStateException.class,
+                () -> ShardLayout.verify(shard(shard), (shard + 1) % SHARDS, shardMap));
+        // La misma asignación escrita de otra forma no es un cambio
+        assertDoesNotThrow(() -> ShardLayout.verify(shard(shard), shard, ShardMap.of(SHARDS, 64,
+                String.join(",", IntStream.range(0, 64).mapToObj(bucket -> bucket + ":" + bucket % SHARDS).toList()))));
+    }
+
+    @Test
+    void reassigningGradeToStudentOnAnotherShard_IsRejected() {
+        List<User> students = studentsOnEveryShard();
+        User owner = students.get(0);
+        User elsewhere = students.stream()
+                .filter(student -> shardMap.shardOfUser(student.getId()) != shardMap.shardOfUser(owner.getId()))
+                .findFirst().orElseThrow();
+        GradeDto created = grade(owner, "Parcial", 13.0);
+
+        created.setStudentUsername(elsewhere.getUsername());
+        assertThrows(InvalidRequestException.class, () -> gradeService.updateGrade(created.getId(), created));
+        assertEquals(owner.getId(), shard(shardMap.shardOfUser(owner.getId())).queryForObject(
+                "SELECT user_id FROM grades WHERE id = ?", Long.class, created.getId()));
+    }
+
+    @Test
+    void transcriptsAndFinals_LiveOnTheirStudentsShard_AndTermsOnEveryShard() throws InterruptedException {
+        List<User> students = studentsOnEveryShard();
+        finalGradeService.defineComponent(course, "Exámenes", (short) 60);
+        finalGradeService.defineComponent(course, "Laboratorios", (short) 40);
+        for (User student : students) {
+            grade(student, "Exámenes", "Parcial", 15.0);
+        }
+        // El periodo se copia a todos los shards y rellena el expediente de cada estudiante en el suyo
+        LocalDate today = LocalDate.now();
+        transcriptService.createTerm(new TermDto("T-" + course, today.minusDays(1), today.plusDays(1)));
+        for (User student : students) {
+            grade(student, "Laboratorios", "Lab 1", 10.0);
+        }
+
+        for (int shard = 0; shard < SHARDS; shard++) {
+            assertEquals(1, shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM terms WHERE code = ?", Integer.class, "T-" + course));
+            assertEquals(3, shard(shard).queryForObject(
+                    "SELECT COUNT(*) FROM term_days d JOIN terms t ON t.id = d.term_id WHERE t.code = ?",
+                    Integer.class, "T-" + course));
+        }
+        for (User student : students) {
+            int home = shardMap.shardOfUser(student.getId());
+            for (String table : List.of("transcript_entries", "component_scores", "course_finals")) {
+                int[] rows = rowsPerShard(table, student);
+                for (int shard = 0; shard < SHARDS; shard++) {
+                    assertEquals(shard == home, rows[shard] > 0, table + " del estudiante en el shard " + shard);
+                }
+            }
+            assertEquals(2, shard(home).queryForObject(
+                    "SELECT grade_count FROM transcript_entries WHERE user_id = ?", Integer.class, student.getId()));
+        }
+
+        // El recálculo de un cambio de peso reparte los lotes por shard y la lista del curso los mezcla
+        RecomputationDto recomputation = finalGradeService.defineComponent(course, "Laboratorios", (short) 60)
+                .getRecomputation();
+        for (int attempt = 0; attempt < 100 && recomputation.getStatus() != RecomputationDto.Status.COMPLETED; attempt++) {
+            Thread.sleep(100);
+            recomputation = finalGradeService.getRecomputation(course, recomputation.getId());
+        }
+        assertEquals(RecomputationDto.Status.COMPLETED, recomputation.getStatus());
+        assertEquals(students.size(), recomputation.getProcessed());
+        assertTrue(recomputation.getChunks() >= SHARDS);
+
+        List<FinalGradeDto> finals = finalGradeService.getCourseFinals(course);
+        assertEquals(students.size(), finals.size());
+        assertEquals(students.stream().map(User::getUsername).sorted().toList(),
+                finals.stream().map(FinalGradeDto::getStudent).toList());
+        // (60·15 + 60·10) / 120
+        finals.forEach(row -> assertEquals(12.5, row.getScore(), 1e-9));
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.pruebaTecnica.tenancy;
+
+import com.example.pruebaTecnica.dto.GradeDto;
+import com.example.pruebaTecnica.dto.UserLoginDto;
+import com.example.pruebaTecnica.dto.UserRegistrationDto;
+import com.example.pruebaTecnica.entity.Grade;
+import com.example.pruebaTecnica.event.GradeChangedEvent;
+import com.example.pruebaTecnica.repository.GradeByStudentRepository;
+import com.example.pruebaTecnica.repository.GradeRepository;
+import com.example.pruebaTecnica.repository.UserRepository;
+import com.example.pruebaTecnica.service.GradeEntityCache;
+import com.example.pruebaTecnica.util.JwtUtils;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Pruebas de integración de la multi-tenancy con tres esquemas H2 en la misma base en memoria
+ * Cada prueba registra sus propios usuarios, con el mismo nombre en varios tenants, y comprueba
+ * en qué esquema quedó cada fila leyendo directamente los pools de los tenants.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tenancy;DB_CLOSE_DELAY=-1",
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.sql.init.mode=never",
+        "grades.tenancy.enabled=true",
+        "grades.tenancy.tenants=colegio-a,colegio-b,colegio-c",
+        "grades.tenancy.pool-size.colegio-c=2",
+        "grades.tenancy.connection-timeout=250ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class TenancyIntegrationTest {
+
+    private static final String A = "colegio-a";
+    private static final String B = "colegio-b";
+    private static final String C = "colegio-c";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TenantRoutingDataSource dataSource;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private GradeRepository gradeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private GradeEntityCache gradeEntityCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private JdbcTemplate tenant(String tenant) {
+        return new JdbcTemplate(dataSource.pool(tenant));
+    }
+
+    private void register(String tenant, String username, String role) throws Exception {
+        UserRegistrationDto user = new UserRegistrationDto();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password123");
+        user.setRole(role);
+        mockMvc.perform(post("/api/auth/register")
+                        .header(TenantFilter.HEADER, tenant)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated());
+    }
+
+    private String login(String tenant, String username) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .header(TenantFilter.HEADER, tenant)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserLoginDto(username, "password123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("token").asText();
+    }
+
+    private JsonNode perform(MockHttpServletRequestBuilder request, String token) throws Exception {
+        String body = mockMvc.perform(request.header("Authorization", "Bearer " + token))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private long createGrade(String teacherToken, String student, String course, double score) throws Exception {
+        GradeDto grade = new GradeDto();
+        grade.setStudentUsername(student);
+        grade.setCourse(course);
+        grade.setScore(score);
+        return perform(post("/api/grades")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(grade)), teacherToken).get("id").asLong();
+    }
+
+    @Test
+    void sameUsernamesInTwoTenants_SeeOnlyTheirOwnGrades() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String teacher = "profe-" + suffix;
+        String student = "alumno-" + suffix;
+        for (String tenant : new String[]{A, B}) {
+            register(tenant, teacher, "TEACHER");
+            register(tenant, student, "STUDENT");
+        }
+        long gradeA = createGrade(login(A, teacher), student, "Álgebra", 15.0);
+        long gradeB = createGrade(login(B, teacher), student, "Historia", 9.0);
+
+        assertEquals(1, tenant(A).queryForObject("SELECT COUNT(*) FROM grades WHERE id = ? AND score_tenths = 150", Integer.class, gradeA));
+        assertEquals(1, tenant(B).queryForObject("SELECT COUNT(*) FROM grades WHERE id = ? AND score_tenths = 90", Integer.class, gradeB));
+        assertEquals(0, tenant(C).queryForObject("SELECT COUNT(*) FROM users WHERE username = ?", Integer.class, student));
+
+        // Dos veces: la segunda lectura sale de las vistas y cachés en memoria, que son por tenant
+        for (int i = 0; i < 2; i++) {
+            JsonNode gradesA = perform(get("/api/grades"), login(A, student));
+            assertEquals(1, gradesA.size());
+            assertEquals("Álgebra", gradesA.get(0).get("course").asText());
+
+            JsonNode gradesB = perform(get("/api/grades"), login(B, student));
+            assertEquals(1, gradesB.size());
+            assertEquals("Historia", gradesB.get(0).get("course").asText());
+
+            assertEquals(15.0, perform(get("/api/grades/" + gradeA), login(A, teacher)).get("score").asDouble());
+            assertEquals(9.0, perform(get("/api/grades/" + gradeB), login(B, teacher)).get("score").asDouble());
+        }
+        // Cada tenant registra sus propias métricas
+        for (String tenant : new String[]{A, B}) {
+            assertNotNull(meterRegistry.find("grades.courses.dictionary.size").tag("tenant", tenant).gauge());
+            assertNotNull(meterRegistry.find("grades.read_model.requests").tag("tenant", tenant).tag("result", "hit").counter());
+        }
+    }
+
+    private <T> T inTenant(String tenant, Supplier<T> work) {
+        TenantContext.set(tenant);
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> work.get());
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    // La nota por id y la lista cacheada de las notas del estudiante, cada una en su sesión del tenant
+    private void readGrades(String tenant, String student, long gradeId) {
+        inTenant(tenant, () -> gradeRepository.findById(gradeId).orElseThrow());
+        inTenant(tenant, () -> gradeRepository.findByUserOrderByCreatedAtDesc(
+                userRepository.findByUsername(student).orElseThrow()));
+    }
+
+    @Test
+    void nativeGradeWrite_EvictsOnlyItsTenantsCacheEntries() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        String teacher = "profe-" + suffix;
+        String student = "alumno-" + suffix;
+        for (String tenant : new String[]{A, B}) {
+            register(tenant, teacher, "TEACHER");
+            register(tenant, student, "STUDENT");
+        }
+        long gradeA = createGrade(login(A, teacher), student, "Álgebra", 15.0);
+        long gradeB = createGrade(login(B, teacher), student, "Historia", 9.0);
+        readGrades(A, student, gradeA);
+        readGrades(B, student, gradeB);
+
+        // Upsert nativo en colegio-a: se descartan su nota y su región de consultas, no las de colegio-b
+        TenantContext.set(A);
+        try {
+            gradeEntityCache.onGradeChanged(GradeChangedEvent.upserted(null, null,
+                    new GradeDto(gradeA, "Álgebra", Grade.toTenths(15.0), null, student, null, null)));
+        } finally {
+            TenantContext.clear();
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long queryHitsA = statistics.getQueryRegionStatistics(GradeByStudentRepository.regionOf(A)).getHitCount();
+        long queryHitsB = statistics.getQueryRegionStatistics(GradeByStudentRepository.regionOf(B)).getHitCount();
+        long gradeMisses = statistics.getEntityStatistics(Grade.class.getName()).getCacheMissCount();
+        readGrades(B, student, gradeB);
+        assertEquals(queryHitsB + 1, statistics.getQueryRegionStatistics(GradeByStudentRepository.regionOf(B)).getHitCount());
+        assertEquals(gradeMisses, statistics.getEntityStatistics(Grade.class.getName()).getCacheMissCount());
+
+        readGrades(A, student, gradeA);
+        assertEquals(queryHitsA, statistics.getQueryRegionStatistics(GradeByStudentRepository.regionOf(A)).getHitCount());
+        assertTrue(statistics.getEntityStatistics(Grade.class.getName()).getCacheMissCount() > gradeMisses);
+    }
+
+    @Test
+    void tokenCarriesTenantClaim_AndWinsOverHeader() throws Exception {
+        String student = "alumno-" + UUID.randomUUID().toString().substring(0, 8);
+        register(A, student, "STUDENT");
+        String token = login(A, student);
+
+        assertEquals(A, jwtUtils.getTenantFromJwtToken(token));
+        // El usuario no existe en colegio-b: si mandara la cabecera, el token no autenticaría
+        mockMvc.perform(get("/api/grades")
+                        .header("Authorization", "Bearer " + token)
+                        .header(TenantFilter.HEADER, B))
+                .andExpect(status().isOk());
+        // Sin cabecera ni token se usa el tenant por defecto, el primero de la lista
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserLoginDto(student, "password123"))))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unknownTenant_IsRejected() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .header(TenantFilter.HEADER, "colegio-z")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new UserLoginDto("nadie", "password123"))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exhaustedTenantPool_DoesNotStarveOtherTenants() throws Exception {
+        assertEquals(2.0, meterRegistry.get("hikaricp.connections.max").tag("pool", "tenant-" + C).gauge().value());
+        assertEquals(5.0, meterRegistry.get("hikaricp.connections.max").tag("pool", "tenant-" + A).gauge().value());
+
+        try (Connection first = dataSource.pool(C).getConnection();
+             Connection second = dataSource.pool(C).getConnection()) {
+            assertThrows(SQLException.class, () -> dataSource.pool(C).getConnection().close());
+            assertEquals(1, tenant(A).queryForObject("SELECT 1", Integer.class));
+            String student = "alumno-" + UUID.randomUUID().toString().substring(0, 8);
+            register(A, student, "STUDENT");
+        }
+
+        double before = meterRegistry.get("grades.tenancy.requests").tag("tenant", B).timer().count();
+        register(B, "alumno-" + UUID.randomUUID().toString().substring(0, 8), "STUDENT");
+        assertEquals(before + 1, meterRegistry.get("grades.tenancy.requests").tag("tenant", B).timer().count());
+    }
+}